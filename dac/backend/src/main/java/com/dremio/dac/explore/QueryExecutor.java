@@ -50,6 +50,7 @@ import com.dremio.service.jobs.JobStatusListener;
 import com.dremio.service.jobs.JobsService;
 import com.dremio.service.jobs.NoOpJobStatusListener;
 import com.dremio.service.jobs.SqlQuery;
+import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.dataset.DatasetVersion;
 import com.dremio.service.namespace.file.FileFormat;
 
@@ -150,6 +151,10 @@ public class QueryExecutor {
           public OptionValue getOption(String optionKey) {
             throw new UnsupportedOperationException();
           }
+
+          @Override
+          public void datasetResolved(NamespaceKey key, Long version) {
+          }
         })
         .build();
     final SchemaPlus schema = schemaProvider.getRootSchema(schemaConfig);
@@ -97,6 +97,13 @@ public class ElasticConnectionPool implements AutoCloseable {
   // Version 5x or higher
   private static final Version ELASTICSEARCH_VERSION_5X = new Version(5, 0, 0);
 
+  // First version with composite aggregations that keep the buckets of missing values (missing_bucket).
+  public static final Version ELASTICSEARCH_VERSION_COMPOSITE_AGGREGATION = new Version(6, 4, 0);
+
+  // First version computing the slices of a sliced scroll over the shards selected by the search preference, rather
+  // than over all the shards of the index.
+  private static final Version ELASTICSEARCH_VERSION_SLICES_REQUESTED_SHARDS = new Version(6, 4, 0);
+
   private volatile ImmutableMap<String, WebTarget> clients;
   private Client client;
   private final String delimitedHosts;
@@ -126,6 +133,12 @@ public class ElasticConnectionPool implements AutoCloseable {
    */
   private boolean enable5vFeatures;
 
+  /**
+   * Flag to indicate if the current cluster supports paging through aggregation buckets with composite aggregations.
+   */
+  private boolean enableCompositeAggregation;
+  private boolean slicesRequestedShards;
+
   /**
    * The lowest version found in the cluster.
    */
@@ -293,6 +306,8 @@ public class ElasticConnectionPool implements AutoCloseable {
     return new SourceCapabilities(
         new BooleanCapabilityValue(ElasticsearchStoragePlugin.ENABLE_V5_FEATURES, enable5vFeatures),
         new BooleanCapabilityValue(ElasticsearchStoragePlugin.SUPPORTS_NEW_FEATURES, enableNewFeatures),
+        new BooleanCapabilityValue(ElasticsearchStoragePlugin.SUPPORTS_COMPOSITE_AGGREGATION, enableCompositeAggregation),
+        new BooleanCapabilityValue(ElasticsearchStoragePlugin.SLICES_REQUESTED_SHARDS, slicesRequestedShards),
         new BooleanCapabilityValue(SourceCapabilities.SUPPORTS_CONTAINS, true)
         );
   }
@@ -394,6 +409,9 @@ public class ElasticConnectionPool implements AutoCloseable {
       enable5vFeatures = false;
     }
 
+    enableCompositeAggregation = minVersionInCluster.compareTo(ELASTICSEARCH_VERSION_COMPOSITE_AGGREGATION) >= 0;
+    slicesRequestedShards = minVersionInCluster.compareTo(ELASTICSEARCH_VERSION_SLICES_REQUESTED_SHARDS) >= 0;
+
     return hosts;
   }
 
@@ -83,6 +83,8 @@ public class ElasticsearchStoragePlugin implements StoragePlugin {
 
   public static final BooleanCapability ENABLE_V5_FEATURES = new BooleanCapability("enable_elastic_v5_feature", false);
   public static final BooleanCapability SUPPORTS_NEW_FEATURES = new BooleanCapability("supports_new_features", false);
+  public static final BooleanCapability SUPPORTS_COMPOSITE_AGGREGATION = new BooleanCapability("supports_composite_aggregation", false);
+  public static final BooleanCapability SLICES_REQUESTED_SHARDS = new BooleanCapability("slices_requested_shards", false);
 
 
   private final StoragePluginType elasticType;
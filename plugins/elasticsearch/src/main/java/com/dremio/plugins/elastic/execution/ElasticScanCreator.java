@@ -66,6 +66,19 @@ public class ElasticScanCreator implements ProducerOperator.Creator<Elasticsearc
             return input.getHost();
           }}));
 
+        if (spec.getAggregation() != null) {
+          readers.add(new ElasticsearchAggregateRecordReader(
+              context,
+              spec,
+              split,
+              connection,
+              subScan.getColumns(),
+              subScan.getSchema(),
+              plugin.getConfig().getBatchSize()
+              ));
+          continue;
+        }
+
         readers.add(new ElasticsearchRecordReader(
             plugin,
             subScan.getTableSchemaPath(),
@@ -81,7 +94,7 @@ public class ElasticScanCreator implements ProducerOperator.Creator<Elasticsearc
             ));
       }
 
-      return new ScanOperator(fec.getSchemaUpdater(), subScan, context, readers.iterator());
+      return new ScanOperator(fec, subScan, context, readers.iterator());
     } catch (InvalidProtocolBufferException e) {
       throw new ExecutionSetupException(e);
     }
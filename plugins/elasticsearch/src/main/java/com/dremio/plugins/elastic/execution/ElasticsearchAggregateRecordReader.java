@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.execution;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.NullableBitVector;
+import org.apache.arrow.vector.NullableFloat4Vector;
+import org.apache.arrow.vector.NullableFloat8Vector;
+import org.apache.arrow.vector.NullableIntVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.store.AbstractRecordReader;
+import com.dremio.plugins.elastic.ElasticActions.Search;
+import com.dremio.plugins.elastic.ElasticConnectionPool.ElasticConnection;
+import com.dremio.plugins.elastic.ElasticsearchConstants;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec.Function;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec.Metric;
+import com.dremio.plugins.elastic.planning.ElasticsearchScanSpec;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Record reader for an aggregation pushed down into Elastic. Groups are paged through with a composite aggregation,
+ * and each bucket of a page becomes a row holding its keys and metrics. Without group keys, a single row is read from
+ * a filter aggregation matching all the documents.
+ */
+public class ElasticsearchAggregateRecordReader extends AbstractRecordReader {
+
+  private static final Logger logger = LoggerFactory.getLogger(ElasticsearchAggregateRecordReader.class);
+
+  static final String GROUPS = "groups";
+  static final String ALL = "all";
+  private static final String AGGREGATIONS = "aggregations";
+  private static final String BUCKETS = "buckets";
+  private static final String KEY = "key";
+  private static final String AFTER_KEY = "after_key";
+  private static final String DOC_COUNT = "doc_count";
+  private static final String VALUE = "value";
+  private static final String COUNT_SUFFIX = "_count";
+  // largest integer below which every integer has an exact double representation.
+  private static final double MAX_EXACT_INTEGER = 1L << 53;
+
+  private final ElasticConnection connection;
+  private final ElasticsearchScanSpec spec;
+  private final ElasticAggregationSpec aggregation;
+  private final BatchSchema schema;
+  private final OperatorStats stats;
+  private final ElasticSplitXattr splitAttributes;
+  private final String resource;
+  private final int pageSize;
+
+  private final List<ValueVector> vectors = new ArrayList<>();
+  private final List<MinorType> types = new ArrayList<>();
+  private Iterator<JsonElement> buckets;
+  private JsonObject after;
+  private boolean depleted;
+
+  public ElasticsearchAggregateRecordReader(
+      OperatorContext context,
+      ElasticsearchScanSpec spec,
+      DatasetSplit split,
+      ElasticConnection connection,
+      List<SchemaPath> columns,
+      BatchSchema schema,
+      int pageSize) throws InvalidProtocolBufferException {
+    super(context, columns);
+    this.spec = spec;
+    this.aggregation = Preconditions.checkNotNull(spec.getAggregation());
+    this.connection = connection;
+    this.schema = schema;
+    this.stats = context == null ? null : context.getStats();
+    this.pageSize = pageSize;
+    this.splitAttributes = split == null ? null : ElasticSplitXattr.parseFrom(split.getExtendedProperty().toByteArray());
+    this.resource = split == null ? spec.getResource() : splitAttributes.getResource();
+  }
+
+  @Override
+  public void setup(OutputMutator output) throws ExecutionSetupException {
+    Preconditions.checkArgument(schema.getFieldCount() == aggregation.getGroupFields().size() + aggregation.getMetrics().size(),
+        "Schema %s doesn't match aggregation %s", schema, aggregation);
+    for (Field field : schema) {
+      final CompleteType type = CompleteType.fromField(field);
+      vectors.add(output.addField(field, type.getValueVectorClass()));
+      types.add(type.toMinorType());
+    }
+  }
+
+  @Override
+  public int next() {
+    int count = 0;
+    while (count < numRowsPerBatch) {
+      if (buckets == null || !buckets.hasNext()) {
+        if (depleted) {
+          break;
+        }
+        buckets = getNextPage().iterator();
+        continue;
+      }
+      writeBucket(buckets.next().getAsJsonObject(), count);
+      count++;
+    }
+
+    for (ValueVector vector : vectors) {
+      vector.setValueCount(count);
+    }
+    return count;
+  }
+
+  private JsonArray getNextPage() {
+    final String request = buildRequest(spec.getQuery(), aggregation, pageSize, after);
+    final Search search = new Search()
+        .setQuery(request)
+        .setResource(resource);
+    if (splitAttributes != null) {
+      search.setParameter("preference", "_shards:" + splitAttributes.getShard());
+    }
+
+    final JsonObject response;
+    try {
+      if (stats != null) {
+        stats.startWait();
+      }
+      try {
+        response = new JsonParser().parse(new String(connection.execute(search), Charsets.UTF_8)).getAsJsonObject();
+      } finally {
+        if (stats != null) {
+          stats.stopWait();
+        }
+      }
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+        .message("Failure when reading Elastic aggregation.")
+        .addContext("Resource", resource)
+        .addContext("Shard", splitAttributes == null ? "all" : splitAttributes.getShard())
+        .addContext("Query", request)
+        .build(logger);
+    }
+
+    final JsonObject aggregations = response.getAsJsonObject(AGGREGATIONS);
+    if (aggregation.getGroupFields().isEmpty()) {
+      depleted = true;
+      final JsonArray single = new JsonArray();
+      single.add(aggregations.getAsJsonObject(ALL));
+      return single;
+    }
+
+    final JsonObject groups = aggregations.getAsJsonObject(GROUPS);
+    final JsonArray page = groups.getAsJsonArray(BUCKETS);
+    after = getAfterKey(groups);
+    depleted = page.size() < pageSize || after == null;
+    return page;
+  }
+
+  /**
+   * Get the key to resume the composite aggregation from, falling back to the key of the last bucket for versions
+   * that don't return it.
+   */
+  static JsonObject getAfterKey(JsonObject groups) {
+    final JsonElement afterKey = groups.get(AFTER_KEY);
+    if (afterKey != null && afterKey.isJsonObject()) {
+      return afterKey.getAsJsonObject();
+    }
+    final JsonArray page = groups.getAsJsonArray(BUCKETS);
+    if (page == null || page.size() == 0) {
+      return null;
+    }
+    return page.get(page.size() - 1).getAsJsonObject().getAsJsonObject(KEY);
+  }
+
+  /**
+   * Build the search request of a page of groups.
+   * @param query the search request built for the scan, with its query.
+   * @param after the key of the last group read, or null for the first page.
+   */
+  static String buildRequest(String query, ElasticAggregationSpec aggregation, int pageSize, JsonObject after) {
+    final JsonObject request = query == null || query.isEmpty() ? new JsonObject() : new JsonParser().parse(query).getAsJsonObject();
+    request.remove("from");
+    request.remove(ElasticsearchConstants.SOURCE);
+    request.addProperty("size", 0);
+
+    final JsonObject metrics = new JsonObject();
+    final List<Metric> metricList = aggregation.getMetrics();
+    for (int i = 0; i < metricList.size(); i++) {
+      final Metric metric = metricList.get(i);
+      if (metric.getField() == null) {
+        // COUNT(*) is the document count of the bucket.
+        continue;
+      }
+      switch (metric.getFunction()) {
+      case SUM:
+        // the sum of a bucket with no value is 0, so values are counted to return null instead.
+        metrics.add(metricName(i) + COUNT_SUFFIX, metricAggregation("value_count", metric.getField()));
+        metrics.add(metricName(i), metricAggregation("sum", metric.getField()));
+        break;
+      case SUM0:
+        metrics.add(metricName(i), metricAggregation("sum", metric.getField()));
+        break;
+      case MIN:
+        metrics.add(metricName(i), metricAggregation("min", metric.getField()));
+        break;
+      case MAX:
+        metrics.add(metricName(i), metricAggregation("max", metric.getField()));
+        break;
+      case COUNT:
+        metrics.add(metricName(i), metricAggregation("value_count", metric.getField()));
+        break;
+      default:
+        throw new UnsupportedOperationException("Unknown aggregate function " + metric.getFunction());
+      }
+    }
+
+    final JsonObject bucketAggregation = new JsonObject();
+    final List<String> groupFields = aggregation.getGroupFields();
+    if (groupFields.isEmpty()) {
+      final JsonObject filter = new JsonObject();
+      filter.add("match_all", new JsonObject());
+      bucketAggregation.add("filter", filter);
+    } else {
+      final JsonArray sources = new JsonArray();
+      for (int i = 0; i < groupFields.size(); i++) {
+        final JsonObject terms = new JsonObject();
+        terms.addProperty("field", groupFields.get(i));
+        terms.addProperty("missing_bucket", true);
+        final JsonObject source = new JsonObject();
+        source.add("terms", terms);
+        final JsonObject namedSource = new JsonObject();
+        namedSource.add(keyName(i), source);
+        sources.add(namedSource);
+      }
+
+      final JsonObject composite = new JsonObject();
+      composite.addProperty("size", pageSize);
+      composite.add("sources", sources);
+      if (after != null) {
+        composite.add("after", after);
+      }
+      bucketAggregation.add("composite", composite);
+    }
+
+    if (metrics.entrySet().size() > 0) {
+      bucketAggregation.add(AGGREGATIONS, metrics);
+    }
+
+    final JsonObject aggregations = new JsonObject();
+    aggregations.add(groupFields.isEmpty() ? ALL : GROUPS, bucketAggregation);
+    request.add(AGGREGATIONS, aggregations);
+    return request.toString();
+  }
+
+  private static JsonObject metricAggregation(String type, String field) {
+    final JsonObject body = new JsonObject();
+    body.addProperty("field", field);
+    final JsonObject metric = new JsonObject();
+    metric.add(type, body);
+    return metric;
+  }
+
+  private static String keyName(int index) {
+    return "k" + index;
+  }
+
+  private static String metricName(int index) {
+    return "m" + index;
+  }
+
+  private void writeBucket(JsonObject bucket, int index) {
+    final List<String> groupFields = aggregation.getGroupFields();
+    final JsonObject key = bucket.getAsJsonObject(KEY);
+    for (int i = 0; i < groupFields.size(); i++) {
+      write(vectors.get(i), types.get(i), index, key.get(keyName(i)));
+    }
+
+    final List<Metric> metrics = aggregation.getMetrics();
+    for (int i = 0; i < metrics.size(); i++) {
+      final int column = groupFields.size() + i;
+      final JsonElement value = getMetricValue(bucket, metrics.get(i), i);
+      checkExact(metrics.get(i), types.get(column), value);
+      write(vectors.get(column), types.get(column), index, value);
+    }
+  }
+
+  /**
+   * Fail if the value of an integer metric computed as a double by Elastic, such as the sum of an INT field, may
+   * have lost precision.
+   */
+  static void checkExact(Metric metric, MinorType type, JsonElement value) {
+    if (type != MinorType.BIGINT || metric.getFunction() == Function.COUNT || value == null || value.isJsonNull()) {
+      return;
+    }
+    if (Math.abs(value.getAsDouble()) >= MAX_EXACT_INTEGER) {
+      throw UserException.dataReadError()
+        .message("Elastic returned %s for %s of %s, which may not be exact.", value, metric.getFunction(),
+            metric.getField())
+        .build(logger);
+    }
+  }
+
+  /**
+   * Get the value of a metric from a bucket.
+   */
+  static JsonElement getMetricValue(JsonObject bucket, Metric metric, int index) {
+    if (metric.getField() == null) {
+      return bucket.get(DOC_COUNT);
+    }
+    if (metric.getFunction() == Function.SUM) {
+      final JsonElement count = bucket.getAsJsonObject(metricName(index) + COUNT_SUFFIX).get(VALUE);
+      if (count == null || count.isJsonNull() || count.getAsLong() == 0) {
+        return JsonNull.INSTANCE;
+      }
+    }
+    return bucket.getAsJsonObject(metricName(index)).get(VALUE);
+  }
+
+  private static void write(ValueVector vector, MinorType type, int index, JsonElement value) {
+    if (value == null || value.isJsonNull()) {
+      return;
+    }
+
+    final JsonPrimitive primitive = value.getAsJsonPrimitive();
+    switch (type) {
+    case VARCHAR:
+      final byte[] bytes = primitive.getAsString().getBytes(Charsets.UTF_8);
+      ((NullableVarCharVector) vector).setSafe(index, bytes, 0, bytes.length);
+      break;
+    case BIT:
+      // boolean keys may be returned as numbers.
+      final boolean bit = primitive.isBoolean() ? primitive.getAsBoolean()
+          : primitive.isNumber() ? primitive.getAsDouble() != 0 : Boolean.parseBoolean(primitive.getAsString());
+      ((NullableBitVector) vector).setSafe(index, bit ? 1 : 0);
+      break;
+    case INT:
+      ((NullableIntVector) vector).setSafe(index, primitive.getAsInt());
+      break;
+    case BIGINT:
+      ((NullableBigIntVector) vector).setSafe(index, primitive.getAsLong());
+      break;
+    case FLOAT4:
+      ((NullableFloat4Vector) vector).setSafe(index, primitive.getAsFloat());
+      break;
+    case FLOAT8:
+      ((NullableFloat8Vector) vector).setSafe(index, primitive.getAsDouble());
+      break;
+    default:
+      throw UserException.unsupportedError()
+        .message("Reading Elastic aggregation results of type %s is not supported.", type)
+        .build(logger);
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+  }
+}
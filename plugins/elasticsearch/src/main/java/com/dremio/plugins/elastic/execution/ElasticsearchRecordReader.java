@@ -18,7 +18,11 @@ package com.dremio.plugins.elastic.execution;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.client.InvocationCallback;
@@ -68,6 +72,8 @@ import com.fasterxml.jackson.core.JsonGenerationException;
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import io.protostuff.ByteString;
@@ -106,8 +112,12 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
   private final boolean metaIndexSelected;
   private final boolean metaTypeSelected;
   private final ElasticsearchStoragePlugin plugin;
+  private final ExecutorService prefetchExecutor;
 
   private long totalSize;
+  private int searchSize;
+  private long requestedSize;
+  private Future<byte[]> nextPage;
   private long totalCount;
   private String scrollId;
   private VectorContainerWriter complexWriter;
@@ -144,6 +154,22 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
     this.metaIDSelected = config.isIdColumnEnabled() && (getColumns().contains(SchemaPath.getSimplePath(ElasticsearchConstants.ID)) || isStarQuery());
     this.metaTypeSelected = getColumns().contains(SchemaPath.getSimplePath(ElasticsearchConstants.TYPE)) || isStarQuery();
     this.metaIndexSelected = getColumns().contains(SchemaPath.getSimplePath(ElasticsearchConstants.INDEX)) || isStarQuery();
+    this.prefetchExecutor = getPrefetchExecutor(context, spec);
+  }
+
+  /**
+   * Get the executor fetching scroll pages in the background, or null to fetch them synchronously. Limited reads and
+   * contexts without an executor, such as the ones used to sample the schema of a table, don't prefetch.
+   */
+  private static ExecutorService getPrefetchExecutor(OperatorContext context, ElasticsearchScanSpec spec) {
+    if (context == null || spec.getFetch() >= 0 || !context.getOptions().getOption(ExecConstants.ELASTIC_SCROLL_PREFETCH)) {
+      return null;
+    }
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
   }
 
   @Override
@@ -244,16 +270,31 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
     }
   }
 
+  /**
+   * Add the slice of a sliced scroll to the query, if the split is a slice of a shard.
+   */
+  static String addSlice(String query, ElasticSplitXattr splitAttributes) {
+    if (splitAttributes == null || splitAttributes.getSliceMax() <= 1) {
+      return query;
+    }
+    final JsonObject request = new JsonParser().parse(query).getAsJsonObject();
+    final JsonObject slice = new JsonObject();
+    slice.addProperty("id", splitAttributes.getSliceId());
+    slice.addProperty("max", splitAttributes.getSliceMax());
+    request.add("slice", slice);
+    return request.toString();
+  }
+
   private void getFirstPage() {
     assert state == State.INIT;
-    int searchSize = config.getBatchSize();
+    searchSize = config.getBatchSize();
     int fetch = spec.getFetch();
     if (fetch >= 0 &&  fetch < searchSize) {
       searchSize = fetch;
     }
 
     final Search search = new Search()
-        .setQuery(query)
+        .setQuery(addSlice(query, splitAttributes))
         .setResource(resource)
         .setParameter("scroll", config.getScrollTimeoutFormatted())
         .setParameter("size", Integer.toString(searchSize));
@@ -271,6 +312,8 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
       Pair<String, Long> scrollIdAndTotalSize = jsonReader.getScrollAndTotalSizeThenSeekToHits();
       scrollId = scrollIdAndTotalSize.getKey();
       totalSize = scrollIdAndTotalSize.getValue();
+      requestedSize = searchSize;
+      prefetchNextPage();
     } catch (IOException e) {
       throw UserException.dataReadError(e)
         .message("Failure when initating Elastic query.")
@@ -283,14 +326,47 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
     state = State.READ;
   }
 
+  /**
+   * Request the next page in the background while the current one is read, if more documents are expected.
+   */
+  private void prefetchNextPage() {
+    if (prefetchExecutor == null || requestedSize >= totalSize) {
+      return;
+    }
+    final SearchScroll searchScroll = new SearchScroll()
+        .setScrollId(scrollId)
+        .setScrollTimeout(config.getScrollTimeoutFormatted());
+    nextPage = prefetchExecutor.submit(new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        return connection.execute(searchScroll);
+      }
+    });
+    requestedSize += searchSize;
+  }
+
   private byte[] getNextPage() throws IOException {
     try {
       if (stats != null) {
         stats.startWait();
       }
+      if (nextPage != null) {
+        final Future<byte[]> page = nextPage;
+        nextPage = null;
+        try {
+          return page.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for the next scroll page.", e);
+        } catch (ExecutionException e) {
+          Throwables.propagateIfPossible(e.getCause(), IOException.class);
+          throw new IOException(e.getCause());
+        }
+      }
       SearchScroll searchScroll = new SearchScroll()
           .setScrollId(scrollId)
           .setScrollTimeout(config.getScrollTimeoutFormatted());
+      requestedSize += searchSize;
       return connection.execute(searchScroll);
     } finally {
       if (stats != null) {
@@ -347,6 +423,7 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
         if(!badStreamBreak){
           jsonReader.setSource(bytes);
           scrollId = jsonReader.getScrollAndTotalSizeThenSeekToHits().getKey();
+          prefetchNextPage();
           continue;
         }
 
@@ -407,6 +484,11 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
       return;
     }
 
+    if (nextPage != null) {
+      nextPage.cancel(true);
+      nextPage = null;
+    }
+
     DeleteScroll delete = new DeleteScroll(scrollId);
     try {
       final CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.planning;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Aggregation pushed down into Elastic. Groups are read from a composite aggregation over the group fields, one
+ * terms source per field, and each metric is read from a metric sub aggregation of the buckets. Output columns are
+ * the group fields followed by the metrics.
+ */
+public class ElasticAggregationSpec {
+
+  /**
+   * Aggregate functions that can be computed by Elastic.
+   */
+  public static enum Function {
+    /** Sum of the values, null when the bucket has no value. */
+    SUM,
+    /** Sum of the values, zero when the bucket has no value. */
+    SUM0,
+    MIN,
+    MAX,
+    /** Number of documents with a value, or number of documents in the bucket when there is no field. */
+    COUNT
+  }
+
+  private final List<String> groupFields;
+  private final List<Metric> metrics;
+
+  @JsonCreator
+  public ElasticAggregationSpec(
+      @JsonProperty("groupFields") List<String> groupFields,
+      @JsonProperty("metrics") List<Metric> metrics) {
+    this.groupFields = groupFields == null ? ImmutableList.<String>of() : ImmutableList.copyOf(groupFields);
+    this.metrics = metrics == null ? ImmutableList.<Metric>of() : ImmutableList.copyOf(metrics);
+  }
+
+  public List<String> getGroupFields() {
+    return groupFields;
+  }
+
+  public List<Metric> getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (!(other instanceof ElasticAggregationSpec)) {
+      return false;
+    }
+    ElasticAggregationSpec castOther = (ElasticAggregationSpec) other;
+    return Objects.equal(groupFields, castOther.groupFields) && Objects.equal(metrics, castOther.metrics);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(groupFields, metrics);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("groupFields", groupFields).add("metrics", metrics).toString();
+  }
+
+  /**
+   * A metric computed for each group.
+   */
+  public static class Metric {
+    private final Function function;
+    private final String field;
+
+    @JsonCreator
+    public Metric(
+        @JsonProperty("function") Function function,
+        @JsonProperty("field") String field) {
+      this.function = function;
+      this.field = field;
+    }
+
+    public Function getFunction() {
+      return function;
+    }
+
+    /**
+     * @return the aggregated field, or null for COUNT(*).
+     */
+    public String getField() {
+      return field;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (!(other instanceof Metric)) {
+        return false;
+      }
+      Metric castOther = (Metric) other;
+      return Objects.equal(function, castOther.function) && Objects.equal(field, castOther.field);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(function, field);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("function", function).add("field", field).toString();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.dremio.exec.ops.OptimizerRulesContext;
 import com.dremio.exec.planner.PlannerPhase;
 import com.dremio.exec.server.options.OptionManager;
 import com.dremio.exec.store.StoragePluginTypeRulesFactory;
+import com.dremio.plugins.elastic.planning.rules.ElasticAggregateRule;
 import com.dremio.plugins.elastic.planning.rules.ElasticFilterRule;
 import com.dremio.plugins.elastic.planning.rules.ElasticLimitRule;
 import com.dremio.plugins.elastic.planning.rules.ElasticProjectRule;
@@ -64,6 +65,10 @@ public class ElasticRulesFactory implements StoragePluginTypeRulesFactory {
         builder.add(ElasticSampleRule.INSTANCE);
       }
 
+      if (options.getOption(ExecConstants.ELASTIC_RULES_AGGREGATE)) {
+        builder.add(ElasticAggregateRule.INSTANCE);
+      }
+
       return builder.build();
 
     default:
@@ -15,14 +15,22 @@
  */
 package com.dremio.plugins.elastic.planning;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.utils.ProtostuffUtil;
+import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
 import com.dremio.exec.physical.base.AbstractGroupScan;
 import com.dremio.exec.physical.base.SubScan;
 import com.dremio.exec.planner.fragment.DistributionAffinity;
+import com.dremio.exec.planner.fragment.ExecutionNodeMap;
 import com.dremio.exec.proto.UserBitShared.CoreOperatorType;
+import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.store.SplitWork;
 import com.dremio.exec.store.TableMetadata;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
@@ -30,7 +38,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.protostuff.ByteString;
 
 /**
  * Elasticsearch group scan.
@@ -39,6 +51,9 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
 
   private final ElasticsearchScanSpec spec;
   private final long rowCountEstimate;
+  private final BatchSchema schema;
+  private final int slicesPerShard;
+  private final boolean slicesRequestedShards;
 
   public ElasticsearchGroupScan(
       ElasticsearchScanSpec spec,
@@ -46,9 +61,29 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
       List<SchemaPath> columns,
       long rowCountEstimate
       ) {
+    this(spec, table, columns, null, rowCountEstimate, 1, false);
+  }
+
+  /**
+   * @param schema schema of the scan output if it isn't the table schema, as when an aggregation is pushed down.
+   * @param slicesPerShard number of slices each shard is scrolled in, each slice being a separate split.
+   * @param slicesRequestedShards whether Elastic computes slices over the shards selected by the search preference.
+   */
+  public ElasticsearchGroupScan(
+      ElasticsearchScanSpec spec,
+      TableMetadata table,
+      List<SchemaPath> columns,
+      BatchSchema schema,
+      long rowCountEstimate,
+      int slicesPerShard,
+      boolean slicesRequestedShards
+      ) {
     super(table, columns);
     this.spec = spec;
+    this.schema = schema;
     this.rowCountEstimate = rowCountEstimate;
+    this.slicesPerShard = slicesPerShard;
+    this.slicesRequestedShards = slicesRequestedShards;
   }
 
   @JsonProperty("spec")
@@ -56,6 +91,76 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
     return spec;
   }
 
+  @Override
+  public BatchSchema getSchema() {
+    return schema == null ? super.getSchema() : schema;
+  }
+
+  @Override
+  public int getMaxParallelizationWidth() {
+    return super.getMaxParallelizationWidth() * slicesPerShard;
+  }
+
+  @Override
+  public Iterator<SplitWork> getSplits(ExecutionNodeMap nodeMap) {
+    if (slicesPerShard <= 1) {
+      return super.getSplits(nodeMap);
+    }
+    return SplitWork.transform(toSlices(getDataset().getSplits(), slicesPerShard, slicesRequestedShards).iterator(), nodeMap, getDistributionAffinity());
+  }
+
+  /**
+   * Split each shard into slices of a sliced scroll. Each slice is read with a preference for its shard.
+   *
+   * Since Elastic 6.4, slices are computed over the shards selected by the preference, so the slices of a shard are
+   * the ids {@code 0} to {@code slicesPerShard - 1}. Older versions compute them over all the shards of the index, and
+   * slice shards first: when there are more slices than shards, slice {@code id} is read from shard
+   * {@code id % shards}, which is split again into {@code max / shards} slices. So the slices of a shard are the ids
+   * congruent to the shard number, out of {@code shards * slicesPerShard} slices of its index.
+   */
+  static List<DatasetSplit> toSlices(Iterator<DatasetSplit> splits, int slicesPerShard, boolean slicesRequestedShards) {
+    final List<DatasetSplit> shards = new ArrayList<>();
+    final List<ElasticSplitXattr> attributes = new ArrayList<>();
+    final Map<String, Integer> shardCounts = new HashMap<>();
+    while (splits.hasNext()) {
+      final DatasetSplit split = splits.next();
+      final ElasticSplitXattr splitAttributes;
+      try {
+        splitAttributes = ElasticSplitXattr.parseFrom(split.getExtendedProperty().toByteArray());
+      } catch (InvalidProtocolBufferException e) {
+        throw Throwables.propagate(e);
+      }
+      shards.add(split);
+      attributes.add(splitAttributes);
+      final Integer count = shardCounts.get(splitAttributes.getResource());
+      shardCounts.put(splitAttributes.getResource(), count == null ? 1 : count + 1);
+    }
+
+    final List<DatasetSplit> slices = new ArrayList<>();
+    for (int i = 0; i < shards.size(); i++) {
+      final DatasetSplit split = shards.get(i);
+      final ElasticSplitXattr splitAttributes = attributes.get(i);
+      final int shardCount = shardCounts.get(splitAttributes.getResource());
+      for (int slice = 0; slice < slicesPerShard; slice++) {
+        final ElasticSplitXattr.Builder sliceAttributes = splitAttributes.toBuilder();
+        if (slicesRequestedShards) {
+          sliceAttributes.setSliceId(slice).setSliceMax(slicesPerShard);
+        } else {
+          sliceAttributes.setSliceId(splitAttributes.getShard() + slice * shardCount)
+              .setSliceMax(shardCount * slicesPerShard);
+        }
+        final DatasetSplit sliceSplit = ProtostuffUtil.copy(split)
+            .setSplitKey(split.getSplitKey() + "-" + slice)
+            .setExtendedProperty(ByteString.copyFrom(sliceAttributes.build().toByteArray()));
+        if (split.getSize() != null) {
+          sliceSplit.setSize(split.getSize() / slicesPerShard);
+        }
+        slices.add(sliceSplit);
+      }
+    }
+    return slices;
+  }
+
   @Override
   public SubScan getSpecificScan(List<SplitWork> work) throws ExecutionSetupException {
     List<DatasetSplit> splitWork = FluentIterable.from(work).transform(new Function<SplitWork, DatasetSplit>(){
@@ -91,17 +196,19 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
       return false;
     }
     ElasticsearchGroupScan castOther = (ElasticsearchGroupScan) other;
-    return Objects.equal(spec, castOther.spec) && Objects.equal(rowCountEstimate, castOther.rowCountEstimate);
+    return Objects.equal(spec, castOther.spec) && Objects.equal(rowCountEstimate, castOther.rowCountEstimate)
+        && slicesPerShard == castOther.slicesPerShard && slicesRequestedShards == castOther.slicesRequestedShards;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hashCode(spec, rowCountEstimate);
+    return Objects.hashCode(spec, rowCountEstimate, slicesPerShard, slicesRequestedShards);
   }
 
   @Override
   public String toString() {
-    return MoreObjects.toStringHelper(this).add("spec", spec).add("rowCountEstimate", rowCountEstimate).toString();
+    return MoreObjects.toStringHelper(this).add("spec", spec).add("rowCountEstimate", rowCountEstimate)
+        .add("slicesPerShard", slicesPerShard).toString();
   }
 
 
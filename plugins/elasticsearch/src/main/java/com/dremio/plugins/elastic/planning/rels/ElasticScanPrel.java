@@ -77,7 +77,9 @@ public class ElasticScanPrel extends AbstractRelNode implements LeafPrel, Custom
 
   @Override
   public RelWriter explainTerms(RelWriter pw) {
-    return super.explainTerms(pw).item("resource", scanBuilder.getResource()).item("columns", scanBuilder.getColumns()).item("pushdown\n ", scanBuilder.getQuery());
+    return super.explainTerms(pw).item("resource", scanBuilder.getResource()).item("columns", scanBuilder.getColumns())
+        .itemIf("aggregation", scanBuilder.getAggregation(), scanBuilder.getAggregation() != null)
+        .item("pushdown\n ", scanBuilder.getQuery());
   }
 
   @Override
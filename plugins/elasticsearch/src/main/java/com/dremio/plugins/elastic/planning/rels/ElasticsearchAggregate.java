@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.planning.rels;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+
+import com.dremio.exec.expr.fn.FunctionLookupContext;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.planner.physical.PhysicalPlanCreator;
+import com.dremio.exec.planner.physical.Prel;
+import com.dremio.exec.planner.physical.PrelUtil;
+import com.dremio.exec.planner.physical.visitor.PrelVisitor;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec;
+import com.dremio.service.namespace.StoragePluginId;
+
+/**
+ * An aggregation computed by Elastic. Its output has one row per group, with the group keys followed by the
+ * aggregated values, as described by the aggregation spec.
+ */
+public class ElasticsearchAggregate extends SingleRel implements ElasticsearchPrel, ElasticTerminalPrel {
+
+  private final ElasticAggregationSpec aggregation;
+  private final StoragePluginId pluginId;
+  private final double rowCount;
+
+  public ElasticsearchAggregate(RelOptCluster cluster, RelTraitSet traits, RelNode input, RelDataType rowType,
+      ElasticAggregationSpec aggregation, double rowCount, StoragePluginId pluginId) {
+    super(cluster, traits, input);
+    this.rowType = rowType;
+    this.aggregation = aggregation;
+    this.rowCount = rowCount;
+    this.pluginId = pluginId;
+  }
+
+  public ElasticAggregationSpec getAggregation() {
+    return aggregation;
+  }
+
+  @Override
+  public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+    return new ElasticsearchAggregate(getCluster(), traitSet, sole(inputs), rowType, aggregation, rowCount, pluginId);
+  }
+
+  @Override
+  protected RelDataType deriveRowType() {
+    return rowType;
+  }
+
+  @Override
+  public RelWriter explainTerms(RelWriter pw) {
+    return super.explainTerms(pw).item("groups", aggregation.getGroupFields()).item("metrics", aggregation.getMetrics());
+  }
+
+  @Override
+  public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq).multiplyBy(0.1D);
+  }
+
+  @Override
+  public double estimateRowCount(RelMetadataQuery mq) {
+    return rowCount;
+  }
+
+  @Override
+  public PhysicalOperator getPhysicalOperator(PhysicalPlanCreator creator) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <T, X, E extends Throwable> T accept(PrelVisitor<T, X, E> visitor, X value) throws E {
+    return visitor.visitPrel(this, value);
+  }
+
+  @Override
+  public SelectionVectorMode[] getSupportedEncodings() {
+    return SelectionVectorMode.DEFAULT;
+  }
+
+  @Override
+  public SelectionVectorMode getEncoding() {
+    return SelectionVectorMode.NONE;
+  }
+
+  @Override
+  public boolean needsFinalColumnReordering() {
+    return false;
+  }
+
+  @Override
+  public ScanBuilder newScanBuilder() {
+    return new ScanBuilder();
+  }
+
+  @Override
+  public Iterator<Prel> iterator() {
+    return PrelUtil.iter(getInput());
+  }
+
+  @Override
+  public BatchSchema getSchema(FunctionLookupContext context) {
+    return BatchSchema.fromCalciteRowType(rowType);
+  }
+
+  @Override
+  public StoragePluginId getPluginId() {
+    return pluginId;
+  }
+}
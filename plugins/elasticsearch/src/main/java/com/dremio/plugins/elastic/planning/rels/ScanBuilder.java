@@ -16,6 +16,7 @@
 package com.dremio.plugins.elastic.planning.rels;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -42,8 +43,11 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.GroupScan;
 import com.dremio.exec.planner.physical.PrelUtil;
+import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.store.SplitWork;
+import com.dremio.plugins.elastic.ElasticsearchStoragePlugin;
 import com.dremio.plugins.elastic.ElasticsearchStoragePluginConfig;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec;
 import com.dremio.plugins.elastic.planning.ElasticsearchGroupScan;
 import com.dremio.plugins.elastic.planning.ElasticsearchScanSpec;
 import com.dremio.plugins.elastic.planning.rules.ExpressionNotAnalyzableException;
@@ -56,13 +60,20 @@ import com.google.common.collect.ImmutableSet;
 public class ScanBuilder {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ScanBuilder.class);
 
-  private final static ImmutableSet<Class<?>> CONSUMEABLE_RELS = ImmutableSet.<Class<?>>of(ElasticsearchSample.class, ElasticsearchLimit.class, ElasticsearchFilter.class, ElasticIntermediateScanPrel.class);
+  private final static ImmutableSet<Class<?>> CONSUMEABLE_RELS = ImmutableSet.<Class<?>>of(ElasticsearchAggregate.class, ElasticsearchSample.class, ElasticsearchLimit.class, ElasticsearchFilter.class, ElasticIntermediateScanPrel.class);
 
   private ElasticsearchScanSpec spec;
   private ElasticIntermediateScanPrel scan;
+  private ElasticsearchAggregate aggregate;
+  private List<SchemaPath> columns;
+  private int slicesPerShard = 1;
 
   public GroupScan<SplitWork> toGroupScan(long estimatedRowCount){
-    return new ElasticsearchGroupScan(spec, scan.getTableMetadata(), scan.getProjectedColumns(), estimatedRowCount);
+    final BatchSchema schema = aggregate == null ? null : aggregate.getSchema(null);
+    final boolean slicesRequestedShards =
+        scan.getPluginId().getCapabilities().getCapability(ElasticsearchStoragePlugin.SLICES_REQUESTED_SHARDS);
+    return new ElasticsearchGroupScan(spec, scan.getTableMetadata(), columns, schema, estimatedRowCount, slicesPerShard,
+        slicesRequestedShards);
   }
 
   public String getResource(){
@@ -74,7 +85,11 @@ public class ScanBuilder {
   }
 
   public List<SchemaPath> getColumns(){
-    return scan.getProjectedColumns();
+    return columns;
+  }
+
+  public ElasticAggregationSpec getAggregation(){
+    return spec.getAggregation();
   }
 
   /**
@@ -83,10 +98,10 @@ public class ScanBuilder {
    *   The stack must have a leaf that is an ElasticsearchScan
    *   The stack must not include a ElasitcsearchProject (this should have been removed in rel finalization prior to invoking ScanBuilder.
    *   The stack can only include the following rels (and only one each):
-   *     ElasticsearchScanPrel, ElasticsearchFilter, ElasticsearchSample, ElasticsearchLimit
+   *     ElasticsearchScanPrel, ElasticsearchFilter, ElasticsearchSample, ElasticsearchLimit, ElasticsearchAggregate
    *
    *   The order must be
-   *   ElasticsearchSample (or ElasticsearchLimit) (optional)
+   *   ElasticsearchSample (or ElasticsearchLimit or ElasticsearchAggregate) (optional)
    *       \
    *     ElasticsearchFilter (optional)
    *         \
@@ -115,11 +130,13 @@ public class ScanBuilder {
       Preconditions.checkArgument(stack.get(0) instanceof ElasticIntermediateScanPrel);
       break;
     case 2:
-      Preconditions.checkArgument(stack.get(0) instanceof ElasticsearchSample || stack.get(0) instanceof ElasticsearchFilter || stack.get(0) instanceof ElasticsearchLimit);
+      Preconditions.checkArgument(stack.get(0) instanceof ElasticsearchSample || stack.get(0) instanceof ElasticsearchFilter || stack.get(0) instanceof ElasticsearchLimit
+          || stack.get(0) instanceof ElasticsearchAggregate);
       Preconditions.checkArgument(stack.get(1) instanceof ElasticIntermediateScanPrel);
       break;
     case 3:
-      Preconditions.checkArgument(stack.get(0) instanceof ElasticsearchSample || stack.get(0) instanceof ElasticsearchLimit);
+      Preconditions.checkArgument(stack.get(0) instanceof ElasticsearchSample || stack.get(0) instanceof ElasticsearchLimit
+          || stack.get(0) instanceof ElasticsearchAggregate);
       Preconditions.checkArgument(stack.get(1) instanceof ElasticsearchFilter);
       Preconditions.checkArgument(stack.get(2) instanceof ElasticIntermediateScanPrel);
       break;
@@ -205,6 +222,7 @@ public class ScanBuilder {
       final ElasticsearchFilter filter = (ElasticsearchFilter) map.get(ElasticsearchFilter.class);
       final ElasticsearchSample sample = (ElasticsearchSample) map.get(ElasticsearchSample.class);
       final ElasticsearchLimit limit = (ElasticsearchLimit) map.get(ElasticsearchLimit.class);
+      final ElasticsearchAggregate aggregate = (ElasticsearchAggregate) map.get(ElasticsearchAggregate.class);
 
       applyEdgeProjection(searchRequest, scan);
       applyFilter(searchRequest, scan, filter, tableAttributes);
@@ -214,10 +232,23 @@ public class ScanBuilder {
           tableAttributes.getResource(),
           searchRequest.toString(),
           fetch,
-          filter != null || sample != null || limit != null);
+          filter != null || sample != null || limit != null || aggregate != null,
+          aggregate == null ? null : aggregate.getAggregation());
 
       this.spec = scanSpec;
       this.scan = scan;
+      this.aggregate = aggregate;
+      this.slicesPerShard = getSlicesPerShard(scan, aggregate, limit, sample);
+      if (aggregate == null) {
+        this.columns = scan.getProjectedColumns();
+      } else {
+        // the aggregate reads its own output columns rather than table columns.
+        final List<SchemaPath> columns = new ArrayList<>();
+        for (String name : aggregate.getRowType().getFieldNames()) {
+          columns.add(SchemaPath.getSimplePath(name));
+        }
+        this.columns = columns;
+      }
     } catch (ExpressionNotAnalyzableException e) {
       throw UserException.dataReadError(e).message("Elastic pushdown failed to late to recover query.").build(logger);
     } catch (IOException e) {
@@ -225,6 +256,18 @@ public class ScanBuilder {
     }
   }
 
+  /**
+   * Get the number of slices each shard is scrolled in. Sliced scrolls need Elastic 5, and are not worth it for
+   * aggregations or limited reads that are a page at most.
+   */
+  protected int getSlicesPerShard(ElasticIntermediateScanPrel scan, ElasticsearchAggregate aggregate, ElasticsearchLimit limit, ElasticsearchSample sample) {
+    if (aggregate != null || limit != null || sample != null
+        || !scan.getPluginId().getCapabilities().getCapability(ElasticsearchStoragePlugin.ENABLE_V5_FEATURES)) {
+      return 1;
+    }
+    return (int) PrelUtil.getPlannerSettings(scan.getCluster()).getOptions().getOption(ExecConstants.ELASTIC_SCROLL_SLICES_PER_SHARD);
+  }
+
   protected SearchRequestBuilder buildRequestBuilder() {
     SearchRequestBuilder searchRequestBuilder = new SearchRequestBuilder(new ElasticsearchClient() {
       @Override
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.planning.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.planner.cost.DefaultRelMetadataProvider;
+import com.dremio.exec.planner.logical.RelOptHelper;
+import com.dremio.exec.planner.physical.AggPrelBase;
+import com.dremio.plugins.elastic.ElasticsearchConstants;
+import com.dremio.plugins.elastic.ElasticsearchStoragePlugin;
+import com.dremio.plugins.elastic.mapping.FieldAnnotation;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec.Function;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec.Metric;
+import com.dremio.plugins.elastic.planning.rels.ElasticIntermediateScanPrel;
+import com.dremio.plugins.elastic.planning.rels.ElasticIntermediateScanPrel.IndexMode;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchAggregate;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchFilter;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchIntermediatePrel;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchLimit;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchPrel;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchProject;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchSample;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Pushes a group by with SUM, MIN, MAX and COUNT aggregates into Elastic, where it is computed as a composite
+ * aggregation. AVG has been reduced to SUM and COUNT by then.
+ *
+ * Each split of the scan is aggregated separately, so only the first phase of a two phase aggregation, or an
+ * aggregation over a single split is pushed down. Keys and aggregated values must be fields read from doc values.
+ * BIGINT fields can be grouped on and counted, but not summed, as Elastic returns sums, minimums and maximums as
+ * doubles.
+ */
+public class ElasticAggregateRule extends RelOptRule {
+
+  public static final ElasticAggregateRule INSTANCE = new ElasticAggregateRule();
+
+  private static final ImmutableSet<SqlTypeName> KEY_TYPES = ImmutableSet.of(
+      SqlTypeName.VARCHAR, SqlTypeName.BOOLEAN, SqlTypeName.INTEGER, SqlTypeName.BIGINT, SqlTypeName.FLOAT,
+      SqlTypeName.DOUBLE);
+
+  // Elastic computes sum, min and max as doubles, which can't hold every BIGINT value.
+  private static final ImmutableSet<SqlTypeName> NUMERIC_TYPES = ImmutableSet.of(
+      SqlTypeName.INTEGER, SqlTypeName.FLOAT, SqlTypeName.DOUBLE);
+
+  public ElasticAggregateRule() {
+    super(RelOptHelper.some(AggPrelBase.class, RelOptHelper.any(ElasticsearchIntermediatePrel.class)), "ElasticAggregateRule");
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    final AggPrelBase aggregate = call.rel(0);
+    final ElasticsearchIntermediatePrel intermediatePrel = call.rel(1);
+
+    if (intermediatePrel.hasTerminalPrel()
+        || intermediatePrel.contains(ElasticsearchSample.class)
+        || intermediatePrel.contains(ElasticsearchLimit.class)) {
+      return false;
+    }
+
+    if (!intermediatePrel.getPluginId().getCapabilities().getCapability(ElasticsearchStoragePlugin.SUPPORTS_COMPOSITE_AGGREGATION)) {
+      return false;
+    }
+
+    // every split is aggregated on its own.
+    final ElasticIntermediateScanPrel scan = intermediatePrel.get(ElasticIntermediateScanPrel.class);
+    if (!aggregate.isPartialAggregation() && scan.getTableMetadata().getSplitCount() > 1) {
+      return false;
+    }
+
+    if (aggregate.indicator || aggregate.getGroupSets().size() != 1) {
+      return false;
+    }
+
+    return toAggregation(aggregate, intermediatePrel) != null;
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    final AggPrelBase aggregate = call.rel(0);
+    final ElasticsearchIntermediatePrel intermediatePrel = call.rel(1);
+    final ElasticAggregationSpec aggregation = toAggregation(aggregate, intermediatePrel);
+    if (aggregation == null) {
+      return;
+    }
+
+    // projects are not needed anymore as the aggregation only references fields of the scan.
+    final ElasticsearchIntermediatePrel withoutProject = intermediatePrel.filter(new Predicate<RelNode>() {
+      @Override
+      public boolean apply(RelNode input) {
+        return !(input instanceof ElasticsearchProject);
+      }});
+
+    final RelNode input = withoutProject.getInput();
+    final RelMetadataQuery mq = DefaultRelMetadataProvider.INSTANCE.getRelMetadataQuery();
+    final ElasticsearchAggregate newAggregate = new ElasticsearchAggregate(
+        input.getCluster(),
+        input.getTraitSet(),
+        input,
+        aggregate.getRowType(),
+        aggregation,
+        aggregate.estimateRowCount(mq),
+        intermediatePrel.getPluginId());
+    call.transformTo(intermediatePrel.withNewInput(newAggregate));
+  }
+
+  /**
+   * Build the aggregation computed by Elastic.
+   * @return the aggregation, or null if the aggregate can't be pushed down.
+   */
+  static ElasticAggregationSpec toAggregation(AggPrelBase aggregate, ElasticsearchIntermediatePrel intermediatePrel) {
+    final ElasticIntermediateScanPrel scan = intermediatePrel.get(ElasticIntermediateScanPrel.class);
+    final List<ElasticsearchProject> projects = new ArrayList<>();
+    boolean belowProjects = false;
+    for (ElasticsearchPrel prel : StackFinder.getStack(intermediatePrel.getInput())) {
+      if (prel instanceof ElasticsearchProject) {
+        if (belowProjects) {
+          // a filter references the output of this project, it can't be removed.
+          return null;
+        }
+        projects.add((ElasticsearchProject) prel);
+      } else {
+        belowProjects = true;
+      }
+    }
+
+    final RexBuilder rexBuilder = aggregate.getCluster().getRexBuilder();
+    final RelNode input = aggregate.getInput();
+    final ImmutableList.Builder<String> groupFields = ImmutableList.builder();
+    for (int key : aggregate.getGroupSet()) {
+      final String field = getField(scan, projects, rexBuilder.makeInputRef(input, key), KEY_TYPES);
+      if (field == null) {
+        return null;
+      }
+      groupFields.add(field);
+    }
+
+    final ImmutableList.Builder<Metric> metrics = ImmutableList.builder();
+    for (AggregateCall aggCall : aggregate.getAggCallList()) {
+      if (aggCall.isDistinct() || aggCall.filterArg >= 0 || aggCall.getArgList().size() > 1) {
+        return null;
+      }
+
+      final Function function;
+      final SqlKind kind = aggCall.getAggregation().getKind();
+      switch (kind) {
+      case SUM:
+        function = Function.SUM;
+        break;
+      case SUM0:
+        function = Function.SUM0;
+        break;
+      case MIN:
+        function = Function.MIN;
+        break;
+      case MAX:
+        function = Function.MAX;
+        break;
+      case COUNT:
+        function = Function.COUNT;
+        break;
+      default:
+        return null;
+      }
+
+      if (aggCall.getArgList().isEmpty()) {
+        if (function != Function.COUNT) {
+          return null;
+        }
+        metrics.add(new Metric(function, null));
+        continue;
+      }
+
+      final RexNode arg = rexBuilder.makeInputRef(input, aggCall.getArgList().get(0));
+      final String field = getField(scan, projects, arg, function == Function.COUNT ? KEY_TYPES : NUMERIC_TYPES);
+      if (field == null) {
+        return null;
+      }
+      metrics.add(new Metric(function, field));
+    }
+
+    return new ElasticAggregationSpec(groupFields.build(), metrics.build());
+  }
+
+  /**
+   * Get the name of the field referenced by an expression, if it is a scan field of one of the allowed types that
+   * Elastic can aggregate.
+   */
+  private static String getField(ElasticIntermediateScanPrel scan, List<ElasticsearchProject> projects, RexNode expr,
+      ImmutableSet<SqlTypeName> allowedTypes) {
+    RexNode scanExpr = expr;
+    for (ElasticsearchProject project : projects) {
+      scanExpr = RelOptUtil.pushPastProject(scanExpr, project);
+    }
+
+    if (!allowedTypes.contains(scanExpr.getType().getSqlTypeName())) {
+      return null;
+    }
+
+    final SchemaPath path = scan.getDirectReferenceIfPossible(scanExpr, IndexMode.DISALLOW);
+    if (path == null || ElasticsearchConstants.META_PATHS.contains(path)) {
+      return null;
+    }
+
+    // text fields are aggregated on their terms rather than their values, and fields without doc values can't be
+    // aggregated at all.
+    final FieldAnnotation annotation = scan.getAnnotation(path);
+    if (annotation != null && (annotation.isAnalyzed() || annotation.isNormalized() || annotation.isDocValueMissing())) {
+      return null;
+    }
+    if (scan.getSpecialTypeRecursive(path) != null) {
+      return null;
+    }
+
+    return path.getAsUnescapedPath();
+  }
+}
@@ -469,6 +469,14 @@ public class ElasticsearchCluster implements Closeable {
     }
   }
 
+  /**
+   * Whether aggregations can be pushed down into the cluster as composite aggregations.
+   */
+  public boolean supportsCompositeAggregation() {
+    return new com.dremio.plugins.Version(version.major, version.minor, version.revision).compareTo(
+        ElasticConnectionPool.ELASTICSEARCH_VERSION_COMPOSITE_AGGREGATION) >= 0;
+  }
+
   /**
    * Waits for cluster to attain green state.
    */
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic;
+
+import static com.dremio.plugins.elastic.ElasticBaseTestQuery.TestNameGenerator.schemaName;
+import static com.dremio.plugins.elastic.ElasticsearchType.LONG;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.plugins.elastic.ElasticsearchCluster.ColumnData;
+
+/**
+ * Tests when aggregations are pushed down into Elastic as composite aggregations. Aggregations are only pushed down
+ * into clusters that support composite aggregations, so the other tests check that the plan is not pushed down and
+ * that the results are correct either way.
+ */
+public class TestAggregatePushdown extends ElasticBaseTestQuery {
+
+  private static final String PUSHED_DOWN = "aggregation=ElasticAggregationSpec";
+
+  @Before
+  public void loadTable() throws Exception {
+    load(schema, table, getBusinessData());
+  }
+
+  private void testPushdown(String sql, boolean pushedDown) throws Exception {
+    if (pushedDown && elastic.supportsCompositeAggregation()) {
+      testPlanMatchingPatterns(sql, new String[] {PUSHED_DOWN});
+    } else {
+      testPlanMatchingPatterns(sql, new String[] {}, PUSHED_DOWN);
+    }
+  }
+
+  @Test
+  public void groupByIsPushedDown() throws Exception {
+    final String sql = String.format("select state, sum(review_count) as reviews, min(stars) as min_stars, count(*) as c "
+        + "from elasticsearch.%s.%s group by state", schema, table);
+    testPushdown(sql, true);
+    testBuilder()
+        .sqlQuery(sql)
+        .unOrdered()
+        .baselineColumns("state", "reviews", "min_stars", "c")
+        .baselineValues("MA", 22L, 4.5f, 2L)
+        .baselineValues("CA", 56L, 1f, 3L)
+        .go();
+  }
+
+  @Test
+  public void analyzedKeyIsNotPushedDown() throws Exception {
+    final String sql = String.format("select state_analyzed, count(*) as c from elasticsearch.%s.%s group by state_analyzed",
+        schema, table);
+    testPushdown(sql, false);
+    testBuilder()
+        .sqlQuery(sql)
+        .unOrdered()
+        .baselineColumns("state_analyzed", "c")
+        .baselineValues("MA", 2L)
+        .baselineValues("CA", 3L)
+        .go();
+  }
+
+  @Test
+  public void aggregateOverLimitIsNotPushedDown() throws Exception {
+    final String sql = String.format("select count(*) as c from (select state from elasticsearch.%s.%s limit 3)",
+        schema, table);
+    testPushdown(sql, false);
+    testBuilder()
+        .sqlQuery(sql)
+        .unOrdered()
+        .baselineColumns("c")
+        .baselineValues(3L)
+        .go();
+  }
+
+  @Test
+  public void aggregateOverSampleIsNotPushedDown() throws Exception {
+    final String sql = String.format("select state, count(*) as c from elasticsearch.%s.%s group by state", schema, table);
+    setSessionOption(PlannerSettings.ENABLE_LEAF_LIMITS, "true");
+    try {
+      testPushdown(sql, false);
+    } finally {
+      resetSessionOption(PlannerSettings.ENABLE_LEAF_LIMITS);
+    }
+  }
+
+  @Test
+  public void singlePhaseAggregateOverSplitsIsNotPushedDown() throws Exception {
+    final String shardedSchema = schemaName();
+    elastic.schema(3, 0, shardedSchema);
+    elastic.load(shardedSchema, table, getBusinessData());
+
+    final String sql = String.format("select state, count(*) as c from elasticsearch.%s.%s group by state",
+        shardedSchema, table);
+    setSessionOption(PlannerSettings.MULTIPHASE, "false");
+    try {
+      testPushdown(sql, false);
+      testBuilder()
+          .sqlQuery(sql)
+          .unOrdered()
+          .baselineColumns("state", "c")
+          .baselineValues("MA", 2L)
+          .baselineValues("CA", 3L)
+          .go();
+    } finally {
+      resetSessionOption(PlannerSettings.MULTIPHASE);
+    }
+  }
+
+  @Test
+  public void bigintSumIsNotPushedDown() throws Exception {
+    // beyond 2^53, where doubles can't hold every long.
+    final ColumnData[] data = new ColumnData[] {
+        new ColumnData("big", LONG, new Object[][] {
+            {9007199254740993L},
+            {1L}
+        })
+    };
+    final String bigSchema = schemaName();
+    elastic.load(bigSchema, table, data);
+
+    final String sql = String.format("select sum(big) as s, max(big) as m from elasticsearch.%s.%s", bigSchema, table);
+    testPushdown(sql, false);
+    testBuilder()
+        .sqlQuery(sql)
+        .unOrdered()
+        .baselineColumns("s", "m")
+        .baselineValues(9007199254740994L, 9007199254740993L)
+        .go();
+
+    // counts are exact.
+    testPushdown(String.format("select count(big) as c from elasticsearch.%s.%s", bigSchema, table), true);
+  }
+}
@@ -15,11 +15,13 @@
  */
 package com.dremio.plugins.elastic;
 
+import static com.dremio.plugins.elastic.ElasticBaseTestQuery.TestNameGenerator.schemaName;
 import static com.dremio.plugins.elastic.ElasticsearchType.INTEGER;
 
 import org.junit.Test;
 
 import com.dremio.TestBuilder;
+import com.dremio.exec.ExecConstants;
 import com.dremio.plugins.elastic.ElasticBaseTestQuery.ElasticScrollSize;
 
 @ElasticScrollSize(scrollSize=128)
@@ -49,4 +51,40 @@ public class TestScroll extends ElasticBaseTestQuery {
 
     builder.go();
   }
+
+  /**
+   * Each document of a sharded index is read exactly once when shards are read in slices. Slices are only used with
+   * Elastic 5 and above, so older clusters check the unsliced read.
+   */
+  @Test
+  public void testSlicedScroll() throws Exception {
+    final int rowCount = 1000;
+    Object[][] obj = new Object[rowCount][1];
+    for (int i = 0; i < rowCount; i++) {
+      obj[i][0] = i;
+    }
+    ElasticsearchCluster.ColumnData[] data = new ElasticsearchCluster.ColumnData[]{
+      new ElasticsearchCluster.ColumnData("val", INTEGER, obj)
+    };
+
+    final String slicedSchema = schemaName();
+    elastic.schema(3, 0, slicedSchema);
+    elastic.load(slicedSchema, table, data);
+
+    setSessionOption(ExecConstants.ELASTIC_SCROLL_SLICES_PER_SHARD, "4");
+    try {
+      TestBuilder builder = testBuilder()
+        .sqlQuery(String.format("select val from elasticsearch.%s.%s", slicedSchema, table))
+        .unOrdered()
+        .baselineColumns("val");
+
+      for (int i = 0; i < rowCount; i++) {
+        builder.baselineValues(i);
+      }
+
+      builder.go();
+    } finally {
+      resetSessionOption(ExecConstants.ELASTIC_SCROLL_SLICES_PER_SHARD);
+    }
+  }
 }
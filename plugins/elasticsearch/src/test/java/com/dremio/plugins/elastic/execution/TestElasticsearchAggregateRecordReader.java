@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.proto.UserBitShared;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec.Function;
+import com.dremio.plugins.elastic.planning.ElasticAggregationSpec.Metric;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+public class TestElasticsearchAggregateRecordReader {
+
+  private static final ElasticAggregationSpec AGGREGATION = new ElasticAggregationSpec(
+      ImmutableList.of("city", "state"),
+      ImmutableList.of(new Metric(Function.COUNT, null), new Metric(Function.SUM, "stars"), new Metric(Function.MAX, "review_count")));
+
+  private static JsonObject parse(String json) {
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+
+  @Test
+  public void buildCompositeRequest() {
+    final JsonObject request = parse(ElasticsearchAggregateRecordReader.buildRequest(
+        "{\"from\":0,\"size\":4000,\"query\":{\"match_all\":{}},\"_source\":{\"includes\":[\"city\"]}}", AGGREGATION, 100, null));
+
+    assertEquals(0, request.get("size").getAsInt());
+    assertFalse(request.has("from"));
+    assertFalse(request.has("_source"));
+    assertTrue(request.has("query"));
+
+    final JsonObject groups = request.getAsJsonObject("aggregations").getAsJsonObject(ElasticsearchAggregateRecordReader.GROUPS);
+    final JsonObject composite = groups.getAsJsonObject("composite");
+    assertEquals(100, composite.get("size").getAsInt());
+    assertFalse(composite.has("after"));
+    assertEquals(parse("{\"k1\":{\"terms\":{\"field\":\"state\",\"missing_bucket\":true}}}"), composite.getAsJsonArray("sources").get(1));
+
+    final JsonObject metrics = groups.getAsJsonObject("aggregations");
+    assertFalse(metrics.has("m0"));
+    assertEquals(parse("{\"sum\":{\"field\":\"stars\"}}"), metrics.get("m1"));
+    assertEquals(parse("{\"value_count\":{\"field\":\"stars\"}}"), metrics.get("m1_count"));
+    assertEquals(parse("{\"max\":{\"field\":\"review_count\"}}"), metrics.get("m2"));
+
+    final JsonObject after = parse("{\"k0\":\"Phoenix\",\"k1\":null}");
+    final JsonObject next = parse(ElasticsearchAggregateRecordReader.buildRequest(null, AGGREGATION, 100, after));
+    assertEquals(after, next.getAsJsonObject("aggregations").getAsJsonObject(ElasticsearchAggregateRecordReader.GROUPS)
+        .getAsJsonObject("composite").get("after"));
+  }
+
+  @Test
+  public void buildRequestWithoutGroups() {
+    final ElasticAggregationSpec aggregation = new ElasticAggregationSpec(
+        ImmutableList.<String>of(), ImmutableList.of(new Metric(Function.MIN, "stars")));
+    final JsonObject request = parse(ElasticsearchAggregateRecordReader.buildRequest(null, aggregation, 100, null));
+    assertEquals(parse("{\"filter\":{\"match_all\":{}},\"aggregations\":{\"m0\":{\"min\":{\"field\":\"stars\"}}}}"),
+        request.getAsJsonObject("aggregations").get(ElasticsearchAggregateRecordReader.ALL));
+  }
+
+  @Test
+  public void readBuckets() {
+    final JsonObject groups = parse("{\"buckets\":["
+        + "{\"key\":{\"k0\":\"Mesa\",\"k1\":\"AZ\"},\"doc_count\":3,\"m1\":{\"value\":0.0},\"m1_count\":{\"value\":0},\"m2\":{\"value\":null}},"
+        + "{\"key\":{\"k0\":\"Tempe\",\"k1\":\"AZ\"},\"doc_count\":2,\"m1\":{\"value\":7.5},\"m1_count\":{\"value\":2},\"m2\":{\"value\":10.0}}]}");
+    assertEquals(parse("{\"k0\":\"Tempe\",\"k1\":\"AZ\"}"), ElasticsearchAggregateRecordReader.getAfterKey(groups));
+
+    final JsonObject first = groups.getAsJsonArray("buckets").get(0).getAsJsonObject();
+    assertEquals(3, ElasticsearchAggregateRecordReader.getMetricValue(first, AGGREGATION.getMetrics().get(0), 0).getAsLong());
+    // no value was summed.
+    assertTrue(ElasticsearchAggregateRecordReader.getMetricValue(first, AGGREGATION.getMetrics().get(1), 1).isJsonNull());
+
+    final JsonObject second = groups.getAsJsonArray("buckets").get(1).getAsJsonObject();
+    assertEquals(7.5, ElasticsearchAggregateRecordReader.getMetricValue(second, AGGREGATION.getMetrics().get(1), 1).getAsDouble(), 0);
+
+    groups.add("after_key", parse("{\"k0\":\"Tucson\",\"k1\":\"AZ\"}"));
+    assertEquals(parse("{\"k0\":\"Tucson\",\"k1\":\"AZ\"}"), ElasticsearchAggregateRecordReader.getAfterKey(groups));
+    assertNull(ElasticsearchAggregateRecordReader.getAfterKey(parse("{\"buckets\":[]}")));
+  }
+
+  @Test
+  public void inexactSums() {
+    final Metric sum = new Metric(Function.SUM, "review_count");
+    ElasticsearchAggregateRecordReader.checkExact(sum, MinorType.BIGINT, new JsonPrimitive(9007199254740991D));
+    ElasticsearchAggregateRecordReader.checkExact(sum, MinorType.FLOAT8, new JsonPrimitive(1e20));
+    // counts are exact.
+    ElasticsearchAggregateRecordReader.checkExact(new Metric(Function.COUNT, "review_count"), MinorType.BIGINT,
+        new JsonPrimitive(Long.MAX_VALUE));
+    try {
+      ElasticsearchAggregateRecordReader.checkExact(sum, MinorType.BIGINT, new JsonPrimitive(9007199254740992D));
+      fail("sum beyond 2^53 should be rejected");
+    } catch (UserException e) {
+      assertEquals(UserBitShared.DremioPBError.ErrorType.DATA_READ, e.getErrorType());
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.planning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.google.common.collect.ImmutableList;
+
+import io.protostuff.ByteString;
+
+public class TestElasticsearchGroupScanSlices {
+
+  private static DatasetSplit split(String resource, int shard) {
+    return new DatasetSplit()
+        .setSplitKey(resource + "-" + shard)
+        .setSize(300L)
+        .setExtendedProperty(ByteString.copyFrom(
+            ElasticSplitXattr.newBuilder().setResource(resource).setShard(shard).build().toByteArray()));
+  }
+
+  private static ElasticSplitXattr attributes(DatasetSplit split) throws Exception {
+    return ElasticSplitXattr.parseFrom(split.getExtendedProperty().toByteArray());
+  }
+
+  @Test
+  public void sliceShards() throws Exception {
+    final List<DatasetSplit> slices = ElasticsearchGroupScan.toSlices(
+        ImmutableList.of(split("a/t", 0), split("a/t", 1), split("b/t", 0)).iterator(), 3, false);
+    assertEquals(9, slices.size());
+
+    // shard 1 of index a is read by the slices 1, 3 and 5 of 6.
+    for (int i = 0; i < 3; i++) {
+      final ElasticSplitXattr slice = attributes(slices.get(3 + i));
+      assertEquals("a/t", slice.getResource());
+      assertEquals(1, slice.getShard());
+      assertEquals(1 + 2 * i, slice.getSliceId());
+      assertEquals(6, slice.getSliceMax());
+      assertEquals(100L, (long) slices.get(3 + i).getSize());
+    }
+
+    // index b has a single shard.
+    assertEquals(2, attributes(slices.get(8)).getSliceId());
+    assertEquals(3, attributes(slices.get(8)).getSliceMax());
+    assertEquals("b/t-0-2", slices.get(8).getSplitKey());
+  }
+
+  @Test
+  public void sliceRequestedShards() throws Exception {
+    final List<DatasetSplit> slices = ElasticsearchGroupScan.toSlices(
+        ImmutableList.of(split("a/t", 0), split("a/t", 1)).iterator(), 3, true);
+    assertEquals(6, slices.size());
+    for (int i = 0; i < 3; i++) {
+      final ElasticSplitXattr slice = attributes(slices.get(3 + i));
+      assertEquals(1, slice.getShard());
+      assertEquals(i, slice.getSliceId());
+      assertEquals(3, slice.getSliceMax());
+    }
+  }
+
+  @Test
+  public void countDocumentsBeforeElastic64() throws Exception {
+    for (int shards = 1; shards <= 5; shards++) {
+      for (int slicesPerShard = 2; slicesPerShard <= 4; slicesPerShard++) {
+        assertEquals(shards * DOCS_PER_SHARD, countDocuments(shards, slicesPerShard, false, false));
+      }
+    }
+  }
+
+  @Test
+  public void countDocumentsSinceElastic64() throws Exception {
+    for (int shards = 1; shards <= 5; shards++) {
+      for (int slicesPerShard = 2; slicesPerShard <= 4; slicesPerShard++) {
+        assertEquals(shards * DOCS_PER_SHARD, countDocuments(shards, slicesPerShard, true, true));
+      }
+    }
+    // slice ids computed over all the shards miss documents once slices only cover the preferred shard.
+    assertTrue(countDocuments(3, 2, false, true) < 3 * DOCS_PER_SHARD);
+  }
+
+  private static final int DOCS_PER_SHARD = 100;
+
+  /**
+   * Count the documents read by all the slices of an index, each document being read at most once.
+   * @param slicesRequestedShards how the slices are planned.
+   * @param elasticSlicesRequestedShards how Elastic resolves the slices of a request with a shard preference.
+   */
+  private static int countDocuments(int shards, int slicesPerShard, boolean slicesRequestedShards,
+      boolean elasticSlicesRequestedShards) throws Exception {
+    final ImmutableList.Builder<DatasetSplit> splits = ImmutableList.builder();
+    for (int shard = 0; shard < shards; shard++) {
+      splits.add(split("a/t", shard));
+    }
+
+    final boolean[][] read = new boolean[shards][DOCS_PER_SHARD];
+    int count = 0;
+    for (DatasetSplit split : ElasticsearchGroupScan.toSlices(splits.build().iterator(), slicesPerShard,
+        slicesRequestedShards)) {
+      final ElasticSplitXattr slice = attributes(split);
+      for (int doc = 0; doc < DOCS_PER_SHARD; doc++) {
+        if (matches(slice, shards, doc, elasticSlicesRequestedShards)) {
+          assertTrue("document read twice", !read[slice.getShard()][doc]);
+          read[slice.getShard()][doc] = true;
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Whether a document of the shard of a slice is part of the slice, as decided by the slice filter of Elastic.
+   */
+  private static boolean matches(ElasticSplitXattr slice, int shards, int doc, boolean elasticSlicesRequestedShards) {
+    // the preference restricts the request to a single shard, whose index in the request is 0.
+    final int numShards = elasticSlicesRequestedShards ? 1 : shards;
+    final int shardId = elasticSlicesRequestedShards ? 0 : slice.getShard();
+    final int id = slice.getSliceId();
+    final int max = slice.getSliceMax();
+    if (max < numShards) {
+      return shardId % max == id;
+    }
+    final int targetShard = id % numShards;
+    if (targetShard != shardId) {
+      return false;
+    }
+    int numSlicesInShard = max / numShards;
+    if (max % numShards > targetShard) {
+      numSlicesInShard++;
+    }
+    return numSlicesInShard == 1 || doc % numSlicesInShard == id / numShards;
+  }
+}
@@ -47,7 +47,7 @@ public class HBaseScanCreator implements ProducerOperator.Creator<HBaseSubScan>{
         return new HBaseRecordReader(plugin2.getConnection(), scanSpec, columns, context, false);
       }});
 
-    return new ScanOperator(fragmentExecContext.getSchemaUpdater(), subScan, context, readers.iterator());
+    return new ScanOperator(fragmentExecContext, subScan, context, readers.iterator());
   }
 
 
@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.hive.exec;
+
+import static com.dremio.common.util.MajorTypeHelper.getFieldForNameAndMajorType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.vector.AllocationHelper;
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.NullableBitVector;
+import org.apache.arrow.vector.NullableDateMilliVector;
+import org.apache.arrow.vector.NullableFloat4Vector;
+import org.apache.arrow.vector.NullableFloat8Vector;
+import org.apache.arrow.vector.NullableIntVector;
+import org.apache.arrow.vector.NullableTimeStampMilliVector;
+import org.apache.arrow.vector.NullableVarBinaryVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.OrcSplit;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.serde2.SerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.typeinfo.BaseCharTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.StructTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.store.AbstractRecordReader;
+import com.dremio.hive.proto.HiveReaderProto.HiveSplitXattr;
+import com.dremio.hive.proto.HiveReaderProto.HiveTableXattr;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Reads the ORC files of a Hive table with the vectorized ORC reader, copying the column vectors of each ORC batch
+ * straight into arrow vectors instead of going through the SerDe row by row. Only the projected columns are read.
+ *
+ * Columns of complex or decimal types, columns whose type in the file differs from the table, and transactional
+ * tables are read by {@link HiveOrcReader} instead.
+ */
+public class HiveORCVectorizedReader extends AbstractRecordReader {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(HiveORCVectorizedReader.class);
+
+  private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1L);
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1L);
+
+  // top level fields of the files written by transactional tables
+  private static final List<String> ACID_FIELDS = ImmutableList.of(
+      "operation", "originalTransaction", "bucket", "rowId", "currentTransaction", "row");
+
+  private final HiveTableXattr tableAttr;
+  private final DatasetSplit split;
+  private final List<String> partitionColumns;
+  private final HiveConf hiveConf;
+
+  private org.apache.hadoop.hive.ql.io.orc.RecordReader rows;
+  private VectorizedRowBatch batch;
+  private int batchOffset;
+  private ValueVector[] vectors;
+  private int[] fieldIndexes;
+  private ColumnCopier[] copiers;
+  private HiveAbstractReader fallback;
+
+  public HiveORCVectorizedReader(
+      HiveTableXattr tableAttr,
+      DatasetSplit split,
+      List<SchemaPath> projectedColumns,
+      List<String> partitionColumns,
+      OperatorContext context,
+      HiveConf hiveConf) {
+    super(context, projectedColumns);
+    this.tableAttr = tableAttr;
+    this.split = split;
+    this.partitionColumns = partitionColumns;
+    this.hiveConf = hiveConf;
+  }
+
+  @Override
+  public void setup(OutputMutator output) throws ExecutionSetupException {
+    final HiveSplitXattr splitAttr;
+    try {
+      splitAttr = HiveSplitXattr.parseFrom(split.getExtendedProperty().toByteArray());
+    } catch (InvalidProtocolBufferException e) {
+      throw new ExecutionSetupException("Failure deserializing Hive extended attributes.", e);
+    }
+
+    final JobConf job = new JobConf(hiveConf);
+    final Properties tableProperties = HiveAbstractReader.addProperties(job, new Properties(), tableAttr.getTablePropertyList());
+    if (partitionColumns != null && !partitionColumns.isEmpty()) {
+      HiveAbstractReader.addProperties(job, new Properties(),
+          tableAttr.getPartitionProperties(splitAttr.getPartitionId()).getPartitionPropertyList());
+    }
+
+    final List<String> selectedNames = new ArrayList<>();
+    final List<TypeInfo> selectedTypes = new ArrayList<>();
+    final List<Integer> selectedIds = new ArrayList<>();
+    final FileSplit fileSplit;
+    final Reader orcReader;
+    try {
+      final SerDe tableSerDe = HiveAbstractReader.createSerDe(job, tableAttr.getSerializationLib(), tableProperties);
+      final StructTypeInfo tableType = (StructTypeInfo) TypeInfoUtils.getTypeInfoFromObjectInspector(
+          HiveAbstractReader.getStructOI(tableSerDe));
+      final List<String> tableColumnNames = tableType.getAllStructFieldNames();
+      if (isStarQuery()) {
+        selectedNames.addAll(tableColumnNames);
+      } else {
+        for (SchemaPath column : getColumns()) {
+          selectedNames.add(column.getRootSegment().getPath());
+        }
+      }
+      for (String name : selectedNames) {
+        selectedIds.add(tableColumnNames.indexOf(name));
+        selectedTypes.add(tableType.getStructFieldTypeInfo(name));
+      }
+
+      final InputSplit inputSplit = HiveAbstractReader.deserializeInputSplit(splitAttr.getInputSplit());
+      if (!isOriginalFileSplit(inputSplit)) {
+        setupFallback(output, "split is not a plain ORC file split");
+        return;
+      }
+      fileSplit = (FileSplit) inputSplit;
+      final Path path = fileSplit.getPath();
+      orcReader = OrcFile.createReader(path, OrcFile.readerOptions(job).filesystem(path.getFileSystem(job)));
+    } catch (Exception e) {
+      throw new ExecutionSetupException("Failure while initializing vectorized ORC reader", e);
+    }
+
+    // hive maps the fields of ORC files to the table columns by position
+    final List<OrcProto.Type> types = orcReader.getTypes();
+    final OrcProto.Type root = types.get(0);
+    if (root.getKind() != OrcProto.Type.Kind.STRUCT || root.getFieldNamesList().equals(ACID_FIELDS)) {
+      setupFallback(output, "file is not a flat ORC file");
+      return;
+    }
+
+    final boolean[] include = new boolean[types.size()];
+    include[0] = true;
+    final int count = selectedNames.size();
+    fieldIndexes = new int[count];
+    copiers = new ColumnCopier[count];
+    for (int i = 0; i < count; i++) {
+      final int fieldIndex = selectedIds.get(i) < root.getSubtypesCount() ? selectedIds.get(i) : -1;
+      final OrcProto.Type fileType = fieldIndex < 0 ? null : types.get(root.getSubtypes(fieldIndex));
+      copiers[i] = newCopier(selectedTypes.get(i), fileType);
+      if (copiers[i] == null) {
+        setupFallback(output, "column " + selectedNames.get(i) + " is not supported");
+        return;
+      }
+      fieldIndexes[i] = fieldIndex;
+      if (fieldIndex >= 0) {
+        include[root.getSubtypes(fieldIndex)] = true;
+      }
+    }
+
+    final Reader.Options options = new Reader.Options()
+        .include(include)
+        .range(fileSplit.getStart(), fileSplit.getLength());
+    try {
+      rows = orcReader.rowsOptions(options);
+    } catch (IOException e) {
+      throw new ExecutionSetupException("Failure while opening ORC file " + fileSplit.getPath(), e);
+    }
+
+    vectors = new ValueVector[count];
+    for (int i = 0; i < count; i++) {
+      vectors[i] = output.addField(getFieldForNameAndMajorType(selectedNames.get(i),
+          HiveAbstractReader.getMajorTypeFromHiveTypeInfo(selectedTypes.get(i), context.getOptions())), ValueVector.class);
+    }
+  }
+
+  private static boolean isOriginalFileSplit(InputSplit inputSplit) {
+    if (!(inputSplit instanceof FileSplit)) {
+      return false;
+    }
+    if (inputSplit instanceof OrcSplit) {
+      final OrcSplit orcSplit = (OrcSplit) inputSplit;
+      return orcSplit.isOriginal() && orcSplit.getDeltas().isEmpty();
+    }
+    return true;
+  }
+
+  private void setupFallback(OutputMutator output, String reason) throws ExecutionSetupException {
+    logger.debug("Reading split {} with the ORC SerDe reader, {}", split.getSplitKey(), reason);
+    fallback = new HiveOrcReader(tableAttr, split, getColumns(), partitionColumns, context, hiveConf);
+    fallback.setup(output);
+  }
+
+  /**
+   * Create the copier of a table column, or return null if the column has to be read through the SerDe.
+   * @param tableType type of the column in the table.
+   * @param fileType type of the column in the ORC file, null if the file doesn't have the column.
+   */
+  private static ColumnCopier newCopier(TypeInfo tableType, OrcProto.Type fileType) {
+    if (tableType.getCategory() != Category.PRIMITIVE) {
+      return null;
+    }
+    final PrimitiveTypeInfo primitiveType = (PrimitiveTypeInfo) tableType;
+    final OrcProto.Type.Kind kind = fileType == null ? null : fileType.getKind();
+    switch (primitiveType.getPrimitiveCategory()) {
+    case BOOLEAN:
+      return kind == null || kind == OrcProto.Type.Kind.BOOLEAN ? new BitCopier() : null;
+    case BYTE:
+    case SHORT:
+    case INT:
+      return kind == null || kind == OrcProto.Type.Kind.BYTE || kind == OrcProto.Type.Kind.SHORT
+          || kind == OrcProto.Type.Kind.INT ? new IntCopier() : null;
+    case LONG:
+      return kind == null || kind == OrcProto.Type.Kind.BYTE || kind == OrcProto.Type.Kind.SHORT
+          || kind == OrcProto.Type.Kind.INT || kind == OrcProto.Type.Kind.LONG ? new BigIntCopier() : null;
+    case FLOAT:
+      return kind == null || kind == OrcProto.Type.Kind.FLOAT ? new Float4Copier() : null;
+    case DOUBLE:
+      return kind == null || kind == OrcProto.Type.Kind.FLOAT || kind == OrcProto.Type.Kind.DOUBLE
+          ? new Float8Copier() : null;
+    case DATE:
+      return kind == null || kind == OrcProto.Type.Kind.DATE ? new DateMilliCopier() : null;
+    case TIMESTAMP:
+      return kind == null || kind == OrcProto.Type.Kind.TIMESTAMP ? new TimeStampMilliCopier() : null;
+    case BINARY:
+      return kind == null || kind == OrcProto.Type.Kind.BINARY ? new VarBinaryCopier() : null;
+    case STRING:
+      return kind == null || kind == OrcProto.Type.Kind.STRING ? new VarCharCopier(false) : null;
+    case VARCHAR:
+      return kind == null || (kind == OrcProto.Type.Kind.VARCHAR
+          && fileType.getMaximumLength() == ((BaseCharTypeInfo) primitiveType).getLength()) ? new VarCharCopier(false) : null;
+    case CHAR:
+      return kind == null || (kind == OrcProto.Type.Kind.CHAR
+          && fileType.getMaximumLength() == ((BaseCharTypeInfo) primitiveType).getLength()) ? new VarCharCopier(true) : null;
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  public int next() {
+    if (fallback != null) {
+      return fallback.next();
+    }
+
+    for (ValueVector vector : vectors) {
+      AllocationHelper.allocateNew(vector, (int) numRowsPerBatch);
+    }
+    int count = 0;
+    try {
+      while (count < numRowsPerBatch) {
+        if (batch == null || batchOffset >= batch.size) {
+          if (!rows.hasNext()) {
+            break;
+          }
+          batch = rows.nextBatch(batch);
+          batchOffset = 0;
+          continue;
+        }
+        final int length = Math.min(batch.size - batchOffset, (int) numRowsPerBatch - count);
+        for (int i = 0; i < copiers.length; i++) {
+          // columns missing from the file are left null
+          if (fieldIndexes[i] >= 0) {
+            copiers[i].copy(batch.cols[fieldIndexes[i]], batchOffset, vectors[i], count, length);
+          }
+        }
+        batchOffset += length;
+        count += length;
+      }
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+          .message("Failed to read data from ORC file")
+          .addContext("Dataset split key", split.getSplitKey())
+          .build(logger);
+    }
+
+    for (ValueVector vector : vectors) {
+      vector.setValueCount(count);
+    }
+    return count;
+  }
+
+  @Override
+  protected boolean supportsSkipAllQuery() {
+    return true;
+  }
+
+  @Override
+  public void close() throws Exception {
+    try {
+      if (fallback != null) {
+        fallback.close();
+        fallback = null;
+      }
+    } finally {
+      if (rows != null) {
+        rows.close();
+        rows = null;
+      }
+      batch = null;
+      vectors = null;
+    }
+  }
+
+  /**
+   * Copies values of an ORC column vector to an arrow vector, leaving null values unset.
+   */
+  private abstract static class ColumnCopier {
+
+    void copy(ColumnVector input, int inputOffset, ValueVector output, int outputOffset, int length) {
+      if (input.isRepeating) {
+        if (input.noNulls || !input.isNull[0]) {
+          for (int i = 0; i < length; i++) {
+            set(input, 0, output, outputOffset + i);
+          }
+        }
+        return;
+      }
+      for (int i = 0; i < length; i++) {
+        final int index = inputOffset + i;
+        if (input.noNulls || !input.isNull[index]) {
+          set(input, index, output, outputOffset + i);
+        }
+      }
+    }
+
+    abstract void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex);
+  }
+
+  private static class BitCopier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      ((NullableBitVector) output).setSafe(outputIndex, ((LongColumnVector) input).vector[inputIndex] != 0 ? 1 : 0);
+    }
+  }
+
+  private static class IntCopier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      ((NullableIntVector) output).setSafe(outputIndex, (int) ((LongColumnVector) input).vector[inputIndex]);
+    }
+  }
+
+  private static class BigIntCopier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      ((NullableBigIntVector) output).setSafe(outputIndex, ((LongColumnVector) input).vector[inputIndex]);
+    }
+  }
+
+  private static class Float4Copier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      ((NullableFloat4Vector) output).setSafe(outputIndex, (float) ((DoubleColumnVector) input).vector[inputIndex]);
+    }
+  }
+
+  private static class Float8Copier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      ((NullableFloat8Vector) output).setSafe(outputIndex, ((DoubleColumnVector) input).vector[inputIndex]);
+    }
+  }
+
+  /**
+   * Dates are read as days since epoch.
+   */
+  private static class DateMilliCopier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      ((NullableDateMilliVector) output).setSafe(outputIndex, ((LongColumnVector) input).vector[inputIndex] * MILLIS_PER_DAY);
+    }
+  }
+
+  /**
+   * Timestamps are read as nanoseconds since epoch, rounded down to milliseconds like the SerDe reader does.
+   */
+  private static class TimeStampMilliCopier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      final long nanos = ((LongColumnVector) input).vector[inputIndex];
+      long millis = nanos / NANOS_PER_MILLI;
+      if (nanos % NANOS_PER_MILLI < 0) {
+        millis--;
+      }
+      ((NullableTimeStampMilliVector) output).setSafe(outputIndex, millis);
+    }
+  }
+
+  private static class VarBinaryCopier extends ColumnCopier {
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      final BytesColumnVector bytes = (BytesColumnVector) input;
+      ((NullableVarBinaryVector) output).setSafe(outputIndex, bytes.vector[inputIndex], bytes.start[inputIndex],
+          bytes.length[inputIndex]);
+    }
+  }
+
+  private static class VarCharCopier extends ColumnCopier {
+    // char values are padded with spaces, which the SerDe reader strips
+    private final boolean stripTrailingSpaces;
+
+    VarCharCopier(boolean stripTrailingSpaces) {
+      this.stripTrailingSpaces = stripTrailingSpaces;
+    }
+
+    @Override
+    void set(ColumnVector input, int inputIndex, ValueVector output, int outputIndex) {
+      final BytesColumnVector bytes = (BytesColumnVector) input;
+      final byte[] value = bytes.vector[inputIndex];
+      final int start = bytes.start[inputIndex];
+      int length = bytes.length[inputIndex];
+      if (stripTrailingSpaces) {
+        while (length > 0 && value[start + length - 1] == ' ') {
+          length--;
+        }
+      }
+      ((NullableVarCharVector) output).setSafe(outputIndex, value, start, length);
+    }
+  }
+}
@@ -43,6 +43,7 @@ import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.dremio.exec.store.dfs.implicit.CompositeReaderConfig;
 import com.dremio.exec.store.hive.HiveStoragePlugin;
 import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.ParquetFooterCache;
 import com.dremio.exec.store.parquet.SingletonParquetFooterCache;
 import com.dremio.exec.store.parquet.UnifiedParquetReader;
 import com.dremio.exec.util.ColumnUtils;
@@ -93,17 +94,18 @@ public class HiveScanBatchCreator implements ProducerOperator.Creator<HiveSubSca
     final boolean useNewReaderIfPossible = context.getOptions().getOption(ExecConstants.PARQUET_NEW_RECORD_READER).bool_val;
     final boolean vectorize = context.getOptions().getOption(ExecConstants.PARQUET_READER_VECTORIZE);
     final boolean enableDetailedTracing = context.getOptions().getOption(ExecConstants.ENABLED_PARQUET_TRACING);
-    final ParquetReaderFactory readerFactory = UnifiedParquetReader.getReaderFactory(context.getConfig());
+    final ParquetReaderFactory readerFactory = UnifiedParquetReader.getReaderFactory(context.getConfig(), context.getOptions());
 
     if(config.getSplits().isEmpty()) {
-      return new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, Iterators.<RecordReader>singletonIterator(new EmptyRecordReader()));
+      return new ScanOperator(fragmentExecContext, config, context, Iterators.<RecordReader>singletonIterator(new EmptyRecordReader()));
     }
 
     Iterable<RecordReader> readers = null;
     try {
       final UserGroupInformation currentUGI = UserGroupInformation.getCurrentUser();
       final List<HiveParquetSplit> sortedSplits = Lists.newArrayList();
-      final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
+      final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache(
+          ParquetFooterCache.getInstance(context.getOptions()), context.getStats());
 
       for (DatasetSplit spilt : config.getSplits()) {
         sortedSplits.add(new HiveParquetSplit(spilt));
@@ -141,7 +143,7 @@ public class HiveScanBatchCreator implements ProducerOperator.Creator<HiveSubSca
 
         }});
 
-      return new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, readers.iterator());
+      return new ScanOperator(fragmentExecContext, config, context, readers.iterator());
 
     } catch (final Exception e) {
       if(readers != null) {
@@ -208,9 +210,11 @@ public class HiveScanBatchCreator implements ProducerOperator.Creator<HiveSubSca
     }
 
     final Class<? extends HiveAbstractReader> readerClassF = readerClass;
+    final boolean vectorizeOrc = OrcInputFormat.class.getCanonicalName().equals(formatName)
+        && context.getOptions().getOption(ExecConstants.HIVE_ORC_READER_VECTORIZE);
 
     if(config.getSplits().isEmpty()) {
-      return new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, Iterators.<RecordReader>singletonIterator(new EmptyRecordReader()));
+      return new ScanOperator(fragmentExecContext, config, context, Iterators.<RecordReader>singletonIterator(new EmptyRecordReader()));
     }
 
     Iterable<RecordReader> readers = null;
@@ -227,7 +231,13 @@ public class HiveScanBatchCreator implements ProducerOperator.Creator<HiveSubSca
             @Override
             public RecordReader run() {
               try {
-                RecordReader innerReader = readerConstructor.newInstance(tableAttr, split, compositeReader.getInnerColumns(), config.getPartitionColumns(), context, hiveConf);
+                final RecordReader innerReader;
+                if (vectorizeOrc) {
+                  innerReader = new HiveORCVectorizedReader(tableAttr, split, compositeReader.getInnerColumns(),
+                      config.getPartitionColumns(), context, hiveConf);
+                } else {
+                  innerReader = readerConstructor.newInstance(tableAttr, split, compositeReader.getInnerColumns(), config.getPartitionColumns(), context, hiveConf);
+                }
                 return compositeReader.wrapIfNecessary(context.getAllocator(), innerReader, split);
               } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
                 throw new RuntimeException(e);
@@ -235,7 +245,7 @@ public class HiveScanBatchCreator implements ProducerOperator.Creator<HiveSubSca
             }
           });
         }});
-      return new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, readers.iterator());
+      return new ScanOperator(fragmentExecContext, config, context, readers.iterator());
     } catch (NoSuchMethodException | SecurityException | IOException e) {
       if(readers != null) {
         AutoCloseables.close(e, readers);
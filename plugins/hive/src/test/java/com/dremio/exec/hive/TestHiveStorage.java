@@ -526,6 +526,93 @@ public class TestHiveStorage extends HiveTestBase {
         .go();
   }
 
+  /**
+   * Test to ensure the vectorized ORC reader reads all the types it copies, and null values.
+   */
+  @Test
+  public void readAllSupportedHiveDataTypesVectorizedOrc() throws Exception {
+    testBuilder().sqlQuery("SELECT * FROM hive.readtest_orc")
+        .unOrdered()
+        .baselineColumns(
+            "binary_field",
+            "boolean_field",
+            "tinyint_field",
+            "double_field",
+            "float_field",
+            "int_field",
+            "bigint_field",
+            "smallint_field",
+            "string_field",
+            "varchar_field",
+            "timestamp_field",
+            "date_field",
+            "char_field")
+        .baselineValues(
+            "binaryfield".getBytes(),
+            false,
+            34,
+            8.345d,
+            4.67f,
+            123456,
+            234235L,
+            3455,
+            "stringfield",
+            "varcharfield",
+            new LocalDateTime(Timestamp.valueOf("2013-07-05 17:01:00").getTime()),
+            new LocalDateTime(Date.valueOf("2013-07-05").getTime()),
+            // char values are read without their padding
+            "charfield")
+        .baselineValues(null, null, null, null, null, null, null, null, null, null, null, null, null)
+        .go();
+  }
+
+  @Test
+  public void readRepeatingColumnsVectorizedOrc() throws Exception {
+    // constant and all null columns are read from ORC as repeating column vectors
+    testBuilder().sqlQuery("SELECT key, constant_int, constant_string, null_int FROM hive.orc_repeating")
+        .unOrdered()
+        .baselineColumns("key", "constant_int", "constant_string", "null_int")
+        .baselineValues(1, 7, "constant", null)
+        .baselineValues(2, 7, "constant", null)
+        .baselineValues(3, 7, "constant", null)
+        .baselineValues(4, 7, "constant", null)
+        .baselineValues(5, 7, "constant", null)
+        .go();
+  }
+
+  @Test
+  public void readOrcWithUnsupportedColumns() throws Exception {
+    // decimal columns are read through the SerDe, with the rest of the split.
+    testBuilder().sqlQuery("SELECT int_field, decimal9_field FROM hive.readtest_orc_decimal")
+        .unOrdered()
+        .baselineColumns("int_field", "decimal9_field")
+        .baselineValues(123456, new BigDecimal("2347.92"))
+        .baselineValues(null, null)
+        .go();
+
+    // columns of the same split that can be copied are read by the vectorized reader.
+    testBuilder().sqlQuery("SELECT int_field FROM hive.readtest_orc_decimal")
+        .unOrdered()
+        .baselineColumns("int_field")
+        .baselineValues(123456)
+        .baselineValues((Object) null)
+        .go();
+  }
+
+  @Test
+  public void readOrcWithoutVectorization() throws Exception {
+    try {
+      test(String.format("alter session set `%s` = false", ExecConstants.HIVE_ORC_READER_VECTORIZE.getOptionName()));
+      testBuilder().sqlQuery("SELECT key, constant_int, constant_string, null_int FROM hive.orc_repeating WHERE key = 3")
+          .unOrdered()
+          .baselineColumns("key", "constant_int", "constant_string", "null_int")
+          .baselineValues(3, 7, "constant", null)
+          .go();
+    } finally {
+      test(String.format("alter session set `%s` = true", ExecConstants.HIVE_ORC_READER_VECTORIZE.getOptionName()));
+    }
+  }
+
   @Test // DRILL-3739
   public void readingFromStorageHandleBasedTable() throws Exception {
     testBuilder()
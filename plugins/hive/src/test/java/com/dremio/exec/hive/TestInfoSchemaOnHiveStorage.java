@@ -59,6 +59,9 @@ public class TestInfoSchemaOnHiveStorage extends HiveTestBase {
         .baselineValues("hive.default", "kv_parquet")
         .baselineValues("hive.default", "kv_sh")
         .baselineValues("hive.default", "kv_mixedschema")
+        .baselineValues("hive.default", "readtest_orc")
+        .baselineValues("hive.default", "orc_repeating")
+        .baselineValues("hive.default", "readtest_orc_decimal")
         .baselineValues("hive.default", "simple_json")
         .baselineValues("hive.default", "partition_with_few_schemas")
         .baselineValues("hive.default", "parquet_timestamp_nulls")
@@ -529,6 +529,37 @@ public class HiveTestDataGenerator {
     executeQuery(hiveDriver, "INSERT INTO TABLE kv_mixedschema PARTITION(part=2) " +
         "SELECT key, value FROM default.kv ORDER BY key DESC LIMIT 2");
 
+    // Create ORC tables read by the vectorized ORC reader: one with all the types it copies, one with constant and
+    // null only columns, and one with a decimal column, which is read through the SerDe.
+    executeQuery(hiveDriver,
+        "CREATE TABLE readtest_orc (" +
+        "  binary_field BINARY," +
+        "  boolean_field BOOLEAN," +
+        "  tinyint_field TINYINT," +
+        "  double_field DOUBLE," +
+        "  float_field FLOAT," +
+        "  int_field INT," +
+        "  bigint_field BIGINT," +
+        "  smallint_field SMALLINT," +
+        "  string_field STRING," +
+        "  varchar_field VARCHAR(50)," +
+        "  timestamp_field TIMESTAMP," +
+        "  date_field DATE," +
+        "  char_field CHAR(10)" +
+        ") STORED AS ORC");
+    executeQuery(hiveDriver, "INSERT OVERWRITE TABLE readtest_orc SELECT binary_field, boolean_field, tinyint_field, " +
+        "double_field, float_field, int_field, bigint_field, smallint_field, string_field, varchar_field, " +
+        "timestamp_field, date_field, char_field FROM readtest WHERE tinyint_part = 64");
+
+    executeQuery(hiveDriver,
+        "CREATE TABLE orc_repeating(key INT, constant_int INT, constant_string STRING, null_int INT) STORED AS ORC");
+    executeQuery(hiveDriver,
+        "INSERT OVERWRITE TABLE orc_repeating SELECT key, 7, 'constant', CAST(NULL AS INT) FROM default.kv");
+
+    executeQuery(hiveDriver, "CREATE TABLE readtest_orc_decimal(int_field INT, decimal9_field DECIMAL(6, 2)) STORED AS ORC");
+    executeQuery(hiveDriver, "INSERT OVERWRITE TABLE readtest_orc_decimal " +
+        "SELECT int_field, decimal9_field FROM readtest WHERE tinyint_part = 64");
+
     executeQuery(hiveDriver, "CREATE TABLE sorted_parquet(id int, key int) clustered by (id) sorted by (key) into 10 buckets stored as Parquet");
 
     executeQuery(hiveDriver, "INSERT INTO TABLE sorted_parquet select key as id, key as key from kv_parquet distribute by id sort by key");
@@ -202,7 +202,15 @@ final class PDFSProtocol extends AbstractProtocol {
       byte[] buf = new byte[request.getLength()];
 
       fdis.seek(request.getStart());
+      // fill the whole chunk unless the end of file is reached, so clients can request the next chunks ahead
       int read = fdis.read(buf);
+      while (read != -1 && read < buf.length) {
+        final int n = fdis.read(buf, read, buf.length - read);
+        if (n == -1) {
+          break;
+        }
+        read += n;
+      }
 
       DFS.GetFileDataResponse response = DFS.GetFileDataResponse.newBuilder().setRead(read).build();
       ByteBuf[] bodies =  (read != -1) ? new ByteBuf[] { Unpooled.wrappedBuffer(buf, 0, read) } : NO_BUFS;
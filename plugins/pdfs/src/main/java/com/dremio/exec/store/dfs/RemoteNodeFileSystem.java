@@ -15,12 +15,12 @@
  */
 package com.dremio.exec.store.dfs;
 
-import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -47,11 +47,11 @@ import com.dremio.exec.server.SabotContext;
 import com.dremio.services.fabric.ProxyConnection;
 import com.dremio.services.fabric.api.FabricCommandRunner;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.Internal.EnumLite;
 import com.google.protobuf.MessageLite;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 
 /**
@@ -68,6 +68,10 @@ class RemoteNodeFileSystem extends FileSystem {
   static final int REMOTE_WRITE_BUFFER_SIZE = 128*1024;
   private static final long RPC_TIMEOUT_MS = 5000;
 
+  // maximum number of chunk requests in flight for a remote input stream
+  static final String REMOTE_READ_WINDOW = "pdfs.remote.read.window";
+  static final int DEFAULT_REMOTE_READ_WINDOW = 4;
+
   private static final Path ROOT_PATH = new Path("/");
 
   private static final class GetFileStatusCommand extends PDFSCommand<DFS.GetFileStatusResponse> {
@@ -233,6 +237,7 @@ class RemoteNodeFileSystem extends FileSystem {
 
   private URI uri;
   private Path workingDirectory;
+  private int readWindow = DEFAULT_REMOTE_READ_WINDOW;
 
   public RemoteNodeFileSystem(FabricCommandRunner runner, BufferAllocator allocator) {
     this.runner = runner;
@@ -246,7 +251,9 @@ class RemoteNodeFileSystem extends FileSystem {
     if (name.getHost() == null || name.getPort() == -1) {
       throw new IllegalArgumentException("FileSystem name needs a complete authority element.");
     }
-    uri = name;  }
+    uri = name;
+    readWindow = Math.max(1, conf.getInt(REMOTE_READ_WINDOW, DEFAULT_REMOTE_READ_WINDOW));
+  }
 
   private Path toAbsolutePath(Path p) {
     if (p.isAbsolute()) {
@@ -263,33 +270,101 @@ class RemoteNodeFileSystem extends FileSystem {
 
   private static final ByteBuf EMPTY_BUFFER = Unpooled.unreleasableBuffer(Unpooled.EMPTY_BUFFER);
 
+  /**
+   * A request for a chunk of file data, sent ahead of the reads that consume it.
+   */
+  private final class PendingRead {
+    private final long offset;
+    private final int length;
+    private final RpcFuture<DFS.GetFileDataResponse> future;
+
+    private PendingRead(String path, long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+      final GetFileDataCommand command = new GetFileDataCommand(path, offset, length);
+      runner.runCommand(command);
+      this.future = command.getFuture();
+    }
+
+    private DFS.GetFileDataResponse get() throws IOException {
+      try {
+        return future.checkedGet(RPC_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch(TimeoutException e) {
+        discard();
+        throw new IOException("Timeout occured during I/O request for " + uri, e);
+      } catch(RpcException e) {
+        RpcException.propagateIfPossible(e, IOException.class);
+
+        throw e;
+      }
+    }
+
+    /**
+     * Get the data received for the request. The caller takes ownership of the buffer.
+     */
+    private ByteBuf takeBuffer() {
+      final ByteBuf buffer = future.getBuffer();
+      return buffer != null ? buffer : EMPTY_BUFFER;
+    }
+
+    /**
+     * Release the data of a request which is not going to be read, once it is received.
+     */
+    private void discard() {
+      future.addListener(new Runnable() {
+        @Override
+        public void run() {
+          final ByteBuf buffer = future.getBuffer();
+          if (buffer != null) {
+            buffer.release();
+          }
+        }
+      }, MoreExecutors.directExecutor());
+    }
+  }
+
+  /**
+   * Input stream reading a remote file in chunks of the stream buffer size.
+   *
+   * Once the stream is read sequentially, up to {@code readWindow} requests for the next chunks are kept in flight so
+   * the reads don't wait for a round trip per chunk. Received buffers are read directly, and positioned reads fetch
+   * the chunks of their range in parallel without moving the stream.
+   */
   private final class RemoteNodeInputStream extends FSInputStream {
     private final String path;
-    private final int buffersize;
+    private final int chunkSize;
+    private final Deque<PendingRead> pendingReads = new ArrayDeque<>();
 
     private long pos = 0;
     private boolean closed = false;
     private boolean eof = false;
-    private ByteBuf buf;
-    private InputStream in;
+    // chunk being read, and its offset in the file
+    private ByteBuf buf = EMPTY_BUFFER;
+    private long bufStart = 0;
+    private int bufLength = 0;
+    private int bufReaderIndex = 0;
+    // whether a chunk was read up to its end since the last seek
+    private boolean sequential = false;
 
     public RemoteNodeInputStream(String path, int buffersize) throws IOException {
       super();
       this.path = path;
-      this.buffersize = buffersize;
-      this.buf = EMPTY_BUFFER;
-      this.in = new ByteBufInputStream(buf);
+      this.chunkSize = buffersize;
     }
 
     @Override
     public void seek(long pos) throws IOException {
       checkClosed();
 
-      if (eof) {
-        throw new EOFException("Stream is closed");
+      if (pos >= bufStart && pos < bufStart + bufLength) {
+        buf.readerIndex(bufReaderIndex + (int) (pos - bufStart));
+      } else {
+        releaseBuffer();
+        bufStart = pos;
+        eof = false;
+        sequential = false;
       }
       this.pos = pos;
-      getData();
     }
 
     @Override
@@ -301,8 +376,8 @@ class RemoteNodeFileSystem extends FileSystem {
 
       super.close();
 
-      in.close();
-      buf.release();
+      discardPendingReads();
+      releaseBuffer();
     }
 
     @Override
@@ -321,43 +396,75 @@ class RemoteNodeFileSystem extends FileSystem {
     public int read() throws IOException {
       checkClosed();
 
-      do {
-        if (eof) {
-          return -1;
-        }
-        int res = in.read();
-        if (res != -1) {
-          pos++;
-          return res;
-        }
-
-        getData();
-      } while(true);
+      if (!ensureData()) {
+        return -1;
+      }
+      pos++;
+      return buf.readByte() & 0xFF;
     }
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
       checkClosed();
 
+      if (len == 0) {
+        return 0;
+      }
       int read = 0;
-      int res = 0;
-      if (eof) {
-        return -1;
+      while (read < len && ensureData()) {
+        final int length = Math.min(len - read, buf.readableBytes());
+        buf.readBytes(b, off + read, length);
+        read += length;
+        pos += length;
       }
-      do {
-        if (eof) {
-          return read;
+
+      return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+      checkClosed();
+
+      if (length == 0) {
+        return 0;
+      }
+      final Deque<PendingRead> reads = new ArrayDeque<>();
+      final long end = position + length;
+      long next = position;
+      int read = 0;
+      try {
+        while (read < length) {
+          while (reads.size() < readWindow && next < end) {
+            final int size = (int) Math.min(chunkSize, end - next);
+            reads.addLast(new PendingRead(path, next, size));
+            next += size;
+          }
+
+          final PendingRead current = reads.pollFirst();
+          final DFS.GetFileDataResponse response = current.get();
+          final ByteBuf data = current.takeBuffer();
+          try {
+            final int received = Math.min(response.getRead(), data.readableBytes());
+            if (received <= 0) {
+              break;
+            }
+            data.readBytes(buffer, offset + read, received);
+            read += received;
+            if (received < current.length) {
+              // end of file
+              break;
+            }
+          } finally {
+            data.release();
+          }
         }
-        res = in.read(b, off + read, len - read);
-        if (res == -1) {
-          getData();
-        } else {
-          read += res;
-          pos += res;
+      } finally {
+        for (PendingRead pendingRead : reads) {
+          pendingRead.discard();
         }
-      } while(read < len);
+      }
 
-      return read;
+      return read == 0 ? -1 : read;
     }
 
     private void checkClosed() throws IOException {
@@ -366,30 +473,57 @@ class RemoteNodeFileSystem extends FileSystem {
       }
     }
 
+    private boolean ensureData() throws IOException {
+      while (!buf.isReadable()) {
+        if (eof) {
+          return false;
+        }
+        getData();
+      }
+      return true;
+    }
+
     private void getData() throws IOException {
+      if (bufLength > 0) {
+        sequential = true;
+      }
       // Free previous resources
-      in.close();
-      buf.release();
-
-      final GetFileDataCommand command = new GetFileDataCommand(path, pos, buffersize);
-      runner.runCommand(command);
+      releaseBuffer();
 
-      RpcFuture<DFS.GetFileDataResponse> future = command.getFuture();
-      try {
-        DFS.GetFileDataResponse response = future.checkedGet(RPC_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-        eof = (response.getRead() == -1);
-        buf = future.getBuffer();
-        if (buf == null) {
-          buf = EMPTY_BUFFER;
+      if (!pendingReads.isEmpty() && pendingReads.peekFirst().offset != pos) {
+        discardPendingReads();
+      }
+      final PendingRead current = pendingReads.isEmpty() ? new PendingRead(path, pos, chunkSize) : pendingReads.pollFirst();
+      final DFS.GetFileDataResponse response = current.get();
+      eof = (response.getRead() == -1);
+      buf = current.takeBuffer();
+      bufStart = pos;
+      bufLength = buf.readableBytes();
+      bufReaderIndex = buf.readerIndex();
+
+      if (eof || response.getRead() < chunkSize) {
+        // the next chunks are past the end of the file, or not aligned with this chunk
+        discardPendingReads();
+      } else if (sequential) {
+        long offset = pendingReads.isEmpty() ? pos + chunkSize : pendingReads.peekLast().offset + chunkSize;
+        while (pendingReads.size() < readWindow) {
+          pendingReads.addLast(new PendingRead(path, offset, chunkSize));
+          offset += chunkSize;
         }
-        in = new ByteBufInputStream(buf);
-      } catch(TimeoutException e) {
-        throw new IOException("Timeout occured during I/O request for " + uri, e);
-      } catch(RpcException e) {
-        RpcException.propagateIfPossible(e, IOException.class);
+      }
+    }
 
-        throw e;
+    private void discardPendingReads() {
+      for (PendingRead pendingRead : pendingReads) {
+        pendingRead.discard();
       }
+      pendingReads.clear();
+    }
+
+    private void releaseBuffer() {
+      buf.release();
+      buf = EMPTY_BUFFER;
+      bufLength = 0;
     }
   }
 
@@ -28,6 +28,7 @@ import static org.mockito.Mockito.mock;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -559,4 +560,73 @@ public class TestRemoteNodeFileSystem extends ExecTest {
       assertEquals((byte)i, readBuf[i]);
     }
   }
+
+  @SuppressWarnings("unchecked")
+  private void setupFileDataRPC(final byte[] data, final List<Long> requestedOffsets) throws Exception {
+    final ProxyConnection proxyConnection = mock(ProxyConnection.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        final DFS.GetFileDataRequest request = (DFS.GetFileDataRequest) invocation.getArgumentAt(2, MessageLite.class);
+        requestedOffsets.add(request.getStart());
+        final int start = (int) request.getStart();
+        final int read = start >= data.length ? -1 : Math.min(request.getLength(), data.length - start);
+        final RpcOutcomeListener<MessageLite> listener = invocation.getArgumentAt(0, RpcOutcomeListener.class);
+        listener.success(DFS.GetFileDataResponse.newBuilder().setRead(read).build(),
+            read > 0 ? Unpooled.wrappedBuffer(data, start, read) : null);
+        return null;
+      }
+    }).when(proxyConnection).send(any(RpcOutcomeListener.class), eq(DFS.RpcType.GET_FILE_DATA_REQUEST),
+        any(MessageLite.class), eq(DFS.GetFileDataResponse.class));
+
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        final RpcCommand<?, ProxyConnection> rpcCommand = invocation.getArgumentAt(0, RpcCommand.class);
+        rpcCommand.connectionSucceeded(proxyConnection);
+        return null;
+      }
+    }).when(runner).runCommand(any(RpcCommand.class));
+  }
+
+  @Test
+  public void testInputStreamReadAhead() throws Exception {
+    byte[] data = new byte[350];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) i;
+    }
+    List<Long> requestedOffsets = new ArrayList<>();
+    setupFileDataRPC(data, requestedOffsets);
+
+    FileSystem fs = newRemoteNodeFileSystem();
+    FSDataInputStream inputStream = fs.open(new Path("/foo/bar"), 100);
+    byte[] readBuf = new byte[1000];
+    assertEquals(350, inputStream.read(readBuf, 0, 1000));
+    for (int i = 0; i < data.length; ++i) {
+      assertEquals(data[i], readBuf[i]);
+    }
+    // the chunks after the second one are requested ahead of the reads, until a short chunk is received
+    assertEquals(Arrays.asList(0L, 100L, 200L, 300L, 400L, 500L, 600L, 350L), requestedOffsets);
+    assertEquals(-1, inputStream.read(readBuf, 0, 1000));
+
+    // positioned reads don't move the stream
+    requestedOffsets.clear();
+    byte[] positionedBuf = new byte[250];
+    inputStream.readFully(50, positionedBuf, 0, 250);
+    for (int i = 0; i < positionedBuf.length; ++i) {
+      assertEquals(data[50 + i], positionedBuf[i]);
+    }
+    assertEquals(Arrays.asList(50L, 150L, 250L), requestedOffsets);
+    assertEquals(350, inputStream.getPos());
+
+    // seeking back within the current chunk doesn't send any request
+    requestedOffsets.clear();
+    inputStream.close();
+    inputStream = fs.open(new Path("/foo/bar"), 100);
+    assertEquals(10, inputStream.read(readBuf, 0, 10));
+    inputStream.seek(5);
+    assertEquals(data[5], (byte) inputStream.read());
+    assertEquals(Arrays.asList(0L), requestedOffsets);
+    inputStream.close();
+  }
 }
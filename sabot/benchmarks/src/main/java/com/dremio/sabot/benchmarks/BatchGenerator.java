@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.NullableIntVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.arrow.vector.ValueVector;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.SchemaBuilder;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+
+/**
+ * Generates batches of synthetic data for the benchmarks. All columns of a batch share the same type. Values are
+ * uniformly distributed over a fixed number of distinct values, with a fixed fraction of nulls. Generation is
+ * deterministic for a given seed so runs can be compared with each other.
+ */
+public class BatchGenerator {
+
+  /**
+   * Type of the generated columns.
+   */
+  public enum ColumnType {
+    INT(CompleteType.INT),
+    BIGINT(CompleteType.BIGINT),
+    VARCHAR(CompleteType.VARCHAR);
+
+    private final CompleteType type;
+
+    ColumnType(CompleteType type) {
+      this.type = type;
+    }
+  }
+
+  private final ColumnType type;
+  private final int width;
+  private final double nullDensity;
+  private final long cardinality;
+  private final Random random;
+
+  /**
+   * @param type type of every column.
+   * @param width number of columns.
+   * @param nullDensity fraction of null values, in [0, 1].
+   * @param cardinality number of distinct non null values in each column.
+   * @param seed seed of the random generator.
+   */
+  public BatchGenerator(ColumnType type, int width, double nullDensity, long cardinality, long seed) {
+    this.type = type;
+    this.width = width;
+    this.nullDensity = nullDensity;
+    this.cardinality = cardinality;
+    this.random = new Random(seed);
+  }
+
+  public BatchSchema getSchema() {
+    final SchemaBuilder builder = BatchSchema.newBuilder();
+    for (int i = 0; i < width; i++) {
+      builder.addField(type.type.toField("c" + i));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Generate a new batch. The caller owns the returned container.
+   * @param allocator allocator of the batch vectors.
+   * @param records number of records in the batch.
+   * @return a container holding the generated records.
+   */
+  public VectorContainer next(BufferAllocator allocator, int records) {
+    final VectorContainer container = VectorContainer.create(allocator, getSchema());
+    container.allocateNew();
+    for (VectorWrapper<?> wrapper : container) {
+      fill(wrapper.getValueVector(), records);
+    }
+    container.setAllCount(records);
+    return container;
+  }
+
+  private void fill(ValueVector vector, int records) {
+    for (int i = 0; i < records; i++) {
+      if (random.nextDouble() < nullDensity) {
+        continue;
+      }
+
+      final long value = (long) (random.nextDouble() * cardinality);
+      switch (type) {
+      case INT:
+        ((NullableIntVector) vector).setSafe(i, (int) value);
+        break;
+      case BIGINT:
+        ((NullableBigIntVector) vector).setSafe(i, value);
+        break;
+      case VARCHAR:
+        final byte[] bytes = ("value-" + value).getBytes(StandardCharsets.UTF_8);
+        ((NullableVarCharVector) vector).setSafe(i, bytes, 0, bytes.length);
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported column type " + type);
+      }
+    }
+  }
+}
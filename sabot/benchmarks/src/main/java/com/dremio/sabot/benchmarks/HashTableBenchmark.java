@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.benchmarks.BatchGenerator.ColumnType;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.ht2.ResizeListener;
+import com.koloboke.collect.hash.HashConfig;
+
+/**
+ * Measures insertion into and lookup from {@link LBlockHashTable}. Keys are pivoted ahead of time, so only the hash
+ * table itself is measured. Scores are in keys per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class HashTableBenchmark {
+
+  private static final int BATCH_SIZE = LBlockHashTable.MAX_VALUES_PER_BATCH;
+  private static final int BATCH_COUNT = 32;
+  private static final int INITIAL_SIZE = 4096;
+  private static final int VAR_FIELD_AVERAGE_SIZE = 15;
+
+  @Param({"BIGINT", "VARCHAR"})
+  public ColumnType type;
+
+  @Param({"1", "4"})
+  public int width;
+
+  @Param({"0", "0.5"})
+  public double nullDensity;
+
+  @Param({"1000", "1000000"})
+  public long cardinality;
+
+  private BufferAllocator allocator;
+  private PivotedBatches batches;
+  private LBlockHashTable populated;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    batches = new PivotedBatches(allocator, new BatchGenerator(type, width, nullDensity, cardinality, 0),
+        BATCH_COUNT, BATCH_SIZE);
+    populated = newTable();
+    insertAll(populated);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(populated, batches, allocator);
+  }
+
+  private LBlockHashTable newTable() {
+    return new LBlockHashTable(HashConfig.getDefault(), batches.getPivot(0), allocator, INITIAL_SIZE,
+        VAR_FIELD_AVERAGE_SIZE, ResizeListener.NO_OP);
+  }
+
+  private int insertAll(LBlockHashTable table) {
+    int ordinals = 0;
+    for (int b = 0; b < batches.getBatchCount(); b++) {
+      final long fixedAddr = batches.getFixed(b).getMemoryAddress();
+      final long varAddr = batches.getVariable(b).getMemoryAddress();
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        ordinals += table.add(fixedAddr, varAddr, i);
+      }
+    }
+    return ordinals;
+  }
+
+  /**
+   * Build a new table from all the keys, including the cost of growing it.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE * BATCH_COUNT)
+  public int insert() throws Exception {
+    try (LBlockHashTable table = newTable()) {
+      return insertAll(table);
+    }
+  }
+
+  /**
+   * Look up all the keys in a table that already contains them.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE * BATCH_COUNT)
+  public int find() {
+    int ordinals = 0;
+    for (int b = 0; b < batches.getBatchCount(); b++) {
+      final long fixedAddr = batches.getFixed(b).getMemoryAddress();
+      final long varAddr = batches.getVariable(b).getMemoryAddress();
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        ordinals += populated.find(fixedAddr, varAddr, i);
+      }
+    }
+    return ordinals;
+  }
+}
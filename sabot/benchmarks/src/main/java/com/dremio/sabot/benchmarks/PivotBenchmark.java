@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.benchmarks.BatchGenerator.ColumnType;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.Unpivots;
+
+/**
+ * Measures conversion of key columns to and from the row wise layout used by the hash tables. Scores are in records
+ * per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PivotBenchmark {
+
+  private static final int BATCH_SIZE = LBlockHashTable.MAX_VALUES_PER_BATCH;
+  private static final int BATCH_COUNT = 16;
+
+  @Param({"INT", "BIGINT", "VARCHAR"})
+  public ColumnType type;
+
+  @Param({"1", "4", "16"})
+  public int width;
+
+  @Param({"0", "0.1", "0.9"})
+  public double nullDensity;
+
+  private BufferAllocator allocator;
+  private PivotedBatches batches;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    batches = new PivotedBatches(allocator, new BatchGenerator(type, width, nullDensity, 1 << 20, 0),
+        BATCH_COUNT, BATCH_SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(batches, allocator);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE * BATCH_COUNT)
+  public void pivot() {
+    for (int b = 0; b < batches.getBatchCount(); b++) {
+      Pivots.pivot(batches.getPivot(b), BATCH_SIZE, batches.getFixed(b), batches.getVariable(b));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE * BATCH_COUNT)
+  public void unpivot() {
+    for (int b = 0; b < batches.getBatchCount(); b++) {
+      Unpivots.unpivot(batches.getPivot(b), batches.getFixed(b), batches.getVariable(b), BATCH_SIZE);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.common.ht2.FieldVectorPair;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.PivotBuilder;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+
+/**
+ * A set of generated batches, along with their pivot definitions and pivoted keys. All columns of the batches are
+ * keys. Each batch is pivoted into its own blocks, and unpivots into a container of the same schema.
+ */
+class PivotedBatches implements AutoCloseable {
+
+  private final List<VectorContainer> batches = new ArrayList<>();
+  private final List<VectorContainer> unpivoted = new ArrayList<>();
+  private final List<PivotDef> pivots = new ArrayList<>();
+  private final List<FixedBlockVector> fixed = new ArrayList<>();
+  private final List<VariableBlockVector> variable = new ArrayList<>();
+  private final int batchSize;
+
+  PivotedBatches(BufferAllocator allocator, BatchGenerator generator, int batchCount, int batchSize) {
+    this.batchSize = batchSize;
+    for (int b = 0; b < batchCount; b++) {
+      final VectorContainer batch = generator.next(allocator, batchSize);
+      batches.add(batch);
+      final VectorContainer output = VectorContainer.create(allocator, generator.getSchema());
+      unpivoted.add(output);
+
+      final List<FieldVector> inputs = VectorContainer.getFieldVectors(batch);
+      final List<FieldVector> outputs = VectorContainer.getFieldVectors(output);
+      final List<FieldVectorPair> pairs = new ArrayList<>();
+      for (int i = 0; i < inputs.size(); i++) {
+        pairs.add(new FieldVectorPair(inputs.get(i), outputs.get(i)));
+      }
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(pairs);
+      pivots.add(pivot);
+
+      final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+      final VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());
+      fixed.add(fbv);
+      variable.add(var);
+      Pivots.pivot(pivot, batchSize, fbv, var);
+    }
+  }
+
+  int getBatchCount() {
+    return batches.size();
+  }
+
+  int getBatchSize() {
+    return batchSize;
+  }
+
+  int getRecordCount() {
+    return batches.size() * batchSize;
+  }
+
+  PivotDef getPivot(int batch) {
+    return pivots.get(batch);
+  }
+
+  FixedBlockVector getFixed(int batch) {
+    return fixed.get(batch);
+  }
+
+  VariableBlockVector getVariable(int batch) {
+    return variable.get(batch);
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(fixed, variable, batches, unpivoted);
+  }
+}
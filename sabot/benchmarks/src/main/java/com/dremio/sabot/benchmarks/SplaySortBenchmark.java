@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.exec.record.selection.SelectionVector4;
+import com.dremio.sabot.benchmarks.BatchGenerator.ColumnType;
+import com.dremio.sabot.exec.context.FunctionContext;
+import com.dremio.sabot.op.sort.external.RecordBatchData;
+import com.dremio.sabot.op.sort.external.SplaySortTemplate;
+import com.dremio.sabot.op.sort.external.SplayTree;
+
+import io.netty.buffer.ArrowBuf;
+
+/**
+ * Measures the splay tree used by the external sort to merge sorted batches in memory. The comparison is hand written
+ * instead of generated, so the score only reflects the tree itself. Scores are in records per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SplaySortBenchmark {
+
+  private static final int BATCH_SIZE = 4095;
+  private static final int BATCH_COUNT = 16;
+  private static final int TARGET_BATCH_SIZE = 4095;
+
+  @Param({"0", "0.5"})
+  public double nullDensity;
+
+  @Param({"100", "1000000"})
+  public long cardinality;
+
+  private BufferAllocator allocator;
+  private final List<VectorContainer> batches = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+  }
+
+  /**
+   * The tree takes ownership of the batches it sorts, so every invocation needs new ones.
+   */
+  @Setup(Level.Invocation)
+  public void generate() {
+    final BatchGenerator generator = new BatchGenerator(ColumnType.BIGINT, 1, nullDensity, cardinality, 0);
+    for (int b = 0; b < BATCH_COUNT; b++) {
+      batches.add(generator.next(allocator, BATCH_SIZE));
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void release() throws Exception {
+    AutoCloseables.close(batches);
+    batches.clear();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(allocator);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE * BATCH_COUNT)
+  public int sort() throws Exception {
+    final int records = BATCH_SIZE * BATCH_COUNT;
+    final BigIntSplaySorter sorter = new BigIntSplaySorter();
+    try (ArrowBuf tree = allocator.buffer((records + 1) * SplayTree.NODE_SIZE);
+         SelectionVector2 sv2 = new SelectionVector2(allocator)) {
+      tree.setZero(0, tree.capacity());
+      sorter.init(null, new ExpandableHyperContainer(allocator, batches.get(0).getSchema()));
+      sorter.setData(tree);
+
+      sv2.allocateNew(BATCH_SIZE);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        sv2.setIndex(i * 2, i);
+      }
+
+      for (VectorContainer batch : batches) {
+        sorter.add(sv2, new RecordBatchData(batch, allocator));
+      }
+
+      try (SelectionVector4 sv4 = sorter.getFinalSort(allocator, TARGET_BATCH_SIZE)) {
+        return sv4.getTotalCount();
+      }
+    } finally {
+      sorter.close();
+    }
+  }
+
+  /**
+   * Sorts on the first column, nulls first.
+   */
+  public static class BigIntSplaySorter extends SplaySortTemplate {
+    private NullableBigIntVector[] vectors;
+
+    @Override
+    public void doSetup(FunctionContext context, VectorAccessible incoming, VectorAccessible outgoing) {
+      vectors = incoming.getValueAccessorById(NullableBigIntVector.class, 0).getValueVectors();
+    }
+
+    @Override
+    public int doEval(int leftIndex, int rightIndex) {
+      final NullableBigIntVector left = vectors[leftIndex >>> 16];
+      final NullableBigIntVector right = vectors[rightIndex >>> 16];
+      final int leftRow = leftIndex & 65535;
+      final int rightRow = rightIndex & 65535;
+
+      final boolean leftNull = left.isNull(leftRow);
+      final boolean rightNull = right.isNull(rightRow);
+      if (leftNull || rightNull) {
+        return leftNull == rightNull ? 0 : (leftNull ? -1 : 1);
+      }
+      return Long.compare(left.get(leftRow), right.get(rightRow));
+    }
+  }
+}
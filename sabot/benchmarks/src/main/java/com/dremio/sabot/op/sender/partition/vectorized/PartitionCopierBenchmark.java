@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender.partition.vectorized;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.benchmarks.BatchGenerator;
+import com.dremio.sabot.benchmarks.BatchGenerator.ColumnType;
+import com.dremio.sabot.op.sender.partition.vectorized.MultiDestCopier.CopyWatches;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Measures the copiers used by {@link VectorizedPartitionSenderOperator} to scatter the rows of an incoming batch to
+ * its outgoing batches. Outgoing batches are never flushed, so only the copy itself is measured. Scores are in rows
+ * per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PartitionCopierBenchmark {
+
+  private static final int BATCH_SIZE = 4095;
+
+  @Param({"INT", "BIGINT", "VARCHAR"})
+  public ColumnType type;
+
+  @Param({"1", "8"})
+  public int width;
+
+  @Param({"0", "0.5"})
+  public double nullDensity;
+
+  @Param({"16", "256"})
+  public int receivers;
+
+  private BufferAllocator allocator;
+  private VectorContainer incoming;
+  private OutgoingBatch[] batches;
+  private IntVector copyIndices;
+  private List<MultiDestCopier> copiers;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    incoming = new BatchGenerator(type, width, nullDensity, 1 << 20, 0).next(allocator, BATCH_SIZE);
+
+    // outgoing batches are large enough to hold the whole incoming batch, so every pass can reuse them from the start.
+    batches = new OutgoingBatch[receivers];
+    for (int i = 0; i < receivers; i++) {
+      batches[i] = new OutgoingBatch(i, i, BATCH_SIZE, incoming, allocator, null, null, null, i, null);
+      batches[i].allocateNew();
+    }
+    copiers = MultiDestCopier.getCopiers(VectorContainer.getFieldVectors(incoming), batches, new CopyWatches());
+
+    // route each row to a random receiver, keeping track of the next free row of each one.
+    final Random random = new Random(0);
+    final int[] rows = new int[receivers];
+    copyIndices = new IntVector("copy-compound-indices", allocator);
+    copyIndices.allocateNew(BATCH_SIZE);
+    final long addr = copyIndices.getBuffer().memoryAddress();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      final int receiver = random.nextInt(receivers);
+      PlatformDependent.putInt(addr + i * 4, (receiver << 16) | rows[receiver]++);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(AutoCloseables.iter(batches), AutoCloseables.iter(copyIndices, incoming, allocator));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void copy() {
+    final long addr = copyIndices.getBuffer().memoryAddress();
+    for (MultiDestCopier copier : copiers) {
+      copier.copy(addr, 0, BATCH_SIZE);
+    }
+  }
+}
@@ -84,17 +84,37 @@ public interface ExecConstants {
   PositiveLongValidator BATCH_VARIABLE_FIELD_SIZE_ESTIMATE =
       new PositiveLongValidator("exec.batch.field.variable-width.size-estimate", Integer.MAX_VALUE, 15);
 
+  /** Number of threads the time-sliced task pool uses to run fragments. */
+  PositiveLongValidator SLICING_THREADS = new PositiveLongValidator("exec.slicing.threads", 4096, Runtime.getRuntime().availableProcessors());
+  /** Time, in milliseconds, a fragment runs before it yields its thread to the next scheduled fragment. */
+  PositiveLongValidator SLICING_QUANTUM_MS = new PositiveLongValidator("exec.slicing.quantum_ms", Integer.MAX_VALUE, 25);
+
   String OPERATOR_TARGET_BATCH_BYTES = "dremio.exec.operator_batch_bytes";
   OptionValidator OPERATOR_TARGET_BATCH_BYTES_VALIDATOR = new LongValidator(OPERATOR_TARGET_BATCH_BYTES, 10*1024*1024);
 
   String CLIENT_SUPPORT_COMPLEX_TYPES = "dremio.client.supports-complex-types";
 
   BooleanValidator ENABLE_VECTORIZED_HASHAGG = new BooleanValidator("exec.operator.aggregate.vectorize", true);
+  BooleanValidator ENABLE_VECTORIZED_HASHAGG_SPILL = new BooleanValidator("exec.operator.aggregate.vectorize.spill", true);
+  PowerOfTwoLongValidator VECTORIZED_HASHAGG_SPILL_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.aggregate.vectorize.spill.partitions", 1024, 16);
+  PositiveLongValidator VECTORIZED_HASHAGG_SPILL_MAX_DEPTH = new PositiveLongValidator("exec.operator.aggregate.vectorize.spill.max_depth", 16, 4);
+  // Number of hash partitions of its input a vectorized hash aggregation aggregates in parallel, 1 to aggregate in the fragment thread only
+  PowerOfTwoLongValidator VECTORIZED_HASHAGG_PARALLELISM = new PowerOfTwoLongValidator("exec.operator.aggregate.vectorize.parallelism", 64, 1);
   BooleanValidator ENABLE_VECTORIZED_HASHJOIN = new BooleanValidator("exec.operator.join.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_HASHJOIN_SPECIFIC = new BooleanValidator("exec.operator.join.vectorize.specific", false);
+  BooleanValidator ENABLE_VECTORIZED_HASHJOIN_SPILL = new BooleanValidator("exec.operator.join.vectorize.spill", true);
+  PowerOfTwoLongValidator VECTORIZED_HASHJOIN_SPILL_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.join.vectorize.spill.partitions", 1024, 16);
+  PositiveLongValidator VECTORIZED_HASHJOIN_SPILL_MAX_DEPTH = new PositiveLongValidator("exec.operator.join.vectorize.spill.max_depth", 16, 4);
+  BooleanValidator ENABLE_RUNTIME_FILTER = new BooleanValidator("exec.operator.join.runtime_filter", true);
+  // beyond this many build records, a runtime filter is unlikely to be selective and isn't built. Records are counted
+  // rather than distinct keys, as the filter keeps the hash of every build record.
+  PositiveLongValidator RUNTIME_FILTER_MAX_BUILD_RECORDS = new PositiveLongValidator("exec.operator.join.runtime_filter.max_build_records", 100_000_000, 1_000_000);
   BooleanValidator ENABLE_VECTORIZED_COPIER = new BooleanValidator("exec.operator.copier.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_PARTITIONER = new BooleanValidator("exec.operator.partitioner.vectorize", true);
   BooleanValidator DEBUG_HASHJOIN_INSERTION = new BooleanValidator("exec.operator.join.debug-insertion", false);
+  BooleanValidator ENABLE_EXCHANGE_COMPRESSION = new BooleanValidator("exec.exchange.compression", false);
+  // batches smaller than this are sent uncompressed, compressing them costs more than it saves.
+  LongValidator EXCHANGE_COMPRESSION_MIN_SIZE = new RangeLongValidator("exec.exchange.compression.min_size", 0, Integer.MAX_VALUE, 64 * 1024);
 
   String OUTPUT_FORMAT_OPTION = "store.format";
   OptionValidator OUTPUT_FORMAT_VALIDATOR = new StringValidator(OUTPUT_FORMAT_OPTION, "parquet");
@@ -128,16 +148,35 @@ public interface ExecConstants {
 
   BooleanValidator PARQUET_READER_VECTORIZE = new BooleanValidator("store.parquet.vectorize", true);
   BooleanValidator ENABLED_PARQUET_TRACING = new BooleanValidator("store.parquet.vectorize.tracing.enable", false);
+  /** Whether flat primitive columns are read, and pushed filters evaluated, by the vectorized parquet reader. */
+  BooleanValidator PARQUET_VECTORIZED_READER_ENABLED = new BooleanValidator("store.parquet.vectorized_reader.enabled", false);
 
   String PARQUET_READER_INT96_AS_TIMESTAMP = "store.parquet.reader.int96_as_timestamp";
   BooleanValidator PARQUET_READER_INT96_AS_TIMESTAMP_VALIDATOR = new BooleanValidator(PARQUET_READER_INT96_AS_TIMESTAMP, true);
 
+  /** Whether parquet footers are cached across scans, shared by all the readers of a node. */
+  BooleanValidator PARQUET_FOOTER_CACHE_ENABLED = new BooleanValidator("store.parquet.footer_cache.enabled", true);
+  /** Maximum size, in bytes of estimated heap usage, of the parquet footer cache. */
+  PositiveLongValidator PARQUET_FOOTER_CACHE_SIZE = new PositiveLongValidator("store.parquet.footer_cache.size", Long.MAX_VALUE, 256 * 1024 * 1024);
+  /** Whether row groups whose column statistics or dictionaries rule out the pushed filter conditions are skipped. */
+  BooleanValidator PARQUET_ROW_GROUP_FILTER_ENABLED = new BooleanValidator("store.parquet.row_group_filter.enabled", true);
+  /** Whether the column chunks of a row group read from a remote file system are fetched with coalesced parallel requests. */
+  BooleanValidator PARQUET_COALESCED_READS_ENABLED = new BooleanValidator("store.parquet.coalesced_reads.enabled", true);
+  /** Maximum gap, in bytes, between two column chunks fetched with the same request. */
+  LongValidator PARQUET_COALESCED_READS_MAX_GAP = new RangeLongValidator("store.parquet.coalesced_reads.max_gap", 0, Integer.MAX_VALUE, 1024 * 1024);
+  /** Maximum size, in bytes, of the column chunks of a row group fetched at once, larger row groups are streamed. */
+  LongValidator PARQUET_COALESCED_READS_MAX_SIZE = new RangeLongValidator("store.parquet.coalesced_reads.max_size", 0, Integer.MAX_VALUE, 64 * 1024 * 1024);
+  /** Number of readers a scan creates in the background ahead of the one it is reading from, 0 disables prefetching. */
+  LongValidator SCAN_READER_PREFETCH_DEPTH = new RangeLongValidator("store.scan.reader_prefetch_depth", 0, 16, 1);
+
   BooleanValidator USE_LEGACY_CATALOG_NAME = new BooleanValidator("client.use_legacy_catalog_name", false);
 
   String JSON_ALL_TEXT_MODE = "store.json.all_text_mode";
   BooleanValidator JSON_READER_ALL_TEXT_MODE_VALIDATOR = new BooleanValidator(JSON_ALL_TEXT_MODE, false);
   BooleanValidator JSON_EXTENDED_TYPES = new BooleanValidator("store.json.extended_types", false);
   BooleanValidator JSON_WRITER_UGLIFY = new BooleanValidator("store.json.writer.uglify", false);
+  // size of the blocks read from json files, the parser tokenizes each block from memory
+  PositiveLongValidator JSON_READER_BUFFER_SIZE = new PositiveLongValidator("store.json.reader.buffer_size", 16 * 1024 * 1024, 1024 * 1024);
 
   DoubleValidator TEXT_ESTIMATED_ROW_SIZE = new RangeDoubleValidator(
       "store.text.estimated_row_size_bytes", 1, Long.MAX_VALUE, 10.0);
@@ -183,6 +222,11 @@ public interface ExecConstants {
 
   BooleanValidator ELASTIC_ENABLE_MAPPING_CHECKSUM = new BooleanValidator("store.elastic.enable_mapping_checksum", true);
 
+  // number of slices each shard is scrolled in, so a shard can be read by several fragments. 1 disables slicing.
+  LongValidator ELASTIC_SCROLL_SLICES_PER_SHARD = new RangeLongValidator("store.elastic.scroll_slices_per_shard", 1, 64, 1);
+  // request the next scroll page while the current one is read.
+  BooleanValidator ELASTIC_SCROLL_PREFETCH = new BooleanValidator("store.elastic.scroll_prefetch", true);
+
   BooleanValidator ENABLE_UNION_TYPE = new BooleanValidator("exec.enable_union_type", true);
 
   BooleanValidator ACCELERATION_VERBOSE_LOGGING = new BooleanValidator("accelerator.system.verbose.logging", true);
@@ -201,6 +245,8 @@ public interface ExecConstants {
   String HIVE_OPTIMIZE_SCAN_WITH_NATIVE_READERS = "store.hive.optimize_scan_with_native_readers";
   OptionValidator HIVE_OPTIMIZE_SCAN_WITH_NATIVE_READERS_VALIDATOR =
       new BooleanValidator(HIVE_OPTIMIZE_SCAN_WITH_NATIVE_READERS, true);
+  // read ORC tables with the vectorized ORC reader instead of the SerDe when the columns allow it
+  BooleanValidator HIVE_ORC_READER_VECTORIZE = new BooleanValidator("store.hive.orc.vectorize", true);
 
   String SLICE_TARGET = "planner.slice_target";
   long SLICE_TARGET_DEFAULT = 100000L;
@@ -312,6 +358,15 @@ public interface ExecConstants {
   BooleanValidator ENABLE_QUEUE_MEMORY_LIMIT = new BooleanValidator("exec.queue.memory.enable", true);
   LongValidator LARGE_QUEUE_MEMORY_LIMIT = new RangeLongValidator("exec.queue.memory.large", 0, Long.MAX_VALUE, 0);
   LongValidator SMALL_QUEUE_MEMORY_LIMIT = new RangeLongValidator("exec.queue.memory.small", 0, Long.MAX_VALUE, 0);
+  // memory each executor reserves for the queries running in a queue, 0 to not limit it. Only queries with a memory
+  // limit reserve memory.
+  LongValidator LARGE_QUEUE_MEMORY_BUDGET = new RangeLongValidator("exec.queue.memory_budget.large", 0, Long.MAX_VALUE, 0);
+  LongValidator SMALL_QUEUE_MEMORY_BUDGET = new RangeLongValidator("exec.queue.memory_budget.small", 0, Long.MAX_VALUE, 0);
+  LongValidator REFLECTION_LARGE_QUEUE_MEMORY_BUDGET = new RangeLongValidator("reflection.queue.memory_budget.large", 0, Long.MAX_VALUE, 0);
+  LongValidator REFLECTION_SMALL_QUEUE_MEMORY_BUDGET = new RangeLongValidator("reflection.queue.memory_budget.small", 0, Long.MAX_VALUE, 0);
+  // comma separated users and sources whose queries run in the large queues whatever their cost
+  StringValidator LARGE_QUEUE_USERS = new StringValidator("exec.queue.large.users", "");
+  StringValidator LARGE_QUEUE_SOURCES = new StringValidator("exec.queue.large.sources", "");
 
   String ENABLE_VERBOSE_ERRORS_KEY = "exec.errors.verbose";
   OptionValidator ENABLE_VERBOSE_ERRORS = new BooleanValidator(ENABLE_VERBOSE_ERRORS_KEY, false);
@@ -363,6 +418,8 @@ public interface ExecConstants {
   LongValidator RESULTS_MAX_AGE_IN_DAYS = new LongValidator("results.max.age_in_days", 30);
   //Configuration used for testing or debugging
   LongValidator DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS = new LongValidator("debug.results.max.age_in_milliseconds", 0);
+  // Size in bytes of the cache of job results batches read for paging through results, 0 disables it
+  LongValidator RESULTS_CACHE_SIZE = new RangeLongValidator("results.cache.size", 0, Long.MAX_VALUE, 256 * 1024 * 1024);
 
   BooleanValidator SORT_FILE_BLOCKS = new BooleanValidator("store.file.sort_blocks", false);
 
@@ -374,4 +431,9 @@ public interface ExecConstants {
   PositiveLongValidator PLANNER_IN_SUBQUERY_THRESHOLD = new PositiveLongValidator("planner.in.subquery.threshold", Character.MAX_VALUE, 20);
 
   BooleanValidator EXTERNAL_SORT_COMPRESS_SPILL_FILES = new BooleanValidator("exec.operator.sort.external.compress_spill_files", true);
+
+  // Write and read sort spill files in the background, overlapping disk io with sorting and merging
+  BooleanValidator EXTERNAL_SORT_ASYNC_SPILL_IO = new BooleanValidator("exec.operator.sort.external.async_spill_io", true);
+  // Size of each of the two heap buffers used per spill file by background writes and read aheads
+  PositiveLongValidator EXTERNAL_SORT_SPILL_IO_BUFFER_SIZE = new PositiveLongValidator("exec.operator.sort.external.spill_io_buffer_size", 16 * 1024 * 1024, 256 * 1024);
 }
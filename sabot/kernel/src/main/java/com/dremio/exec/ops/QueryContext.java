@@ -18,6 +18,7 @@ package com.dremio.exec.ops;
 import static java.util.Arrays.asList;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -67,6 +68,7 @@ import com.dremio.sabot.exec.context.BufferManagerImpl;
 import com.dremio.sabot.exec.context.ContextInformation;
 import com.dremio.sabot.exec.context.ContextInformationImpl;
 import com.dremio.sabot.rpc.user.UserSession;
+import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.NamespaceService;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
@@ -104,7 +106,18 @@ public class QueryContext implements AutoCloseable, OptimizerRulesContext {
     public OptionValue getOption(final String optionKey) {
       return getOptions().getOption(optionKey);
     }
+
+    @Override
+    public void datasetResolved(NamespaceKey key, Long version) {
+      final Long previous = datasetVersions.put(key, version);
+      if (version == null || (previous != null && !previous.equals(version))) {
+        unversionedDatasets = true;
+      }
+    }
   };
+  /** Versions of the datasets resolved while planning the query */
+  private final Map<NamespaceKey, Long> datasetVersions = Maps.newHashMap();
+  private boolean unversionedDatasets;
   /** Stores constants and their holders by type */
   private final Map<String, Map<MinorType, ValueHolder>> constantValueHolderCache;
   /** Stores error contexts registered with this function context **/
@@ -294,6 +307,17 @@ public class QueryContext implements AutoCloseable, OptimizerRulesContext {
     return infoProvider;
   }
 
+  /**
+   * Get the namespace versions of the tables and views resolved so far by the query.
+   * @return the versions by dataset key, or null if a dataset without a stable version was resolved.
+   */
+  public Map<NamespaceKey, Long> getResolvedDatasetVersions() {
+    if (unversionedDatasets) {
+      return null;
+    }
+    return Collections.unmodifiableMap(datasetVersions);
+  }
+
   public SchemaTreeProvider getSchemaTreeProvider() {
     return schemaTreeProvider;
   }
@@ -46,6 +46,17 @@ public class HashJoinPOP extends AbstractBase {
   private final List<JoinCondition> conditions;
   private final JoinRelType joinType;
   private final boolean vectorize;
+  private final RuntimeFilterTarget runtimeFilter;
+
+  public HashJoinPOP(
+          PhysicalOperator left,
+          PhysicalOperator right,
+          List<JoinCondition> conditions,
+          JoinRelType joinType,
+          Boolean vectorize
+  ) {
+      this(left, right, conditions, joinType, vectorize, null);
+  }
 
   @JsonCreator
   public HashJoinPOP(
@@ -53,7 +64,8 @@ public class HashJoinPOP extends AbstractBase {
           @JsonProperty("right") PhysicalOperator right,
           @JsonProperty("conditions") List<JoinCondition> conditions,
           @JsonProperty("joinType") JoinRelType joinType,
-          @JsonProperty("vectorize") Boolean vectorize
+          @JsonProperty("vectorize") Boolean vectorize,
+          @JsonProperty("runtimeFilter") RuntimeFilterTarget runtimeFilter
   ) {
       this.left = left;
       this.right = right;
@@ -61,6 +73,7 @@ public class HashJoinPOP extends AbstractBase {
       Preconditions.checkArgument(joinType != null, "Join type is missing!");
       this.joinType = joinType;
       this.vectorize = vectorize == null ? false : vectorize;
+      this.runtimeFilter = runtimeFilter;
   }
 
   @Override
@@ -71,7 +84,7 @@ public class HashJoinPOP extends AbstractBase {
   @Override
   public PhysicalOperator getNewWithChildren(List<PhysicalOperator> children) {
       Preconditions.checkArgument(children.size() == 2);
-      return new HashJoinPOP(children.get(0), children.get(1), conditions, joinType, vectorize);
+      return new HashJoinPOP(children.get(0), children.get(1), conditions, joinType, vectorize, runtimeFilter);
   }
 
   @Override
@@ -99,6 +112,13 @@ public class HashJoinPOP extends AbstractBase {
     return vectorize;
   }
 
+  /**
+   * Scan of the probe side that the join filters at runtime, or null if there is none.
+   */
+  public RuntimeFilterTarget getRuntimeFilter() {
+    return runtimeFilter;
+  }
+
   @Override
   protected BatchSchema constructSchema(FunctionLookupContext context) {
     SchemaBuilder b = BatchSchema.newBuilder();
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.config;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Scan that the runtime filter of a hash join applies to. The scan runs in the same fragment as the join and reads,
+ * in the given columns, the values of the probe side join keys, in the order of the join conditions.
+ */
+public class RuntimeFilterTarget {
+
+  private final int probeScanOperatorId;
+  private final List<String> probeScanColumns;
+
+  @JsonCreator
+  public RuntimeFilterTarget(
+      @JsonProperty("probeScanOperatorId") int probeScanOperatorId,
+      @JsonProperty("probeScanColumns") List<String> probeScanColumns) {
+    this.probeScanOperatorId = probeScanOperatorId;
+    this.probeScanColumns = ImmutableList.copyOf(probeScanColumns);
+  }
+
+  public int getProbeScanOperatorId() {
+    return probeScanOperatorId;
+  }
+
+  public List<String> getProbeScanColumns() {
+    return probeScanColumns;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof RuntimeFilterTarget)) {
+      return false;
+    }
+    final RuntimeFilterTarget other = (RuntimeFilterTarget) obj;
+    return probeScanOperatorId == other.probeScanOperatorId && probeScanColumns.equals(other.probeScanColumns);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(probeScanOperatorId, probeScanColumns);
+  }
+
+  @Override
+  public String toString() {
+    return "RuntimeFilterTarget [probeScanOperatorId=" + probeScanOperatorId + ", probeScanColumns=" + probeScanColumns + "]";
+  }
+}
@@ -312,6 +312,15 @@ public class PlanCaptureAttemptObserver extends AbstractAttemptObserver {
       .build());
   }
 
+  @Override
+  public void planCacheLookup(boolean hit, long millisSaved, double hitRatio) {
+    planPhases.add(PlanPhaseProfile.newBuilder()
+      .setPhaseName("Plan Cache")
+      .setDurationMillis(millisSaved)
+      .setPlan(String.format("%s, hit ratio %.2f", hit ? "hit" : "miss", hitRatio))
+      .build());
+  }
+
   @Override
   public void planAssignmentTime(long millisTaken) {
     planPhases.add(PlanPhaseProfile.newBuilder()
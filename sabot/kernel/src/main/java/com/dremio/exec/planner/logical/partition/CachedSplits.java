@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import java.util.List;
+import java.util.Map;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.planner.logical.partition.PartitionPredicate.PartitionColumn;
+import com.dremio.exec.store.TableMetadata;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * The splits of a dataset and the values of their partition columns, kept while planning a query so pruning the same
+ * dataset again doesn't reload its splits from the namespace nor decode its partition values again. Splits are only
+ * loaded from the namespace when first used.
+ */
+public final class CachedSplits {
+  private final Map<String, Optional<PartitionColumn>> columns = Maps.newHashMap();
+  // dropped once the splits are loaded.
+  private TableMetadata metadata;
+  private List<DatasetSplit> splits;
+
+  CachedSplits(TableMetadata metadata) {
+    this.metadata = metadata;
+  }
+
+  /**
+   * Get the splits of the dataset, loading them on first use.
+   */
+  public List<DatasetSplit> getSplits() {
+    if (splits == null) {
+      splits = ImmutableList.copyOf(metadata.getSplits());
+      metadata = null;
+    }
+    return splits;
+  }
+
+  /**
+   * Get the values of a partition column for all the splits.
+   * @param name name of the partition column.
+   * @param type type of the partition column.
+   * @return the values, or null if the type isn't supported.
+   */
+  public PartitionColumn getColumn(String name, MinorType type) {
+    final String key = name + ":" + type;
+    Optional<PartitionColumn> column = columns.get(key);
+    if (column == null) {
+      column = Optional.fromNullable(PartitionColumn.load(name, type, getSplits()));
+      columns.put(key, column);
+    }
+    return column.orNull();
+  }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.NlsString;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+
+/**
+ * A pruning condition evaluated directly against partition values stored in primitive arrays, as a faster
+ * alternative to copying the values into vectors and running the expression interpreter.
+ *
+ * Supports comparisons of partition columns with literals, null checks, boolean columns, and their conjunctions,
+ * disjunctions and negations, with sql three valued logic.
+ */
+public abstract class PartitionPredicate {
+  private static final byte FALSE = 0;
+  private static final byte TRUE = 1;
+  private static final byte UNKNOWN = 2;
+
+  /**
+   * Provides the partition values of the columns referenced by a condition.
+   */
+  public interface ColumnProvider {
+    /**
+     * @param index index of the column in the scan row type.
+     * @return the values of the partition column, or null if the column can't be evaluated.
+     */
+    PartitionColumn getColumn(int index);
+  }
+
+  abstract byte evaluate(int index);
+
+  /**
+   * @param index index of the split.
+   * @return whether the condition is true for the partition values of the split.
+   */
+  public boolean matches(int index) {
+    return evaluate(index) == TRUE;
+  }
+
+  /**
+   * Compile a pruning condition.
+   * @param condition condition on the partition columns of a scan.
+   * @param columns provider of the values of the partition columns.
+   * @return the predicate, or null if the condition isn't supported.
+   */
+  public static PartitionPredicate compile(RexNode condition, ColumnProvider columns) {
+    switch (condition.getKind()) {
+    case AND:
+    case OR: {
+      final List<RexNode> operands = ((RexCall) condition).getOperands();
+      final PartitionPredicate[] predicates = new PartitionPredicate[operands.size()];
+      for (int i = 0; i < predicates.length; i++) {
+        predicates[i] = compile(operands.get(i), columns);
+        if (predicates[i] == null) {
+          return null;
+        }
+      }
+      return condition.getKind() == SqlKind.AND ? new And(predicates) : new Or(predicates);
+    }
+
+    case NOT: {
+      final PartitionPredicate predicate = compile(((RexCall) condition).getOperands().get(0), columns);
+      return predicate == null ? null : new Not(predicate);
+    }
+
+    case IS_NULL:
+    case IS_NOT_NULL: {
+      final RexNode operand = ((RexCall) condition).getOperands().get(0);
+      if (!(operand instanceof RexInputRef)) {
+        return null;
+      }
+      final PartitionColumn column = columns.getColumn(((RexInputRef) operand).getIndex());
+      return column == null ? null : new IsNull(column, condition.getKind() == SqlKind.IS_NOT_NULL);
+    }
+
+    case INPUT_REF: {
+      final PartitionColumn column = columns.getColumn(((RexInputRef) condition).getIndex());
+      if (column == null || column.booleans == null) {
+        return null;
+      }
+      return new Comparison(column, SqlKind.EQUALS, Boolean.TRUE);
+    }
+
+    case LITERAL: {
+      final Object value = ((RexLiteral) condition).getValue();
+      if (value instanceof Boolean) {
+        return new Constant((Boolean) value ? TRUE : FALSE);
+      }
+      return null;
+    }
+
+    case EQUALS:
+    case NOT_EQUALS:
+    case LESS_THAN:
+    case LESS_THAN_OR_EQUAL:
+    case GREATER_THAN:
+    case GREATER_THAN_OR_EQUAL: {
+      final RexNode left = ((RexCall) condition).getOperands().get(0);
+      final RexNode right = ((RexCall) condition).getOperands().get(1);
+      if (left instanceof RexInputRef && right instanceof RexLiteral) {
+        return compare(columns.getColumn(((RexInputRef) left).getIndex()), condition.getKind(), (RexLiteral) right);
+      }
+      if (left instanceof RexLiteral && right instanceof RexInputRef) {
+        return compare(columns.getColumn(((RexInputRef) right).getIndex()), flip(condition.getKind()), (RexLiteral) left);
+      }
+      return null;
+    }
+
+    default:
+      return null;
+    }
+  }
+
+  private static SqlKind flip(SqlKind kind) {
+    switch (kind) {
+    case LESS_THAN:
+      return SqlKind.GREATER_THAN;
+    case LESS_THAN_OR_EQUAL:
+      return SqlKind.GREATER_THAN_OR_EQUAL;
+    case GREATER_THAN:
+      return SqlKind.LESS_THAN;
+    case GREATER_THAN_OR_EQUAL:
+      return SqlKind.LESS_THAN_OR_EQUAL;
+    default:
+      return kind;
+    }
+  }
+
+  private static PartitionPredicate compare(PartitionColumn column, SqlKind kind, RexLiteral literal) {
+    if (column == null || literal.isNull()) {
+      return null;
+    }
+    final Object value = literal.getValue();
+    final SqlTypeName literalType = literal.getTypeName();
+    switch (column.type) {
+    case INT:
+    case SMALLINT:
+    case TINYINT:
+    case BIGINT:
+      if (!(value instanceof BigDecimal)) {
+        return null;
+      }
+      final BigDecimal decimal = (BigDecimal) value;
+      try {
+        return new Comparison(column, kind, decimal.longValueExact());
+      } catch (ArithmeticException e) {
+        // fractional or out of range literal, compare as double.
+        return new Comparison(column, kind, decimal.doubleValue());
+      }
+
+    case FLOAT8:
+      return value instanceof BigDecimal ? new Comparison(column, kind, ((BigDecimal) value).doubleValue()) : null;
+
+    case DATE:
+    case TIMESTAMP:
+      if (!(value instanceof Calendar)
+          || literalType != (column.type == MinorType.DATE ? SqlTypeName.DATE : SqlTypeName.TIMESTAMP)) {
+        return null;
+      }
+      return new Comparison(column, kind, ((Calendar) value).getTimeInMillis());
+
+    case VARCHAR:
+      return value instanceof NlsString ? new Comparison(column, kind, ((NlsString) value).getValue()) : null;
+
+    case BIT:
+      return value instanceof Boolean ? new Comparison(column, kind, (Boolean) value) : null;
+
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Compare strings by code points, which is the order of their utf-8 encoding.
+   */
+  private static int compareCodePoints(String a, String b) {
+    final int length = Math.min(a.length(), b.length());
+    for (int i = 0; i < length; i++) {
+      final char x = a.charAt(i);
+      final char y = b.charAt(i);
+      if (x != y) {
+        if (Character.isSurrogate(x) != Character.isSurrogate(y)) {
+          // surrogates encode code points above all the other chars.
+          return Character.isSurrogate(x) ? 1 : -1;
+        }
+        return x - y;
+      }
+    }
+    return a.length() - b.length();
+  }
+
+  private static final class Constant extends PartitionPredicate {
+    private final byte value;
+
+    private Constant(byte value) {
+      this.value = value;
+    }
+
+    @Override
+    byte evaluate(int index) {
+      return value;
+    }
+  }
+
+  private static final class And extends PartitionPredicate {
+    private final PartitionPredicate[] predicates;
+
+    private And(PartitionPredicate[] predicates) {
+      this.predicates = predicates;
+    }
+
+    @Override
+    byte evaluate(int index) {
+      byte result = TRUE;
+      for (PartitionPredicate predicate : predicates) {
+        final byte value = predicate.evaluate(index);
+        if (value == FALSE) {
+          return FALSE;
+        }
+        if (value == UNKNOWN) {
+          result = UNKNOWN;
+        }
+      }
+      return result;
+    }
+  }
+
+  private static final class Or extends PartitionPredicate {
+    private final PartitionPredicate[] predicates;
+
+    private Or(PartitionPredicate[] predicates) {
+      this.predicates = predicates;
+    }
+
+    @Override
+    byte evaluate(int index) {
+      byte result = FALSE;
+      for (PartitionPredicate predicate : predicates) {
+        final byte value = predicate.evaluate(index);
+        if (value == TRUE) {
+          return TRUE;
+        }
+        if (value == UNKNOWN) {
+          result = UNKNOWN;
+        }
+      }
+      return result;
+    }
+  }
+
+  private static final class Not extends PartitionPredicate {
+    private final PartitionPredicate predicate;
+
+    private Not(PartitionPredicate predicate) {
+      this.predicate = predicate;
+    }
+
+    @Override
+    byte evaluate(int index) {
+      final byte value = predicate.evaluate(index);
+      return value == UNKNOWN ? UNKNOWN : (value == TRUE ? FALSE : TRUE);
+    }
+  }
+
+  private static final class IsNull extends PartitionPredicate {
+    private final PartitionColumn column;
+    private final boolean negate;
+
+    private IsNull(PartitionColumn column, boolean negate) {
+      this.column = column;
+      this.negate = negate;
+    }
+
+    @Override
+    byte evaluate(int index) {
+      return column.isNull(index) != negate ? TRUE : FALSE;
+    }
+  }
+
+  private static final class Comparison extends PartitionPredicate {
+    private final PartitionColumn column;
+    private final SqlKind kind;
+    private final long longValue;
+    private final double doubleValue;
+    private final Object value;
+    private final boolean compareAsDouble;
+
+    private Comparison(PartitionColumn column, SqlKind kind, long value) {
+      this(column, kind, value, value, null, false);
+    }
+
+    private Comparison(PartitionColumn column, SqlKind kind, double value) {
+      this(column, kind, 0, value, null, true);
+    }
+
+    private Comparison(PartitionColumn column, SqlKind kind, Object value) {
+      this(column, kind, 0, 0, value, false);
+    }
+
+    private Comparison(PartitionColumn column, SqlKind kind, long longValue, double doubleValue, Object value,
+        boolean compareAsDouble) {
+      this.column = column;
+      this.kind = kind;
+      this.longValue = longValue;
+      this.doubleValue = doubleValue;
+      this.value = value;
+      this.compareAsDouble = compareAsDouble;
+    }
+
+    @Override
+    byte evaluate(int index) {
+      if (column.isNull(index)) {
+        return UNKNOWN;
+      }
+      final int cmp;
+      if (column.longs != null) {
+        cmp = compareAsDouble ? compare(column.longs[index], doubleValue) : Long.compare(column.longs[index], longValue);
+      } else if (column.doubles != null) {
+        cmp = compare(column.doubles[index], doubleValue);
+      } else if (column.strings != null) {
+        cmp = compareCodePoints(column.strings[index], (String) value);
+      } else {
+        cmp = Boolean.compare(column.booleans[index], (Boolean) value);
+      }
+      return test(cmp) ? TRUE : FALSE;
+    }
+
+    private static int compare(double a, double b) {
+      if (a < b) {
+        return -1;
+      }
+      if (a > b) {
+        return 1;
+      }
+      return a == b ? 0 : Double.compare(a, b);
+    }
+
+    private boolean test(int cmp) {
+      switch (kind) {
+      case EQUALS:
+        return cmp == 0;
+      case NOT_EQUALS:
+        return cmp != 0;
+      case LESS_THAN:
+        return cmp < 0;
+      case LESS_THAN_OR_EQUAL:
+        return cmp <= 0;
+      case GREATER_THAN:
+        return cmp > 0;
+      case GREATER_THAN_OR_EQUAL:
+        return cmp >= 0;
+      default:
+        throw new IllegalStateException("Unexpected comparison " + kind);
+      }
+    }
+  }
+
+  /**
+   * Values of a partition column for a list of splits. Splits without a value for the column hold a null.
+   */
+  public static final class PartitionColumn {
+    private final MinorType type;
+    private final BitSet nulls = new BitSet();
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+    private boolean[] booleans;
+
+    private PartitionColumn(MinorType type) {
+      this.type = type;
+    }
+
+    boolean isNull(int index) {
+      return nulls.get(index);
+    }
+
+    /**
+     * Load the values of a partition column.
+     * @param name name of the partition column.
+     * @param type type of the partition column.
+     * @param splits splits to load the partition values of.
+     * @return the values, or null if the type isn't supported.
+     */
+    public static PartitionColumn load(String name, MinorType type, List<DatasetSplit> splits) {
+      final PartitionColumn column = new PartitionColumn(type);
+      final int count = splits.size();
+      switch (type) {
+      case INT:
+      case SMALLINT:
+      case TINYINT:
+      case BIGINT:
+      case DATE:
+      case TIMESTAMP:
+        column.longs = new long[count];
+        break;
+      case FLOAT8:
+        column.doubles = new double[count];
+        break;
+      case VARCHAR:
+        column.strings = new String[count];
+        break;
+      case BIT:
+        column.booleans = new boolean[count];
+        break;
+      default:
+        return null;
+      }
+
+      for (int i = 0; i < count; i++) {
+        final PartitionValue value = find(splits.get(i), name);
+        if (value == null || !column.set(i, value)) {
+          column.nulls.set(i);
+        }
+      }
+      return column;
+    }
+
+    private static PartitionValue find(DatasetSplit split, String name) {
+      final List<PartitionValue> values = split.getPartitionValuesList();
+      if (values == null) {
+        return null;
+      }
+      for (PartitionValue value : values) {
+        if (name.equals(value.getColumn())) {
+          return value;
+        }
+      }
+      return null;
+    }
+
+    private boolean set(int index, PartitionValue value) {
+      switch (type) {
+      case INT:
+      case SMALLINT:
+      case TINYINT: {
+        final Integer v = value.getIntValue();
+        if (v == null) {
+          return false;
+        }
+        // narrow the same way the values are written into vectors.
+        longs[index] = type == MinorType.INT ? v : (type == MinorType.SMALLINT ? v.shortValue() : v.byteValue());
+        return true;
+      }
+      case BIGINT:
+      case DATE:
+      case TIMESTAMP: {
+        final Long v = value.getLongValue();
+        if (v == null) {
+          return false;
+        }
+        longs[index] = v;
+        return true;
+      }
+      case FLOAT8: {
+        final Double v = value.getDoubleValue();
+        if (v == null) {
+          return false;
+        }
+        doubles[index] = v;
+        return true;
+      }
+      case VARCHAR:
+        strings[index] = value.getStringValue();
+        return strings[index] != null;
+      case BIT: {
+        final Boolean v = value.getBitValue();
+        if (v == null) {
+          return false;
+        }
+        booleans[index] = v;
+        return true;
+      }
+      default:
+        return false;
+      }
+    }
+  }
+}
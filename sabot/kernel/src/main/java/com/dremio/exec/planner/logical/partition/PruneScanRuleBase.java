@@ -61,6 +61,7 @@ import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.util.BitSets;
 
 import com.dremio.common.expression.CompleteType;
@@ -83,6 +84,7 @@ import com.dremio.exec.planner.logical.ParseContext;
 import com.dremio.exec.planner.logical.ProjectRel;
 import com.dremio.exec.planner.logical.RelOptHelper;
 import com.dremio.exec.planner.logical.RexToExpr;
+import com.dremio.exec.planner.logical.partition.PartitionPredicate.PartitionColumn;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.physical.PrelUtil;
 import com.dremio.exec.record.VectorContainer;
@@ -163,6 +165,9 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
   // Local cache to speed multiple evaluations of the pruning
   private final Map<EvaluationPruningKey, EvaluationPruningResult> evalutationPruningCache = new HashMap<>();
 
+  // Local cache of the splits of the pruned datasets, by splits key
+  private final Map<SplitsKey, CachedSplits> splitsCache = new HashMap<>();
+
   private PruneScanRuleBase(StoragePluginType pluginType, RelOptRuleOperand operand, String id, OptimizerRulesContext optimizerContext) {
     super(operand, id);
     this.pluginType = pluginType;
@@ -239,18 +244,32 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       Pointer<TableMetadata> datasetOutput,
       Pointer<RexNode> outputCondition){
     final RexBuilder builder = filterRel.getCluster().getRexBuilder();
+    final RelDataType rowType = filterRel.getRowType();
 
-    final FindSimpleFilters.StateHolder holder = pruneCondition.accept(new FindSimpleFilters(builder, true));
+    // push disjunctions of simple conditions on a single column, like in lists, as a union of index searches.
+    final List<SearchQuery> splitFilters = Lists.newArrayList();
+    final List<RexNode> remainingConjuncts = Lists.newArrayList();
+    for (RexNode conjunct : RelOptUtil.conjunctions(pruneCondition)) {
+      final SearchQuery disjunctionFilter = toDisjunctionSearchQuery(conjunct, builder, rowType, fieldMap);
+      if (disjunctionFilter != null) {
+        splitFilters.add(disjunctionFilter);
+      } else {
+        remainingConjuncts.add(conjunct);
+      }
+    }
+    final RexNode remainingCondition = splitFilters.isEmpty() ? pruneCondition
+        : RexUtil.composeConjunction(builder, remainingConjuncts, false);
+
+    final FindSimpleFilters.StateHolder holder = remainingCondition.accept(new FindSimpleFilters(builder, true));
     TableMetadata datasetPointer = scanRel.getTableMetadata();
 
-    if(!holder.hasConditions()){
+    if(!holder.hasConditions() && splitFilters.isEmpty()){
       datasetOutput.value = datasetPointer;
       outputCondition.value = pruneCondition;
       return false;
     }
 
     final ImmutableList<RexCall> conditions = holder.getConditions();
-    final RelDataType rowType = filterRel.getRowType();
     final List<FilterProperties> filters = FluentIterable
       .from(conditions)
       .transform(new Function<RexCall, FilterCondition.FilterProperties>() {
@@ -267,7 +286,6 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       map.put(p.getField(), p);
     }
 
-    final List<SearchQuery> splitFilters = Lists.newArrayList();
     for (Map.Entry<String, FilterProperties> entry: map.entries()) {
       splitFilters.add(MetadataUtils.toSplitsSearchQuery(Collections.singletonList(entry.getValue()), fieldMap.get(entry.getKey())));
     }
@@ -286,10 +304,70 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
     }
 
     RelOptCluster cluster = filterRel.getCluster();
-    outputCondition.value = holder.hasRemainingExpression() ? holder.getNode() : cluster.getRexBuilder().makeLiteral(true);
+    if (!holder.hasConditions()) {
+      outputCondition.value = remainingCondition;
+    } else {
+      outputCondition.value = holder.hasRemainingExpression() ? holder.getNode() : cluster.getRexBuilder().makeLiteral(true);
+    }
     return true;
   }
 
+  /**
+   * Convert a disjunction of simple conditions on the same partition column to a split search query.
+   * @return the query, or null if the condition isn't such a disjunction.
+   */
+  private static SearchQuery toDisjunctionSearchQuery(RexNode condition, RexBuilder builder, RelDataType rowType,
+      Map<String, Field> fieldMap) {
+    if (condition.getKind() != SqlKind.OR) {
+      return null;
+    }
+
+    String field = null;
+    final List<FilterProperties> filters = Lists.newArrayList();
+    for (RexNode disjunct : RelOptUtil.disjunctions(condition)) {
+      final FindSimpleFilters.StateHolder holder = disjunct.accept(new FindSimpleFilters(builder, true));
+      if (holder.getConditions().size() != 1 || holder.hasRemainingExpression()) {
+        return null;
+      }
+      final FilterProperties filter = new FilterProperties(holder.getConditions().get(0), rowType);
+      if (field != null && !field.equals(filter.getField())) {
+        return null;
+      }
+      field = filter.getField();
+      filters.add(filter);
+    }
+    if (field == null || !fieldMap.containsKey(field)) {
+      return null;
+    }
+
+    final List<SearchQuery> queries = Lists.newArrayList();
+    try {
+      for (FilterProperties filter : filters) {
+        queries.add(MetadataUtils.toSplitsSearchQuery(Collections.singletonList(filter), fieldMap.get(field)));
+      }
+    } catch (UnsupportedOperationException e) {
+      // the column type isn't indexed.
+      return null;
+    }
+    return SearchQueryUtils.or(queries);
+  }
+
+  /**
+   * Get the splits of a dataset pruned earlier by this rule, or splits loaded on first use otherwise.
+   */
+  private CachedSplits getCachedSplits(TableMetadata tableMetadata) {
+    final SplitsKey key = tableMetadata.getSplitsKey();
+    if (key == null) {
+      return new CachedSplits(tableMetadata);
+    }
+    CachedSplits cachedSplits = splitsCache.get(key);
+    if (cachedSplits == null) {
+      cachedSplits = new CachedSplits(tableMetadata);
+      splitsCache.put(key, cachedSplits);
+    }
+    return cachedSplits;
+  }
+
   private boolean doEvalPruning(
       final Filter filterRel,
       final Map<Integer, String> fieldNameMap,
@@ -298,7 +376,7 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       final TableMetadata tableMetadata,
       PlannerSettings settings,
       RexNode pruneCondition,
-      T scanRel,
+      final T scanRel,
       Pointer<List<DatasetSplit>> finalSplits){
     final int batchSize = PARTITION_BATCH_SIZE;
 
@@ -322,10 +400,43 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       return cacheResult.finalSplits.size() < cacheResult.totalRecords;
     }
 
+    final CachedSplits cachedSplits = getCachedSplits(tableMetadata);
+    if (settings.getOptions().getOption(PlannerSettings.ENABLE_PARTITION_PRUNING_PRIMITIVE_EVAL)) {
+      miscTimer.start();
+      final List<String> fieldNames = scanRel.getRowType().getFieldNames();
+      final PartitionPredicate predicate = PartitionPredicate.compile(pruneCondition, new PartitionPredicate.ColumnProvider() {
+        @Override
+        public PartitionColumn getColumn(int index) {
+          final String name = fieldNames.get(index);
+          if (!partitionColumnsToIdMap.containsKey(name)) {
+            return null;
+          }
+          final CompleteType type = scanRel.getBatchSchema().getFieldId(SchemaPath.getSimplePath(name)).getFinalType();
+          return cachedSplits.getColumn(name, type.toMinorType());
+        }
+      });
+
+      if (predicate != null) {
+        final List<DatasetSplit> splits = cachedSplits.getSplits();
+        for (int i = 0; i < splits.size(); i++) {
+          if (predicate.matches(i)) {
+            selectedSplits.add(splits.get(i));
+          }
+        }
+        final List<DatasetSplit> finalNewSplits = selectedSplits.build();
+        logger.debug("Elapsed time in primitive evaluation: {} ms with # of partitions: {}, qualified: {}",
+            miscTimer.elapsed(TimeUnit.MILLISECONDS), splits.size(), finalNewSplits.size());
+        evalutationPruningCache.put(cacheKey, new EvaluationPruningResult(finalNewSplits, splits.size()));
+        finalSplits.value = finalNewSplits;
+        return finalNewSplits.size() < splits.size();
+      }
+      miscTimer.reset();
+    }
+
     int batchIndex = 0;
     int recordCount = 0;
     int qualifiedCount = 0;
-    Iterator<DatasetSplit> splitIter = tableMetadata.getSplits();
+    Iterator<DatasetSplit> splitIter = cachedSplits.getSplits().iterator();
     LogicalExpression materializedExpr = null;
 
     do {
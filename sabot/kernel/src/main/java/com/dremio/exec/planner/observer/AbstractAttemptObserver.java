@@ -143,4 +143,8 @@ public abstract class AbstractAttemptObserver implements AttemptObserver {
   @Override
   public void leafFragmentScheduling(long millisTaken) {
   }
+
+  @Override
+  public void planCacheLookup(boolean hit, long millisSaved, double hitRatio) {
+  }
 }
@@ -213,4 +213,12 @@ public interface AttemptObserver {
    */
   void leafFragmentScheduling(long millisTaken);
 
+  /**
+   * Lookup of the query's plan in the plan cache.
+   * @param hit whether a cached plan is used, in which case the query is not planned.
+   * @param millisSaved planning time of the cached plan, saved by a hit.
+   * @param hitRatio ratio of the plan cache lookups that were hits.
+   */
+  void planCacheLookup(boolean hit, long millisSaved, double hitRatio);
+
 }
@@ -224,6 +224,13 @@ public class AttemptObservers implements AttemptObserver {
     }
   }
 
+  @Override
+  public void planCacheLookup(boolean hit, long millisSaved, double hitRatio) {
+    for (final AttemptObserver observer : observers) {
+      observer.planCacheLookup(hit, millisSaved, hitRatio);
+    }
+  }
+
   /**
    * Add to the collection of observers.
    *
@@ -168,4 +168,9 @@ public class DelegatingAttemptObserver implements AttemptObserver {
   public void leafFragmentScheduling(long millisTaken) {
     observer.leafFragmentScheduling(millisTaken);
   }
+
+  @Override
+  public void planCacheLookup(boolean hit, long millisSaved, double hitRatio) {
+    observer.planCacheLookup(hit, millisSaved, hitRatio);
+  }
 }
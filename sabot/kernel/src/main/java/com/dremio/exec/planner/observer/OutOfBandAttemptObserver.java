@@ -324,4 +324,13 @@ public class OutOfBandAttemptObserver implements AttemptObserver {
         innerObserver.leafFragmentScheduling(millisTaken);
       }});
   }
+
+  @Override
+  public void planCacheLookup(final boolean hit, final long millisSaved, final double hitRatio) {
+    serializedExec.execute(new DeferredRunnable(){
+      @Override
+      public void doRun() {
+        innerObserver.planCacheLookup(hit, millisSaved, hitRatio);
+      }});
+  }
 }
@@ -117,6 +117,13 @@ public abstract class AggPrelBase extends AggregateRelBase implements Prel {
     return operPhase;
   }
 
+  /**
+   * Whether this is the first phase of a two phase aggregation, whose partial results are aggregated again.
+   */
+  public boolean isPartialAggregation() {
+    return operPhase == OperatorPhase.PHASE_1of2;
+  }
+
   public List<NamedExpression> getKeys() {
     return keys;
   }
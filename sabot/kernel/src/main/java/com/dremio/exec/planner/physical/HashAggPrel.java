@@ -133,7 +133,9 @@ public class HashAggPrel extends AggPrelBase implements Prel{
 
       switch(expr.getCompleteType().toMinorType()){
       case BIGINT:
+      case BIT:
       case DATE:
+      case DECIMAL:
       case FLOAT4:
       case FLOAT8:
       case INT:
@@ -173,12 +175,36 @@ public class HashAggPrel extends AggPrelBase implements Prel{
       switch(func.getName()){
       case "$sum0":
       case "sum":
+        switch(inputType.toMinorType()){
+        case BIGINT:
+        case FLOAT4:
+        case FLOAT8:
+        case INT:
+          continue;
+        }
+
+        return false;
+
       case "min":
       case "max":
         switch(inputType.toMinorType()){
         case BIGINT:
+        case DATE:
         case FLOAT4:
         case FLOAT8:
+        case INT:
+        case INTERVALYEAR:
+        case TIME:
+        case TIMESTAMP:
+          continue;
+        }
+
+        return false;
+
+      case "bit_and":
+      case "bit_or":
+        switch(inputType.toMinorType()){
+        case BIGINT:
         case INT:
           continue;
         }
@@ -16,6 +16,7 @@
 package com.dremio.exec.planner.physical;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.calcite.plan.RelOptCluster;
@@ -31,14 +32,23 @@ import org.apache.calcite.rex.RexNode;
 
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
 import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
+import com.dremio.exec.physical.base.AbstractSingle;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.SubScan;
+import com.dremio.exec.physical.config.Filter;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.Project;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
+import com.dremio.exec.physical.config.SelectionVectorRemover;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.sabot.op.common.hashtable.Comparator;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.JoinUtils.JoinCategory;
 import com.google.common.collect.Lists;
@@ -119,10 +129,69 @@ public class HashJoinPrel  extends JoinPrel {
 
     final boolean vectorize = creator.getContext().getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_HASHJOIN)
         && canVectorize(creator.getContext().getFunctionRegistry(), leftPop, rightPop, conditions);
-    final HashJoinPOP hjoin = new HashJoinPOP(leftPop, rightPop, conditions, jtype, vectorize);
+    final RuntimeFilterTarget runtimeFilter = vectorize && creator.getContext().getOptions().getOption(ExecConstants.ENABLE_RUNTIME_FILTER)
+        ? getRuntimeFilterTarget(leftPop, jtype, conditions) : null;
+    final HashJoinPOP hjoin = new HashJoinPOP(leftPop, rightPop, conditions, jtype, vectorize, runtimeFilter);
     return creator.addMetadata(this, hjoin);
   }
 
+  /**
+   * Find the scan the probe keys are read from, if it runs in the same fragment as the join and the keys are read
+   * unchanged from its columns. Only joins that drop the probe records without a match can filter them in the scan.
+   */
+  private static RuntimeFilterTarget getRuntimeFilterTarget(PhysicalOperator probePop, JoinRelType jtype, List<JoinCondition> conditions) {
+    if(jtype != JoinRelType.INNER && jtype != JoinRelType.RIGHT){
+      return null;
+    }
+
+    List<String> columns = new ArrayList<>();
+    for(JoinCondition c : conditions){
+      if(JoinUtils.checkAndReturnSupportedJoinComparator(c) != Comparator.EQUALS
+          || !(c.getLeft() instanceof SchemaPath)
+          || !((SchemaPath) c.getLeft()).isSimplePath()){
+        return null;
+      }
+      columns.add(((SchemaPath) c.getLeft()).getRootSegment().getPath());
+    }
+
+    PhysicalOperator current = probePop;
+    while(true){
+      if(current instanceof SubScan){
+        return new RuntimeFilterTarget(current.getOperatorId(), columns);
+      } else if(current instanceof Filter || current instanceof SelectionVectorRemover){
+        current = ((AbstractSingle) current).getChild();
+      } else if(current instanceof Project){
+        columns = getProjectedColumns((Project) current, columns);
+        if(columns == null){
+          return null;
+        }
+        current = ((Project) current).getChild();
+      } else {
+        return null;
+      }
+    }
+  }
+
+  private static List<String> getProjectedColumns(Project project, List<String> columns) {
+    final List<String> projected = new ArrayList<>();
+    for(String column : columns){
+      String source = null;
+      for(NamedExpression e : project.getExprs()){
+        if(e.getRef().getRootSegment().getPath().equalsIgnoreCase(column)){
+          if(e.getExpr() instanceof SchemaPath && ((SchemaPath) e.getExpr()).isSimplePath()){
+            source = ((SchemaPath) e.getExpr()).getRootSegment().getPath();
+          }
+          break;
+        }
+      }
+      if(source == null){
+        return null;
+      }
+      projected.add(source);
+    }
+    return projected;
+  }
+
   private boolean canVectorize(FunctionLookupContext functionLookup, PhysicalOperator leftPop, PhysicalOperator rightPop, List<JoinCondition> conditions){
     BatchSchema left = leftPop.getSchema(functionLookup);
     BatchSchema right = rightPop.getSchema(functionLookup);
@@ -90,6 +90,7 @@ public class PlannerSettings implements Context{
   public static final BooleanValidator ENABLE_DECIMAL_DATA_TYPE = new BooleanValidator(ENABLE_DECIMAL_DATA_TYPE_KEY, false);
   public static final BooleanValidator HEP_OPT = new BooleanValidator("planner.enable_hep_opt", true);
   public static final BooleanValidator ENABLE_PARTITION_PRUNING = new BooleanValidator("planner.enable_partition_pruning", true);
+  public static final BooleanValidator ENABLE_PARTITION_PRUNING_PRIMITIVE_EVAL = new BooleanValidator("planner.enable_partition_pruning_primitive_eval", true);
   public static final LongValidator PLANNER_MEMORY_LIMIT = new RangeLongValidator("planner.memory_limit",
       INITIAL_OFF_HEAP_ALLOCATION_IN_BYTES, MAX_OFF_HEAP_ALLOCATION_IN_BYTES, DEFAULT_MAX_OFF_HEAP_ALLOCATION_IN_BYTES);
   public static final String UNIONALL_DISTRIBUTE_KEY = "planner.enable_unionall_distribute";
@@ -123,6 +124,13 @@ public class PlannerSettings implements Context{
 
   public static final BooleanValidator VERBOSE_PROFILE = new BooleanValidator("planner.verbose_profile", false);
 
+  // Cache of the physical plans of repeated queries. Size and time to live are read when the coordinator starts.
+  // Off by default: cached plans aren't invalidated when the metadata of a source is refreshed, so until they expire
+  // they may read splits that no longer exist or miss new ones.
+  public static final BooleanValidator PLAN_CACHE_ENABLED = new BooleanValidator("planner.plan_cache.enabled", false);
+  public static final LongValidator PLAN_CACHE_MAX_ENTRIES = new PositiveLongValidator("planner.plan_cache.max_entries", 100000, 1000);
+  public static final LongValidator PLAN_CACHE_TTL_SECONDS = new PositiveLongValidator("planner.plan_cache.ttl_seconds", 86400, 300);
+
   public OptionManager options = null;
   public FunctionImplementationRegistry functionImplementationRegistry = null;
   private CalciteCatalogReader catalog;
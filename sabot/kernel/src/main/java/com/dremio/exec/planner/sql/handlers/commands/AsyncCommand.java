@@ -15,7 +15,6 @@
  */
 package com.dremio.exec.planner.sql.handlers.commands;
 
-import com.dremio.exec.ExecConstants;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.proto.UserBitShared.WorkloadClass;
@@ -46,11 +45,12 @@ public abstract class AsyncCommand<T> implements CommandRunner<T> {
   }
 
   protected void setQueueTypeFromPlan(PhysicalPlan plan) {
-    final long queueThreshold = context.getOptions().getOption(ExecConstants.QUEUE_THRESHOLD_SIZE);
+    final boolean large = QueueRules.isLargeQuery(plan.getCost(), context.getQueryUserName(),
+        QueueRules.getScannedTables(plan), context.getOptions());
     if (context.getQueryContextInfo().getPriority().getWorkloadClass().equals(WorkloadClass.BACKGROUND)) {
-      setQueueType((plan.getCost() > queueThreshold) ? QueueType.REFLECTION_LARGE : QueueType.REFLECTION_SMALL);
+      setQueueType(large ? QueueType.REFLECTION_LARGE : QueueType.REFLECTION_SMALL);
     } else {
-      setQueueType((plan.getCost() > queueThreshold) ? QueueType.LARGE : QueueType.SMALL);
+      setQueueType(large ? QueueType.LARGE : QueueType.SMALL);
     }
   }
 
@@ -22,6 +22,7 @@ import org.apache.calcite.sql.SqlNode;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.planner.observer.AttemptObserver;
+import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.SqlConverter;
 import com.dremio.exec.planner.sql.handlers.SqlHandlerConfig;
 import com.dremio.exec.planner.sql.handlers.direct.AccelAddLayoutHandler;
@@ -93,6 +94,7 @@ public class CommandCreator {
   private final AttemptObserver observer;
   private final SabotContext dbContext;
   private final Cache<Long, PreparedPlan> plans;
+  private final PlanCache planCache;
   private final int attemptNumber;
   private final Pointer<QueryId> prepareId;
 
@@ -103,6 +105,7 @@ public class CommandCreator {
       UserRequest request,
       AttemptObserver observer,
       Cache<Long, PreparedPlan> plans,
+      PlanCache planCache,
       Pointer<QueryId> prepareId,
       int attemptNumber) {
     this.context = context;
@@ -111,6 +114,7 @@ public class CommandCreator {
     this.observer = observer;
     this.dbContext = dbContext;
     this.plans = plans;
+    this.planCache = planCache;
     this.prepareId = prepareId;
     this.attemptNumber = attemptNumber;
   }
@@ -279,6 +283,9 @@ public class CommandCreator {
 
         // fallthrough
       default:
+        if (!isPrepare && planCache != null && context.getOptions().getOption(PlannerSettings.PLAN_CACHE_ENABLED)) {
+          return getCachedCommand(sql, sqlNode, config);
+        }
         return async.create(new NormalHandler(), config);
       }
 
@@ -293,6 +300,25 @@ public class CommandCreator {
     }
   }
 
+  /**
+   * Reuse the cached plan of a query, or plan it and cache its plan. Plans are only reused on the first attempt of a
+   * query, as later attempts may need to plan with updated metadata.
+   */
+  private CommandRunner<?> getCachedCommand(String sql, SqlNode sqlNode, SqlHandlerConfig config) {
+    final String key = PlanCache.getKey(context, sqlNode);
+    if (attemptNumber == 0) {
+      final PlanCache.CachedPlan cached = planCache.get(key, context);
+      observer.planCacheLookup(cached != null, cached == null ? 0 : cached.getPlanningMillis(), planCache.getHitRatio());
+      if (cached != null) {
+        return new PrepareToExecution(cached.getPlan(), context, observer, dbContext.getPlanReader(), tunnelCreator);
+      }
+    } else {
+      planCache.invalidate(key);
+    }
+    return new HandlerToExec(tunnelCreator, context, dbContext.getPlanReader(), observer, sql, sqlNode,
+      new NormalHandler(), config, planCache, key);
+  }
+
   private class DirectBuilder {
     private final String sql;
     private final SqlNode sqlNode;
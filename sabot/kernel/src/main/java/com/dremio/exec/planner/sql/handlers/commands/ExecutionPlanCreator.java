@@ -21,7 +21,6 @@ import java.util.List;
 
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.exceptions.UserException;
-import com.dremio.exec.ExecConstants;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.physical.base.Root;
@@ -36,7 +35,6 @@ import com.dremio.exec.proto.CoordExecRPC.PlanFragment;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.server.options.OptionList;
-import com.dremio.exec.server.options.OptionManager;
 import com.dremio.exec.util.MemoryAllocationUtilities;
 import com.dremio.exec.work.foreman.ExecutionPlan;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -72,12 +70,8 @@ class ExecutionPlanCreator {
     CoordExecRPC.QueryContextInformation queryContextInformation = queryContext.getQueryContextInfo();
 
     // update query limit based on the queueType
-    final OptionManager options = queryContext.getOptions();
-    final boolean memoryControlEnabled = options.getOption(ExecConstants.ENABLE_QUEUE_MEMORY_LIMIT);
-    final long memoryLimit = (queueType == QueueType.SMALL) ?
-      options.getOption(ExecConstants.SMALL_QUEUE_MEMORY_LIMIT):
-      options.getOption(ExecConstants.LARGE_QUEUE_MEMORY_LIMIT);
-    if (memoryControlEnabled && memoryLimit > 0) {
+    final long memoryLimit = QueueRules.getQueryMemoryLimit(queueType, queryContext.getOptions());
+    if (memoryLimit > 0) {
       final long queryMaxAllocation = queryContext.getQueryContextInfo().getQueryMaxAllocation();
       queryContextInformation = CoordExecRPC.QueryContextInformation.newBuilder(queryContextInformation)
         .setQueryMaxAllocation(Math.min(memoryLimit, queryMaxAllocation)).build();
@@ -15,16 +15,22 @@
  */
 package com.dremio.exec.planner.sql.handlers.commands;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.calcite.sql.SqlNode;
 
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.planner.PhysicalPlanReader;
 import com.dremio.exec.planner.observer.AttemptObserver;
+import com.dremio.exec.planner.observer.AttemptObservers;
+import com.dremio.exec.planner.sql.handlers.commands.HandlerToPreparePlan.RecordingObserver;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache.CacheabilityObserver;
 import com.dremio.exec.planner.sql.handlers.SqlHandlerConfig;
 import com.dremio.exec.planner.sql.handlers.query.SqlToPlanHandler;
 import com.dremio.exec.work.foreman.ExecutionPlan;
 import com.dremio.exec.work.rpc.CoordToExecTunnelCreator;
+import com.google.common.base.Stopwatch;
 
 /**
  * Take a sql node and run as async command.
@@ -38,6 +44,8 @@ public class HandlerToExec extends AsyncCommand<Object> {
   private final SqlToPlanHandler handler;
   private final String sql;
   private final SqlHandlerConfig config;
+  private final PlanCache planCache;
+  private final String cacheKey;
 
   private ExecutionPlan exec;
 
@@ -50,6 +58,23 @@ public class HandlerToExec extends AsyncCommand<Object> {
       SqlNode sqlNode,
       SqlToPlanHandler handler,
       SqlHandlerConfig config) {
+    this(tunnelCreator, context, reader, observer, sql, sqlNode, handler, config, null, null);
+  }
+
+  /**
+   * Create a command that adds the plan of the query to the plan cache, unless the plan can't be reused.
+   */
+  public HandlerToExec(
+      CoordToExecTunnelCreator tunnelCreator,
+      QueryContext context,
+      PhysicalPlanReader reader,
+      AttemptObserver observer,
+      String sql,
+      SqlNode sqlNode,
+      SqlToPlanHandler handler,
+      SqlHandlerConfig config,
+      PlanCache planCache,
+      String cacheKey) {
     super(context);
     this.tunnelCreator = tunnelCreator;
     this.reader = reader;
@@ -58,12 +83,29 @@ public class HandlerToExec extends AsyncCommand<Object> {
     this.sql = sql;
     this.handler = handler;
     this.config = config;
+    this.planCache = planCache;
+    this.cacheKey = cacheKey;
   }
 
   @Override
   public double plan() throws Exception {
-    observer.planStart(sql);
-    PhysicalPlan plan = handler.getPlan(config, sql, sqlNode);
+    final PhysicalPlan plan;
+    if (planCache == null) {
+      observer.planStart(sql);
+      plan = handler.getPlan(config, sql, sqlNode);
+    } else {
+      final Stopwatch stopwatch = Stopwatch.createStarted();
+      final RecordingObserver recording = new RecordingObserver();
+      final CacheabilityObserver cacheability = new CacheabilityObserver();
+      final AttemptObservers observers = AttemptObservers.of(observer, recording, cacheability);
+      observers.planStart(sql);
+      plan = handler.getPlan(config.cloneWithNewObserver(observers), sql, sqlNode);
+      if (cacheability.isCacheable()) {
+        planCache.put(cacheKey, context,
+            new PreparedPlan(context.getQueryId(), context.getQueryUserName(), sql, plan, recording),
+            stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      }
+    }
     setQueueTypeFromPlan(plan);
     exec = ExecutionPlanCreator.getExecutionPlan(context, reader, observer, plan, getQueueType());
     observer.planCompleted(exec);
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelVisitor;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlNode;
+
+import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.planner.observer.AbstractAttemptObserver;
+import com.dremio.exec.planner.sql.MaterializationDescriptor;
+import com.dremio.exec.server.options.OptionValue;
+import com.dremio.service.namespace.NamespaceException;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.NamespaceService;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Caches the physical plans of queries on the coordinator, so repeated queries skip planning.
+ *
+ * Plans are keyed by the normalized sql of the query, the query user, the default schema of the session and the
+ * options of the query. Each entry records the namespace versions of the tables and views the plan was built from,
+ * and the reflections available at planning time. An entry is invalidated when it is looked up after any of them
+ * changed.
+ */
+public class PlanCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PlanCache.class);
+
+  private final Cache<String, CachedPlan> plans;
+  private final AtomicLong lookups = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+
+  public PlanCache(long maxSize, long ttlSeconds) {
+    this.plans = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  /**
+   * Compute the cache key of a query.
+   * @param context context of the query.
+   * @param sqlNode parsed query.
+   * @return the cache key.
+   */
+  public static String getKey(QueryContext context, SqlNode sqlNode) {
+    return getKey(sqlNode.toSqlString(SqlDialect.CALCITE).getSql(), context.getQueryUserName(),
+        context.getSession().getDefaultSchemaPath(), context.getOptions());
+  }
+
+  @VisibleForTesting
+  static String getKey(String normalizedSql, String username, String defaultSchema, Iterable<OptionValue> options) {
+    // options are listed from the system level down to the query level, so the effective values override the others.
+    final Map<String, Object> values = new TreeMap<>();
+    for (OptionValue option : options) {
+      values.put(option.getName(), option.getValue());
+    }
+
+    final Hasher hasher = Hashing.sha256().newHasher()
+        .putString(normalizedSql, Charsets.UTF_8)
+        .putChar('\0')
+        .putString(String.valueOf(username), Charsets.UTF_8)
+        .putChar('\0')
+        .putString(String.valueOf(defaultSchema), Charsets.UTF_8);
+    for (Map.Entry<String, Object> value : values.entrySet()) {
+      hasher.putChar('\0')
+          .putString(value.getKey(), Charsets.UTF_8)
+          .putChar('=')
+          .putString(String.valueOf(value.getValue()), Charsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Look up the plan of a query, and invalidate it if a dataset or reflection it depends on changed.
+   * @param key cache key of the query.
+   * @param context context of the query.
+   * @return the cached plan, or null on a miss.
+   */
+  public CachedPlan get(String key, QueryContext context) {
+    lookups.incrementAndGet();
+    final CachedPlan cached = plans.getIfPresent(key);
+    if (cached == null) {
+      return null;
+    }
+    if (!cached.isValid(context.getNamespaceService(), getMaterializations(context))) {
+      logger.debug("Invalidating cached plan of query {}", cached.getPlan().getQuery());
+      plans.invalidate(key);
+      return null;
+    }
+    hits.incrementAndGet();
+    return cached;
+  }
+
+  /**
+   * Add the plan of a query to the cache.
+   * @param key cache key of the query.
+   * @param context context of the query, after it was planned.
+   * @param plan plan of the query.
+   * @param planningMillis time taken to plan the query.
+   */
+  public void put(String key, QueryContext context, PreparedPlan plan, long planningMillis) {
+    final Map<NamespaceKey, Long> datasetVersions = context.getResolvedDatasetVersions();
+    if (datasetVersions == null) {
+      logger.debug("Not caching plan of query {}, it depends on datasets without versions", plan.getQuery());
+      return;
+    }
+    plans.put(key, new CachedPlan(plan, datasetVersions, getMaterializations(context), planningMillis));
+  }
+
+  /**
+   * Remove the plan of a query from the cache.
+   */
+  public void invalidate(String key) {
+    plans.invalidate(key);
+  }
+
+  /**
+   * Remove all plans from the cache.
+   */
+  public void invalidateAll() {
+    plans.invalidateAll();
+  }
+
+  public long size() {
+    return plans.size();
+  }
+
+  /**
+   * @return ratio of the lookups that returned a cached plan.
+   */
+  public double getHitRatio() {
+    final long total = lookups.get();
+    return total == 0 ? 0 : (double) hits.get() / total;
+  }
+
+  private static Set<String> getMaterializations(QueryContext context) {
+    final List<MaterializationDescriptor> descriptors = context.getMaterializationProvider().get(false);
+    final Set<String> ids = new TreeSet<>();
+    for (MaterializationDescriptor descriptor : descriptors) {
+      ids.add(descriptor.getMaterializationId());
+    }
+    return ids;
+  }
+
+  /**
+   * A cached plan, with the versions of the datasets and reflections it was built from.
+   */
+  public static class CachedPlan {
+    private final PreparedPlan plan;
+    private final Map<NamespaceKey, Long> datasetVersions;
+    private final Set<String> materializations;
+    private final long planningMillis;
+
+    CachedPlan(PreparedPlan plan, Map<NamespaceKey, Long> datasetVersions, Set<String> materializations,
+        long planningMillis) {
+      this.plan = plan;
+      this.datasetVersions = ImmutableMap.copyOf(datasetVersions);
+      this.materializations = ImmutableSet.copyOf(materializations);
+      this.planningMillis = planningMillis;
+    }
+
+    public PreparedPlan getPlan() {
+      return plan;
+    }
+
+    public long getPlanningMillis() {
+      return planningMillis;
+    }
+
+    @VisibleForTesting
+    boolean isValid(NamespaceService namespace, Set<String> currentMaterializations) {
+      if (!materializations.equals(currentMaterializations)) {
+        return false;
+      }
+      for (Map.Entry<NamespaceKey, Long> dataset : datasetVersions.entrySet()) {
+        try {
+          final DatasetConfig config = namespace.getDataset(dataset.getKey());
+          if (config == null || !Objects.equal(dataset.getValue(), config.getVersion())) {
+            return false;
+          }
+        } catch (NamespaceException e) {
+          // the dataset was removed.
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Checks if the plan of a query can be cached, by looking for non deterministic or dynamic functions, like
+   * random() or now(), whose results would be reused across queries.
+   */
+  public static class CacheabilityObserver extends AbstractAttemptObserver {
+    private boolean cacheable = true;
+
+    @Override
+    public void planConvertedToRel(RelNode converted, long millisTaken) {
+      if (!isDeterministic(converted)) {
+        cacheable = false;
+      }
+    }
+
+    public boolean isCacheable() {
+      return cacheable;
+    }
+  }
+
+  @VisibleForTesting
+  static boolean isDeterministic(RelNode rel) {
+    final DeterminismChecker checker = new DeterminismChecker();
+    checker.go(rel);
+    return checker.deterministic;
+  }
+
+  private static final class DeterminismChecker extends RelVisitor {
+    private boolean deterministic = true;
+
+    private final RexShuttle shuttle = new RexShuttle() {
+      @Override
+      public RexNode visitCall(RexCall call) {
+        if (!call.getOperator().isDeterministic() || call.getOperator().isDynamicFunction()) {
+          deterministic = false;
+        }
+        return super.visitCall(call);
+      }
+    };
+
+    @Override
+    public void visit(RelNode node, int ordinal, RelNode parent) {
+      node.accept(shuttle);
+      super.visit(node, ordinal, parent);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.PhysicalPlan;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.Scan;
+import com.dremio.exec.planner.sql.handlers.commands.AsyncCommand.QueueType;
+import com.dremio.exec.server.options.OptionManager;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Rules picking the queue of a query, and the memory each of its executors may use.
+ */
+public final class QueueRules {
+
+  /**
+   * Number of permits the memory budget of a queue is split into. Each permit is a znode in ZooKeeper, so the budget
+   * is reserved in 5% steps.
+   */
+  public static final int MEMORY_PERMITS = 20;
+
+  private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+  private QueueRules() {
+  }
+
+  /**
+   * Whether a query runs in a large queue. Queries whose cost is above the queue threshold, run by one of the large
+   * queue users or reading a table of one of the large queue sources run in a large queue.
+   * @param cost cost of the query plan.
+   * @param user user running the query.
+   * @param tables paths of the tables read by the query.
+   * @param options options of the query.
+   */
+  public static boolean isLargeQuery(double cost, String user, Iterable<List<String>> tables, OptionManager options) {
+    if (cost > options.getOption(ExecConstants.QUEUE_THRESHOLD_SIZE)) {
+      return true;
+    }
+    if (user != null && toSet(options.getOption(ExecConstants.LARGE_QUEUE_USERS), false).contains(user)) {
+      return true;
+    }
+
+    final Set<String> sources = toSet(options.getOption(ExecConstants.LARGE_QUEUE_SOURCES), true);
+    if (!sources.isEmpty()) {
+      for (List<String> table : tables) {
+        if (table != null && !table.isEmpty() && sources.contains(table.get(0).toLowerCase())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the paths of the tables scanned by a plan.
+   */
+  public static List<List<String>> getScannedTables(PhysicalPlan plan) {
+    final List<List<String>> tables = new ArrayList<>();
+    for (PhysicalOperator operator : plan.getSortedOperators()) {
+      if (operator instanceof Scan) {
+        tables.add(((Scan) operator).getTableSchemaPath());
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Get the memory a query of a queue may allocate on each executor.
+   * @return the memory limit, or 0 if the queue doesn't limit the memory of its queries.
+   */
+  public static long getQueryMemoryLimit(QueueType queueType, OptionManager options) {
+    if (!options.getOption(ExecConstants.ENABLE_QUEUE_MEMORY_LIMIT)) {
+      return 0;
+    }
+    return (queueType == QueueType.SMALL) ?
+      options.getOption(ExecConstants.SMALL_QUEUE_MEMORY_LIMIT):
+      options.getOption(ExecConstants.LARGE_QUEUE_MEMORY_LIMIT);
+  }
+
+  /**
+   * Get the number of permits a query reserving the given memory takes out of the memory budget of its queue.
+   * Queries take at least one permit, and queries larger than the budget take all of them.
+   */
+  public static int getMemoryPermits(long memoryReservation, long memoryBudget) {
+    final long permits = (long) Math.ceil((double) memoryReservation * MEMORY_PERMITS / memoryBudget);
+    return (int) Math.max(1, Math.min(MEMORY_PERMITS, permits));
+  }
+
+  private static Set<String> toSet(String list, boolean lowerCase) {
+    if (list == null || list.isEmpty()) {
+      return ImmutableSet.of();
+    }
+    final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    for (String item : LIST_SPLITTER.split(list)) {
+      builder.add(lowerCase ? item.toLowerCase() : item);
+    }
+    return builder.build();
+  }
+}
@@ -53,17 +53,30 @@ import io.netty.buffer.ArrowBuf;
 public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<VectorWrapper<?>>, AutoCloseable {
   private final static Logger logger = LoggerFactory.getLogger(ArrowRecordBatchLoader.class);
 
+  private final BufferAllocator allocator;
   private VectorContainer container;
   private int valueCount;
   private BatchSchema schema;
 
   public ArrowRecordBatchLoader(VectorContainer container) {
+    this.allocator = null;
+    this.container = container;
+    this.schema = container.getSchema();
+  }
+
+  /**
+   * Creates a loader that can also load compressed batches.
+   * @param allocator allocator of the uncompressed bodies.
+   * @param container container to load the batches into.
+   */
+  public ArrowRecordBatchLoader(BufferAllocator allocator, VectorContainer container) {
+    this.allocator = Preconditions.checkNotNull(allocator);
     this.container = container;
     this.schema = container.getSchema();
   }
 
   public ArrowRecordBatchLoader(BufferAllocator allocator, BatchSchema schema) {
-    Preconditions.checkNotNull(allocator);
+    this.allocator = Preconditions.checkNotNull(allocator);
     this.schema = schema;
     this.container = VectorContainer.create(allocator, schema);
   }
@@ -77,6 +90,7 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
   public int load(RawFragmentBatch batch) {
     container.zeroVectors();
     int size = 0;
+    ArrowBuf uncompressedBody = null;
     try {
       RecordBatch recordBatch = RecordBatch.getRootAsRecordBatch(batch.getHeader().getArrowRecordBatch().asReadOnlyByteBuffer());
       if (batch.getBody() == null) {
@@ -93,18 +107,37 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
       if (valueCount == 0) {
         return 0;
       }
-      size = batch.getBody().readableBytes();
-      load(recordBatch, container, batch.getBody());
+      ArrowBuf body = batch.getBody();
+      if (batch.getHeader().getCompressedBufferLengthCount() > 0) {
+        // the body is uncompressed by the receiving fragment, vectors hold their own reference to it once loaded.
+        uncompressedBody = decompress(batch);
+        body = uncompressedBody;
+      }
+      size = body.readableBytes();
+      load(recordBatch, container, body);
     } catch (final Throwable cause) {
       // We have to clean up new vectors created here and pass over the actual cause. It is upper layer who should
       // adjudicate to call upper layer specific clean up logic.
       container.zeroVectors();
       throw cause;
+    } finally {
+      if (uncompressedBody != null) {
+        uncompressedBody.release();
+      }
     }
     container.setRecordCount(valueCount);
     return size;
   }
 
+  private ArrowBuf decompress(RawFragmentBatch batch) {
+    Preconditions.checkState(allocator != null, "Loader has no allocator to uncompress batches.");
+    try {
+      return FragmentWritableBatch.decompress(allocator, batch.getHeader(), batch.getBody());
+    } catch (IOException e) {
+      throw new RuntimeException("could not uncompress batch for " + schema, e);
+    }
+  }
+
   public static ArrowRecordBatch deserializeRecordBatch(RecordBatch recordBatchFB,
                                                         ArrowBuf body) throws IOException {
     // Now read the body
@@ -15,21 +15,28 @@
  */
 package com.dremio.exec.record;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
 import org.apache.arrow.vector.schema.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.xerial.snappy.Snappy;
 
+import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
 import com.dremio.exec.proto.UserBitShared.QueryId;
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
 import com.google.flatbuffers.FlatBufferBuilder;
+import com.google.common.base.Preconditions;
 import com.google.protobuf.ByteString;
 
 import io.netty.buffer.ArrowBuf;
@@ -119,6 +126,140 @@ public class FragmentWritableBatch{
     this.header = builder.build();
   }
 
+  private FragmentWritableBatch(FragmentRecordBatch header, ByteBuf[] buffers, int recordCount) {
+    this.header = header;
+    this.buffers = buffers;
+    this.recordCount = recordCount;
+  }
+
+  /**
+   * Compress the buffers of this batch with snappy, unless the batch is smaller than the given size. Buffers that
+   * don't shrink are sent as is. The buffers of this batch are handed over to the returned batch, only that one must
+   * be sent.
+   * @param allocator allocator of the compressed buffers.
+   * @param minSize size under which the batch is returned uncompressed.
+   * @return the compressed batch, or this batch if not compressed.
+   */
+  public FragmentWritableBatch compress(BufferAllocator allocator, long minSize) {
+    final long size = getByteCount();
+    if (size == 0 || size < minSize || header.getCompressedBufferLengthCount() > 0) {
+      return this;
+    }
+
+    final ByteBuf[] compressed = new ByteBuf[buffers.length];
+    final FragmentRecordBatch.Builder builder = header.toBuilder();
+    try {
+      for (int i = 0; i < buffers.length; i++) {
+        compressed[i] = compress(allocator, buffers[i]);
+        builder.addCompressedBufferLength(compressed[i].readableBytes());
+      }
+    } catch (IOException e) {
+      releaseCompressed(compressed);
+      throw UserException.dataWriteError(e)
+          .message("Failure while compressing batch for the exchange")
+          .build(logger);
+    } catch (RuntimeException e) {
+      releaseCompressed(compressed);
+      throw e;
+    }
+
+    for (int i = 0; i < buffers.length; i++) {
+      if (compressed[i] != buffers[i]) {
+        buffers[i].release();
+      }
+    }
+    return new FragmentWritableBatch(builder.build(), compressed, recordCount);
+  }
+
+  private void releaseCompressed(ByteBuf[] compressed) {
+    for (int i = 0; i < buffers.length; i++) {
+      if (compressed[i] != null && compressed[i] != buffers[i]) {
+        compressed[i].release();
+      }
+    }
+  }
+
+  private static ByteBuf compress(BufferAllocator allocator, ByteBuf buffer) throws IOException {
+    final int length = buffer.readableBytes();
+    if (length == 0) {
+      return buffer;
+    }
+
+    final int maxCompressedLength = Snappy.maxCompressedLength(length);
+    final ArrowBuf compressed = allocator.buffer(maxCompressedLength);
+    try {
+      final int compressedLength = Snappy.compress(buffer.nioBuffer(buffer.readerIndex(), length),
+          compressed.nioBuffer(0, maxCompressedLength));
+      if (compressedLength >= length) {
+        // the receiver tells an uncompressed buffer from its length.
+        compressed.release();
+        return buffer;
+      }
+      compressed.writerIndex(compressedLength);
+      return compressed;
+    } catch (IOException | RuntimeException e) {
+      compressed.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the uncompressed body of a batch whose buffers were compressed by the sender.
+   * @param allocator allocator of the uncompressed body.
+   * @param header header of the batch.
+   * @param body body of the batch, as received.
+   * @return the uncompressed body, laid out as described by the arrow record batch of the header.
+   * @throws IOException if a buffer could not be uncompressed.
+   */
+  public static ArrowBuf decompress(BufferAllocator allocator, FragmentRecordBatch header, ByteBuf body)
+      throws IOException {
+    final RecordBatch recordBatch = RecordBatch.getRootAsRecordBatch(header.getArrowRecordBatch().asReadOnlyByteBuffer());
+    Preconditions.checkArgument(recordBatch.buffersLength() == header.getCompressedBufferLengthCount(),
+        "Batch has %s buffers but %s compressed lengths.", recordBatch.buffersLength(), header.getCompressedBufferLengthCount());
+
+    long size = 0;
+    for (int i = 0; i < recordBatch.buffersLength(); i++) {
+      final Buffer buffer = recordBatch.buffers(i);
+      size = Math.max(size, buffer.offset() + buffer.length());
+    }
+
+    final ArrowBuf uncompressed = allocator.buffer((int) size);
+    try {
+      int bodyOffset = body.readerIndex();
+      for (int i = 0; i < recordBatch.buffersLength(); i++) {
+        final Buffer buffer = recordBatch.buffers(i);
+        final int offset = (int) buffer.offset();
+        final int length = (int) buffer.length();
+        final int compressedLength = header.getCompressedBufferLength(i);
+        if (compressedLength == length) {
+          body.getBytes(bodyOffset, uncompressed, offset, length);
+        } else {
+          final int uncompressedLength = Snappy.uncompress(body.nioBuffer(bodyOffset, compressedLength),
+              uncompressed.nioBuffer(offset, length));
+          Preconditions.checkState(uncompressedLength == length,
+              "Buffer uncompressed to %s bytes, expected %s.", uncompressedLength, length);
+        }
+        bodyOffset += compressedLength;
+      }
+      uncompressed.writerIndex((int) size);
+      return uncompressed;
+    } catch (IOException | RuntimeException e) {
+      uncompressed.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Get a batch with the same buffers sent to other minor fragments. Reference counts of the buffers are not changed.
+   */
+  public FragmentWritableBatch withReceivingMinorFragmentIds(int... receiveMinorFragmentId) {
+    final FragmentRecordBatch.Builder builder = header.toBuilder().clearReceivingMinorFragmentId();
+    for (final int i : receiveMinorFragmentId) {
+      builder.addReceivingMinorFragmentId(i);
+    }
+    return new FragmentWritableBatch(builder.build(), buffers, recordCount);
+  }
+
   public ByteBuf[] getBuffers(){
     return buffers;
   }
@@ -17,6 +17,7 @@ package com.dremio.exec.store;
 
 import com.dremio.exec.ops.ViewExpansionContext;
 import com.dremio.exec.server.options.OptionValue;
+import com.dremio.service.namespace.NamespaceKey;
 import com.google.common.base.Preconditions;
 
 /**
@@ -128,6 +129,10 @@ public class SchemaConfig {
     return provider.getViewExpansionContext();
   }
 
+  public void datasetResolved(NamespaceKey key, Long version) {
+    provider.datasetResolved(key, version);
+  }
+
   /**
    * Interface to implement to provide required info for {@link com.dremio.exec.store.SchemaConfig}
    */
@@ -135,5 +140,12 @@ public class SchemaConfig {
     ViewExpansionContext getViewExpansionContext();
 
     OptionValue getOption(String optionKey);
+
+    /**
+     * Called when a table or view is resolved from the namespace or a source.
+     * @param key canonical key of the dataset.
+     * @param version namespace version of the dataset definition, or null if the dataset isn't versioned.
+     */
+    void datasetResolved(NamespaceKey key, Long version);
   }
 }
@@ -300,6 +300,7 @@ public class SimpleSchema extends AbstractSchema {
     }
 
     if (!isPartialState(datasetConfig)) {
+      schemaConfig.datasetResolved(canonicalKey, datasetConfig.getVersion());
       final NamespaceTable namespaceTable = new NamespaceTable(new TableMetadataImpl(registry.getId(), datasetConfig, schemaConfig.getUserName(), DatasetSplitsPointer.of(ns, datasetConfig)));
       stopwatch.stop();
       metadataStatsCollector.addDatasetStat(canonicalKey.getSchemaPath(), MetadataAccessType.CACHED_METADATA.name(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
@@ -322,6 +323,8 @@ public class SimpleSchema extends AbstractSchema {
       // Update the dataset using the system user. The current user may not have permissions
       // to update datasets.
       setDataset(dContext.getNamespaceService(SYSTEM_USERNAME), datasetAccessor.getName(), newDatasetConfig, splits);
+      // the metadata was just refreshed, the version the plan is built from isn't tracked.
+      schemaConfig.datasetResolved(canonicalKey, null);
       // check permission again.
       if (permissionsCache.hasAccess(registry, schemaConfig.getUserName(), canonicalKey,
           newDatasetConfig, metadataParam == null ? null : metadataParam.getMetadataPolicy(), metadataStatsCollector)) {
@@ -343,6 +346,7 @@ public class SimpleSchema extends AbstractSchema {
       // TODO: move views to namespace and out of filesystem.
       ViewTable view = registry.getView(key.getPathComponents(), schemaConfig);
       if(view != null){
+        schemaConfig.datasetResolved(key, null);
         return view;
       }
 
@@ -383,6 +387,7 @@ public class SimpleSchema extends AbstractSchema {
           throw ue;
         }
       }
+      schemaConfig.datasetResolved(canonicalKey, null);
       if (permissionsCache.hasAccess(registry, schemaConfig.getUserName(), canonicalKey, config, metadataParam == null ? null : metadataParam.getMetadataPolicy(), metadataStatsCollector)) {
         final NamespaceTable namespaceTable = new NamespaceTable(new TableMetadataImpl(registry.getId(), config, schemaConfig.getUserName(), new MaterializedSplitsPointer(splits, splits.size())));
         stopwatch.stop();
@@ -445,6 +450,7 @@ public class SimpleSchema extends AbstractSchema {
         // first check for view
         ViewTable viewTable = plugin.getView(fullPathList, schemaConfig);
         if (viewTable != null) {
+          schemaConfig.datasetResolved(key, null);
           return viewTable;
         }
       }
@@ -466,6 +472,7 @@ public class SimpleSchema extends AbstractSchema {
           ViewFieldsHelper.getCalciteViewFields(datasetConfig),
           datasetConfig.getVirtualDataset().getContextList()
       );
+      schemaConfig.datasetResolved(new NamespaceKey(datasetConfig.getFullPathList()), datasetConfig.getVersion());
       return new ViewTable(view, datasetConfig.getOwner(), schemaConfig.getViewExpansionContext());
     } catch (Exception e) {
       logger.warn("Failure parsing virtual dataset, not including in available schema.", e);
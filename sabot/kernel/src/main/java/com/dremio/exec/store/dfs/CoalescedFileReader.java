@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+
+import com.dremio.common.AutoCloseables;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import io.netty.buffer.ArrowBuf;
+
+/**
+ * Reads a set of byte ranges of a file with as few requests as possible, for file systems where each request is
+ * expensive, like object stores.
+ *
+ * Ranges closer than a maximum gap are merged into a single request, up to a maximum request size, and the requests
+ * are issued in parallel. Streams opened on the reader are served from the fetched buffers, and only fall back to
+ * the file system for positions outside of the fetched ranges.
+ */
+public class CoalescedFileReader implements AutoCloseable {
+
+  private final FileSystem fs;
+  private final Path path;
+  private final BufferAllocator allocator;
+  private final long maxGap;
+  private final long maxRequestSize;
+  private final List<Range> ranges = new ArrayList<>();
+  private final List<FetchedRange> fetched = new ArrayList<>();
+  private final List<FSDataInputStream> streams = new ArrayList<>();
+
+  public CoalescedFileReader(FileSystem fs, Path path, BufferAllocator allocator, long maxGap, long maxRequestSize) {
+    this.fs = fs;
+    this.path = path;
+    this.allocator = allocator;
+    this.maxGap = maxGap;
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  /**
+   * Add a range to read, before the ranges are fetched.
+   */
+  public void addRange(long offset, long length) {
+    Preconditions.checkState(fetched.isEmpty(), "ranges already fetched");
+    ranges.add(new Range(offset, length));
+  }
+
+  /**
+   * Fetch all the ranges added to this reader.
+   * @param executor executor issuing the requests in parallel, or null to issue them one after the other.
+   * @return the number of requests issued.
+   */
+  public int fetch(ExecutorService executor) throws IOException {
+    Preconditions.checkState(fetched.isEmpty(), "ranges already fetched");
+    final List<Range> requests = plan(ranges, maxGap, maxRequestSize);
+
+    // buffers are allocated by the calling thread, so running out of memory fails before any request is issued.
+    for (Range request : requests) {
+      fetched.add(new FetchedRange(request.offset, (int) request.length, allocator.buffer((int) request.length)));
+    }
+
+    // every task counts down once it ran, or was skipped, so the buffers are only released after all of them.
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    final CountDownLatch done = new CountDownLatch(fetched.size());
+    final List<Future<Void>> futures = new ArrayList<>();
+    for (final FetchedRange range : fetched) {
+      final FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            if (!cancelled.get()) {
+              range.read();
+            }
+            return null;
+          } finally {
+            done.countDown();
+          }
+        }
+      });
+      futures.add(task);
+      if (executor == null) {
+        task.run();
+        continue;
+      }
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        task.run();
+      }
+    }
+
+    IOException failure = null;
+    boolean interrupted = false;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        interrupted = true;
+        failure = new InterruptedIOException("Interrupted while reading " + path);
+        break;
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        failure = cause instanceof IOException ? (IOException) cause
+            : new IOException("Failure while reading " + path, cause);
+        break;
+      }
+    }
+
+    if (failure != null) {
+      // skip the requests not started yet, and wait for the running ones as they still write into the buffers.
+      cancelled.set(true);
+      Uninterruptibles.awaitUninterruptibly(done);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      throw failure;
+    }
+    return requests.size();
+  }
+
+  /**
+   * Open a stream served from the fetched ranges.
+   * @param offset initial position of the stream in the file.
+   */
+  public FSDataInputStream open(long offset) throws IOException {
+    final FSDataInputStream stream = new FSDataInputStreamWrapper(new FSDataInputStream(new RangesInputStream()));
+    stream.seek(offset);
+    streams.add(stream);
+    return stream;
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.addAll(streams);
+    for (FetchedRange range : fetched) {
+      closeables.add(range.buffer);
+    }
+    streams.clear();
+    fetched.clear();
+    AutoCloseables.close(closeables);
+  }
+
+  /**
+   * Merge ranges whose gap is at most maxGap into requests of at most maxRequestSize. Ranges larger than the maximum
+   * request size are read with a single request.
+   */
+  static List<Range> plan(List<Range> ranges, long maxGap, long maxRequestSize) {
+    final List<Range> sorted = new ArrayList<>(ranges);
+    Collections.sort(sorted, new Comparator<Range>() {
+      @Override
+      public int compare(Range o1, Range o2) {
+        return Long.compare(o1.offset, o2.offset);
+      }
+    });
+
+    final List<Range> requests = new ArrayList<>();
+    Range current = null;
+    for (Range range : sorted) {
+      if (range.length <= 0) {
+        continue;
+      }
+      if (current != null) {
+        final long end = Math.max(current.end(), range.end());
+        if (range.offset - current.end() <= maxGap && end - current.offset <= maxRequestSize) {
+          current = new Range(current.offset, end - current.offset);
+          continue;
+        }
+        requests.add(current);
+      }
+      current = range;
+    }
+    if (current != null) {
+      requests.add(current);
+    }
+    return requests;
+  }
+
+  /**
+   * A byte range of a file.
+   */
+  static final class Range {
+    private final long offset;
+    private final long length;
+
+    Range(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    long getOffset() {
+      return offset;
+    }
+
+    long getLength() {
+      return length;
+    }
+
+    long end() {
+      return offset + length;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + offset + ", " + end() + ")";
+    }
+  }
+
+  /**
+   * A fetched request. Buffers may be larger than requested, so only the first {@code length} bytes are valid.
+   */
+  private final class FetchedRange {
+    private final long offset;
+    private final int length;
+    private final ArrowBuf buffer;
+
+    private FetchedRange(long offset, int length, ArrowBuf buffer) {
+      this.offset = offset;
+      this.length = length;
+      this.buffer = buffer;
+    }
+
+    private boolean contains(long position) {
+      return position >= offset && position < offset + length;
+    }
+
+    private void read() throws IOException {
+      // each request has its own stream, so they can be issued in parallel.
+      try (FSDataInputStream in = fs.open(path)) {
+        final byte[] bytes = new byte[Math.min(length, 1024 * 1024)];
+        int read = 0;
+        while (read < length) {
+          final int n = Math.min(bytes.length, length - read);
+          in.readFully(offset + read, bytes, 0, n);
+          buffer.setBytes(read, bytes, 0, n);
+          read += n;
+        }
+      }
+    }
+  }
+
+  /**
+   * Input stream over the fetched ranges, positioned in file offsets.
+   */
+  private final class RangesInputStream extends InputStream implements Seekable, PositionedReadable, ByteBufferReadable {
+    private long position;
+    private FSDataInputStream fallback;
+
+    private FetchedRange find(long pos) {
+      for (FetchedRange range : fetched) {
+        if (range.contains(pos)) {
+          return range;
+        }
+      }
+      return null;
+    }
+
+    private FSDataInputStream fallback(long pos) throws IOException {
+      if (fallback == null) {
+        fallback = fs.open(path);
+      }
+      fallback.seek(pos);
+      return fallback;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final FetchedRange range = find(position);
+      final int b;
+      if (range != null) {
+        b = range.buffer.getByte((int) (position - range.offset)) & 0xFF;
+      } else {
+        b = fallback(position).read();
+      }
+      if (b >= 0) {
+        position++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int n = read(position, b, off, len);
+      if (n > 0) {
+        position += n;
+      }
+      return n;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (!dst.hasRemaining()) {
+        return 0;
+      }
+      final FetchedRange range = find(position);
+      if (range == null) {
+        final byte[] bytes = new byte[dst.remaining()];
+        final int n = read(bytes, 0, bytes.length);
+        if (n > 0) {
+          dst.put(bytes, 0, n);
+        }
+        return n;
+      }
+
+      final int index = (int) (position - range.offset);
+      final int n = Math.min(dst.remaining(), range.length - index);
+      final ByteBuffer slice = dst.duplicate();
+      slice.limit(slice.position() + n);
+      range.buffer.getBytes(index, slice);
+      dst.position(dst.position() + n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int read(long pos, byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      final FetchedRange range = find(pos);
+      if (range == null) {
+        return fallback(pos).read(b, off, len);
+      }
+      final int index = (int) (pos - range.offset);
+      final int n = Math.min(len, range.length - index);
+      range.buffer.getBytes(index, b, off, n);
+      return n;
+    }
+
+    @Override
+    public void readFully(long pos, byte[] b, int off, int len) throws IOException {
+      int read = 0;
+      while (read < len) {
+        final int n = read(pos + read, b, off + read, len - read);
+        if (n < 0) {
+          throw new EOFException("End of file reached before reading fully " + path);
+        }
+        read += n;
+      }
+    }
+
+    @Override
+    public void readFully(long pos, byte[] b) throws IOException {
+      readFully(pos, b, 0, b.length);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      if (n <= 0) {
+        return 0;
+      }
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+      final FetchedRange range = find(position);
+      return range == null ? 0 : (int) (range.offset + range.length - position);
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      position = pos;
+    }
+
+    @Override
+    public long getPos() throws IOException {
+      return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPos) throws IOException {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (fallback != null) {
+        fallback.close();
+        fallback = null;
+      }
+    }
+  }
+}
@@ -118,7 +118,7 @@ public class EasyScanOperatorCreator implements ProducerOperator.Creator<EasySub
         }
       }});
 
-    return new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, readers.iterator());
+    return new ScanOperator(fragmentExecContext, config, context, readers.iterator());
   }
 
   /**
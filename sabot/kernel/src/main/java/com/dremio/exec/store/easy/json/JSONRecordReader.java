@@ -15,6 +15,7 @@
  */
 package com.dremio.exec.store.easy.json;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -46,6 +47,7 @@ public class JSONRecordReader extends AbstractRecordReader {
   private final OperatorContext context;
   private final boolean enableAllTextMode;
   private final boolean readNumbersAsDouble;
+  private final int bufferSize;
 
   // Data we're consuming
   private final Path hadoopPath;
@@ -114,6 +116,7 @@ public class JSONRecordReader extends AbstractRecordReader {
     final OptionManager options = operatorContext.getOptions();
     this.enableAllTextMode = embeddedContent == null && options.getOption(ExecConstants.JSON_READER_ALL_TEXT_MODE_VALIDATOR);
     this.readNumbersAsDouble = embeddedContent == null && options.getOption(ExecConstants.JSON_READ_NUMBERS_AS_DOUBLE_VALIDATOR);
+    this.bufferSize = (int) options.getOption(ExecConstants.JSON_READER_BUFFER_SIZE);
   }
 
   @Override
@@ -128,7 +131,8 @@ public class JSONRecordReader extends AbstractRecordReader {
   public void setup(final OutputMutator output) throws ExecutionSetupException {
     try{
       if (hadoopPath != null) {
-        this.stream = fileSystem.openPossiblyCompressedStream(hadoopPath);
+        // read the file in large blocks rather than in the small chunks requested by the parser
+        this.stream = new BufferedInputStream(fileSystem.openPossiblyCompressedStream(hadoopPath), bufferSize);
       }
 
       this.writer = new VectorContainerWriter(output);
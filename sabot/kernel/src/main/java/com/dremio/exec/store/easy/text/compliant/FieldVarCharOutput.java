@@ -30,6 +30,8 @@ import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.sabot.op.scan.OutputMutator;
 
+import io.netty.buffer.ArrowBuf;
+
 /**
  * Class is responsible for generating record batches for text file inputs. We generate
  * a record batch with a set of varchar vectors. A varchar vector contains all the field
@@ -155,6 +157,26 @@ class FieldVarCharOutput extends TextOutput {
     fieldBytes[currentDataPointer++] = data;
   }
 
+  @Override
+  public void append(ArrowBuf buffer, int start, int length) {
+    if (!collect) {
+      // fields that are not projected are skipped without copying their bytes
+      return;
+    }
+
+    if (currentDataPointer + length > MAX_FIELD_LENGTH - 1) {
+      throw UserException
+          .unsupportedError()
+          .message("Trying to write something big in a column")
+          .addContext("columnIndex", currentFieldIndex)
+          .addContext("Limit", MAX_FIELD_LENGTH)
+          .build(logger);
+    }
+
+    buffer.getBytes(start, fieldBytes, currentDataPointer, length);
+    currentDataPointer += length;
+  }
+
   @Override
   public boolean endField() {
     fieldOpen = false;
@@ -18,6 +18,8 @@ package com.dremio.exec.store.easy.text.compliant;
 
 import org.apache.arrow.flatbuf.RecordBatch;
 
+import io.netty.buffer.ArrowBuf;
+
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.sabot.op.scan.OutputMutator;
 
@@ -60,6 +62,11 @@ public class TextCountOutput extends TextOutput  {
     // no-op
   }
 
+  @Override
+  public void append(ArrowBuf buffer, int start, int length) {
+    // no-op
+  }
+
   @Override
   public void finishRecord() {
     if (fieldOpen) {
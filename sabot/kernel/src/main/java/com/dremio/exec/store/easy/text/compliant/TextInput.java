@@ -348,6 +348,49 @@ final class TextInput {
     return byteChar;
   }
 
+  /**
+   * Consume the run of bytes following the current position that can't end a field: anything but the delimiter, the
+   * first byte of the line separator, the normalized newline and, if requested, whitespace. The run stops before the
+   * last byte of the buffer, so buffer refills and line counting are still handled by {@link #nextChar()}.
+   * @param delimiter  field delimiter
+   * @param stopAtWhitespace  whether whitespace ends the run
+   * @param output  output the consumed bytes are appended to
+   */
+  public final void consumeFieldBytes(byte delimiter, boolean stopAtWhitespace, TextOutput output) {
+    final byte separator = lineSeparator[0];
+    final byte newLine = normalizedLineSeparator;
+    final long start = bStartMinus1 + bufferPtr;
+    final long end = bStartMinus1 + length;
+    long address = start;
+    while (address < end) {
+      final byte b = PlatformDependent.getByte(address);
+      if (b == delimiter || b == separator || b == newLine || (stopAtWhitespace && TextReader.isWhite(b))) {
+        break;
+      }
+      address++;
+    }
+
+    final int count = (int) (address - start);
+    if (count > 0) {
+      output.append(buffer, bufferPtr - 1, count);
+      bufferPtr += count;
+    }
+  }
+
+  /**
+   * Consume the bytes following the current position up to the first byte of the line separator, within the current
+   * buffer.
+   */
+  private void skipToLineSeparator() {
+    final byte separator = lineSeparator[0];
+    final long end = bStartMinus1 + length;
+    long address = bStartMinus1 + bufferPtr;
+    while (address < end && PlatformDependent.getByte(address) != separator) {
+      address++;
+    }
+    bufferPtr = (int) (address - bStartMinus1);
+  }
+
   /**
    * Number of lines read since the start of this split.
    * @return
@@ -370,6 +413,7 @@ final class TextInput {
 
     try {
       do {
+        skipToLineSeparator();
         nextChar();
       } while (lineCount < expectedLineCount /*&& bufferPtr < READ_CHARS_LIMIT*/);
       if (lineCount < lines) {
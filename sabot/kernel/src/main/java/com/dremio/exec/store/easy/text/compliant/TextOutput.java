@@ -15,6 +15,8 @@
  */
 package com.dremio.exec.store.easy.text.compliant;
 
+import io.netty.buffer.ArrowBuf;
+
 /* Base class for producing output record batches while dealing with
  * Text files.
  */
@@ -57,6 +59,18 @@ abstract class TextOutput {
    */
   public abstract void append(byte data);
 
+  /**
+   * Append a run of bytes of the current field, read straight from the input buffer.
+   * @param buffer  input buffer
+   * @param start  offset of the first byte in the buffer
+   * @param length  number of bytes to append
+   */
+  public void append(ArrowBuf buffer, int start, int length) {
+    for (int i = start; i < start + length; i++) {
+      append(buffer.getByte(i));
+    }
+  }
+
   /**
    * Completes the processing of a given record. Also completes the processing of the
    * last field being read.
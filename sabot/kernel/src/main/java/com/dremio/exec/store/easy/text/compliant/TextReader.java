@@ -177,6 +177,7 @@ final class TextReader {
     while (ch != delimiter && ch != newLine) {
       output.appendIgnoringWhitespace(ch);
 //      fieldSize++;
+      input.consumeFieldBytes(delimiter, true, output);
       ch = input.nextChar();
     }
     this.ch = ch;
@@ -196,6 +197,8 @@ final class TextReader {
     byte ch = this.ch;
     while (ch != delimiter && ch != newLine) {
       output.append(ch);
+      // copy the rest of the value from the input buffer in one go, skipped fields are not copied at all
+      input.consumeFieldBytes(delimiter, false, output);
       ch = input.nextChar();
     }
     this.ch = ch;
@@ -36,7 +36,7 @@ public class InfoSchemaScanCreator implements ProducerOperator.Creator<InfoSchem
     NamespaceService namespace = plugin2.getSabotContext().getNamespaceService(config.getUserName());
     String catalogName = context.getOptions().getOption(ExecConstants.USE_LEGACY_CATALOG_NAME) ? InfoSchemaConstants.IS_LEGACY_CATALOG_NAME : InfoSchemaConstants.IS_CATALOG_NAME;
     RecordReader reader = table.asReader(catalogName, namespace, config.getQuery(), config.getColumns());
-    return new ScanOperator(fec.getSchemaUpdater(), config, context, Collections.singleton(reader).iterator());
+    return new ScanOperator(fec, config, context, Collections.singleton(reader).iterator());
   }
 
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.statistics.BinaryStatistics;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.server.options.OptionManager;
+import com.dremio.metrics.Metrics;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Node wide cache of parquet footers, shared by all the scans running on the node. Footers are keyed by file path and
+ * modification time, so a rewritten file is never served a stale footer. The cache is bounded by the estimated heap
+ * size of the footers it holds and evicts the least recently used ones first.
+ */
+public class ParquetFooterCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetFooterCache.class);
+
+  private static final MetricRegistry metrics = Metrics.getInstance();
+  private static final Counter HITS = metrics.counter(MetricRegistry.name(ParquetFooterCache.class, "hits"));
+  private static final Counter MISSES = metrics.counter(MetricRegistry.name(ParquetFooterCache.class, "misses"));
+
+  // estimated heap sizes of the objects of a parsed footer
+  private static final int FOOTER_HEAP_SIZE = 1024;
+  private static final int SCHEMA_COLUMN_HEAP_SIZE = 200;
+  private static final int ROW_GROUP_HEAP_SIZE = 100;
+  private static final int COLUMN_CHUNK_HEAP_SIZE = 400;
+  private static final int STRING_HEAP_SIZE = 40;
+
+  private static volatile ParquetFooterCache instance;
+
+  static {
+    Metrics.registerGauge(MetricRegistry.name(ParquetFooterCache.class, "size"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        final ParquetFooterCache cache = instance;
+        return cache != null ? cache.cache.size() : 0L;
+      }
+    });
+  }
+
+  private final long maxSize;
+  private final Cache<FooterKey, CachedFooter> cache;
+
+  @VisibleForTesting
+  ParquetFooterCache(long maxSize) {
+    this.maxSize = maxSize;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSize)
+        .weigher(new Weigher<FooterKey, CachedFooter>() {
+          @Override
+          public int weigh(FooterKey key, CachedFooter value) {
+            return value.size;
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Get the cache of this node, or null if footer caching is disabled. If the configured size changed since the cache
+   * was created, the cache is replaced by one of the new size, holding the footers of the previous one that fit.
+   * @param options options used to configure the cache.
+   * @return the footer cache.
+   */
+  public static ParquetFooterCache getInstance(OptionManager options) {
+    if (!options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_ENABLED)) {
+      return null;
+    }
+
+    final long maxSize = options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_SIZE);
+    ParquetFooterCache cache = instance;
+    if (cache == null || cache.maxSize != maxSize) {
+      synchronized (ParquetFooterCache.class) {
+        cache = instance;
+        if (cache == null || cache.maxSize != maxSize) {
+          logger.debug("Creating parquet footer cache of {} bytes.", maxSize);
+          final ParquetFooterCache previous = cache;
+          cache = new ParquetFooterCache(maxSize);
+          if (previous != null) {
+            cache.cache.putAll(previous.cache.asMap());
+          }
+          instance = cache;
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Get the footer of a file, reading it if it isn't cached.
+   * @param fs file system of the file.
+   * @param file path of the file.
+   * @param modificationTime modification time of the file.
+   * @param stats stats of the operator reading the file, updated with cache hits and misses.
+   * @return the file footer.
+   * @throws IOException if the footer could not be read.
+   */
+  public ParquetMetadata getFooter(final FileSystem fs, final Path file, long modificationTime, OperatorStats stats)
+      throws IOException {
+    final FooterKey key = new FooterKey(file.toString(), modificationTime);
+    final CachedFooter cached = cache.getIfPresent(key);
+    if (cached != null) {
+      HITS.inc();
+      stats.addLongStat(Metric.FOOTER_CACHE_HITS, 1);
+      return cached.footer;
+    }
+
+    MISSES.inc();
+    stats.addLongStat(Metric.FOOTER_CACHE_MISSES, 1);
+    try {
+      // concurrent readers of the same file wait for a single read of the footer.
+      final CachedFooter loaded = cache.get(key, new Callable<CachedFooter>() {
+        @Override
+        public CachedFooter call() throws Exception {
+          final FileStatus status = fs.getFileStatus(file);
+          final ParquetMetadata footer = SingletonParquetFooterCache.parseFooter(
+              SingletonParquetFooterCache.readFooterBytes(fs, status), ParquetMetadataConverter.NO_FILTER);
+          return new CachedFooter(footer, status.getModificationTime(), estimateHeapSize(footer));
+        }
+      });
+
+      // the file changed since the caller listed it, keep the footer under the modification time it was read at
+      if (loaded.modificationTime != modificationTime) {
+        cache.invalidate(key);
+        cache.put(new FooterKey(key.path, loaded.modificationTime), loaded);
+      }
+      return loaded.footer;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to read parquet footer for file " + file, e.getCause());
+    }
+  }
+
+  /**
+   * Estimate the heap size of a parsed footer. Its size is mostly made of the metadata of the column chunks, which is
+   * much larger once parsed than serialized.
+   */
+  @VisibleForTesting
+  static int estimateHeapSize(ParquetMetadata footer) {
+    long size = FOOTER_HEAP_SIZE;
+    size += (long) footer.getFileMetaData().getSchema().getColumns().size() * SCHEMA_COLUMN_HEAP_SIZE;
+    for (Map.Entry<String, String> entry : footer.getFileMetaData().getKeyValueMetaData().entrySet()) {
+      size += estimateHeapSize(entry.getKey()) + estimateHeapSize(entry.getValue());
+    }
+    if (footer.getFileMetaData().getCreatedBy() != null) {
+      size += estimateHeapSize(footer.getFileMetaData().getCreatedBy());
+    }
+
+    for (BlockMetaData block : footer.getBlocks()) {
+      size += ROW_GROUP_HEAP_SIZE;
+      for (ColumnChunkMetaData column : block.getColumns()) {
+        size += COLUMN_CHUNK_HEAP_SIZE;
+        final Statistics<?> statistics = column.getStatistics();
+        if (statistics instanceof BinaryStatistics && !statistics.isEmpty()) {
+          size += ((BinaryStatistics) statistics).getMin().length() + ((BinaryStatistics) statistics).getMax().length();
+        }
+      }
+    }
+    return (int) Math.min(Integer.MAX_VALUE, size);
+  }
+
+  private static long estimateHeapSize(String string) {
+    return string == null ? 0 : STRING_HEAP_SIZE + 2L * string.length();
+  }
+
+  private static final class FooterKey {
+    private final String path;
+    private final long modificationTime;
+
+    private FooterKey(String path, long modificationTime) {
+      this.path = path;
+      this.modificationTime = modificationTime;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(path, modificationTime);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof FooterKey)) {
+        return false;
+      }
+      final FooterKey other = (FooterKey) obj;
+      return modificationTime == other.modificationTime && path.equals(other.path);
+    }
+  }
+
+  private static final class CachedFooter {
+    private final ParquetMetadata footer;
+    private final long modificationTime;
+    private final int size;
+
+    private CachedFooter(ParquetMetadata footer, long modificationTime, int size) {
+      this.footer = footer;
+      this.modificationTime = modificationTime;
+      this.size = size;
+    }
+  }
+}
@@ -42,6 +42,7 @@ import com.dremio.service.namespace.file.FileFormat;
 import com.dremio.service.namespace.file.proto.ParquetDatasetSplitXAttr;
 import com.dremio.service.namespace.file.proto.ParquetFileConfig;
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
@@ -62,7 +63,7 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
 
     boolean isAccelerator = config.getPluginId().getName().equals("__accelerator");
 
-    final ParquetReaderFactory readerFactory = UnifiedParquetReader.getReaderFactory(context.getConfig());
+    final ParquetReaderFactory readerFactory = UnifiedParquetReader.getReaderFactory(context.getConfig(), context.getOptions());
 
     // TODO (AH )Fix implicit columns with mod time and global dictionaries
     final ImplicitFilesystemColumnFinder finder = new ImplicitFilesystemColumnFinder(context.getOptions(), fs, config.getColumns(), isAccelerator);
@@ -84,14 +85,28 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
 
     final CompositeReaderConfig readerConfig = CompositeReaderConfig.getCompound(config.getSchema(), config.getColumns(), config.getPartitionColumns());
     final List<ParquetDatasetSplit> sortedSplits = Lists.newArrayList();
-    final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
+    final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache(
+        ParquetFooterCache.getInstance(context.getOptions()), context.getStats());
 
     for (DatasetSplit spilt : config.getSplits()) {
       sortedSplits.add(new ParquetDatasetSplit(spilt));
     }
     Collections.sort(sortedSplits);
 
-    FluentIterable < RecordReader > readers = FluentIterable.from(sortedSplits).transform(new Function<ParquetDatasetSplit, RecordReader>() {
+    final ParquetRowGroupFilter rowGroupFilter = context.getOptions().getOption(ExecConstants.PARQUET_ROW_GROUP_FILTER_ENABLED)
+        ? new ParquetRowGroupFilter(context, fs, codec, config.getConditions()) : null;
+
+    FluentIterable < RecordReader > readers = FluentIterable.from(sortedSplits).filter(new Predicate<ParquetDatasetSplit>() {
+      @Override
+      public boolean apply(ParquetDatasetSplit split) {
+        if (rowGroupFilter == null) {
+          return true;
+        }
+        final String path = split.getSplitXAttr().getPath();
+        return rowGroupFilter.canMatch(path, footerCache.getFooter(fs, new Path(path), split.getModificationTime()),
+            split.getSplitXAttr().getRowGroupIndex());
+      }
+    }).transform(new Function<ParquetDatasetSplit, RecordReader>() {
       @Override
       public RecordReader apply(ParquetDatasetSplit split) {
         final UnifiedParquetReader inner = new UnifiedParquetReader(
@@ -103,7 +118,7 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
           config.getConditions(),
           split.getSplitXAttr(),
           fs,
-          footerCache.getFooter(fs, new Path(split.getSplitXAttr().getPath())),
+          footerCache.getFooter(fs, new Path(split.getSplitXAttr().getPath()), split.getModificationTime()),
           globalDictionaries,
           codec,
           autoCorrectCorruptDates,
@@ -115,7 +130,7 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
       }
     });
 
-    final ScanOperator scan = new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, readers.iterator(), globalDictionaries);
+    final ScanOperator scan = new ScanOperator(fragmentExecContext, config, context, readers.iterator(), globalDictionaries);
     logger.debug("Took {} ms to create Parquet Scan SqlOperatorImpl.", watch.elapsed(TimeUnit.MILLISECONDS));
     return scan;
   }
@@ -137,6 +152,13 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
       return splitXAttr;
     }
 
+    /**
+     * @return modification time of the split file when the dataset metadata was collected, or null if unknown.
+     */
+    Long getModificationTime() {
+      return splitXAttr.getUpdateKey() != null ? splitXAttr.getUpdateKey().getLastModificationTime() : null;
+    }
+
     @Override
     public int compareTo(Object o) {
       final ParquetDatasetSplit other = (ParquetDatasetSplit) o;
@@ -22,6 +22,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.PrimitiveType;
 
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.store.RecordReader;
@@ -32,6 +33,16 @@ public interface ParquetReaderFactory {
 
   boolean isSupported(ColumnChunkMetaData chunk);
 
+  /**
+   * Whether columns of the given type, including its original type and repetition, can be read.
+   */
+  boolean isSupported(PrimitiveType type);
+
+  /**
+   * Whether the given filter condition can be evaluated by the reader on a column of the given type.
+   */
+  boolean isSupported(FilterCondition condition, PrimitiveType type);
+
   RecordReader newReader(OperatorContext context,
       List<SchemaPath> columns,
       FileSystem fs,
@@ -53,6 +64,16 @@ public interface ParquetReaderFactory {
       return false;
     }
 
+    @Override
+    public boolean isSupported(PrimitiveType type) {
+      return false;
+    }
+
+    @Override
+    public boolean isSupported(FilterCondition condition, PrimitiveType type) {
+      return false;
+    }
+
     @Override
     public RecordReader newReader(OperatorContext context, List<SchemaPath> columns, FileSystem fs, String path,
         CodecFactory codecFactory, List<FilterCondition> conditions, DateCorruptionStatus corruptionStatus,
@@ -15,9 +15,14 @@
  */
 package com.dremio.exec.store.parquet;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 
 import org.apache.parquet.SemanticVersion;
 import org.apache.parquet.VersionParser;
@@ -36,13 +41,18 @@ import org.apache.parquet.io.api.Binary;
 import org.joda.time.Chronology;
 import org.joda.time.DateTimeConstants;
 
+import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.PathSegment;
 import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.server.options.OptionManager;
+import com.dremio.exec.store.dfs.CoalescedFileReader;
 import com.dremio.exec.util.ColumnUtils;
 import com.dremio.exec.work.ExecErrorConstants;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
 
 /**
  * Utility class where we can capture common logic between the two parquet readers
@@ -68,6 +78,8 @@ public class ParquetReaderUtility {
   private static final Chronology UTC = org.joda.time.chrono.ISOChronology.getInstanceUTC();
   public static final int DATE_CORRUPTION_THRESHOLD =
       (int) (UTC.getDateTimeMillis(5000, 1, 1, 0) / DateTimeConstants.MILLIS_PER_DAY);
+  // Maximum size of a single request of coalesced column chunks, so large row groups are fetched in parallel.
+  private static final long COALESCED_READS_MAX_REQUEST_SIZE = 8 * 1024 * 1024;
 
   /**
    * For most recently created parquet files, we can determine if we have corrupted dates (see DRILL-4203)
@@ -94,6 +106,57 @@ public class ParquetReaderUtility {
     }
   }
 
+  /**
+   * Fetch the given column chunks of a file with coalesced parallel requests, when the file system is remote and the
+   * chunks are small enough to be held in memory.
+   * @return a reader serving the fetched chunks, or null if the chunks should be read from the file.
+   */
+  public static CoalescedFileReader fetchColumnChunks(OperatorContext context, FileSystem fs, Path path,
+      Iterable<ColumnChunkMetaData> chunks) throws IOException {
+    final OptionManager options = context.getOptions();
+    if (!options.getOption(ExecConstants.PARQUET_COALESCED_READS_ENABLED) || isLocal(fs)) {
+      return null;
+    }
+
+    long totalSize = 0;
+    for (ColumnChunkMetaData chunk : chunks) {
+      totalSize += chunk.getTotalSize();
+    }
+    if (totalSize == 0 || totalSize > options.getOption(ExecConstants.PARQUET_COALESCED_READS_MAX_SIZE)) {
+      return null;
+    }
+
+    final CoalescedFileReader reader = new CoalescedFileReader(fs, path, context.getAllocator(),
+        options.getOption(ExecConstants.PARQUET_COALESCED_READS_MAX_GAP), COALESCED_READS_MAX_REQUEST_SIZE);
+    try {
+      for (ColumnChunkMetaData chunk : chunks) {
+        reader.addRange(chunk.getStartingPos(), chunk.getTotalSize());
+      }
+      context.getStats().addLongStat(Metric.NUM_COALESCED_READS, reader.fetch(getExecutor(context)));
+      return reader;
+    } catch (IOException | RuntimeException e) {
+      AutoCloseables.close(e, reader);
+      throw e;
+    }
+  }
+
+  private static boolean isLocal(FileSystem fs) {
+    try {
+      return "file".equalsIgnoreCase(fs.getScheme());
+    } catch (UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
+  private static ExecutorService getExecutor(OperatorContext context) {
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      // no executor, the requests are issued one after the other.
+      return null;
+    }
+  }
+
   public static void checkDecimalTypeEnabled(OptionManager options) {
     if (options.getOption(PlannerSettings.ENABLE_DECIMAL_DATA_TYPE_KEY).bool_val == false) {
       throw UserException.unsupportedError()
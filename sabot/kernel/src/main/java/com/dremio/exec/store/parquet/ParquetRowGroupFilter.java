@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+import com.dremio.exec.store.parquet.vectorized.ParquetFilterPredicate;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+
+/**
+ * Evaluates the filter conditions pushed into a parquet scan against the column statistics of a row group, and
+ * against its dictionaries when all of its pages are dictionary encoded. Row groups that can't have any matching row
+ * are skipped before a reader is created for them.
+ */
+public class ParquetRowGroupFilter {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetRowGroupFilter.class);
+
+  private final OperatorContext context;
+  private final FileSystem fs;
+  private final CodecFactory codecFactory;
+  private final List<FilterCondition> conditions;
+
+  public ParquetRowGroupFilter(OperatorContext context, FileSystem fs, CodecFactory codecFactory,
+      List<FilterCondition> conditions) {
+    this.context = context;
+    this.fs = fs;
+    this.codecFactory = codecFactory;
+    this.conditions = conditions;
+  }
+
+  /**
+   * Check if any row of a row group may match the filter conditions. Skipped row groups are counted in the operator
+   * stats.
+   * @param path path of the parquet file.
+   * @param footer footer of the parquet file.
+   * @param rowGroupIndex index of the row group in the file.
+   * @return false if the row group can be skipped.
+   */
+  public boolean canMatch(String path, ParquetMetadata footer, int rowGroupIndex) {
+    if (conditions == null || conditions.isEmpty()) {
+      return true;
+    }
+
+    final BlockMetaData block = footer.getBlocks().get(rowGroupIndex);
+    final MessageType schema = footer.getFileMetaData().getSchema();
+    for (FilterCondition condition : conditions) {
+      if (!canMatch(condition, path, schema, block)) {
+        logger.debug("Skipping row group {} of file {}, no row matches {}", rowGroupIndex, path, condition);
+        context.getStats().addLongStat(Metric.NUM_ROW_GROUPS_PRUNED, 1);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean canMatch(FilterCondition condition, String path, MessageType schema, BlockMetaData block) {
+    final String name = condition.getPath().getRootSegment().getNameSegment().getPath();
+    ColumnChunkMetaData chunk = null;
+    for (ColumnChunkMetaData c : block.getColumns()) {
+      if (c.getPath().size() == 1 && c.getPath().iterator().next().equalsIgnoreCase(name)) {
+        chunk = c;
+        break;
+      }
+    }
+    if (chunk == null) {
+      return true;
+    }
+
+    final Type type = schema.getType(chunk.getPath().toArray());
+    if (!type.isPrimitive()) {
+      return true;
+    }
+    final ParquetFilterPredicate predicate = ParquetFilterPredicate.compile(condition.getExpr(), type.asPrimitiveType());
+    if (predicate == null) {
+      return true;
+    }
+
+    if (!predicate.canMatch(chunk.getStatistics(), chunk.getValueCount())) {
+      return false;
+    }
+    return !isFullyDictionaryEncoded(chunk) || canMatchDictionary(predicate, path, schema, block, chunk);
+  }
+
+  /**
+   * Whether all the data pages of the column chunk are dictionary encoded, so its dictionary holds all of its values.
+   */
+  private static boolean isFullyDictionaryEncoded(ColumnChunkMetaData chunk) {
+    boolean dictionary = false;
+    for (Encoding encoding : chunk.getEncodings()) {
+      if (encoding.usesDictionary()) {
+        dictionary = true;
+      } else if (encoding != Encoding.RLE && encoding != Encoding.BIT_PACKED) {
+        // some pages fell back to another encoding.
+        return false;
+      }
+    }
+    return dictionary;
+  }
+
+  private boolean canMatchDictionary(ParquetFilterPredicate predicate, String path, MessageType schema,
+      BlockMetaData block, ColumnChunkMetaData chunk) {
+    final ColumnDescriptor descriptor = schema.getColumnDescription(chunk.getPath().toArray());
+    final ColumnChunkIncReadStore store = new ColumnChunkIncReadStore(block.getRowCount(), codecFactory,
+        context.getAllocator(), fs, new Path(path), false);
+    try {
+      store.addColumn(descriptor, chunk);
+      final DictionaryPage page = store.getPageReader(descriptor).readDictionaryPage();
+      if (page == null) {
+        return true;
+      }
+      final Dictionary dictionary = page.getEncoding().initDictionary(descriptor, page);
+      for (boolean match : predicate.matches(dictionary)) {
+        if (match) {
+          return true;
+        }
+      }
+      return false;
+    } catch (IOException e) {
+      logger.debug("Failure while reading dictionary of column {} in file {}", chunk.getPath(), path, e);
+      return true;
+    } finally {
+      try {
+        store.close();
+      } catch (IOException e) {
+        logger.warn("Failure while closing dictionary reader of file {}", path, e);
+      }
+    }
+  }
+}
@@ -30,10 +30,12 @@ import org.apache.parquet.hadoop.ParquetFileWriter;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 
 import com.dremio.exec.store.dfs.FileSystemWrapper;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.google.common.base.Preconditions;
 
 /**
- * Single object cache that holds the parquet footer for last file.
+ * Single object cache that holds the parquet footer for last file. Footers of other files are looked up in the node
+ * wide {@link ParquetFooterCache}, if provided.
  */
 public class SingletonParquetFooterCache {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SingletonParquetFooterCache.class);
@@ -44,18 +46,46 @@ public class SingletonParquetFooterCache {
   private static final int MAGIC_LENGTH = ParquetFileWriter.MAGIC.length;
   private static final int MIN_FILE_SIZE = ParquetFileWriter.MAGIC.length + FOOTER_METADATA_SIZE;
 
+  private final ParquetFooterCache sharedCache;
+  private final OperatorStats stats;
   private ParquetMetadata footer;
   private Path lastFile;
 
   public SingletonParquetFooterCache() {
+    this(null, null);
+  }
+
+  /**
+   * @param sharedCache node wide cache, or null to always read footers from the file system.
+   * @param stats stats of the operator the footers are read for, required if sharedCache is set.
+   */
+  public SingletonParquetFooterCache(ParquetFooterCache sharedCache, OperatorStats stats) {
+    Preconditions.checkArgument(sharedCache == null || stats != null, "Operator stats are required to use the shared footer cache.");
+    this.sharedCache = sharedCache;
+    this.stats = stats;
     this.footer = null;
     this.lastFile = null;
   }
 
   public ParquetMetadata getFooter(FileSystemWrapper fs, Path file) {
+    return getFooter(fs, file, null);
+  }
+
+  /**
+   * @param fs
+   * @param file
+   * @param modificationTime modification time of the file, if known. Only used to look up the shared cache.
+   * @return the footer of the file.
+   */
+  public ParquetMetadata getFooter(FileSystemWrapper fs, Path file, Long modificationTime) {
     if (footer == null || !lastFile.equals(file)) {
       try {
-        footer = readFooter(fs, file, ParquetMetadataConverter.NO_FILTER);
+        if (sharedCache != null) {
+          final long mtime = modificationTime != null ? modificationTime : fs.getFileStatus(file).getModificationTime();
+          footer = sharedCache.getFooter(fs, file, mtime, stats);
+        } else {
+          footer = readFooter(fs, file, ParquetMetadataConverter.NO_FILTER);
+        }
       } catch (IOException ioe) {
         throw new RuntimeException("Failed to read parquet footer for file " + file, ioe);
       }
@@ -96,6 +126,21 @@ public class SingletonParquetFooterCache {
     final FileSystem fs,
     final FileStatus status,
     ParquetMetadataConverter.MetadataFilter filter) throws IOException {
+    return parseFooter(readFooterBytes(fs, status), filter);
+  }
+
+  static ParquetMetadata parseFooter(byte[] footerBytes, ParquetMetadataConverter.MetadataFilter filter) throws IOException {
+    return ParquetFormatPlugin.parquetMetadataConverter.readParquetMetadata(new ByteArrayInputStream(footerBytes), filter);
+  }
+
+  /**
+   * Read the serialized footer of a parquet file.
+   * @param fs
+   * @param status
+   * @return the footer bytes, without the length and magic bytes that follow it.
+   * @throws IOException
+   */
+  static byte[] readFooterBytes(final FileSystem fs, final FileStatus status) throws IOException {
     try(FSDataInputStream file = fs.open(status.getPath())) {
       final long fileLength = status.getLen();
       Preconditions.checkArgument(fileLength >= MIN_FILE_SIZE, "%s is not a Parquet file (too small)", status.getPath());
@@ -121,7 +166,7 @@ public class SingletonParquetFooterCache {
         footerBytes = ArrayUtils.subarray(footerBytes, start, start + size);
       }
 
-      return ParquetFormatPlugin.parquetMetadataConverter.readParquetMetadata(new ByteArrayInputStream(footerBytes), filter);
+      return footerBytes;
     }
   }
 }
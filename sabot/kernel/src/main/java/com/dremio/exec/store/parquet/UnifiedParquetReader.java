@@ -45,10 +45,12 @@ import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.planner.physical.visitor.GlobalDictionaryFieldInfo;
+import com.dremio.exec.server.options.OptionManager;
 import com.dremio.exec.store.AbstractRecordReader;
 import com.dremio.exec.store.RecordReader;
 import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
 import com.dremio.exec.store.parquet.columnreaders.DeprecatedParquetVectorizedReader;
+import com.dremio.exec.store.parquet.vectorized.VectorizedParquetReaderFactory;
 import com.dremio.exec.store.parquet2.ParquetRowiseReader;
 import com.dremio.exec.util.ColumnUtils;
 import com.dremio.parquet.reader.ParquetDirectByteBufferAllocator;
@@ -64,6 +66,8 @@ public class UnifiedParquetReader implements RecordReader {
 
 //  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(UnifiedParquetReader.class);
 
+  private static final String PARQUET_READER_FACTORY = "dremio.plugins.parquet.factory";
+
   private final OperatorContext context;
   private final ParquetMetadata footer;
   private final ParquetDatasetSplitXAttr readEntry;
@@ -263,8 +267,9 @@ public class UnifiedParquetReader implements RecordReader {
     MessageType schema = footer.getFileMetaData().getSchema();
     for (Type parquetField : schema.getFields()) {
       if (fields.containsKey(parquetField.getName()) &&
-        (parquetField.asPrimitiveType().getOriginalType() != OriginalType.DECIMAL
-        && parquetField.isPrimitive()
+        (parquetField.isPrimitive()
+          && parquetField.asPrimitiveType().getOriginalType() != OriginalType.DECIMAL
+          && readerFactory.isSupported(parquetField.asPrimitiveType())
           && (parquetField.asPrimitiveType().getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.INT96 ||
           readInt96AsTimeStamp))) {
         vectorizableTypes.add(parquetField);
@@ -316,7 +321,21 @@ public class UnifiedParquetReader implements RecordReader {
     if (filterConditions == null || filterConditions.isEmpty()) {
       return true;
     }
-    return isConditionSet(vectorizableColumns, nonVectorizableColumns);
+    return isConditionSet(vectorizableColumns, nonVectorizableColumns) && isConditionSupported();
+  }
+
+  /**
+   * Whether the vectorized reader can evaluate the filter condition on its column.
+   */
+  private boolean isConditionSupported() {
+    final String name = filterConditions.get(0).getPath().getRootSegment().getNameSegment().getPath();
+    for (Type type : footer.getFileMetaData().getSchema().getFields()) {
+      if (type.getName().equalsIgnoreCase(name)) {
+        return type.isPrimitive() && readerFactory.isSupported(filterConditions.get(0), type.asPrimitiveType());
+      }
+    }
+    // the filtered column is missing from the file.
+    return true;
   }
 
   private boolean isConditionSet(List<SchemaPath> vectorizableColumns, List<SchemaPath> nonVectorizableColumns) {
@@ -412,7 +431,9 @@ public class UnifiedParquetReader implements RecordReader {
         }
 
         List<RecordReader> returnList = new ArrayList<>();
-        if (!unifiedReader.vectorizableReaderColumns.isEmpty() || unifiedReader.nonVectorizableReaderColumns.isEmpty()) {
+        // the vectorized reader evaluates the filter, even if it doesn't read any of the projected columns.
+        if (!unifiedReader.vectorizableReaderColumns.isEmpty() || unifiedReader.nonVectorizableReaderColumns.isEmpty()
+            || deltas != null) {
           returnList.add(
               unifiedReader.readerFactory.newReader(
               unifiedReader.context,
@@ -513,6 +534,17 @@ public class UnifiedParquetReader implements RecordReader {
   }
 
   public static ParquetReaderFactory getReaderFactory(SabotConfig config){
-    return config.getInstance("dremio.plugins.parquet.factory", ParquetReaderFactory.class, ParquetReaderFactory.NONE);
+    return config.getInstance(PARQUET_READER_FACTORY, ParquetReaderFactory.class, ParquetReaderFactory.NONE);
+  }
+
+  /**
+   * Get the reader factory set in the config or, if none is set, the {@link VectorizedParquetReaderFactory} when
+   * enabled by {@link ExecConstants#PARQUET_VECTORIZED_READER_ENABLED}.
+   */
+  public static ParquetReaderFactory getReaderFactory(SabotConfig config, OptionManager options){
+    if (!config.hasPath(PARQUET_READER_FACTORY) && options.getOption(ExecConstants.PARQUET_VECTORIZED_READER_ENABLED)) {
+      return new VectorizedParquetReaderFactory();
+    }
+    return getReaderFactory(config);
   }
 }
@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.NullableBitVector;
+import org.apache.arrow.vector.NullableFloat4Vector;
+import org.apache.arrow.vector.NullableFloat8Vector;
+import org.apache.arrow.vector.NullableIntVector;
+import org.apache.arrow.vector.NullableTimeStampMilliVector;
+import org.apache.arrow.vector.NullableVarBinaryVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.parquet.bytes.BytesUtils;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ValuesType;
+import org.apache.parquet.column.page.DataPage;
+import org.apache.parquet.column.page.DataPageV1;
+import org.apache.parquet.column.page.DataPageV2;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.column.values.ValuesReader;
+import org.apache.parquet.column.values.dictionary.DictionaryValuesReader;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridValuesReader;
+import org.apache.parquet.io.api.Binary;
+
+/**
+ * Decodes the pages of a flat parquet column straight into an arrow vector. Rows are either read, skipped or, for
+ * the filtered column, evaluated against the filter predicate. Data pages that are entirely skipped are never
+ * decoded, and pages of the filtered column whose statistics or dictionary rule out any match are not decoded either.
+ */
+class ColumnDecoder {
+
+  private final ColumnDescriptor descriptor;
+  private final PageReader pageReader;
+  private final ColumnType type;
+  private final FieldVector vector;
+  private final ParquetFilterPredicate predicate;
+  private final int maxDefinitionLevel;
+
+  private Dictionary dictionary;
+  private boolean[] dictionaryMatches;
+  private boolean dictionaryHasMatch;
+
+  private DataPage page;
+  private int pageRemaining;
+  private boolean pageInitialized;
+  private boolean pageRejected;
+  private ValuesReader definitionLevels;
+  private ValuesReader values;
+  private DictionaryValuesReader dictionaryIds;
+
+  private long pagesSkipped;
+
+  /**
+   * @param descriptor the column.
+   * @param pageReader reader of the column chunk pages.
+   * @param type type of the column.
+   * @param vector vector to decode into, or null if the column is only read to evaluate the predicate.
+   * @param predicate predicate to evaluate on this column, or null if the column isn't filtered.
+   */
+  ColumnDecoder(ColumnDescriptor descriptor, PageReader pageReader, ColumnType type, FieldVector vector,
+      ParquetFilterPredicate predicate) throws IOException {
+    this.descriptor = descriptor;
+    this.pageReader = pageReader;
+    this.type = type;
+    this.vector = vector;
+    this.predicate = predicate;
+    this.maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+
+    final DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+    if (dictionaryPage != null) {
+      dictionary = dictionaryPage.getEncoding().initDictionary(descriptor, dictionaryPage);
+      if (predicate != null) {
+        dictionaryMatches = predicate.matches(dictionary);
+        for (boolean match : dictionaryMatches) {
+          dictionaryHasMatch |= match;
+        }
+      }
+    }
+  }
+
+  FieldVector getVector() {
+    return vector;
+  }
+
+  long getPagesSkipped() {
+    return pagesSkipped;
+  }
+
+  /**
+   * Skip rows without decoding their values.
+   */
+  void skip(int rows) throws IOException {
+    while (rows > 0) {
+      nextPageIfNeeded();
+      if (!pageInitialized && rows >= pageRemaining) {
+        // the whole page is skipped, no need to decode it.
+        if (!pageRejected) {
+          pagesSkipped++;
+        }
+        rows -= pageRemaining;
+        pageRemaining = 0;
+        continue;
+      }
+
+      final int n = Math.min(rows, pageRemaining);
+      if (!pageRejected) {
+        initPage();
+        for (int i = 0; i < n; i++) {
+          if (isDefined()) {
+            skipValue();
+          }
+        }
+      }
+      pageRemaining -= n;
+      rows -= n;
+    }
+  }
+
+  /**
+   * Read consecutive rows into the vector.
+   * @param rows number of rows to read.
+   * @param outIndex index in the vector of the first row.
+   */
+  void read(int rows, int outIndex) throws IOException {
+    while (rows > 0) {
+      nextPageIfNeeded();
+      initPage();
+      final int n = Math.min(rows, pageRemaining);
+      for (int i = 0; i < n; i++, outIndex++) {
+        if (isDefined()) {
+          readValue(outIndex);
+        } else {
+          setNull(outIndex);
+        }
+      }
+      pageRemaining -= n;
+      rows -= n;
+    }
+  }
+
+  /**
+   * Evaluate the predicate on consecutive rows. The values of the matching rows are written to the vector, one after
+   * the other, starting at the given index.
+   * @param rows number of rows to evaluate.
+   * @param matches filled with whether each row matches.
+   * @param outIndex index in the vector of the first matching row.
+   * @return number of matching rows.
+   */
+  int filter(int rows, boolean[] matches, int outIndex) throws IOException {
+    int pos = 0;
+    int matched = 0;
+    while (pos < rows) {
+      nextPageIfNeeded();
+      if (!pageInitialized && !pageRejected) {
+        if (!predicate.canMatch(page.getStatistics(), page.getValueCount())) {
+          reject();
+        } else {
+          initPage();
+          if (dictionaryIds != null && !dictionaryHasMatch) {
+            reject();
+          }
+        }
+      }
+
+      final int n = Math.min(rows - pos, pageRemaining);
+      if (pageRejected) {
+        Arrays.fill(matches, pos, pos + n, false);
+      } else {
+        for (int i = pos; i < pos + n; i++) {
+          final boolean match = isDefined() && evaluate(outIndex + matched);
+          matches[i] = match;
+          if (match) {
+            matched++;
+          }
+        }
+      }
+      pageRemaining -= n;
+      pos += n;
+    }
+    return matched;
+  }
+
+  private void reject() {
+    pageRejected = true;
+    pagesSkipped++;
+  }
+
+  private void nextPageIfNeeded() throws IOException {
+    if (pageRemaining > 0) {
+      return;
+    }
+    page = pageReader.readPage();
+    if (page == null) {
+      throw new IOException(String.format("Unexpected end of column chunk %s.", Arrays.toString(descriptor.getPath())));
+    }
+    pageRemaining = page.getValueCount();
+    pageInitialized = false;
+    pageRejected = false;
+    definitionLevels = null;
+    values = null;
+    dictionaryIds = null;
+  }
+
+  private void initPage() throws IOException {
+    if (pageInitialized) {
+      return;
+    }
+    pageInitialized = true;
+    final int valueCount = page.getValueCount();
+    if (page instanceof DataPageV1) {
+      final DataPageV1 v1 = (DataPageV1) page;
+      final ByteBuffer bytes = v1.getBytes().toByteBuffer();
+      int offset = 0;
+      // flat columns have no repetition levels
+      if (maxDefinitionLevel > 0) {
+        definitionLevels = v1.getDlEncoding().getValuesReader(descriptor, ValuesType.DEFINITION_LEVEL);
+        definitionLevels.initFromPage(valueCount, bytes, offset);
+        offset = definitionLevels.getNextOffset();
+      }
+      initValues(v1.getValueEncoding(), valueCount, bytes, offset);
+    } else {
+      final DataPageV2 v2 = (DataPageV2) page;
+      if (maxDefinitionLevel > 0) {
+        // v2 levels are not prefixed by their length, add it so the regular values reader can be used.
+        final byte[] levels = v2.getDefinitionLevels().toByteArray();
+        final ByteBuffer prefixed = ByteBuffer.allocate(levels.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        prefixed.putInt(levels.length).put(levels).flip();
+        definitionLevels = new RunLengthBitPackingHybridValuesReader(BytesUtils.getWidthFromMaxInt(maxDefinitionLevel));
+        definitionLevels.initFromPage(valueCount, prefixed, 0);
+      }
+      initValues(v2.getDataEncoding(), valueCount, v2.getData().toByteBuffer(), 0);
+    }
+  }
+
+  private void initValues(Encoding encoding, int valueCount, ByteBuffer bytes, int offset) throws IOException {
+    if (encoding.usesDictionary()) {
+      if (dictionary == null) {
+        throw new IOException(String.format("Missing dictionary for dictionary encoded column %s.",
+            Arrays.toString(descriptor.getPath())));
+      }
+      dictionaryIds = new DictionaryValuesReader(dictionary);
+      dictionaryIds.initFromPage(valueCount, bytes, offset);
+    } else {
+      values = encoding.getValuesReader(descriptor, ValuesType.VALUES);
+      values.initFromPage(valueCount, bytes, offset);
+    }
+  }
+
+  private boolean isDefined() {
+    return definitionLevels == null || definitionLevels.readInteger() == maxDefinitionLevel;
+  }
+
+  private void skipValue() {
+    if (dictionaryIds != null) {
+      dictionaryIds.readValueDictionaryId();
+    } else {
+      values.skip();
+    }
+  }
+
+  private void readValue(int index) {
+    if (dictionaryIds != null) {
+      writeDictionaryValue(index, dictionaryIds.readValueDictionaryId());
+      return;
+    }
+
+    switch (type) {
+    case BIT:
+      ((NullableBitVector) vector).setSafe(index, values.readBoolean() ? 1 : 0);
+      break;
+    case INT:
+      ((NullableIntVector) vector).setSafe(index, values.readInteger());
+      break;
+    case BIGINT:
+      ((NullableBigIntVector) vector).setSafe(index, values.readLong());
+      break;
+    case TIMESTAMP:
+      ((NullableTimeStampMilliVector) vector).setSafe(index, values.readLong());
+      break;
+    case FLOAT:
+      ((NullableFloat4Vector) vector).setSafe(index, values.readFloat());
+      break;
+    case DOUBLE:
+      ((NullableFloat8Vector) vector).setSafe(index, values.readDouble());
+      break;
+    default:
+      writeBinary(index, values.readBytes());
+      break;
+    }
+  }
+
+  /**
+   * Evaluate the predicate on the next value, writing it to the vector if it matches.
+   */
+  private boolean evaluate(int index) {
+    if (dictionaryIds != null) {
+      final int id = dictionaryIds.readValueDictionaryId();
+      if (!dictionaryMatches[id]) {
+        return false;
+      }
+      if (vector != null) {
+        writeDictionaryValue(index, id);
+      }
+      return true;
+    }
+
+    switch (type) {
+    case BIT: {
+      final boolean value = values.readBoolean();
+      if (!predicate.test(value)) {
+        return false;
+      }
+      if (vector != null) {
+        ((NullableBitVector) vector).setSafe(index, value ? 1 : 0);
+      }
+      return true;
+    }
+    case INT: {
+      final int value = values.readInteger();
+      if (!predicate.test(value)) {
+        return false;
+      }
+      if (vector != null) {
+        ((NullableIntVector) vector).setSafe(index, value);
+      }
+      return true;
+    }
+    case BIGINT:
+    case TIMESTAMP: {
+      final long value = values.readLong();
+      if (!predicate.test(value)) {
+        return false;
+      }
+      if (vector != null) {
+        if (type == ColumnType.BIGINT) {
+          ((NullableBigIntVector) vector).setSafe(index, value);
+        } else {
+          ((NullableTimeStampMilliVector) vector).setSafe(index, value);
+        }
+      }
+      return true;
+    }
+    case FLOAT: {
+      final float value = values.readFloat();
+      if (!predicate.test(value)) {
+        return false;
+      }
+      if (vector != null) {
+        ((NullableFloat4Vector) vector).setSafe(index, value);
+      }
+      return true;
+    }
+    case DOUBLE: {
+      final double value = values.readDouble();
+      if (!predicate.test(value)) {
+        return false;
+      }
+      if (vector != null) {
+        ((NullableFloat8Vector) vector).setSafe(index, value);
+      }
+      return true;
+    }
+    default: {
+      final Binary value = values.readBytes();
+      if (!predicate.test(value.toByteBuffer())) {
+        return false;
+      }
+      if (vector != null) {
+        writeBinary(index, value);
+      }
+      return true;
+    }
+    }
+  }
+
+  private void writeDictionaryValue(int index, int id) {
+    switch (type) {
+    case BIT:
+      ((NullableBitVector) vector).setSafe(index, dictionary.decodeToBoolean(id) ? 1 : 0);
+      break;
+    case INT:
+      ((NullableIntVector) vector).setSafe(index, dictionary.decodeToInt(id));
+      break;
+    case BIGINT:
+      ((NullableBigIntVector) vector).setSafe(index, dictionary.decodeToLong(id));
+      break;
+    case TIMESTAMP:
+      ((NullableTimeStampMilliVector) vector).setSafe(index, dictionary.decodeToLong(id));
+      break;
+    case FLOAT:
+      ((NullableFloat4Vector) vector).setSafe(index, dictionary.decodeToFloat(id));
+      break;
+    case DOUBLE:
+      ((NullableFloat8Vector) vector).setSafe(index, dictionary.decodeToDouble(id));
+      break;
+    default:
+      writeBinary(index, dictionary.decodeToBinary(id));
+      break;
+    }
+  }
+
+  private void writeBinary(int index, Binary value) {
+    final ByteBuffer buffer = value.toByteBuffer();
+    if (type == ColumnType.VARCHAR) {
+      ((NullableVarCharVector) vector).setSafe(index, buffer, buffer.position(), buffer.remaining());
+    } else {
+      ((NullableVarBinaryVector) vector).setSafe(index, buffer, buffer.position(), buffer.remaining());
+    }
+  }
+
+  private void setNull(int index) {
+    switch (type) {
+    case BIT:
+      ((NullableBitVector) vector).setNull(index);
+      break;
+    case INT:
+      ((NullableIntVector) vector).setNull(index);
+      break;
+    case BIGINT:
+      ((NullableBigIntVector) vector).setNull(index);
+      break;
+    case TIMESTAMP:
+      ((NullableTimeStampMilliVector) vector).setNull(index);
+      break;
+    case FLOAT:
+      ((NullableFloat4Vector) vector).setNull(index);
+      break;
+    case DOUBLE:
+      ((NullableFloat8Vector) vector).setNull(index);
+      break;
+    case VARCHAR:
+      ((NullableVarCharVector) vector).setNull(index);
+      break;
+    default:
+      ((NullableVarBinaryVector) vector).setNull(index);
+      break;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import com.dremio.common.expression.CompleteType;
+
+/**
+ * Parquet column types the vectorized reader decodes, with the type of the arrow vector they are decoded into.
+ */
+enum ColumnType {
+  BIT(CompleteType.BIT),
+  INT(CompleteType.INT),
+  BIGINT(CompleteType.BIGINT),
+  TIMESTAMP(CompleteType.TIMESTAMP),
+  FLOAT(CompleteType.FLOAT),
+  DOUBLE(CompleteType.DOUBLE),
+  VARCHAR(CompleteType.VARCHAR),
+  VARBINARY(CompleteType.VARBINARY);
+
+  private final CompleteType type;
+
+  ColumnType(CompleteType type) {
+    this.type = type;
+  }
+
+  public CompleteType getType() {
+    return type;
+  }
+
+  /**
+   * Get the type a parquet column is decoded as, using the same mapping as the other parquet readers.
+   * @param type parquet type of the column.
+   * @return the column type, or null if the column can't be decoded by the vectorized reader.
+   */
+  public static ColumnType of(PrimitiveType type) {
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+    case BOOLEAN:
+      return originalType == null ? BIT : null;
+    case INT32:
+      return originalType == null ? INT : null;
+    case INT64:
+      if (originalType == null) {
+        return BIGINT;
+      }
+      return originalType == OriginalType.TIMESTAMP_MILLIS ? TIMESTAMP : null;
+    case FLOAT:
+      return originalType == null ? FLOAT : null;
+    case DOUBLE:
+      return originalType == null ? DOUBLE : null;
+    case BINARY:
+      if (originalType == null) {
+        return VARBINARY;
+      }
+      switch (originalType) {
+      case UTF8:
+        return VARCHAR;
+      case ENUM:
+      case JSON:
+      case BSON:
+        return VARBINARY;
+      default:
+        return null;
+      }
+    default:
+      return null;
+    }
+  }
+}
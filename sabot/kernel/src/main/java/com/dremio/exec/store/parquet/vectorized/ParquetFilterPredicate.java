@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.statistics.BooleanStatistics;
+import org.apache.parquet.column.statistics.DoubleStatistics;
+import org.apache.parquet.column.statistics.FloatStatistics;
+import org.apache.parquet.column.statistics.IntStatistics;
+import org.apache.parquet.column.statistics.LongStatistics;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.schema.PrimitiveType;
+
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.FunctionHolderExpression;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions.BooleanExpression;
+import com.dremio.common.expression.ValueExpressions.DoubleExpression;
+import com.dremio.common.expression.ValueExpressions.FloatExpression;
+import com.dremio.common.expression.ValueExpressions.IntExpression;
+import com.dremio.common.expression.ValueExpressions.LongExpression;
+import com.dremio.common.expression.ValueExpressions.QuotedString;
+import com.dremio.common.expression.ValueExpressions.TimeStampExpression;
+import com.google.common.base.Charsets;
+
+/**
+ * A filter condition compiled so it can be evaluated on decoded parquet values, on dictionary entries and on page
+ * statistics. Only conjunctions of comparisons between the filtered column and a literal are supported. Comparisons
+ * follow the semantics of the comparison functions: null values never match and NaN only matches not equal.
+ */
+public class ParquetFilterPredicate {
+
+  // result of comparing a NaN
+  private static final int UNORDERED = 2;
+
+  private final ColumnType columnType;
+  private final Comparison[] comparisons;
+
+  private ParquetFilterPredicate(ColumnType columnType, Comparison[] comparisons) {
+    this.columnType = columnType;
+    this.comparisons = comparisons;
+  }
+
+  /**
+   * Compile a filter expression on a column.
+   * @param expr filter expression of the condition.
+   * @param type parquet type of the filtered column.
+   * @return the compiled predicate, or null if the expression or the column type is not supported.
+   */
+  public static ParquetFilterPredicate compile(LogicalExpression expr, PrimitiveType type) {
+    final ColumnType columnType = ColumnType.of(type);
+    if (expr == null || columnType == null) {
+      return null;
+    }
+    final List<Comparison> comparisons = new ArrayList<>();
+    if (!collect(expr, columnType, comparisons)) {
+      return null;
+    }
+    return new ParquetFilterPredicate(columnType, comparisons.toArray(new Comparison[comparisons.size()]));
+  }
+
+  private static boolean collect(LogicalExpression expr, ColumnType columnType, List<Comparison> comparisons) {
+    final String name;
+    final List<LogicalExpression> args;
+    if (expr instanceof FunctionCall) {
+      name = ((FunctionCall) expr).getName();
+      args = ((FunctionCall) expr).args;
+    } else if (expr instanceof FunctionHolderExpression) {
+      name = ((FunctionHolderExpression) expr).getName();
+      args = ((FunctionHolderExpression) expr).args;
+    } else {
+      return false;
+    }
+
+    switch (name) {
+    case "booleanAnd":
+    case "and":
+    case "&&":
+      for (LogicalExpression arg : args) {
+        if (!collect(arg, columnType, comparisons)) {
+          return false;
+        }
+      }
+      return true;
+    default:
+      break;
+    }
+
+    Op op = Op.of(name);
+    if (op == null || args.size() != 2) {
+      return false;
+    }
+    final LogicalExpression literal;
+    if (args.get(0) instanceof SchemaPath) {
+      literal = args.get(1);
+    } else if (args.get(1) instanceof SchemaPath) {
+      // literal on the left side, turn "5 < a" into "a > 5"
+      literal = args.get(0);
+      op = op.flip();
+    } else {
+      return false;
+    }
+
+    final Comparison comparison = Comparison.of(op, literal, columnType);
+    if (comparison == null) {
+      return false;
+    }
+    comparisons.add(comparison);
+    return true;
+  }
+
+  public boolean test(boolean value) {
+    return test(value ? 1L : 0L);
+  }
+
+  public boolean test(long value) {
+    for (Comparison c : comparisons) {
+      final int cmp = c.integral ? Long.compare(value, c.longValue) : compare((double) value, c.doubleValue);
+      if (!c.op.accept(cmp)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean test(double value) {
+    for (Comparison c : comparisons) {
+      if (!c.op.accept(compare(value, c.integral ? (double) c.longValue : c.doubleValue))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Test a binary value, made of the remaining bytes of the given buffer.
+   */
+  public boolean test(ByteBuffer value) {
+    for (Comparison c : comparisons) {
+      if (!c.op.accept(compare(value, c.bytes))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Evaluate the predicate on each entry of a dictionary, so dictionary encoded values can be filtered on their id.
+   * @param dictionary dictionary of the column.
+   * @return for each dictionary id whether its value matches.
+   */
+  public boolean[] matches(Dictionary dictionary) {
+    final boolean[] matches = new boolean[dictionary.getMaxId() + 1];
+    for (int id = 0; id < matches.length; id++) {
+      switch (columnType) {
+      case BIT:
+        matches[id] = test(dictionary.decodeToBoolean(id));
+        break;
+      case INT:
+        matches[id] = test(dictionary.decodeToInt(id));
+        break;
+      case BIGINT:
+      case TIMESTAMP:
+        matches[id] = test(dictionary.decodeToLong(id));
+        break;
+      case FLOAT:
+        matches[id] = test(dictionary.decodeToFloat(id));
+        break;
+      case DOUBLE:
+        matches[id] = test(dictionary.decodeToDouble(id));
+        break;
+      case VARCHAR:
+      case VARBINARY:
+        matches[id] = test(dictionary.decodeToBinary(id).toByteBuffer());
+        break;
+      default:
+        throw new IllegalStateException("Unexpected column type " + columnType);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Check the statistics of a page or a column chunk to find out if any of its values could match. Only the
+   * statistics of numeric and boolean columns are used, as binary statistics of older writers are not reliable.
+   * @param statistics statistics of the values, may be null.
+   * @param valueCount number of values, including nulls.
+   * @return false if no value can match.
+   */
+  public boolean canMatch(Statistics<?> statistics, long valueCount) {
+    if (statistics == null) {
+      return true;
+    }
+    if (valueCount > 0 && statistics.getNumNulls() >= valueCount) {
+      // only nulls
+      return false;
+    }
+    if (!statistics.hasNonNullValue()) {
+      return true;
+    }
+
+    if (statistics instanceof IntStatistics) {
+      final IntStatistics stats = (IntStatistics) statistics;
+      return canMatch(stats.getMin(), stats.getMax());
+    } else if (statistics instanceof LongStatistics) {
+      final LongStatistics stats = (LongStatistics) statistics;
+      return canMatch(stats.getMin(), stats.getMax());
+    } else if (statistics instanceof BooleanStatistics) {
+      final BooleanStatistics stats = (BooleanStatistics) statistics;
+      return canMatch(stats.getMin() ? 1L : 0L, stats.getMax() ? 1L : 0L);
+    } else if (statistics instanceof FloatStatistics) {
+      final FloatStatistics stats = (FloatStatistics) statistics;
+      return canMatch((double) stats.getMin(), (double) stats.getMax());
+    } else if (statistics instanceof DoubleStatistics) {
+      final DoubleStatistics stats = (DoubleStatistics) statistics;
+      return canMatch(stats.getMin(), stats.getMax());
+    }
+    return true;
+  }
+
+  private boolean canMatch(long min, long max) {
+    for (Comparison c : comparisons) {
+      final boolean mayMatch;
+      if (c.integral) {
+        mayMatch = c.op.mayMatch(Long.compare(min, c.longValue), Long.compare(max, c.longValue));
+      } else {
+        mayMatch = c.op.mayMatch(compare((double) min, c.doubleValue), compare((double) max, c.doubleValue));
+      }
+      if (!mayMatch) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean canMatch(double min, double max) {
+    for (Comparison c : comparisons) {
+      final double literal = c.integral ? (double) c.longValue : c.doubleValue;
+      if (!c.op.mayMatch(compare(min, literal), compare(max, literal))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int compare(double left, double right) {
+    if (left < right) {
+      return -1;
+    }
+    if (left > right) {
+      return 1;
+    }
+    return left == right ? 0 : UNORDERED;
+  }
+
+  // unsigned byte wise comparison, same as the comparison of varchar and varbinary values
+  private static int compare(ByteBuffer left, byte[] right) {
+    final int start = left.position();
+    final int length = left.remaining();
+    final int n = Math.min(length, right.length);
+    for (int i = 0; i < n; i++) {
+      final int l = left.get(start + i) & 0xFF;
+      final int r = right[i] & 0xFF;
+      if (l != r) {
+        return l < r ? -1 : 1;
+      }
+    }
+    return length == right.length ? 0 : (length < right.length ? -1 : 1);
+  }
+
+  private enum Op {
+    LT, LE, GT, GE, EQ, NE;
+
+    static Op of(String name) {
+      switch (name) {
+      case "less_than":
+      case "<":
+        return LT;
+      case "less_than_or_equal_to":
+      case "<=":
+        return LE;
+      case "greater_than":
+      case ">":
+        return GT;
+      case "greater_than_or_equal_to":
+      case ">=":
+        return GE;
+      case "equal":
+      case "=":
+      case "==":
+        return EQ;
+      case "not_equal":
+      case "<>":
+      case "!=":
+        return NE;
+      default:
+        return null;
+      }
+    }
+
+    Op flip() {
+      switch (this) {
+      case LT:
+        return GT;
+      case LE:
+        return GE;
+      case GT:
+        return LT;
+      case GE:
+        return LE;
+      default:
+        return this;
+      }
+    }
+
+    boolean accept(int cmp) {
+      if (cmp == UNORDERED) {
+        return this == NE;
+      }
+      switch (this) {
+      case LT:
+        return cmp < 0;
+      case LE:
+        return cmp <= 0;
+      case GT:
+        return cmp > 0;
+      case GE:
+        return cmp >= 0;
+      case EQ:
+        return cmp == 0;
+      default:
+        return cmp != 0;
+      }
+    }
+
+    /**
+     * Whether a value between min and max could match, given how min and max compare to the literal.
+     */
+    boolean mayMatch(int cmpMin, int cmpMax) {
+      if (cmpMin == UNORDERED || cmpMax == UNORDERED) {
+        return true;
+      }
+      switch (this) {
+      case LT:
+        return cmpMin < 0;
+      case LE:
+        return cmpMin <= 0;
+      case GT:
+        return cmpMax > 0;
+      case GE:
+        return cmpMax >= 0;
+      case EQ:
+        return cmpMin <= 0 && cmpMax >= 0;
+      default:
+        return cmpMin != 0 || cmpMax != 0;
+      }
+    }
+  }
+
+  private static final class Comparison {
+    private final Op op;
+    private final boolean integral;
+    private final long longValue;
+    private final double doubleValue;
+    private final byte[] bytes;
+
+    private Comparison(Op op, boolean integral, long longValue, double doubleValue, byte[] bytes) {
+      this.op = op;
+      this.integral = integral;
+      this.longValue = longValue;
+      this.doubleValue = doubleValue;
+      this.bytes = bytes;
+    }
+
+    private static Comparison of(Op op, LogicalExpression literal, ColumnType columnType) {
+      switch (columnType) {
+      case BIT:
+        if (literal instanceof BooleanExpression) {
+          return new Comparison(op, true, ((BooleanExpression) literal).getBoolean() ? 1L : 0L, 0, null);
+        }
+        return null;
+      case INT:
+      case BIGINT:
+      case FLOAT:
+      case DOUBLE:
+        if (literal instanceof IntExpression) {
+          return new Comparison(op, true, ((IntExpression) literal).getInt(), 0, null);
+        } else if (literal instanceof LongExpression) {
+          return new Comparison(op, true, ((LongExpression) literal).getLong(), 0, null);
+        } else if (literal instanceof FloatExpression) {
+          return new Comparison(op, false, 0, ((FloatExpression) literal).getFloat(), null);
+        } else if (literal instanceof DoubleExpression) {
+          return new Comparison(op, false, 0, ((DoubleExpression) literal).getDouble(), null);
+        }
+        return null;
+      case TIMESTAMP:
+        if (literal instanceof TimeStampExpression) {
+          return new Comparison(op, true, ((TimeStampExpression) literal).getTimeStamp(), 0, null);
+        }
+        return null;
+      case VARCHAR:
+      case VARBINARY:
+        if (literal instanceof QuotedString) {
+          return new Comparison(op, false, 0, 0, ((QuotedString) literal).getString().getBytes(Charsets.UTF_8));
+        }
+        return null;
+      default:
+        return null;
+      }
+    }
+  }
+}
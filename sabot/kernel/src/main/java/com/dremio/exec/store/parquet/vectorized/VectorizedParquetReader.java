@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.store.parquet.AbstractParquetReader;
+import com.dremio.exec.store.parquet.FilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderUtility;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.base.Preconditions;
+
+/**
+ * Reads flat columns of a parquet row group by decoding pages straight into arrow vectors.
+ *
+ * When a filter condition is pushed into the scan, it is evaluated while the filtered column is decoded and only the
+ * matching rows are written out. Other columns skip the values of the filtered out rows, and pages with no matching
+ * rows are not decoded. The number of rows skipped before each output row is recorded in the deltas vector, so the
+ * row wise reader reading the remaining columns of the row group can skip the same rows.
+ */
+public class VectorizedParquetReader extends AbstractParquetReader {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedParquetReader.class);
+
+  private final FileSystem fs;
+  private final String path;
+  private final CodecFactory codecFactory;
+  private final ParquetMetadata footer;
+  private final int rowGroupIndex;
+  private final FilterCondition condition;
+  private final boolean useSingleStream;
+
+  private final List<ColumnDecoder> decoders = new ArrayList<>();
+  private ColumnDecoder filterDecoder;
+  private ColumnChunkIncReadStore pageReadStore;
+  private long remainingRows;
+  private int pendingSkip;
+  private boolean[] matches;
+
+  public VectorizedParquetReader(OperatorContext context, List<SchemaPath> columns, FileSystem fs, String path,
+      CodecFactory codecFactory, FilterCondition condition, ParquetMetadata footer, int rowGroupIndex,
+      SimpleIntVector deltas, boolean useSingleStream) {
+    super(context, columns, deltas);
+    this.fs = fs;
+    this.path = path;
+    this.codecFactory = codecFactory;
+    this.footer = footer;
+    this.rowGroupIndex = rowGroupIndex;
+    this.condition = condition;
+    this.useSingleStream = useSingleStream;
+  }
+
+  @Override
+  public void setup(OutputMutator output) throws ExecutionSetupException {
+    final BlockMetaData block = footer.getBlocks().get(rowGroupIndex);
+    final MessageType schema = footer.getFileMetaData().getSchema();
+    final Map<String, ColumnChunkMetaData> chunks = new HashMap<>();
+    for (ColumnChunkMetaData chunk : block.getColumns()) {
+      chunks.put(chunk.getPath().iterator().next().toLowerCase(), chunk);
+    }
+
+    remainingRows = block.getRowCount();
+    final String filterColumn = condition == null ? null
+        : condition.getPath().getRootSegment().getNameSegment().getPath().toLowerCase();
+
+    try {
+      final Set<ColumnChunkMetaData> readChunks = new LinkedHashSet<>();
+      for (SchemaPath column : getColumns()) {
+        final ColumnChunkMetaData chunk = chunks.get(column.getRootSegment().getNameSegment().getPath().toLowerCase());
+        if (chunk != null) {
+          readChunks.add(chunk);
+        }
+      }
+      if (filterColumn != null && chunks.containsKey(filterColumn)) {
+        readChunks.add(chunks.get(filterColumn));
+      }
+      pageReadStore = new ColumnChunkIncReadStore(block.getRowCount(), codecFactory, context.getAllocator(), fs,
+          new Path(path), useSingleStream, ParquetReaderUtility.fetchColumnChunks(context, fs, new Path(path), readChunks));
+
+      for (SchemaPath column : getColumns()) {
+        final String name = column.getRootSegment().getNameSegment().getPath();
+        final ColumnChunkMetaData chunk = chunks.get(name.toLowerCase());
+        Preconditions.checkArgument(chunk != null, "Column %s not found in row group", name);
+        final ColumnDescriptor descriptor = schema.getColumnDescription(chunk.getPath().toArray());
+        final ColumnType type = ColumnType.of(schema.getType(chunk.getPath().toArray()).asPrimitiveType());
+        Preconditions.checkArgument(type != null, "Column %s can't be decoded by the vectorized reader", name);
+
+        final FieldVector vector = output.addField(type.getType().toField(name), type.getType().getValueVectorClass());
+        pageReadStore.addColumn(descriptor, chunk);
+        if (name.equalsIgnoreCase(filterColumn)) {
+          filterDecoder = newFilterDecoder(schema, descriptor, type, vector);
+        } else {
+          decoders.add(new ColumnDecoder(descriptor, pageReadStore.getPageReader(descriptor), type, vector, null));
+        }
+      }
+
+      if (condition != null && filterDecoder == null) {
+        final ColumnChunkMetaData chunk = chunks.get(filterColumn);
+        if (chunk == null) {
+          // the filtered column is missing from the file, comparisons with nulls never match.
+          remainingRows = 0;
+        } else {
+          final ColumnDescriptor descriptor = schema.getColumnDescription(chunk.getPath().toArray());
+          final ColumnType type = ColumnType.of(schema.getType(chunk.getPath().toArray()).asPrimitiveType());
+          pageReadStore.addColumn(descriptor, chunk);
+          filterDecoder = newFilterDecoder(schema, descriptor, type, null);
+        }
+      }
+    } catch (IOException e) {
+      throw new ExecutionSetupException("Failure while setting up vectorized parquet reader for file " + path, e);
+    }
+
+    if (filterDecoder != null) {
+      matches = new boolean[(int) numRowsPerBatch];
+    }
+    if (deltas != null) {
+      deltas.allocateNew((int) numRowsPerBatch);
+    }
+  }
+
+  private ColumnDecoder newFilterDecoder(MessageType schema, ColumnDescriptor descriptor, ColumnType type,
+      FieldVector vector) throws IOException {
+    final PrimitiveType primitiveType = schema.getType(descriptor.getPath()).asPrimitiveType();
+    final ParquetFilterPredicate predicate = ParquetFilterPredicate.compile(condition.getExpr(), primitiveType);
+    Preconditions.checkArgument(predicate != null, "Unsupported filter condition %s", condition);
+    return new ColumnDecoder(descriptor, pageReadStore.getPageReader(descriptor), type, vector, predicate);
+  }
+
+  @Override
+  public int next() {
+    int count = 0;
+    try {
+      // keep reading until the batch is full, as returning no rows would end the scan.
+      while (count < numRowsPerBatch && remainingRows > 0) {
+        final int window = (int) Math.min(numRowsPerBatch - count, remainingRows);
+        if (filterDecoder == null) {
+          for (ColumnDecoder decoder : decoders) {
+            decoder.read(window, count);
+          }
+          count += window;
+        } else {
+          final int matched = filterDecoder.filter(window, matches, count);
+          if (matched == 0) {
+            for (ColumnDecoder decoder : decoders) {
+              decoder.skip(window);
+            }
+            pendingSkip += window;
+          } else {
+            readMatches(window, count);
+          }
+          count += matched;
+        }
+        remainingRows -= window;
+      }
+
+      for (ColumnDecoder decoder : decoders) {
+        decoder.getVector().setValueCount(count);
+      }
+      if (filterDecoder != null && filterDecoder.getVector() != null) {
+        filterDecoder.getVector().setValueCount(count);
+      }
+      if (deltas != null) {
+        deltas.setValueCount(count);
+      }
+      return count;
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+          .message("Failed to read data from parquet file")
+          .addContext("File path", path)
+          .addContext("Rowgroup index", rowGroupIndex)
+          .build(logger);
+    }
+  }
+
+  /**
+   * Read the rows of the window that matched the filter, in runs of consecutive matching or skipped rows.
+   */
+  private void readMatches(int window, int outIndex) throws IOException {
+    int out = outIndex;
+    int start = 0;
+    while (start < window) {
+      final boolean match = matches[start];
+      int end = start + 1;
+      while (end < window && matches[end] == match) {
+        end++;
+      }
+      final int length = end - start;
+      if (match) {
+        for (ColumnDecoder decoder : decoders) {
+          decoder.read(length, out);
+        }
+        if (deltas != null) {
+          deltas.setSafe(out, pendingSkip);
+          for (int i = 1; i < length; i++) {
+            deltas.setSafe(out + i, 0);
+          }
+        }
+        pendingSkip = 0;
+        out += length;
+      } else {
+        for (ColumnDecoder decoder : decoders) {
+          decoder.skip(length);
+        }
+        pendingSkip += length;
+      }
+      start = end;
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    try {
+      if (filterDecoder != null) {
+        long pagesSkipped = filterDecoder.getPagesSkipped();
+        for (ColumnDecoder decoder : decoders) {
+          pagesSkipped += decoder.getPagesSkipped();
+        }
+        context.getStats().addLongStat(Metric.PARQUET_PAGES_SKIPPED, pagesSkipped);
+      }
+      if (pageReadStore != null) {
+        pageReadStore.close();
+        pageReadStore = null;
+      }
+    } finally {
+      if (deltas != null) {
+        deltas.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import java.util.List;
+
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.exec.store.parquet.FilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.google.common.base.Preconditions;
+
+/**
+ * Creates {@link VectorizedParquetReader}s for flat boolean, integer, floating point, timestamp and binary columns
+ * that are plain or dictionary encoded.
+ */
+public class VectorizedParquetReaderFactory implements ParquetReaderFactory {
+
+  @Override
+  public boolean isSupported(ColumnChunkMetaData chunk) {
+    if (chunk.getPath().size() != 1) {
+      return false;
+    }
+    switch (chunk.getType()) {
+    case BOOLEAN:
+    case INT32:
+    case INT64:
+    case FLOAT:
+    case DOUBLE:
+    case BINARY:
+      break;
+    default:
+      return false;
+    }
+    for (Encoding encoding : chunk.getEncodings()) {
+      switch (encoding) {
+      case PLAIN:
+      case RLE:
+      case BIT_PACKED:
+        break;
+      default:
+        if (!encoding.usesDictionary()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isSupported(PrimitiveType type) {
+    return type.getRepetition() != Type.Repetition.REPEATED && ColumnType.of(type) != null;
+  }
+
+  @Override
+  public boolean isSupported(FilterCondition condition, PrimitiveType type) {
+    return ParquetFilterPredicate.compile(condition.getExpr(), type) != null;
+  }
+
+  @Override
+  public RecordReader newReader(OperatorContext context, List<SchemaPath> columns, FileSystem fs, String path,
+      CodecFactory codecFactory, List<FilterCondition> conditions, DateCorruptionStatus corruptionStatus,
+      boolean readInt96AsTimeStamp, boolean enableDetailedTracing, ParquetMetadata footer, int rowGroupIndex,
+      SimpleIntVector deltas, boolean useSingleStream) {
+    Preconditions.checkArgument(conditions == null || conditions.size() <= 1,
+        "we only support a single filterCondition per rowGroupScan for now");
+    final FilterCondition condition = conditions == null || conditions.isEmpty() ? null : conditions.get(0);
+    return new VectorizedParquetReader(context, columns, fs, path, codecFactory, condition, footer, rowGroupIndex,
+        deltas, useSingleStream);
+  }
+}
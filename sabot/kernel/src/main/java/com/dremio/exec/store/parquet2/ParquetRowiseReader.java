@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -269,10 +270,19 @@ public class ParquetRowiseReader extends AbstractParquetReader {
       boolean schemaOnly = operatorContext == null;
 
       if (!schemaOnly) {
+        // only the projected column chunks are fetched upfront.
+        final List<ColumnChunkMetaData> projectedChunks = new ArrayList<>();
+        for (String[] path : noColumnsFound ? Collections.<String[]>emptyList() : projection.getPaths()) {
+          ColumnChunkMetaData md = paths.get(ColumnPath.get(path));
+          if (md != null) {
+            projectedChunks.add(md);
+          }
+        }
         pageReadStore = new ColumnChunkIncReadStore(recordCount,
                 CodecFactory.createDirectCodecFactory(fileSystem.getConf(),
                         new ParquetDirectByteBufferAllocator(operatorContext.getAllocator()), 0), operatorContext.getAllocator(),
-                fileSystem, filePath, useSingleStream);
+                fileSystem, filePath, useSingleStream,
+                ParquetReaderUtility.fetchColumnChunks(operatorContext, fileSystem, filePath, projectedChunks));
 
         for (String[] path : schema.getPaths()) {
           Type type = schema.getType(path);
@@ -36,6 +36,6 @@ public class SystemTableScanCreator implements ProducerOperator.Creator<SystemSu
     final SystemTable table = config.getTable();
     final SystemStoragePlugin plugin2 = fec.getStoragePlugin(SystemStoragePlugin.ID);
     final RecordReader reader = new PojoRecordReader(table.getPojoClass(), table.getIterator(plugin2.getSabotContext(), context), config.getColumns());
-    return new ScanOperator(fec.getSchemaUpdater(), config, context, Collections.singleton(reader).iterator());
+    return new ScanOperator(fec, config, context, Collections.singleton(reader).iterator());
   }
 }
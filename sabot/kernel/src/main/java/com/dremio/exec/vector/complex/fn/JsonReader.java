@@ -18,12 +18,18 @@ package com.dremio.exec.vector.complex.fn;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.arrow.vector.complex.writer.BaseWriter;
 import org.apache.arrow.vector.complex.writer.BaseWriter.ComplexWriter;
 import org.apache.arrow.vector.complex.writer.BaseWriter.ListWriter;
 import org.apache.arrow.vector.complex.writer.BaseWriter.MapWriter;
+import org.apache.arrow.vector.complex.writer.BigIntWriter;
+import org.apache.arrow.vector.complex.writer.BitWriter;
+import org.apache.arrow.vector.complex.writer.Float8Writer;
+import org.apache.arrow.vector.complex.writer.VarCharWriter;
 
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.PathSegment;
@@ -71,6 +77,14 @@ public class JsonReader extends BaseJsonProcessor {
 
   private FieldSelection selection;
 
+  /**
+   * Writers of the top level fields, by field name as found in the data. They are kept across records and batches so
+   * the fields already seen are not looked up again in the root map writer for every value. Only the top level is
+   * cached: the writers of nested fields may be replaced when their parent is promoted to a union.
+   */
+  private final Map<String, FieldWriters> rootFieldWriters = new HashMap<>();
+  private MapWriter rootWriter;
+
   public JsonReader(ArrowBuf managedBuf, boolean allTextMode, boolean skipOuterList, boolean readNumbersAsDouble) {
     this(managedBuf, GroupScan.ALL_COLUMNS, allTextMode, skipOuterList, readNumbersAsDouble);
   }
@@ -285,10 +299,14 @@ public class JsonReader extends BaseJsonProcessor {
   }
 
   private void writeDataSwitch(MapWriter w) throws IOException {
+    if (w != rootWriter) {
+      rootFieldWriters.clear();
+      rootWriter = w;
+    }
     if (this.allTextMode) {
-      writeDataAllText(w, this.selection, true);
+      writeDataAllText(w, this.selection, true, rootFieldWriters);
     } else {
-      writeData(w, this.selection, true);
+      writeData(w, this.selection, true, rootFieldWriters);
     }
   }
 
@@ -320,9 +338,12 @@ public class JsonReader extends BaseJsonProcessor {
    * @param moveForward
    *          Whether or not we should start with using the current token or the next token. If moveForward = true, we
    *          should start with the next token and ignore the current one.
+   * @param fieldWriters
+   *          Cache of the writers of the map fields, or null if the writers should be looked up in the map writer.
    * @throws IOException
    */
-  private void writeData(MapWriter map, FieldSelection selection, boolean moveForward) throws IOException {
+  private void writeData(MapWriter map, FieldSelection selection, boolean moveForward,
+      Map<String, FieldWriters> fieldWriters) throws IOException {
     //
     map.start();
     try {
@@ -351,41 +372,42 @@ public class JsonReader extends BaseJsonProcessor {
           continue outside;
         }
 
+        final FieldWriters writers = getFieldWriters(fieldWriters, fieldName);
         switch (parser.nextToken()) {
         case START_ARRAY:
-          writeData(map.list(fieldName), childSelection);
+          writeData(list(map, fieldName, writers), childSelection);
           break;
         case START_OBJECT:
           if (!writeMapDataIfTyped(map, fieldName)) {
-            writeData(map.map(fieldName), childSelection, false);
+            writeData(map(map, fieldName, writers), childSelection, false, null);
           }
           break;
         case END_OBJECT:
           break outside;
 
         case VALUE_FALSE: {
-          map.bit(fieldName).writeBit(0);
+          bit(map, fieldName, writers).writeBit(0);
           break;
         }
         case VALUE_TRUE: {
-          map.bit(fieldName).writeBit(1);
+          bit(map, fieldName, writers).writeBit(1);
           break;
         }
         case VALUE_NULL:
           // do nothing as we don't have a type.
           break;
         case VALUE_NUMBER_FLOAT:
-          map.float8(fieldName).writeFloat8(parser.getDoubleValue());
+          float8(map, fieldName, writers).writeFloat8(parser.getDoubleValue());
           break;
         case VALUE_NUMBER_INT:
           if (this.readNumbersAsDouble) {
-            map.float8(fieldName).writeFloat8(parser.getDoubleValue());
+            float8(map, fieldName, writers).writeFloat8(parser.getDoubleValue());
           } else {
-            map.bigInt(fieldName).writeBigInt(parser.getLongValue());
+            bigInt(map, fieldName, writers).writeBigInt(parser.getLongValue());
           }
           break;
         case VALUE_STRING:
-          handleString(parser, map, fieldName);
+          handleString(parser, varChar(map, fieldName, writers));
           break;
 
         default:
@@ -403,7 +425,8 @@ public class JsonReader extends BaseJsonProcessor {
 
   }
 
-  private void writeDataAllText(MapWriter map, FieldSelection selection, boolean moveForward) throws IOException {
+  private void writeDataAllText(MapWriter map, FieldSelection selection, boolean moveForward,
+      Map<String, FieldWriters> fieldWriters) throws IOException {
     //
     map.start();
     outside: while (true) {
@@ -432,13 +455,14 @@ public class JsonReader extends BaseJsonProcessor {
         continue outside;
       }
 
+      final FieldWriters writers = getFieldWriters(fieldWriters, fieldName);
       switch (parser.nextToken()) {
       case START_ARRAY:
-        writeDataAllText(map.list(fieldName));
+        writeDataAllText(list(map, fieldName, writers));
         break;
       case START_OBJECT:
         if (!writeMapDataIfTyped(map, fieldName)) {
-          writeDataAllText(map.map(fieldName), childSelection, false);
+          writeDataAllText(map(map, fieldName, writers), childSelection, false, null);
         }
         break;
       case END_OBJECT:
@@ -450,7 +474,7 @@ public class JsonReader extends BaseJsonProcessor {
       case VALUE_NUMBER_FLOAT:
       case VALUE_NUMBER_INT:
       case VALUE_STRING:
-        handleString(parser, map, fieldName);
+        handleString(parser, varChar(map, fieldName, writers));
         break;
       case VALUE_NULL:
         // do nothing as we don't have a type.
@@ -499,16 +523,100 @@ public class JsonReader extends BaseJsonProcessor {
     }
   }
 
-  private void handleString(JsonParser parser, MapWriter writer, String fieldName) throws IOException {
-    final int size = workingBuffer.prepareVarCharHolder(parser.getText());
-    writer.varChar(fieldName).writeVarChar(0, size, workingBuffer.getBuf());
+  private void handleString(JsonParser parser, VarCharWriter writer) throws IOException {
+    final int size;
+    if (parser.hasTextCharacters()) {
+      // encode straight from the parser's buffer, without materializing a string
+      size = workingBuffer.prepareVarCharHolder(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    } else {
+      size = workingBuffer.prepareVarCharHolder(parser.getText());
+    }
+    writer.writeVarChar(0, size, workingBuffer.getBuf());
     dataSizeReadSoFar += size;
   }
 
-  private void handleString(JsonParser parser, ListWriter writer) throws IOException {
-    final int size = workingBuffer.prepareVarCharHolder(parser.getText());
-    writer.varChar().writeVarChar(0, size, workingBuffer.getBuf());
-    dataSizeReadSoFar += size;
+  private static FieldWriters getFieldWriters(Map<String, FieldWriters> fieldWriters, String fieldName) {
+    if (fieldWriters == null) {
+      return null;
+    }
+    FieldWriters writers = fieldWriters.get(fieldName);
+    if (writers == null) {
+      writers = new FieldWriters();
+      fieldWriters.put(fieldName, writers);
+    }
+    return writers;
+  }
+
+  private static BitWriter bit(MapWriter map, String fieldName, FieldWriters writers) {
+    if (writers == null) {
+      return map.bit(fieldName);
+    }
+    if (writers.bit == null) {
+      writers.bit = map.bit(fieldName);
+    }
+    return writers.bit;
+  }
+
+  private static Float8Writer float8(MapWriter map, String fieldName, FieldWriters writers) {
+    if (writers == null) {
+      return map.float8(fieldName);
+    }
+    if (writers.float8 == null) {
+      writers.float8 = map.float8(fieldName);
+    }
+    return writers.float8;
+  }
+
+  private static BigIntWriter bigInt(MapWriter map, String fieldName, FieldWriters writers) {
+    if (writers == null) {
+      return map.bigInt(fieldName);
+    }
+    if (writers.bigInt == null) {
+      writers.bigInt = map.bigInt(fieldName);
+    }
+    return writers.bigInt;
+  }
+
+  private static VarCharWriter varChar(MapWriter map, String fieldName, FieldWriters writers) {
+    if (writers == null) {
+      return map.varChar(fieldName);
+    }
+    if (writers.varChar == null) {
+      writers.varChar = map.varChar(fieldName);
+    }
+    return writers.varChar;
+  }
+
+  private static MapWriter map(MapWriter map, String fieldName, FieldWriters writers) {
+    if (writers == null) {
+      return map.map(fieldName);
+    }
+    if (writers.map == null) {
+      writers.map = map.map(fieldName);
+    }
+    return writers.map;
+  }
+
+  private static ListWriter list(MapWriter map, String fieldName, FieldWriters writers) {
+    if (writers == null) {
+      return map.list(fieldName);
+    }
+    if (writers.list == null) {
+      writers.list = map.list(fieldName);
+    }
+    return writers.list;
+  }
+
+  /**
+   * Writers of a field of a map, one per type the field was read as.
+   */
+  private static class FieldWriters {
+    private BitWriter bit;
+    private Float8Writer float8;
+    private BigIntWriter bigInt;
+    private VarCharWriter varChar;
+    private MapWriter map;
+    private ListWriter list;
   }
 
   private void writeData(ListWriter list, FieldSelection selection) throws IOException {
@@ -521,7 +629,7 @@ public class JsonReader extends BaseJsonProcessor {
         break;
       case START_OBJECT:
         if (!writeListDataIfTyped(list)) {
-          writeData(list.map(), selection, false);
+          writeData(list.map(), selection, false, null);
         }
         break;
       case END_ARRAY:
@@ -558,7 +666,7 @@ public class JsonReader extends BaseJsonProcessor {
         }
         break;
       case VALUE_STRING:
-        handleString(parser, list);
+        handleString(parser, list.varChar());
         break;
       default:
         throw UserException.dataReadError()
@@ -583,7 +691,7 @@ public class JsonReader extends BaseJsonProcessor {
         break;
       case START_OBJECT:
         if (!writeListDataIfTyped(list)) {
-          writeDataAllText(list.map(), FieldSelection.ALL_VALID, false);
+          writeDataAllText(list.map(), FieldSelection.ALL_VALID, false, null);
         }
         break;
       case END_ARRAY:
@@ -597,7 +705,7 @@ public class JsonReader extends BaseJsonProcessor {
       case VALUE_NUMBER_FLOAT:
       case VALUE_NUMBER_INT:
       case VALUE_STRING:
-        handleString(parser, list);
+        handleString(parser, list.varChar());
         break;
       default:
         throw
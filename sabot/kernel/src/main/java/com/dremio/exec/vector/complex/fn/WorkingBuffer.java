@@ -59,6 +59,39 @@ public class WorkingBuffer {
     return b.length;
   }
 
+  /**
+   * Encode a range of characters as UTF-8 into the working buffer, without going through an intermediate string.
+   * @return the number of bytes written at the start of the buffer.
+   */
+  public int prepareVarCharHolder(char[] chars, int offset, int length) throws IOException {
+    ensure(length * 3);
+    int index = 0;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final char c = chars[i];
+      if (c < 0x80) {
+        workBuf.setByte(index++, c);
+      } else if (c < 0x800) {
+        workBuf.setByte(index++, 0xC0 | (c >> 6));
+        workBuf.setByte(index++, 0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+        final int codePoint = Character.toCodePoint(c, chars[++i]);
+        workBuf.setByte(index++, 0xF0 | (codePoint >> 18));
+        workBuf.setByte(index++, 0x80 | ((codePoint >> 12) & 0x3F));
+        workBuf.setByte(index++, 0x80 | ((codePoint >> 6) & 0x3F));
+        workBuf.setByte(index++, 0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        // unpaired surrogate, replaced the same way String.getBytes() does.
+        workBuf.setByte(index++, '?');
+      } else {
+        workBuf.setByte(index++, 0xE0 | (c >> 12));
+        workBuf.setByte(index++, 0x80 | ((c >> 6) & 0x3F));
+        workBuf.setByte(index++, 0x80 | (c & 0x3F));
+      }
+    }
+    return index;
+  }
+
   public void prepareBinary(byte[] b, VarBinaryHolder h) throws IOException {
     ensure(b.length);
     workBuf.setBytes(0, b);
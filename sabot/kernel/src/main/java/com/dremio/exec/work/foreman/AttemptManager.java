@@ -34,7 +34,9 @@ import com.dremio.exec.planner.sql.handlers.commands.AsyncCommand;
 import com.dremio.exec.planner.sql.handlers.commands.AsyncCommand.QueueType;
 import com.dremio.exec.planner.sql.handlers.commands.CommandCreator;
 import com.dremio.exec.planner.sql.handlers.commands.CommandRunner;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
+import com.dremio.exec.planner.sql.handlers.commands.QueueRules;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
 import com.dremio.exec.proto.CoordExecRPC.RpcType;
@@ -64,6 +66,7 @@ import com.dremio.service.Pointer;
 import com.dremio.service.coordinator.ClusterCoordinator;
 import com.dremio.service.coordinator.DistributedSemaphore;
 import com.dremio.service.coordinator.DistributedSemaphore.DistributedLease;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 
@@ -101,9 +104,11 @@ public class AttemptManager implements Runnable {
   private final QueryManager queryManager; // handles lower-level details of query execution
   private final SabotContext sabotContext;
   private final Cache<Long, PreparedPlan> plans;
+  private final PlanCache planCache;
   private volatile QueryState state;
 
   private volatile DistributedLease lease; // used to limit the number of concurrent queries
+  private volatile DistributedLease memoryLease; // used to limit the memory used by the queries of a queue
 
   private final StateSwitch stateSwitch = new StateSwitch();
   private final AttemptResult foremanResult = new AttemptResult();
@@ -129,6 +134,7 @@ public class AttemptManager implements Runnable {
     final OptionProvider options,
     final CoordToExecTunnelCreator tunnelCreator,
     final Cache<Long, PreparedPlan> plans,
+    final PlanCache planCache,
     final QueryContext queryContext,
     final FragmentsStateListener fragmentsStateListener
     ) {
@@ -139,6 +145,7 @@ public class AttemptManager implements Runnable {
     this.sabotContext = context;
     this.tunnelCreator = tunnelCreator;
     this.plans = plans;
+    this.planCache = planCache;
     this.prepareId = new Pointer<>();
 
     this.queryContext = queryContext;
@@ -377,10 +384,22 @@ public class AttemptManager implements Runnable {
 
   protected CommandCreator newCommandCreator(QueryContext queryContext, AttemptObserver observer, Pointer<QueryId> prepareId) {
     return new CommandCreator(this.sabotContext, queryContext, tunnelCreator, queryRequest,
-      observer, plans, prepareId, attemptId.getAttemptNum());
+      observer, plans, planCache, prepareId, attemptId.getAttemptNum());
   }
 
-  private void releaseLease() {
+  @VisibleForTesting
+  void releaseLease() {
+    while (memoryLease != null) {
+      try {
+        memoryLease.close();
+        memoryLease = null;
+      } catch (final InterruptedException e) {
+        // if we end up here, the while loop will try again
+      } catch (final Exception e) {
+        logger.warn("Failure while releasing memory lease.", e);
+        break;
+      }
+    }
     while (lease != null) {
       try {
         lease.close();
@@ -730,7 +749,8 @@ public class AttemptManager implements Runnable {
     state = newState;
   }
 
-  private void acquireQuerySemaphoreIfNecessary(QueueType queueType) throws ForemanSetupException {
+  @VisibleForTesting
+  void acquireQuerySemaphoreIfNecessary(QueueType queueType) throws ForemanSetupException {
     if(!queuingEnabled){
       return;
     }
@@ -749,41 +769,69 @@ public class AttemptManager implements Runnable {
 
     long queueTimeout = optionManager.getOption(ExecConstants.QUEUE_TIMEOUT);
     final String queueName;
+    final String semaphoreName;
+    final long memoryBudget;
+    long memoryReservation = 0;
+    final long queueStart = System.currentTimeMillis();
 
     try {
       @SuppressWarnings("resource")
       final ClusterCoordinator clusterCoordinator = sabotContext.getClusterCoordinator();
-      final DistributedSemaphore distributedSemaphore;
+      final int queueSize;
 
       // get the appropriate semaphore
       switch (adjustedQueueType) {
       case LARGE:
-        final int largeQueue = (int) optionManager.getOption(ExecConstants.LARGE_QUEUE_SIZE);
-        distributedSemaphore = clusterCoordinator.getSemaphore("query.large", largeQueue);
+        queueSize = (int) optionManager.getOption(ExecConstants.LARGE_QUEUE_SIZE);
+        semaphoreName = "query.large";
         queueName = "large";
+        memoryBudget = optionManager.getOption(ExecConstants.LARGE_QUEUE_MEMORY_BUDGET);
         break;
       case SMALL:
-        final int smallQueue = (int) optionManager.getOption(ExecConstants.SMALL_QUEUE_SIZE);
-        distributedSemaphore = clusterCoordinator.getSemaphore("query.small", smallQueue);
+        queueSize = (int) optionManager.getOption(ExecConstants.SMALL_QUEUE_SIZE);
+        semaphoreName = "query.small";
         queueName = "small";
+        memoryBudget = optionManager.getOption(ExecConstants.SMALL_QUEUE_MEMORY_BUDGET);
         break;
       case REFLECTION_LARGE:
-        final int reflectionLargeQueue = (int) optionManager.getOption(ExecConstants.REFLECTION_LARGE_QUEUE_SIZE);
-        distributedSemaphore = clusterCoordinator.getSemaphore("reflection.query.large", reflectionLargeQueue);
+        queueSize = (int) optionManager.getOption(ExecConstants.REFLECTION_LARGE_QUEUE_SIZE);
+        semaphoreName = "reflection.query.large";
         queueName = "reflection_large";
+        memoryBudget = optionManager.getOption(ExecConstants.REFLECTION_LARGE_QUEUE_MEMORY_BUDGET);
         queueTimeout = optionManager.getOption(ExecConstants.REFLECTION_QUEUE_TIMEOUT);
         break;
       case REFLECTION_SMALL:
-        final int reflectionSmallQueue = (int) optionManager.getOption(ExecConstants.REFLECTION_SMALL_QUEUE_SIZE);
-        distributedSemaphore = clusterCoordinator.getSemaphore("reflection.query.small", reflectionSmallQueue);
+        queueSize = (int) optionManager.getOption(ExecConstants.REFLECTION_SMALL_QUEUE_SIZE);
+        semaphoreName = "reflection.query.small";
         queueName = "reflection_small";
+        memoryBudget = optionManager.getOption(ExecConstants.REFLECTION_SMALL_QUEUE_MEMORY_BUDGET);
         queueTimeout = optionManager.getOption(ExecConstants.REFLECTION_QUEUE_TIMEOUT);
         break;
       default:
         throw new ForemanSetupException("Unsupported Queue type: " + adjustedQueueType);
       }
+
+      // queries with a memory limit reserve it on each executor, up to the memory budget of the queue
+      if (memoryBudget > 0) {
+        memoryReservation = Math.min(getQueryMemoryReservation(queueType), memoryBudget);
+      }
+
+      final DistributedSemaphore distributedSemaphore = clusterCoordinator.getSemaphore(semaphoreName, queueSize);
       lease = distributedSemaphore.acquire(queueTimeout, TimeUnit.MILLISECONDS);
+
+      // then reserve the memory of the query from the memory budget of the queue
+      if (lease != null && memoryReservation > 0) {
+        final long remainingTimeout = Math.max(0, queueTimeout - (System.currentTimeMillis() - queueStart));
+        final DistributedSemaphore memorySemaphore =
+            clusterCoordinator.getSemaphore(semaphoreName + ".memory", QueueRules.MEMORY_PERMITS);
+        memoryLease = memorySemaphore.acquire(QueueRules.getMemoryPermits(memoryReservation, memoryBudget),
+            remainingTimeout, TimeUnit.MILLISECONDS);
+        if (memoryLease == null) {
+          releaseLease();
+        }
+      }
     } catch (final Exception e) {
+      releaseLease();
       throw new ForemanSetupException("Unable to acquire slot for query.", e);
     }
 
@@ -796,5 +844,17 @@ public class AttemptManager implements Runnable {
           .build(logger);
     }
 
+    queryManager.setQueueInfo(queueName, System.currentTimeMillis() - queueStart, memoryReservation);
+  }
+
+  /**
+   * Get the memory a query will allocate at most on each executor, or 0 if the queue doesn't limit its memory.
+   */
+  private long getQueryMemoryReservation(QueueType queueType) {
+    final long memoryLimit = QueueRules.getQueryMemoryLimit(queueType, queryContext.getOptions());
+    if (memoryLimit <= 0) {
+      return 0;
+    }
+    return Math.min(memoryLimit, queryContext.getQueryContextInfo().getQueryMaxAllocation());
   }
 }
@@ -84,6 +84,9 @@ class QueryManager {
   private long endPlanningTime;
   private long startTime;
   private long endTime;
+  private String queueName;
+  private long queueWaitMillis;
+  private long queueMemoryReservation;
 
   // How many nodes have finished their execution.  Query is complete when all nodes are complete.
   private final AtomicInteger finishedNodes = new AtomicInteger(0);
@@ -295,6 +298,18 @@ class QueryManager {
 
 
 
+  /**
+   * Record the queue the query was admitted in.
+   * @param queueName name of the queue.
+   * @param waitMillis time spent waiting for the queue, in milliseconds.
+   * @param memoryReservation memory reserved for the query on each executor, 0 if none.
+   */
+  public void setQueueInfo(String queueName, long waitMillis, long memoryReservation) {
+    this.queueName = queueName;
+    this.queueWaitMillis = waitMillis;
+    this.queueMemoryReservation = memoryReservation;
+  }
+
   public QueryProfile getQueryProfile(String description, QueryState state, UserException ex) {
     final QueryProfile.Builder profileBuilder = QueryProfile.newBuilder()
         .setQuery(description)
@@ -313,6 +328,12 @@ class QueryManager {
       profileBuilder.setPrepareId(prepareId.value);
     }
 
+    if (queueName != null) {
+      profileBuilder.setQueueName(queueName)
+          .setQueueWaitMillis(queueWaitMillis)
+          .setQueueMemoryReservation(queueMemoryReservation);
+    }
+
     if(context.getSession().getClientInfos() != null) {
       profileBuilder.setClientInfo(context.getSession().getClientInfos());
     }
@@ -29,6 +29,7 @@ import com.dremio.exec.planner.observer.DelegatingAttemptObserver;
 import com.dremio.exec.planner.observer.QueryObserver;
 import com.dremio.exec.planner.physical.HashAggPrel;
 import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
@@ -83,6 +84,7 @@ public class Foreman {
   private final ReAttemptHandler attemptHandler;
   private final CoordToExecTunnelCreator tunnelCreator;
   private final Cache<Long, PreparedPlan> plans;
+  private final PlanCache planCache;
 
   private AttemptId attemptId; // id of last attempt
 
@@ -102,7 +104,8 @@ public class Foreman {
           final OptionProvider config,
           final ReAttemptHandler attemptHandler,
           final CoordToExecTunnelCreator tunnelCreator,
-          Cache<Long, PreparedPlan> plans) {
+          Cache<Long, PreparedPlan> plans,
+          PlanCache planCache) {
     this.attemptId = AttemptId.of(externalId);
     this.executor = executor;
     this.context = context;
@@ -114,6 +117,7 @@ public class Foreman {
     this.attemptHandler = attemptHandler;
     this.tunnelCreator = tunnelCreator;
     this.plans = plans;
+    this.planCache = planCache;
   }
 
   public void start() {
@@ -149,16 +153,16 @@ public class Foreman {
     }
 
     attemptManager = newAttemptManager(context, attemptId, request, attemptObserver, session,
-      optionProvider, tunnelCreator, plans, fragmentsStateListener);
+      optionProvider, tunnelCreator, plans, planCache, fragmentsStateListener);
     executor.execute(attemptManager);
   }
 
   protected AttemptManager newAttemptManager(SabotContext context, AttemptId attemptId, UserRequest queryRequest,
       AttemptObserver observer, UserSession session, OptionProvider options, CoordToExecTunnelCreator tunnelCreator,
-      Cache<Long, PreparedPlan> plans, FragmentsStateListener fragmentsStateListener) {
+      Cache<Long, PreparedPlan> plans, PlanCache planCache, FragmentsStateListener fragmentsStateListener) {
     final QueryContext queryContext = new QueryContext(session, context, attemptId.toQueryId(),
         queryRequest.getPriority(), queryRequest.getMaxAllocation());
-    return new AttemptManager(context, attemptId, queryRequest, observer, options, tunnelCreator, plans,
+    return new AttemptManager(context, attemptId, queryRequest, observer, options, tunnelCreator, plans, planCache,
         queryContext, fragmentsStateListener);
   }
 
@@ -29,6 +29,8 @@ import com.dremio.common.concurrent.ExtendedLatch;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.planner.observer.OutOfBandQueryObserver;
 import com.dremio.exec.planner.observer.QueryObserver;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
@@ -101,6 +103,8 @@ public class ForemenWorkManager implements Service, SafeExit {
   private ExtendedLatch exitLatch = null; // This is used to wait to exit when things are still running
   private CloseableThreadPool pool = new CloseableThreadPool("foreman");
   private CoordToExecTunnelCreator tunnelCreator;
+  // cache of the physical plans of repeated queries.
+  private PlanCache planCache;
 
   public ForemenWorkManager(
       final Provider<ClusterCoordinator> coord,
@@ -118,6 +122,9 @@ public class ForemenWorkManager implements Service, SafeExit {
     coordinator = coord.get();
     coordinator.getServiceSet(ClusterCoordinator.Role.EXECUTOR).addNodeStatusListener(nodeListener);
     tunnelCreator = new CoordToExecTunnelCreator(fabric.get().getProtocol(Protocols.COORD_TO_EXEC));
+    final OptionManager options = dbContext.get().getOptionManager();
+    planCache = new PlanCache(options.getOption(PlannerSettings.PLAN_CACHE_MAX_ENTRIES),
+        options.getOption(PlannerSettings.PLAN_CACHE_TTL_SECONDS));
     bindingCreator.replace(ExecToCoordHandler.class, new ExecToCoordHandlerImpl());
 
     final ForemenTool tool = new ForemenToolImpl();
@@ -155,7 +162,7 @@ public class ForemenWorkManager implements Service, SafeExit {
           final ReAttemptHandler attemptHandler) {
 
     final DelegatingCompletionListener delegate = new DelegatingCompletionListener();
-    final Foreman foreman = newForeman(pool, delegate, externalId, observer, session, request, config, attemptHandler, tunnelCreator, preparedHandles);
+    final Foreman foreman = newForeman(pool, delegate, externalId, observer, session, request, config, attemptHandler, tunnelCreator, preparedHandles, planCache);
     final ManagedForeman managed = new ManagedForeman(registry, foreman);
     externalIdToForeman.put(foreman.getExternalId(), managed);
     delegate.setListener(managed);
@@ -165,8 +172,8 @@ public class ForemenWorkManager implements Service, SafeExit {
   protected Foreman newForeman(Executor executor, CompletionListener listener, ExternalId externalId,
       QueryObserver observer, UserSession session, UserRequest request, OptionProvider config,
       ReAttemptHandler attemptHandler, CoordToExecTunnelCreator tunnelCreator,
-      Cache<Long, PreparedPlan> plans) {
-    return new Foreman(dbContext.get(), executor, listener, externalId, observer, session, request, config, attemptHandler, tunnelCreator, plans);
+      Cache<Long, PreparedPlan> plans, PlanCache planCache) {
+    return new Foreman(dbContext.get(), executor, listener, externalId, observer, session, request, config, attemptHandler, tunnelCreator, plans, planCache);
   }
 
   private class RunningQueryProviderImpl implements RunningQueryProvider {
@@ -64,6 +64,8 @@ public abstract class OperatorContext {
 
   public abstract NodeDebugContextProvider getNodeDebugContextProvider();
 
+  public abstract RuntimeFilters getRuntimeFilters();
+
   public static int getChildCount(PhysicalOperator popConfig) {
     Iterator<PhysicalOperator> iter = popConfig.iterator();
     int i = 0;
@@ -58,6 +58,7 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
   private final int targetBatchSize;
   private final NamespaceService ns;
   private final NodeDebugContextProvider nodeDebugContextProvider;
+  private final RuntimeFilters runtimeFilters;
 
   public OperatorContextImpl(
       SabotConfig config,
@@ -74,6 +75,27 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
       NamespaceService namespaceService,
       NodeDebugContextProvider nodeDebugContextProvider,
       int targetBatchSize) throws OutOfMemoryException {
+    this(config, handle, popConfig, allocator, compiler, stats, executionControls, executor, functions,
+      contextInformation, optionManager, namespaceService, nodeDebugContextProvider, targetBatchSize,
+      new RuntimeFilters());
+  }
+
+  public OperatorContextImpl(
+      SabotConfig config,
+      FragmentHandle handle,
+      PhysicalOperator popConfig,
+      BufferAllocator allocator,
+      CodeCompiler compiler,
+      OperatorStats stats,
+      ExecutionControls executionControls,
+      ExecutorService executor,
+      FunctionLookupContext functions,
+      ContextInformation contextInformation,
+      OptionManager optionManager,
+      NamespaceService namespaceService,
+      NodeDebugContextProvider nodeDebugContextProvider,
+      int targetBatchSize,
+      RuntimeFilters runtimeFilters) throws OutOfMemoryException {
     this.config = config;
     this.handle = handle;
     this.allocator = allocator;
@@ -86,6 +108,7 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
     this.targetBatchSize = targetBatchSize;
     this.ns = namespaceService;
     this.nodeDebugContextProvider = nodeDebugContextProvider;
+    this.runtimeFilters = runtimeFilters;
     this.producer = new ClassProducerImpl(compiler, functions, contextInformation, manager);
   }
 
@@ -198,4 +221,9 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
   public  NodeDebugContextProvider getNodeDebugContextProvider() {
     return nodeDebugContextProvider;
   }
+
+  @Override
+  public RuntimeFilters getRuntimeFilters() {
+    return runtimeFilters;
+  }
 }
@@ -65,6 +65,9 @@ public class OperatorStats {
   private long setupMark;
   private long waitMark;
 
+  // wait time is only tracked for the thread processing the operator, not for its background tasks.
+  private volatile Thread processingThread;
+
   private long schemas;
   private int inputCount;
 
@@ -123,7 +126,7 @@ public class OperatorStats {
    * @param from - OperatorStats from where to merge to "this"
    * @return OperatorStats - for convenience so one can merge multiple stats in one go
    */
-  public OperatorStats mergeMetrics(OperatorStats from) {
+  public synchronized OperatorStats mergeMetrics(OperatorStats from) {
     final IntLongHashMap fromMetrics = from.longMetrics;
 
     final Iterator<IntLongCursor> iter = fromMetrics.iterator();
@@ -145,7 +148,7 @@ public class OperatorStats {
   /**
    * Clear stats
    */
-  public void clear() {
+  public synchronized void clear() {
     processingNanos = 0l;
     setupNanos = 0l;
     waitNanos = 0l;
@@ -173,6 +176,7 @@ public class OperatorStats {
     assert !inWait : assertionError("starting processing inside a wait block");
     processingMark = System.nanoTime();
     inProcessing = true;
+    processingThread = Thread.currentThread();
   }
 
   public void stopProcessing() {
@@ -182,13 +186,24 @@ public class OperatorStats {
   }
 
   public void startWait() {
+    if (isBackgroundThread()) {
+      return;
+    }
     assert !inWait : assertionError("starting waiting");
     stopProcessing();
     inWait = true;
     waitMark = System.nanoTime();
   }
 
+  private boolean isBackgroundThread() {
+    final Thread thread = processingThread;
+    return thread != null && thread != Thread.currentThread();
+  }
+
   public void stopWait() {
+    if (isBackgroundThread()) {
+      return;
+    }
     assert inWait : assertionError("stopping waiting");
     inWait = false;
     startProcessing();
@@ -254,7 +269,7 @@ public class OperatorStats {
 
   }
 
-  public void addLongMetrics(OperatorProfile.Builder builder) {
+  public synchronized void addLongMetrics(OperatorProfile.Builder builder) {
     if (longMetrics.size() > 0) {
       longMetrics.forEach(new LongProc(builder));
     }
@@ -274,25 +289,25 @@ public class OperatorStats {
     }
 
   }
-  public void addDoubleMetrics(OperatorProfile.Builder builder) {
+  public synchronized void addDoubleMetrics(OperatorProfile.Builder builder) {
     if (doubleMetrics.size() > 0) {
       doubleMetrics.forEach(new DoubleProc(builder));
     }
   }
 
-  public void addLongStat(MetricDef metric, long value){
+  public synchronized void addLongStat(MetricDef metric, long value){
     longMetrics.putOrAdd(metric.metricId(), value, value);
   }
 
-  public void addDoubleStat(MetricDef metric, double value){
+  public synchronized void addDoubleStat(MetricDef metric, double value){
     doubleMetrics.putOrAdd(metric.metricId(), value, value);
   }
 
-  public void setLongStat(MetricDef metric, long value){
+  public synchronized void setLongStat(MetricDef metric, long value){
     longMetrics.put(metric.metricId(), value);
   }
 
-  public void setDoubleStat(MetricDef metric, double value){
+  public synchronized void setDoubleStat(MetricDef metric, double value){
     doubleMetrics.put(metric.metricId(), value);
   }
 
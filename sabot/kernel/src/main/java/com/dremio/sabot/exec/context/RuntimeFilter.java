@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.exec.context;
+
+import java.util.List;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.sabot.op.common.ht2.BloomFilter;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Filter published by a hash join once its build side is complete, to be applied by a scan of its probe side. Holds
+ * the scan columns the probe keys are read from, the types of the build keys and a bloom filter over the build keys.
+ * Keys only hash the same when pivoted with the same types, so the filter must not be applied to columns of other
+ * types. The filter is owned, and
+ * released, by the join.
+ */
+public class RuntimeFilter {
+
+  private final List<String> columns;
+  private final List<CompleteType> types;
+  private final BloomFilter filter;
+
+  public RuntimeFilter(List<String> columns, List<CompleteType> types, BloomFilter filter) {
+    this.columns = ImmutableList.copyOf(columns);
+    this.types = ImmutableList.copyOf(types);
+    this.filter = filter;
+  }
+
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  public List<CompleteType> getTypes() {
+    return types;
+  }
+
+  public BloomFilter getFilter() {
+    return filter;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.exec.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runtime filters of a fragment, keyed by the operator id of the scan they apply to. The operators of a fragment never
+ * run concurrently, so no synchronization is needed.
+ */
+public class RuntimeFilters {
+
+  private final Map<Integer, RuntimeFilter> filters = new HashMap<>();
+
+  public void publish(int scanOperatorId, RuntimeFilter filter) {
+    filters.put(scanOperatorId, filter);
+  }
+
+  /**
+   * Remove a filter, once it's about to be released.
+   */
+  public void remove(int scanOperatorId) {
+    filters.remove(scanOperatorId);
+  }
+
+  /**
+   * Get the filter for a scan.
+   * @param scanOperatorId operator id of the scan.
+   * @return the filter or null if none was published (yet).
+   */
+  public RuntimeFilter get(int scanOperatorId) {
+    return filters.get(scanOperatorId);
+  }
+}
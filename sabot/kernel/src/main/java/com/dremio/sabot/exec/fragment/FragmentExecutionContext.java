@@ -20,6 +20,7 @@ import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.store.StoragePlugin;
 import com.dremio.exec.store.StoragePluginRegistry;
 import com.dremio.sabot.driver.SchemaChangeListener;
+import com.dremio.sabot.threads.sharedres.SharedResourceGroup;
 import com.dremio.service.namespace.StoragePluginId;
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -32,13 +33,15 @@ public class FragmentExecutionContext {
   private final SchemaChangeListener schemaUpdater;
   private final StoragePluginRegistry registry;
   private final ListenableFuture<Boolean> cancelled;
+  private final SharedResourceGroup pipelineResources;
 
-  public FragmentExecutionContext(NodeEndpoint foreman, SchemaChangeListener schemaUpdater, StoragePluginRegistry registry, ListenableFuture<Boolean> cancelled) {
+  public FragmentExecutionContext(NodeEndpoint foreman, SchemaChangeListener schemaUpdater, StoragePluginRegistry registry, ListenableFuture<Boolean> cancelled, SharedResourceGroup pipelineResources) {
     super();
     this.foreman = foreman;
     this.schemaUpdater = schemaUpdater;
     this.registry = registry;
     this.cancelled = cancelled;
+    this.pipelineResources = pipelineResources;
   }
 
   public NodeEndpoint getForemanEndpoint(){
@@ -53,6 +56,13 @@ public class FragmentExecutionContext {
     return cancelled;
   }
 
+  /**
+   * Resources the fragment's pipeline is blocked on, operators waiting for background work can add their own.
+   */
+  public SharedResourceGroup getPipelineResources() {
+    return pipelineResources;
+  }
+
   @SuppressWarnings("unchecked")
   public <T extends StoragePlugin> T getStoragePlugin(StoragePluginId pluginId) throws ExecutionSetupException {
     StoragePlugin plugin = registry.getPlugin(pluginId);
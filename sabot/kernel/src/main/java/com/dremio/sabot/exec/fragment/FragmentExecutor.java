@@ -318,7 +318,8 @@ public class FragmentExecutor {
 
     final OperatorCreator operatorCreator = new UserDelegatingOperatorCreator(contextInfo.getQueryUser(), opCreator);
     pipeline = PipelineCreator.get(
-        new FragmentExecutionContext(fragment.getForeman(), updater, storagePluginRegistry, cancelled),
+        new FragmentExecutionContext(fragment.getForeman(), updater, storagePluginRegistry, cancelled,
+            sharedResources.getGroup(PIPELINE_RES_GRP)),
         buffers,
         operatorCreator,
         contextCreator,
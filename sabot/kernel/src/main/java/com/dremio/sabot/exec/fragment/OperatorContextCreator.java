@@ -47,6 +47,7 @@ import com.dremio.sabot.exec.context.OpProfileDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorContextImpl;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.context.RuntimeFilters;
 import com.dremio.service.namespace.NamespaceService;
 
 class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
@@ -64,6 +65,7 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
   private final ExecutorService executor;
   private final ContextInformation contextInformation;
   private final NodeDebugContextProvider nodeDebugContextProvider;
+  private final RuntimeFilters runtimeFilters = new RuntimeFilters();
 
   public OperatorContextCreator(FragmentStats stats, BufferAllocator allocator, CodeCompiler compiler,
                                 SabotConfig config, FragmentHandle handle, ExecutionControls executionControls,
@@ -112,7 +114,8 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
         options,
         namespaceService,
         nodeDebugContextProvider,
-        calculateTargetRecordSize(popConfig));
+        calculateTargetRecordSize(popConfig),
+        runtimeFilters);
       operatorContexts.add(context);
       closeable.commit();
       return context;
@@ -37,6 +37,13 @@ public class AccountingExecTunnel {
     this.statusHandler = statusHandler;
   }
 
+  /**
+   * Whether the node at the other end of the tunnel accepts compressed record batches.
+   */
+  public boolean supportsCompression() {
+    return tunnel.supportsCompression();
+  }
+
   public void sendStreamComplete(FragmentStreamComplete streamComplete) {
     monitor.increment();
     tunnel.sendStreamComplete(statusHandler, streamComplete);
@@ -21,6 +21,7 @@ import com.dremio.exec.proto.ExecRPC.RpcType;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.rpc.ListeningCommand;
+import com.dremio.exec.rpc.RpcException;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.services.fabric.ProxyConnection;
 import com.dremio.services.fabric.api.FabricCommandRunner;
@@ -32,11 +33,20 @@ public class ExecTunnel {
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ExecTunnel.class);
 
   private final FabricCommandRunner manager;
+  private volatile boolean supportsCompression;
 
   public ExecTunnel(FabricCommandRunner runner) {
     this.manager = runner;
   }
 
+  /**
+   * Whether the node at the other end of this tunnel accepts compressed record batches. This is learnt from the
+   * handshake of the connection used by the last message, so it is false until a first message has been sent.
+   */
+  public boolean supportsCompression() {
+    return supportsCompression;
+  }
+
   public void sendStreamComplete(RpcOutcomeListener<Ack> outcomeListener, FragmentStreamComplete streamComplete) {
     manager.runCommand(new SendStreamCompleteListen(outcomeListener, streamComplete));
   }
@@ -60,6 +70,7 @@ public class ExecTunnel {
 
     @Override
     public void doRpcCall(RpcOutcomeListener<Ack> outcomeListener, ProxyConnection connection) {
+      supportsCompression = connection.supportsExchangeCompression();
       connection.send(outcomeListener, RpcType.REQ_STREAM_COMPLETE, completion, Ack.class);
     }
 
@@ -75,6 +86,13 @@ public class ExecTunnel {
 
     @Override
     public void doRpcCall(RpcOutcomeListener<Ack> outcomeListener, ProxyConnection connection) {
+      supportsCompression = connection.supportsExchangeCompression();
+      if (batch.getHeader().getCompressedBufferLengthCount() > 0 && !supportsCompression) {
+        // the connection was re-established with a node that cannot read the batch.
+        releaseBuffers();
+        outcomeListener.failed(new RpcException("Remote node does not accept compressed record batches."));
+        return;
+      }
       connection.send(outcomeListener, RpcType.REQ_RECORD_BATCH, batch.getHeader(), Ack.class, batch.getBuffers());
     }
 
@@ -85,10 +103,14 @@ public class ExecTunnel {
 
     @Override
     public void connectionFailed(FailureType type, Throwable t) {
+      releaseBuffers();
+      super.connectionFailed(type, t);
+    }
+
+    private void releaseBuffers() {
       for(ByteBuf buffer : batch.getBuffers()) {
         buffer.release();
       }
-      super.connectionFailed(type, t);
     }
   }
 
@@ -38,4 +38,10 @@ public interface Accumulator extends ResizeListener, AutoCloseable {
    * @param batchIndex
    */
   void output(int batchIndex);
+
+  /**
+   * Release all accumulation vectors so the accumulator can be reused with a new, empty hash table.
+   * @throws Exception
+   */
+  void reset() throws Exception;
 }
@@ -57,6 +57,23 @@ public class AccumulatorBuilder {
    * @return A Nested accumulator that holds individual sub-accumulators.
    */
   public static Accumulator getAccumulator(BufferAllocator allocator, ClassProducer producer, List<NamedExpression> aggregateExpressions, VectorAccessible incoming, VectorContainer outgoing){
+    return getAccumulator(allocator, producer, aggregateExpressions, incoming, outgoing, null);
+  }
+
+  /**
+   * Create a new set of accumulators that write to existing output vectors, e.g. the ones created for another set of
+   * accumulators over the same aggregate expressions. Used when aggregating hash partitions of the incoming data in
+   * parallel, each partition having its own accumulators.
+   * @param aggregateExpressions set of expressions to accumulate.
+   * @param incoming Incoming vectors
+   * @param outputs Existing output vectors, one per expression.
+   * @return A Nested accumulator that holds individual sub-accumulators.
+   */
+  public static Accumulator getAccumulator(ClassProducer producer, List<NamedExpression> aggregateExpressions, VectorAccessible incoming, List<FieldVector> outputs){
+    return getAccumulator(null, producer, aggregateExpressions, incoming, null, outputs);
+  }
+
+  private static Accumulator getAccumulator(BufferAllocator allocator, ClassProducer producer, List<NamedExpression> aggregateExpressions, VectorAccessible incoming, VectorContainer outgoing, List<FieldVector> outputs){
     final Accumulator[] accums = new Accumulator[aggregateExpressions.size()];
 
     for (int i = 0; i < aggregateExpressions.size(); i++) {
@@ -72,8 +89,7 @@ public class AccumulatorBuilder {
 
 
       if (func.getName().equals("count") && (exprs.isEmpty() || (exprs.size() == 1 && isCountLiteral(exprs.get(0)) ) ) ) {
-        final FieldVector outputVector = TypeHelper.getNewVector(expr.getCompleteType().toField(ne.getRef()), allocator);
-        outgoing.add(outputVector);
+        final FieldVector outputVector = getOutputVector(allocator, expr, ne, outgoing, outputs, i);
         accums[i] = new CountOneAccumulator(outputVector);
         continue;
       }
@@ -84,14 +100,60 @@ public class AccumulatorBuilder {
 
       final ValueVectorReadExpression vvread = (ValueVectorReadExpression) exprs.get(0);
       final FieldVector incomingValues = incoming.getValueAccessorById(FieldVector.class, vvread.getFieldId().getFieldIds()).getValueVector();
-      final FieldVector outputVector = TypeHelper.getNewVector(expr.getCompleteType().toField(ne.getRef()), allocator);
-      outgoing.add(outputVector);
+      final FieldVector outputVector = getOutputVector(allocator, expr, ne, outgoing, outputs, i);
       accums[i] = getAccumulator(func.getName(), incomingValues, outputVector);
     }
 
     return new NestedAccumulator(accums);
   }
 
+  private static FieldVector getOutputVector(BufferAllocator allocator, LogicalExpression expr, NamedExpression ne,
+      VectorContainer outgoing, List<FieldVector> outputs, int index){
+    if(outputs != null){
+      return outputs.get(index);
+    }
+    final FieldVector outputVector = TypeHelper.getNewVector(expr.getCompleteType().toField(ne.getRef()), allocator);
+    outgoing.add(outputVector);
+    return outputVector;
+  }
+
+  /**
+   * Create a new set of accumulators that combine partial results previously produced by the accumulators of
+   * {@link #getAccumulator(BufferAllocator, ClassProducer, List, VectorAccessible, VectorContainer)}. Used when
+   * re-aggregating data that was spilled to disk.
+   * @param aggregateExpressions set of expressions originally accumulated.
+   * @param incoming Original incoming vectors, used to resolve the aggregate functions.
+   * @param partials Vectors holding partial results, one per expression.
+   * @param outputs Existing output vectors, one per expression.
+   * @return A Nested accumulator that holds individual sub-accumulators.
+   */
+  public static Accumulator getMergeAccumulator(ClassProducer producer, List<NamedExpression> aggregateExpressions, VectorAccessible incoming, List<FieldVector> partials, List<FieldVector> outputs){
+    final Accumulator[] accums = new Accumulator[aggregateExpressions.size()];
+
+    for (int i = 0; i < aggregateExpressions.size(); i++) {
+      final NamedExpression ne = aggregateExpressions.get(i);
+      final LogicalExpression expr = producer.materialize(ne.getExpr(), incoming);
+
+      if(expr == null || !(expr instanceof FunctionHolderExpr) ){
+        throw unsup("Accumulation expression is not a function: " + ne.getExpr().toString());
+      }
+
+      accums[i] = getAccumulator(getMergeFunctionName(((FunctionHolderExpr) expr).getName()), partials.get(i), outputs.get(i));
+    }
+
+    return new NestedAccumulator(accums);
+  }
+
+  private static String getMergeFunctionName(String name) {
+    switch(name){
+    case "count":
+      // partial counts are never null, sum them up.
+      return "$sum0";
+    default:
+      return name;
+    }
+  }
+
   private static Accumulator getAccumulator(String name, FieldVector incomingValues, FieldVector outputVector) {
     final MinorType type = CompleteType.fromField(incomingValues.getField()).toMinorType();
     switch(name){
@@ -114,12 +176,17 @@ public class AccumulatorBuilder {
     }
 
     case "min": {
+      // date and time types share the layout, and the ordering, of the integer they are stored as.
       switch(type){
       case INT:
+      case INTERVALYEAR:
+      case TIME:
         return new MinAccumulators.IntMinAccumulator(incomingValues, outputVector);
       case FLOAT4:
         return new MinAccumulators.FloatMinAccumulator(incomingValues, outputVector);
       case BIGINT:
+      case DATE:
+      case TIMESTAMP:
         return new MinAccumulators.BigIntMinAccumulator(incomingValues, outputVector);
       case FLOAT8:
         return new MinAccumulators.DoubleMinAccumulator(incomingValues, outputVector);
@@ -128,12 +195,17 @@ public class AccumulatorBuilder {
     }
 
     case "max": {
+      // date and time types share the layout, and the ordering, of the integer they are stored as.
       switch(type){
       case INT:
+      case INTERVALYEAR:
+      case TIME:
         return new MaxAccumulators.IntMaxAccumulator(incomingValues, outputVector);
       case FLOAT4:
         return new MaxAccumulators.FloatMaxAccumulator(incomingValues, outputVector);
       case BIGINT:
+      case DATE:
+      case TIMESTAMP:
         return new MaxAccumulators.BigIntMaxAccumulator(incomingValues, outputVector);
       case FLOAT8:
         return new MaxAccumulators.DoubleMaxAccumulator(incomingValues, outputVector);
@@ -155,6 +227,26 @@ public class AccumulatorBuilder {
       break;
     }
 
+    case "bit_and": {
+      switch(type){
+      case INT:
+        return new BitwiseAccumulators.IntBitAndAccumulator(incomingValues, outputVector);
+      case BIGINT:
+        return new BitwiseAccumulators.BigIntBitAndAccumulator(incomingValues, outputVector);
+      }
+      break;
+    }
+
+    case "bit_or": {
+      switch(type){
+      case INT:
+        return new BitwiseAccumulators.IntBitOrAccumulator(incomingValues, outputVector);
+      case BIGINT:
+        return new BitwiseAccumulators.BigIntBitOrAccumulator(incomingValues, outputVector);
+      }
+      break;
+    }
+
     }
 
     throw UserException.unsupportedError().message("Unable to handle function %s for input field %s.", name, Describer.describe(incomingValues.getField())).build(logger);
@@ -106,6 +106,12 @@ abstract class BaseSingleAccumulator implements Accumulator {
     pairs[batchIndex].transfer();
   }
 
+  @Override
+  public void reset() throws Exception {
+    close();
+    initArrs(0);
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public void close() throws Exception {
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import java.util.List;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Accumulators for bit_and and bit_or. Null values are replaced by the identity of the operation (all bits set for
+ * bit_and, no bits set for bit_or) so that they don't affect the accumulated value.
+ */
+public class BitwiseAccumulators {
+
+  private BitwiseAccumulators(){};
+
+  public static class IntBitAndAccumulator extends BaseSingleAccumulator {
+
+    private static final int WIDTH = 4;
+
+    public IntBitAndAccumulator(FieldVector input, FieldVector output) {
+      super(input, output);
+    }
+
+    @Override
+    void initialize(FieldVector vector) {
+      setNullAndValue(vector, -1L);
+    }
+
+    public void accumulate(final long memoryAddr, final int count) {
+      final long maxAddr = memoryAddr + count * 4;
+      List<ArrowBuf> buffers = getInput().getFieldBuffers();
+      final long incomingBit = buffers.get(0).memoryAddress();
+      final long incomingValue = buffers.get(1).memoryAddress();
+      final long[] bitAddresses = this.bitAddresses;
+      final long[] valueAddresses = this.valueAddresses;
+
+      int incomingIndex = 0;
+      for(long ordinalAddr = memoryAddr; ordinalAddr < maxAddr; ordinalAddr += 4, incomingIndex++){
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        // (bitVal - 1) is all bits set for a null value and zero otherwise.
+        final int newVal = PlatformDependent.getInt(incomingValue + (incomingIndex * WIDTH)) | (bitVal - 1);
+        final int tableIndex = PlatformDependent.getInt(ordinalAddr);
+        int chunkIndex = tableIndex >>> LBlockHashTable.BITS_IN_CHUNK;
+        int chunkOffset = tableIndex & LBlockHashTable.CHUNK_OFFSET_MASK;
+        final long andAddr = valueAddresses[chunkIndex] + (chunkOffset) * WIDTH;
+        final long bitUpdateAddr = bitAddresses[chunkIndex] + ((chunkOffset >>> 5) * 4);
+        final int bitUpdateVal = bitVal << (chunkOffset & 31);
+        PlatformDependent.putInt(andAddr, PlatformDependent.getInt(andAddr) & newVal);
+        PlatformDependent.putInt(bitUpdateAddr, PlatformDependent.getInt(bitUpdateAddr) | bitUpdateVal);
+      }
+    }
+  }
+
+  public static class BigIntBitAndAccumulator extends BaseSingleAccumulator {
+
+    private static final int WIDTH = 8;
+
+    public BigIntBitAndAccumulator(FieldVector input, FieldVector output) {
+      super(input, output);
+    }
+
+    @Override
+    void initialize(FieldVector vector) {
+      setNullAndValue(vector, -1L);
+    }
+
+    public void accumulate(final long memoryAddr, final int count) {
+      final long maxAddr = memoryAddr + count * 4;
+      List<ArrowBuf> buffers = getInput().getFieldBuffers();
+      final long incomingBit = buffers.get(0).memoryAddress();
+      final long incomingValue = buffers.get(1).memoryAddress();
+      final long[] bitAddresses = this.bitAddresses;
+      final long[] valueAddresses = this.valueAddresses;
+
+      int incomingIndex = 0;
+      for(long ordinalAddr = memoryAddr; ordinalAddr < maxAddr; ordinalAddr += 4, incomingIndex++){
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        final long newVal = PlatformDependent.getLong(incomingValue + (incomingIndex * WIDTH)) | (bitVal - 1L);
+        final int tableIndex = PlatformDependent.getInt(ordinalAddr);
+        int chunkIndex = tableIndex >>> LBlockHashTable.BITS_IN_CHUNK;
+        int chunkOffset = tableIndex & LBlockHashTable.CHUNK_OFFSET_MASK;
+        final long andAddr = valueAddresses[chunkIndex] + (chunkOffset) * WIDTH;
+        final long bitUpdateAddr = bitAddresses[chunkIndex] + ((chunkOffset >>> 5) * 4);
+        final int bitUpdateVal = bitVal << (chunkOffset & 31);
+        PlatformDependent.putLong(andAddr, PlatformDependent.getLong(andAddr) & newVal);
+        PlatformDependent.putInt(bitUpdateAddr, PlatformDependent.getInt(bitUpdateAddr) | bitUpdateVal);
+      }
+    }
+  }
+
+  public static class IntBitOrAccumulator extends BaseSingleAccumulator {
+
+    private static final int WIDTH = 4;
+
+    public IntBitOrAccumulator(FieldVector input, FieldVector output) {
+      super(input, output);
+    }
+
+    @Override
+    void initialize(FieldVector vector) {
+      setNullAndZero(vector);
+    }
+
+    public void accumulate(final long memoryAddr, final int count) {
+      final long maxAddr = memoryAddr + count * 4;
+      List<ArrowBuf> buffers = getInput().getFieldBuffers();
+      final long incomingBit = buffers.get(0).memoryAddress();
+      final long incomingValue = buffers.get(1).memoryAddress();
+      final long[] bitAddresses = this.bitAddresses;
+      final long[] valueAddresses = this.valueAddresses;
+
+      int incomingIndex = 0;
+      for(long ordinalAddr = memoryAddr; ordinalAddr < maxAddr; ordinalAddr += 4, incomingIndex++){
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        // -bitVal is zero for a null value and all bits set otherwise.
+        final int newVal = PlatformDependent.getInt(incomingValue + (incomingIndex * WIDTH)) & -bitVal;
+        final int tableIndex = PlatformDependent.getInt(ordinalAddr);
+        int chunkIndex = tableIndex >>> LBlockHashTable.BITS_IN_CHUNK;
+        int chunkOffset = tableIndex & LBlockHashTable.CHUNK_OFFSET_MASK;
+        final long orAddr = valueAddresses[chunkIndex] + (chunkOffset) * WIDTH;
+        final long bitUpdateAddr = bitAddresses[chunkIndex] + ((chunkOffset >>> 5) * 4);
+        final int bitUpdateVal = bitVal << (chunkOffset & 31);
+        PlatformDependent.putInt(orAddr, PlatformDependent.getInt(orAddr) | newVal);
+        PlatformDependent.putInt(bitUpdateAddr, PlatformDependent.getInt(bitUpdateAddr) | bitUpdateVal);
+      }
+    }
+  }
+
+  public static class BigIntBitOrAccumulator extends BaseSingleAccumulator {
+
+    private static final int WIDTH = 8;
+
+    public BigIntBitOrAccumulator(FieldVector input, FieldVector output) {
+      super(input, output);
+    }
+
+    @Override
+    void initialize(FieldVector vector) {
+      setNullAndZero(vector);
+    }
+
+    public void accumulate(final long memoryAddr, final int count) {
+      final long maxAddr = memoryAddr + count * 4;
+      List<ArrowBuf> buffers = getInput().getFieldBuffers();
+      final long incomingBit = buffers.get(0).memoryAddress();
+      final long incomingValue = buffers.get(1).memoryAddress();
+      final long[] bitAddresses = this.bitAddresses;
+      final long[] valueAddresses = this.valueAddresses;
+
+      int incomingIndex = 0;
+      for(long ordinalAddr = memoryAddr; ordinalAddr < maxAddr; ordinalAddr += 4, incomingIndex++){
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        final long newVal = PlatformDependent.getLong(incomingValue + (incomingIndex * WIDTH)) & -((long) bitVal);
+        final int tableIndex = PlatformDependent.getInt(ordinalAddr);
+        int chunkIndex = tableIndex >>> LBlockHashTable.BITS_IN_CHUNK;
+        int chunkOffset = tableIndex & LBlockHashTable.CHUNK_OFFSET_MASK;
+        final long orAddr = valueAddresses[chunkIndex] + (chunkOffset) * WIDTH;
+        final long bitUpdateAddr = bitAddresses[chunkIndex] + ((chunkOffset >>> 5) * 4);
+        final int bitUpdateVal = bitVal << (chunkOffset & 31);
+        PlatformDependent.putLong(orAddr, PlatformDependent.getLong(orAddr) | newVal);
+        PlatformDependent.putInt(bitUpdateAddr, PlatformDependent.getInt(bitUpdateAddr) | bitUpdateVal);
+      }
+    }
+  }
+}
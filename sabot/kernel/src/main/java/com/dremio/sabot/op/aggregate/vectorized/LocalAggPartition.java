@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.google.common.base.Stopwatch;
+
+/**
+ * One of the hash partitions of the incoming data of a {@link VectorizedHashAggOperator} aggregating in parallel.
+ *
+ * A partition copies its share of each incoming batch into its own vectors, and has its own pivot, hash table and
+ * accumulators over them, so that different partitions can be aggregated by different threads. As a grouping key
+ * always belongs to the same partition, partitions never share groups. All partitions unpivot and output their
+ * groups into the outgoing vectors of the operator.
+ */
+class LocalAggPartition implements AutoCloseable {
+
+  private final BufferAllocator allocator;
+  private final VectorContainer incoming;
+  private final List<FieldBufferCopier> copiers;
+  private final PivotDef pivot;
+  private final Accumulator accumulator;
+  private LBlockHashTable table;
+
+  private final Stopwatch pivotWatch = Stopwatch.createUnstarted();
+  private final Stopwatch insertWatch = Stopwatch.createUnstarted();
+  private final Stopwatch accumulateWatch = Stopwatch.createUnstarted();
+
+  /**
+   * @param allocator allocator used to pivot and insert the records of the partition.
+   * @param incoming vectors receiving the records of the partition, with the schema of the operator's incoming data.
+   * @param copiers copy records from the operator's incoming vectors into the partition's.
+   * @param pivot pivot definition from the partition's key vectors to the operator's outgoing key vectors.
+   * @param accumulator accumulators over the partition's vectors, outputting to the operator's outgoing vectors.
+   */
+  LocalAggPartition(BufferAllocator allocator, VectorContainer incoming, List<FieldBufferCopier> copiers, PivotDef pivot,
+      Accumulator accumulator) {
+    this.allocator = allocator;
+    this.incoming = incoming;
+    this.copiers = copiers;
+    this.pivot = pivot;
+    this.accumulator = accumulator;
+  }
+
+  /**
+   * Copy the records of the operator's current incoming batch that belong to this partition, and aggregate them.
+   * @param sv2Addr address of the indices of the records in the incoming batch, two bytes each.
+   * @param records number of records.
+   */
+  void consume(long sv2Addr, int records) {
+    try {
+      for (FieldBufferCopier copier : copiers) {
+        copier.copy(sv2Addr, records);
+      }
+      incoming.setAllCount(records);
+      VectorizedHashAggOperator.aggregate(allocator, pivot, table, accumulator, records,
+          pivotWatch, insertWatch, accumulateWatch);
+    } finally {
+      incoming.zeroVectors();
+    }
+  }
+
+  PivotDef getPivot() {
+    return pivot;
+  }
+
+  Accumulator getAccumulator() {
+    return accumulator;
+  }
+
+  LBlockHashTable getTable() {
+    return table;
+  }
+
+  void setTable(LBlockHashTable table) {
+    this.table = table;
+  }
+
+  Stopwatch getPivotWatch() {
+    return pivotWatch;
+  }
+
+  Stopwatch getInsertWatch() {
+    return insertWatch;
+  }
+
+  Stopwatch getAccumulateWatch() {
+    return accumulateWatch;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(table, accumulator, incoming);
+  }
+}
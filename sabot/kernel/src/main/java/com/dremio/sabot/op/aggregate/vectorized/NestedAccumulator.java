@@ -46,6 +46,13 @@ public class NestedAccumulator implements Accumulator {
     }
   }
 
+  @Override
+  public void reset() throws Exception {
+    for(Accumulator a : children){
+      a.reset();
+    }
+  }
+
   @Override
   public void close() throws Exception {
     AutoCloseables.close(children);
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.WritableBatch;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.common.ht2.XXH64;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Writes batches of partially aggregated data to disk, routing each record to one of a fixed number of partitions
+ * based on the hash of its grouping keys. All records for a given key end up in the same partition, so each partition
+ * can later be re-aggregated independently of the others.
+ *
+ * Partitioning only depends on the key values, so batches with different key vectors (e.g. the two sides of a join)
+ * are routed consistently as long as their keys pivot to the same layout.
+ *
+ * The hash is seeded with the depth of the partitions being written, so that re-partitioning a partition that is
+ * still too large distributes its keys differently than the level above it.
+ */
+public class SpillPartitioner implements AutoCloseable {
+
+  private static final int SV2_WIDTH = 2;
+
+  private final BufferAllocator allocator;
+  private final SpillManager spillManager;
+  private final int depth;
+  private final int partitionMask;
+  private final String name;
+  private final VectorContainer target;
+  private final SpilledPartition[] partitions;
+  private final int[] partitionCounts;
+  private final int[] partitionOffsets;
+  private int[] partitionIndices = new int[LBlockHashTable.MAX_VALUES_PER_BATCH];
+  private VectorAccessible copierSource;
+  private List<FieldBufferCopier> copiers;
+
+  /**
+   * @param allocator allocator used for the temporary buffers needed to route and write records.
+   * @param spillManager provides the files partitions are written to.
+   * @param schema schema of the batches to spill.
+   * @param partitionCount number of partitions, must be a power of two.
+   * @param depth depth of the partitions written by this partitioner.
+   * @param name unique name used to derive the spill file names.
+   */
+  public SpillPartitioner(BufferAllocator allocator, SpillManager spillManager, Schema schema, int partitionCount,
+      int depth, String name) {
+    this.allocator = allocator;
+    this.spillManager = spillManager;
+    this.depth = depth;
+    this.partitionMask = partitionCount - 1;
+    this.name = name;
+    this.partitions = new SpilledPartition[partitionCount];
+    this.partitionCounts = new int[partitionCount];
+    this.partitionOffsets = new int[partitionCount];
+    this.target = VectorContainer.create(allocator, schema);
+  }
+
+  /**
+   * Route the records currently held in source to their partitions and write them to disk.
+   * @param source batch to spill, must match the schema of this partitioner.
+   * @param keyPivot pivot definition whose incoming vectors are the grouping keys in source.
+   * @param records number of records in source.
+   * @return number of bytes written.
+   * @throws IOException
+   */
+  public long spill(VectorAccessible source, PivotDef keyPivot, int records) throws IOException {
+    return spill(source, keyPivot, records, null);
+  }
+
+  /**
+   * Route the records currently held in source to their partitions and write the ones that belong to a selected
+   * partition to disk. The partition of every record, including the ones that were not written, is available through
+   * {@link #getPartitionIndices()} until the next call.
+   * @param source batch to spill, must match the schema of this partitioner.
+   * @param keyPivot pivot definition whose incoming vectors are the keys in source.
+   * @param records number of records in source.
+   * @param selected partitions to write, indexed by partition. If null, all partitions are written.
+   * @return number of bytes written.
+   * @throws IOException
+   */
+  public long spill(VectorAccessible source, PivotDef keyPivot, int records, boolean[] selected) throws IOException {
+    if (records == 0) {
+      return 0;
+    }
+
+    computePartitions(keyPivot, records);
+
+    // bucket the record indices by partition so each partition can be copied with a single selection vector.
+    Arrays.fill(partitionCounts, 0);
+    for (int i = 0; i < records; i++) {
+      partitionCounts[partitionIndices[i]]++;
+    }
+    int offset = 0;
+    for (int p = 0; p < partitionOffsets.length; p++) {
+      partitionOffsets[p] = offset;
+      offset += partitionCounts[p];
+    }
+
+    if (source != copierSource) {
+      copiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(source), VectorContainer.getFieldVectors(target));
+      copierSource = source;
+    }
+
+    long written = 0;
+    try (ArrowBuf sv2 = allocator.buffer(records * SV2_WIDTH)) {
+      final long sv2Addr = sv2.memoryAddress();
+      final int[] positions = Arrays.copyOf(partitionOffsets, partitionOffsets.length);
+      for (int i = 0; i < records; i++) {
+        PlatformDependent.putShort(sv2Addr + (positions[partitionIndices[i]]++) * SV2_WIDTH, (short) i);
+      }
+
+      for (int p = 0; p < partitions.length; p++) {
+        final int count = partitionCounts[p];
+        if (count == 0 || (selected != null && !selected[p])) {
+          continue;
+        }
+
+        final long partitionSv2Addr = sv2Addr + partitionOffsets[p] * SV2_WIDTH;
+        for (FieldBufferCopier copier : copiers) {
+          copier.copy(partitionSv2Addr, count);
+        }
+        target.setAllCount(count);
+        written += getPartition(p).write(target, count);
+        target.zeroVectors();
+      }
+    }
+
+    return written;
+  }
+
+  /**
+   * @return the partition of each record routed by the last call to spill.
+   */
+  public int[] getPartitionIndices() {
+    return partitionIndices;
+  }
+
+  public int getPartitionCount() {
+    return partitions.length;
+  }
+
+  private void computePartitions(PivotDef keyPivot, int records) {
+    if (partitionIndices.length < records) {
+      partitionIndices = new int[records];
+    }
+    hashPartitions(allocator, keyPivot, records, depth, partitionMask, partitionIndices);
+  }
+
+  /**
+   * Compute the partition of each record by hashing its pivoted keys.
+   * @param allocator allocator used to pivot the keys.
+   * @param keyPivot pivot definition whose incoming vectors are the keys.
+   * @param records number of records to route.
+   * @param seed seed of the hash, so that different levels of partitioning distribute keys independently.
+   * @param partitionMask number of partitions minus one, the number of partitions being a power of two.
+   * @param partitionIndices receives the partition of each record.
+   */
+  static void hashPartitions(BufferAllocator allocator, PivotDef keyPivot, int records, long seed, int partitionMask,
+      int[] partitionIndices) {
+    final int blockWidth = keyPivot.getBlockWidth();
+    final boolean fixedOnly = keyPivot.getVariableCount() == 0;
+    final int dataWidth = fixedOnly ? blockWidth : blockWidth - LBlockHashTable.VAR_OFFSET_SIZE;
+
+    try (FixedBlockVector fbv = new FixedBlockVector(allocator, blockWidth);
+         VariableBlockVector var = new VariableBlockVector(allocator, keyPivot.getVariableCount())) {
+      Pivots.pivot(keyPivot, records, fbv, var);
+
+      long keyFixedAddr = fbv.getMemoryAddress();
+      final long keyVarAddr = var.getMemoryAddress();
+      for (int i = 0; i < records; i++, keyFixedAddr += blockWidth) {
+        final int hash;
+        if (fixedOnly) {
+          hash = XXH64.xxHash6432(keyFixedAddr, dataWidth, seed);
+        } else {
+          final long varAddr = keyVarAddr + PlatformDependent.getInt(keyFixedAddr + dataWidth);
+          final int varLen = PlatformDependent.getInt(varAddr);
+          hash = XXH64.xxHash6432(varAddr + LBlockHashTable.VAR_LENGTH_SIZE, varLen, XXH64.xxHash64(keyFixedAddr, dataWidth, seed));
+        }
+        partitionIndices[i] = hash & partitionMask;
+      }
+    }
+  }
+
+  private SpilledPartition getPartition(int index) {
+    if (partitions[index] == null) {
+      partitions[index] = new SpilledPartition(spillManager.getSpillFile(String.format("%s-%05d", name, index)), index, depth);
+    }
+    return partitions[index];
+  }
+
+  /**
+   * Complete writing of all partitions. Ownership of the returned partitions is handed to the caller.
+   * @return the partitions that received at least one record.
+   * @throws IOException
+   */
+  public List<SpilledPartition> finish() throws IOException {
+    final List<SpilledPartition> spilled = new ArrayList<>();
+    for (int p = 0; p < partitions.length; p++) {
+      if (partitions[p] != null) {
+        partitions[p].finishWriting();
+        spilled.add(partitions[p]);
+        partitions[p] = null;
+      }
+    }
+    return spilled;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(AutoCloseables.iter(partitions), AutoCloseables.iter(target));
+  }
+
+  /**
+   * A single partition of spilled data. Partitions are written once and then read back sequentially, batch by batch.
+   * Closing a partition deletes its spill file.
+   */
+  public static class SpilledPartition implements AutoCloseable {
+    private final SpillFile spillFile;
+    private final int index;
+    private final int depth;
+
+    private FSDataOutputStream output;
+    private FSDataInputStream input;
+    private int batchCount;
+    private int batchesRead;
+    private long recordCount;
+    private long sizeInBytes;
+
+    private SpilledPartition(SpillFile spillFile, int index, int depth) {
+      this.spillFile = spillFile;
+      this.index = index;
+      this.depth = depth;
+    }
+
+    private long write(VectorContainer container, int records) throws IOException {
+      if (output == null) {
+        output = spillFile.create();
+      }
+
+      final long start = output.getPos();
+      try (WritableBatch batch = WritableBatch.getBatchNoHVWrap(records, container, false)) {
+        new VectorAccessibleSerializable(batch, null).writeToStream(output);
+      }
+      final long written = output.getPos() - start;
+
+      sizeInBytes += written;
+      recordCount += records;
+      batchCount++;
+      return written;
+    }
+
+    private void finishWriting() throws IOException {
+      if (output != null) {
+        output.close();
+        output = null;
+      }
+    }
+
+    /**
+     * Read the next batch of this partition, transferring its vectors into the provided container. The container
+     * must have the same schema as the spilled data.
+     * @param allocator allocator used to read the batch.
+     * @param container target container.
+     * @return number of records read, or -1 if the partition has been fully read.
+     * @throws IOException
+     */
+    public int readNext(BufferAllocator allocator, VectorContainer container) throws IOException {
+      if (batchesRead == batchCount) {
+        return -1;
+      }
+
+      if (input == null) {
+        input = spillFile.open();
+      }
+
+      final VectorAccessibleSerializable serializable = new VectorAccessibleSerializable(allocator);
+      serializable.readFromStream(input);
+      final VectorContainer read = serializable.get();
+      final int records = read.getRecordCount();
+      try {
+        final Iterator<VectorWrapper<?>> targets = container.iterator();
+        for (VectorWrapper<?> w : read) {
+          w.getValueVector().makeTransferPair(targets.next().getValueVector()).transfer();
+        }
+      } finally {
+        read.close();
+      }
+
+      batchesRead++;
+      return container.setAllCount(records);
+    }
+
+    /**
+     * @return index of this partition among the partitions written by the same partitioner.
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    public int getDepth() {
+      return depth;
+    }
+
+    public int getBatchCount() {
+      return batchCount;
+    }
+
+    public long getRecordCount() {
+      return recordCount;
+    }
+
+    public long getSizeInBytes() {
+      return sizeInBytes;
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(output, input, spillFile);
+    }
+  }
+}
@@ -15,13 +15,24 @@
  */
 package com.dremio.sabot.op.aggregate.vectorized;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.NullableVarBinaryVector;
 import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.ExecutionSetupException;
@@ -32,10 +43,15 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.physical.config.HashAggregate;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.proto.helper.QueryIdHelper;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.store.LocalSyncableFileSystem;
+import com.dremio.exec.store.dfs.FileSystemPlugin;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.aggregate.vectorized.SpillPartitioner.SpilledPartition;
 import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
 import com.dremio.sabot.op.common.ht2.LBlockHashTable;
 import com.dremio.sabot.op.common.ht2.FieldVectorPair;
@@ -44,18 +60,44 @@ import com.dremio.sabot.op.common.ht2.PivotBuilder;
 import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.Pivots;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.sort.external.SpillManager;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.koloboke.collect.hash.HashConfig;
 
 import io.netty.buffer.ArrowBuf;
 import io.netty.util.internal.PlatformDependent;
 
+/**
+ * Hash aggregation that pivots the grouping keys into a {@link LBlockHashTable} and accumulates values using
+ * vectorized {@link Accumulator}s.
+ *
+ * When spilling is enabled and the operator runs low on memory, the partially aggregated content of the hash table
+ * is written to disk, routed to one of a fixed number of partitions by the hash of its keys, and the table starts
+ * over empty. Once all input is consumed, the remaining in-memory groups are spilled as well and each partition is
+ * re-aggregated on its own, combining the partial results. A partition that still doesn't fit in memory is split
+ * again into sub-partitions, up to a maximum depth.
+ *
+ * With a parallelism above one, incoming records are routed by the hash of their keys to as many
+ * {@link LocalAggPartition}s, each with its own hash table and accumulators, which are aggregated in parallel on the
+ * operator's executor. This scales a single large aggregation over the cores of a node without exchanging data
+ * between fragments. When spilling, the tables of all partitions are spilled, and spilled data is re-aggregated by
+ * the fragment thread alone.
+ */
 public class VectorizedHashAggOperator implements SingleInputOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedHashAggOperator.class);
 
   private static final int INITIAL_VAR_FIELD_AVERAGE_SIZE = 10;
+  private static final int ACCUMULATOR_WIDTH_ESTIMATE = 9; // 8 bytes of value plus validity
+  private static final int ORDINAL_SIZE = 4;
+  private static final int SV2_WIDTH = 2;
+  // differs from the seed of the hash tables (0) and from the seeds of the spill partitions (their depth), so that the
+  // keys of a local partition are still spread over the buckets of its table and over the spill partitions.
+  private static final long LOCAL_PARTITION_SEED = -1;
+
   private final OperatorContext context;
   private final VectorContainer outgoing;
   private final HashAggregate popConfig;
@@ -64,6 +106,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private final Stopwatch insertWatch = Stopwatch.createUnstarted();
   private final Stopwatch accumulateWatch = Stopwatch.createUnstarted();
   private final Stopwatch unpivotWatch = Stopwatch.createUnstarted();
+  private final Stopwatch spillWatch = Stopwatch.createUnstarted();
 
   private ImmutableList<FieldVector> vectorsToValidate;
   private LBlockHashTable table;
@@ -73,6 +116,27 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private VectorAccessible incoming;
   private State state = State.NEEDS_SETUP;
 
+  // spilling state
+  private boolean spillEnabled;
+  private int spillPartitions;
+  private int maxSpillDepth;
+  private PivotDef outgoingKeyPivot;
+  private SpillManager spillManager;
+  private SpillPartitioner spiller;
+  private VectorContainer spilledIncoming;
+  private final Deque<SpilledPartition> spilledPartitions = new ArrayDeque<>();
+  private int currentDepth;
+  private int spillerCount;
+  private int spillCount;
+  private long spillBytes;
+  private int maxDepthReached;
+
+  // parallel aggregation state, partitions are null when aggregating in the fragment thread only.
+  private ExecutorService executor;
+  private LocalAggPartition[] partitions;
+  private int activePartition;
+  private int[] partitionIndices = new int[0];
+
   public VectorizedHashAggOperator(HashAggregate popConfig, OperatorContext context) throws ExecutionSetupException {
     this.context = context;
     this.outgoing = new VectorContainer(context.getAllocator());
@@ -86,12 +150,88 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     this.pivot = createPivot();
     this.accumulator = AccumulatorBuilder.getAccumulator(context.getAllocator(), context.getClassProducer(), popConfig.getAggrExprs(), incoming, outgoing);
     this.outgoing.buildSchema();
-    this.table = new LBlockHashTable(HashConfig.getDefault(), pivot, context.getAllocator(), (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE, accumulator);
+
+    this.spillEnabled = context.getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_HASHAGG_SPILL);
+    this.spillPartitions = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_SPILL_PARTITIONS);
+    this.maxSpillDepth = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_SPILL_MAX_DEPTH);
+    this.outgoingKeyPivot = createOutgoingKeyPivot();
+
+    final int parallelism = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_PARALLELISM);
+    if(parallelism > 1 && !popConfig.getGroupByExprs().isEmpty()){
+      this.executor = getExecutor();
+    }
+    if(executor != null){
+      setupPartitions(parallelism);
+    }else{
+      this.table = newTable();
+    }
 
     state = State.CAN_CONSUME;
     return outgoing;
   }
 
+  private LBlockHashTable newTable() {
+    return newTable(pivot, accumulator);
+  }
+
+  private LBlockHashTable newTable(PivotDef pivot, Accumulator accumulator) {
+    return new LBlockHashTable(HashConfig.getDefault(), pivot, context.getAllocator(), (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE, accumulator);
+  }
+
+  private ExecutorService getExecutor() {
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      logger.debug("No executor available, aggregating in the fragment thread only.");
+      return null;
+    }
+  }
+
+  /**
+   * Create the local partitions aggregating in parallel. Each partition copies its records into its own vectors, its
+   * pivot and accumulators read from them and write to the outgoing vectors. The pivot and accumulators of the
+   * operator itself are then only used to route the incoming records and to define the outgoing vectors.
+   */
+  private void setupPartitions(int count) throws Exception {
+    final int keyCount = popConfig.getGroupByExprs().size();
+    final List<FieldVector> incomingVectors = VectorContainer.getFieldVectors(incoming);
+    final List<FieldVector> outgoingVectors = VectorContainer.getFieldVectors(outgoing);
+
+    partitions = new LocalAggPartition[count];
+    for(int p = 0; p < count; p++){
+      final VectorContainer partitionIncoming = VectorContainer.create(context.getAllocator(), incoming.getSchema());
+      final List<FieldVectorPair> fvps = new ArrayList<>();
+      for(int i = 0; i < keyCount; i++){
+        final ValueVectorReadExpression vvread = (ValueVectorReadExpression) context.getClassProducer()
+            .materialize(popConfig.getGroupByExprs().get(i).getExpr(), partitionIncoming);
+        final FieldVector keyVector = partitionIncoming.getValueAccessorById(FieldVector.class, vvread.getFieldId().getFieldIds()).getValueVector();
+        fvps.add(new FieldVectorPair(keyVector, outgoingVectors.get(i)));
+      }
+      final PivotDef partitionPivot = PivotBuilder.getBlockDefinition(fvps);
+      final Accumulator partitionAccumulator = AccumulatorBuilder.getAccumulator(context.getClassProducer(),
+          popConfig.getAggrExprs(), partitionIncoming, outgoingVectors.subList(keyCount, outgoingVectors.size()));
+      partitions[p] = new LocalAggPartition(context.getAllocator(), partitionIncoming,
+          FieldBufferCopier.getCopiers(incomingVectors, VectorContainer.getFieldVectors(partitionIncoming)),
+          partitionPivot, partitionAccumulator);
+      partitions[p].setTable(newTable(partitionPivot, partitionAccumulator));
+    }
+
+    AutoCloseables.close(accumulator);
+    accumulator = null;
+    activatePartition(0);
+    context.getStats().setLongStat(Metric.PARALLEL_PARTITIONS, count);
+  }
+
+  /**
+   * Point the table and accumulator of the operator to the ones of a local partition, to spill or output its groups.
+   */
+  private void activatePartition(int index) {
+    activePartition = index;
+    table = partitions[index].getTable();
+    accumulator = partitions[index].getAccumulator();
+    outputBatchCount = 0;
+  }
+
   private PivotDef createPivot(){
     final List<NamedExpression> groupByExpressions = popConfig.getGroupByExprs();
     final ImmutableList.Builder<FieldVector> validationVectors = ImmutableList.builder();
@@ -123,17 +263,56 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     return PivotBuilder.getBlockDefinition(fvps);
   }
 
+  /**
+   * Pivot definition over the outgoing key vectors, used to partition the groups being spilled.
+   */
+  private PivotDef createOutgoingKeyPivot(){
+    final List<FieldVector> outgoingVectors = VectorContainer.getFieldVectors(outgoing);
+    final List<FieldVectorPair> fvps = new ArrayList<>();
+    for (int i = 0; i < popConfig.getGroupByExprs().size(); i++) {
+      fvps.add(new FieldVectorPair(outgoingVectors.get(i), outgoingVectors.get(i)));
+    }
+    return PivotBuilder.getBlockDefinition(fvps);
+  }
+
   @Override
   public void consumeData(int records) throws Exception {
     state.is(State.CAN_CONSUME);
+    consumeBatch(records);
+  }
+
+  /**
+   * Aggregate the current batch of the incoming vectors the pivot and accumulators are bound to, spilling the hash
+   * table first if it may not have enough memory to absorb the batch.
+   */
+  private void consumeBatch(int records) throws Exception {
+    if(partitions != null){
+      consumeBatchInParallel(records);
+      return;
+    }
+
+    if(shouldSpill(records)){
+      spillTable();
+    }
 
     // ensure that none of the variable length vectors are corrupt so we can avoid doing bounds checking later.
     for(FieldVector v : vectorsToValidate){
       VariableLengthValidator.validateVariable(v, records);
     }
 
-    try(FixedBlockVector fbv = new FixedBlockVector(context.getAllocator(), pivot.getBlockWidth());
-        VariableBlockVector var = new VariableBlockVector(context.getAllocator(), pivot.getVariableCount());
+    aggregate(context.getAllocator(), pivot, table, accumulator, records, pivotWatch, insertWatch, accumulateWatch);
+
+    updateStats();
+  }
+
+  /**
+   * Pivot the keys of the records held by the incoming vectors of the pivot, add them to the table and accumulate
+   * their values.
+   */
+  static void aggregate(BufferAllocator allocator, PivotDef pivot, LBlockHashTable table, Accumulator accumulator,
+      int records, Stopwatch pivotWatch, Stopwatch insertWatch, Stopwatch accumulateWatch) {
+    try(FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+        VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());
         ){
       // first we pivot.
       pivotWatch.start();
@@ -142,12 +321,12 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       final long keyFixedAddr = fbv.getMemoryAddress();
       final long keyVarAddr = var.getMemoryAddress();
 
-      try(ArrowBuf offsets = context.getAllocator().buffer(records * 4)){
+      try(ArrowBuf offsets = allocator.buffer(records * ORDINAL_SIZE)){
         long offsetAddr = offsets.memoryAddress();
 
         // then we add all values to table.
         insertWatch.start();
-        for(int i = 0; i < records; i++, offsetAddr += 4){
+        for(int i = 0; i < records; i++, offsetAddr += ORDINAL_SIZE){
           PlatformDependent.putInt(offsetAddr, table.add(keyFixedAddr, keyVarAddr, i));
         }
         insertWatch.stop();
@@ -159,14 +338,370 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       }
 
     }
+  }
+
+  /**
+   * Route the records of the current incoming batch to the local partitions by the hash of their keys, then let the
+   * partitions copy and aggregate their records in parallel.
+   */
+  private void consumeBatchInParallel(int records) throws Exception {
+    for(FieldVector v : vectorsToValidate){
+      VariableLengthValidator.validateVariable(v, records);
+    }
+
+    if(partitionIndices.length < records){
+      partitionIndices = new int[records];
+    }
+    pivotWatch.start();
+    SpillPartitioner.hashPartitions(context.getAllocator(), pivot, records, LOCAL_PARTITION_SEED, partitions.length - 1, partitionIndices);
+    pivotWatch.stop();
+
+    final int[] counts = new int[partitions.length];
+    for(int i = 0; i < records; i++){
+      counts[partitionIndices[i]]++;
+    }
+
+    if(shouldSpill(counts)){
+      spillTables();
+    }
+
+    // bucket the record indices by partition, so that each partition copies its records with a single selection vector.
+    final int[] offsets = new int[partitions.length];
+    for(int p = 1; p < partitions.length; p++){
+      offsets[p] = offsets[p - 1] + counts[p - 1];
+    }
+    try(ArrowBuf sv2 = context.getAllocator().buffer(records * SV2_WIDTH)){
+      final long sv2Addr = sv2.memoryAddress();
+      final int[] positions = Arrays.copyOf(offsets, offsets.length);
+      for(int i = 0; i < records; i++){
+        PlatformDependent.putShort(sv2Addr + (positions[partitionIndices[i]]++) * SV2_WIDTH, (short) i);
+      }
+      aggregatePartitions(sv2Addr, counts, offsets);
+    }
+
+    updateStats();
+  }
+
+  /**
+   * Aggregate the routed records of every partition, on the executor except for the last partition which is
+   * aggregated by the fragment thread.
+   */
+  private void aggregatePartitions(long sv2Addr, int[] counts, int[] offsets) throws Exception {
+    int last = -1;
+    for(int p = 0; p < partitions.length; p++){
+      if(counts[p] > 0){
+        last = p;
+      }
+    }
+
+    final List<Future<?>> futures = new ArrayList<>();
+    Throwable failure = null;
+    try {
+      for(int p = 0; p < last; p++){
+        if(counts[p] == 0){
+          continue;
+        }
+        final LocalAggPartition partition = partitions[p];
+        final long partitionSv2Addr = sv2Addr + offsets[p] * SV2_WIDTH;
+        final int partitionRecords = counts[p];
+        final Runnable task = new Runnable() {
+          @Override
+          public void run() {
+            partition.consume(partitionSv2Addr, partitionRecords);
+          }
+        };
+        try {
+          futures.add(executor.submit(task));
+        } catch (RejectedExecutionException e) {
+          task.run();
+        }
+      }
+      if(last != -1){
+        partitions[last].consume(sv2Addr + offsets[last] * SV2_WIDTH, counts[last]);
+      }
+    } catch (Throwable t) {
+      failure = t;
+    }
+
+    // tasks read the incoming vectors and the routing buffer, wait for all of them before releasing those.
+    boolean interrupted = false;
+    for(Future<?> future : futures){
+      while(true){
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          if(failure == null){
+            failure = e.getCause();
+          }else{
+            failure.addSuppressed(e.getCause());
+          }
+          break;
+        }
+      }
+    }
+    if(interrupted){
+      Thread.currentThread().interrupt();
+    }
+    if(failure != null){
+      Throwables.propagateIfPossible(failure, Exception.class);
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * Estimate whether the hash table could run out of memory while consuming a batch, assuming the worst case where
+   * every record is a new group. Enough memory is also kept aside to be able to spill the table afterwards.
+   */
+  private boolean shouldSpill(int records){
+    if(!spillEnabled || table.size() == 0 || currentDepth >= maxSpillDepth){
+      return false;
+    }
+
+    return context.getAllocator().getHeadroom() < requiredMemory(table, records) + spillReserve();
+  }
+
+  /**
+   * Estimate whether the tables of the local partitions could run out of memory while consuming the records routed
+   * to them.
+   * @param records number of records routed to each partition.
+   */
+  private boolean shouldSpill(int[] records){
+    if(!spillEnabled || tableSize() == 0 || currentDepth >= maxSpillDepth){
+      return false;
+    }
+
+    long required = spillReserve();
+    for(int p = 0; p < partitions.length; p++){
+      required += requiredMemory(partitions[p].getTable(), records[p]);
+      // copying the records into the partition.
+      required += ((long) records[p]) * groupWidth();
+    }
+    return context.getAllocator().getHeadroom() < required;
+  }
 
+  private int keyWidth(){
+    return pivot.getBlockWidth() + pivot.getVariableCount() * INITIAL_VAR_FIELD_AVERAGE_SIZE;
+  }
+
+  private int groupWidth(){
+    return keyWidth() + popConfig.getAggrExprs().size() * ACCUMULATOR_WIDTH_ESTIMATE;
+  }
+
+  private long requiredMemory(LBlockHashTable table, int records){
+    final int newBlocks = Math.max(0, (int) Math.ceil((table.size() + records) / (LBlockHashTable.MAX_VALUES_PER_BATCH * 1.0d)) - table.blocks());
+    long required = ((long) newBlocks) * LBlockHashTable.MAX_VALUES_PER_BATCH * groupWidth();
+
+    // pivoting the batch and tracking its ordinals.
+    required += ((long) records) * (keyWidth() + ORDINAL_SIZE);
+
+    // rehashing allocates a new control block array while the old one is still in use.
+    if((table.size() + records) * 2L > table.capacity()){
+      required += table.capacity() * 2L * LBlockHashTable.CONTROL_WIDTH;
+    }
+    return required;
+  }
+
+  private long spillReserve(){
+    // spilling a block needs a copy of it plus the pivoted keys.
+    return 2L * LBlockHashTable.MAX_VALUES_PER_BATCH * groupWidth();
+  }
+
+  /**
+   * @return number of groups in the hash tables of the operator.
+   */
+  private int tableSize(){
+    if(partitions == null){
+      return table.size();
+    }
+    int size = 0;
+    for(LocalAggPartition partition : partitions){
+      size += partition.getTable().size();
+    }
+    return size;
+  }
+
+  /**
+   * Write all groups currently in the hash table to the spill partitions of the current depth, then start over with
+   * an empty table.
+   */
+  private void spillTable() throws Exception {
+    spillWatch.start();
+    try {
+      if(spiller == null){
+        spiller = new SpillPartitioner(context.getAllocator(), getSpillManager(), outgoing.getSchema(),
+            spillPartitions, currentDepth + 1, String.format("agg%05d", spillerCount++));
+      }
+
+      final int blocks = table.blocks();
+      for(int i = 0; i < blocks; i++){
+        final int records = Math.min(LBlockHashTable.MAX_VALUES_PER_BATCH, table.size() - (i * LBlockHashTable.MAX_VALUES_PER_BATCH));
+        table.unpivot(i, records);
+        accumulator.output(i);
+        outgoing.setAllCount(records);
+        spillBytes += spiller.spill(outgoing, outgoingKeyPivot, records);
+        outgoing.zeroVectors();
+      }
+      spillCount++;
+      resetTable();
+    } finally {
+      spillWatch.stop();
+    }
+    logger.debug("Spilled hash aggregation table at depth {}, {} bytes spilled so far.", currentDepth, spillBytes);
     updateStats();
   }
 
+  /**
+   * Write the groups of all local partitions to the spill partitions of the current depth.
+   */
+  private void spillTables() throws Exception {
+    for(int p = 0; p < partitions.length; p++){
+      activatePartition(p);
+      if(table.size() > 0){
+        spillTable();
+      }
+    }
+  }
+
+  /**
+   * If the table was spilled while processing the current input, spill what is left in memory as well and queue the
+   * resulting partitions for re-aggregation.
+   */
+  private void finishSpilling() throws Exception {
+    if(spiller == null){
+      return;
+    }
+
+    if(partitions != null){
+      spillTables();
+    }else if(table.size() > 0){
+      spillTable();
+    }
+
+    for(SpilledPartition partition : spiller.finish()){
+      spilledPartitions.push(partition);
+    }
+    AutoCloseables.close(spiller);
+    spiller = null;
+  }
+
+  private void resetTable() throws Exception {
+    AutoCloseables.close(table);
+    table = null;
+    accumulator.reset();
+    if(partitions != null){
+      final LocalAggPartition partition = partitions[activePartition];
+      partition.setTable(null);
+      table = newTable(partition.getPivot(), accumulator);
+      partition.setTable(table);
+    }else{
+      table = newTable();
+    }
+    outputBatchCount = 0;
+  }
+
+  private SpillManager getSpillManager(){
+    if(spillManager == null){
+      final Configuration conf = FileSystemPlugin.getNewFsConf();
+      conf.set(SpillManager.DREMIO_LOCAL_IMPL_STRING, LocalSyncableFileSystem.class.getName());
+      // If the location URI doesn't contain any schema, fall back to local.
+      conf.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
+
+      final FragmentHandle handle = context.getFragmentHandle();
+      final String id = String.format("aggspill-%s.%s.%s.%s", QueryIdHelper.getQueryId(handle.getQueryId()),
+          handle.getMajorFragmentId(), handle.getMinorFragmentId(), popConfig.getOperatorId());
+      spillManager = new SpillManager(context.getConfig(), context.getOptions(), id, conf, "aggregation spilling");
+    }
+    return spillManager;
+  }
+
+  /**
+   * Switch the pivot and accumulators from the incoming data to the spilled partial results. Partial results have
+   * the same schema as the outgoing batch: grouping keys followed by one column per accumulator.
+   */
+  private void setupSpillMerge() throws Exception {
+    final int keyCount = popConfig.getGroupByExprs().size();
+    final List<FieldVector> outgoingVectors = VectorContainer.getFieldVectors(outgoing);
+    spilledIncoming = VectorContainer.create(context.getAllocator(), outgoing.getSchema());
+    final List<FieldVector> spilledVectors = VectorContainer.getFieldVectors(spilledIncoming);
+
+    final ImmutableList.Builder<FieldVector> validationVectors = ImmutableList.builder();
+    final List<FieldVectorPair> fvps = new ArrayList<>();
+    for(int i = 0; i < keyCount; i++){
+      final FieldVector keyVector = spilledVectors.get(i);
+      if(keyVector instanceof NullableVarCharVector || keyVector instanceof NullableVarBinaryVector){
+        validationVectors.add(keyVector);
+      }
+      fvps.add(new FieldVectorPair(keyVector, outgoingVectors.get(i)));
+    }
+
+    final Accumulator mergeAccumulator = AccumulatorBuilder.getMergeAccumulator(context.getClassProducer(), popConfig.getAggrExprs(), incoming,
+        spilledVectors.subList(keyCount, spilledVectors.size()), outgoingVectors.subList(keyCount, outgoingVectors.size()));
+
+    if(partitions != null){
+      // spilled data is re-aggregated by the fragment thread alone.
+      AutoCloseables.close(partitions);
+      partitions = null;
+      accumulator = null;
+    }else{
+      AutoCloseables.close(table, accumulator);
+    }
+    table = null;
+    accumulator = mergeAccumulator;
+    pivot = PivotBuilder.getBlockDefinition(fvps);
+    vectorsToValidate = validationVectors.build();
+    table = newTable();
+    outputBatchCount = 0;
+  }
+
+  /**
+   * Load the next spilled partition into an empty hash table. The partition may itself spill into sub-partitions,
+   * which are then processed before the remaining partitions.
+   */
+  private void aggregateNextPartition() throws Exception {
+    resetTable();
+    try(SpilledPartition partition = spilledPartitions.pop()){
+      currentDepth = partition.getDepth();
+      maxDepthReached = Math.max(maxDepthReached, currentDepth);
+      int records;
+      while((records = partition.readNext(context.getAllocator(), spilledIncoming)) != -1){
+        consumeBatch(records);
+        spilledIncoming.zeroVectors();
+      }
+    }
+    finishSpilling();
+  }
+
   private void updateStats(){
     final OperatorStats stats = context.getStats();
 
-    if(table != null){
+    long pivotNanos = pivotWatch.elapsed(TimeUnit.NANOSECONDS);
+    long insertNanos = insertWatch.elapsed(TimeUnit.NANOSECONDS);
+    long accumulateNanos = accumulateWatch.elapsed(TimeUnit.NANOSECONDS);
+    if(partitions != null){
+      long entries = 0;
+      long buckets = 0;
+      long resizing = 0;
+      long resizingNanos = 0;
+      for(LocalAggPartition partition : partitions){
+        if(partition == null || partition.getTable() == null){
+          continue;
+        }
+        entries += partition.getTable().size();
+        buckets += partition.getTable().capacity();
+        resizing += partition.getTable().getRehashCount();
+        resizingNanos += partition.getTable().getRehashTime(TimeUnit.NANOSECONDS);
+        pivotNanos += partition.getPivotWatch().elapsed(TimeUnit.NANOSECONDS);
+        insertNanos += partition.getInsertWatch().elapsed(TimeUnit.NANOSECONDS);
+        accumulateNanos += partition.getAccumulateWatch().elapsed(TimeUnit.NANOSECONDS);
+      }
+      stats.setLongStat(Metric.NUM_ENTRIES, entries);
+      stats.setLongStat(Metric.NUM_BUCKETS, buckets);
+      stats.setLongStat(Metric.NUM_RESIZING, resizing);
+      stats.setLongStat(Metric.RESIZING_TIME_NANOS, resizingNanos);
+    }else if(table != null){
       stats.setLongStat(Metric.NUM_ENTRIES, table.size());
       stats.setLongStat(Metric.NUM_BUCKETS,  table.capacity());
       stats.setLongStat(Metric.NUM_RESIZING, table.getRehashCount());
@@ -174,20 +709,31 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     }
 
     stats.setLongStat(Metric.VECTORIZED, 1);
-    stats.setLongStat(Metric.PIVOT_TIME_NANOS, pivotWatch.elapsed(TimeUnit.NANOSECONDS));
-    stats.setLongStat(Metric.INSERT_TIME_NANOS, insertWatch.elapsed(TimeUnit.NANOSECONDS));
-    stats.setLongStat(Metric.ACCUMULATE_TIME_NANOS, accumulateWatch.elapsed(TimeUnit.NANOSECONDS));
+    stats.setLongStat(Metric.PIVOT_TIME_NANOS, pivotNanos);
+    stats.setLongStat(Metric.INSERT_TIME_NANOS, insertNanos);
+    stats.setLongStat(Metric.ACCUMULATE_TIME_NANOS, accumulateNanos);
     stats.setLongStat(Metric.REVERSE_TIME_NANOS, 0);
     stats.setLongStat(Metric.UNPIVOT_TIME_NANOS, unpivotWatch.elapsed(TimeUnit.NANOSECONDS));
+    stats.setLongStat(Metric.SPILL_COUNT, spillCount);
+    stats.setLongStat(Metric.SPILL_BYTES, spillBytes);
+    stats.setLongStat(Metric.SPILL_TIME_NANOS, spillWatch.elapsed(TimeUnit.NANOSECONDS));
+    stats.setLongStat(Metric.SPILL_MAX_DEPTH, maxDepthReached);
   }
 
   @Override
   public int outputData() throws Exception {
     state.is(State.CAN_PRODUCE);
 
-    if(outputBatchCount ==  table.blocks()){
-      state = State.DONE;
-      return 0;
+    while(outputBatchCount == table.blocks()){
+      if(partitions != null && activePartition + 1 < partitions.length){
+        activatePartition(activePartition + 1);
+        continue;
+      }
+      if(spilledPartitions.isEmpty()){
+        state = State.DONE;
+        return 0;
+      }
+      aggregateNextPartition();
     }
 
     final int recordsInBatch = Math.min(LBlockHashTable.MAX_VALUES_PER_BATCH, table.size() - (outputBatchCount * LBlockHashTable.MAX_VALUES_PER_BATCH));
@@ -208,7 +754,15 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   public void noMoreToConsume() throws Exception {
     state.is(State.CAN_CONSUME);
 
-    if(table.size() == 0){
+    if(spiller != null){
+      // part of the input was spilled: move everything to disk and re-aggregate partition by partition.
+      finishSpilling();
+      setupSpillMerge();
+    }else if(partitions != null){
+      activatePartition(0);
+    }
+
+    if(tableSize() == 0 && spilledPartitions.isEmpty()){
       state = State.DONE;
     }else{
       state = State.CAN_PRODUCE;
@@ -228,7 +782,12 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   @Override
   public void close() throws Exception {
     updateStats();
-    AutoCloseables.close(table, accumulator, outgoing);
+    // the table and accumulator of the operator belong to the active partition when aggregating in parallel.
+    AutoCloseables.close(
+        partitions == null ? AutoCloseables.iter(table, accumulator) : AutoCloseables.iter(partitions),
+        AutoCloseables.iter(spiller, spilledIncoming, outgoing),
+        spilledPartitions,
+        Collections.singletonList(spillManager));
   }
 
   private static UserException unsup(String msg){
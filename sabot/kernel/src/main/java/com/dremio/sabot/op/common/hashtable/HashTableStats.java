@@ -60,7 +60,13 @@ public class HashTableStats {
     PROBE_COPY_NANOS,
     BUILD_COPY_NANOS,
     BUILD_COPY_NOMATCH_NANOS,
-    LINK_TIME_NANOS
+    LINK_TIME_NANOS,
+    SPILL_COUNT,        // number of times the hash table was spilled to disk
+    SPILL_BYTES,        // total number of bytes written to disk
+    SPILL_TIME_NANOS,   // time spent spilling to disk
+    SPILL_MAX_DEPTH,    // deepest level of re-partitioning reached while processing spilled data
+    RUNTIME_FILTER_KEYS, // number of build keys in the runtime filter sent to the probe side scan
+    PARALLEL_PARTITIONS  // number of hash partitions of the input aggregated in parallel within the fragment
     ;
 
     @Override
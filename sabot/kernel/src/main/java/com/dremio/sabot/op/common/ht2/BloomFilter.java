@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.common.util.Numbers;
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * A bloom filter over keys pivoted with {@link Pivots}. Two keys that are pivoted with the same definition hash to the
+ * same value, whatever the batch they come from, so that keys pivoted on one side of a join can be tested against
+ * keys pivoted on the other.
+ */
+public class BloomFilter implements AutoCloseable {
+
+  private static final int HASH_FUNCTIONS = 3;
+  private static final int BITS_PER_KEY = 10;
+  private static final int MIN_SIZE_IN_BYTES = 8;
+
+  private final ArrowBuf bits;
+  private final long bitsAddr;
+  private final int bitMask;
+
+  /**
+   * Create a filter sized for the given number of keys, with a false positive probability of about 2%.
+   * @param allocator allocator of the filter bits.
+   * @param expectedKeys number of keys that will be added.
+   */
+  public BloomFilter(BufferAllocator allocator, long expectedKeys) {
+    final long sizeInBytes = Math.max(MIN_SIZE_IN_BYTES, (expectedKeys * BITS_PER_KEY + 7) / 8);
+    Preconditions.checkArgument(sizeInBytes <= (1 << 27), "Bloom filter for %s keys is too large.", expectedKeys);
+    final int size = Numbers.nextPowerOfTwo((int) sizeInBytes);
+    this.bits = allocator.buffer(size);
+    this.bits.setZero(0, size);
+    this.bitsAddr = bits.memoryAddress();
+    this.bitMask = size * 8 - 1;
+  }
+
+  public int getSizeInBytes() {
+    return (bitMask + 1) / 8;
+  }
+
+  public void put(long hash) {
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < HASH_FUNCTIONS; i++) {
+      final int bit = (h1 + i * h2) & bitMask;
+      final long addr = bitsAddr + (bit >>> 3);
+      PlatformDependent.putByte(addr, (byte) (PlatformDependent.getByte(addr) | (1 << (bit & 7))));
+    }
+  }
+
+  public boolean mightContain(long hash) {
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < HASH_FUNCTIONS; i++) {
+      final int bit = (h1 + i * h2) & bitMask;
+      if ((PlatformDependent.getByte(bitsAddr + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compute the hash of each of the given pivoted keys.
+   * @param pivot definition the keys were pivoted with.
+   * @param fixed fixed part of the keys.
+   * @param variable variable part of the keys.
+   * @param count number of keys.
+   * @param hashesAddr address where the hashes are written, 8 bytes per key.
+   */
+  public static void hashKeys(PivotDef pivot, FixedBlockVector fixed, VariableBlockVector variable, int count, long hashesAddr) {
+    final int blockWidth = pivot.getBlockWidth();
+    final boolean fixedOnly = pivot.getVariableCount() == 0;
+    // the offset of the variable part changes from a batch to the other, skip it.
+    final int dataWidth = fixedOnly ? blockWidth : blockWidth - LBlockHashTable.VAR_OFFSET_SIZE;
+    final long varAddr = fixedOnly ? 0 : variable.getMemoryAddress();
+
+    long keyAddr = fixed.getMemoryAddress();
+    final long maxAddr = hashesAddr + count * 8;
+    for (long addr = hashesAddr; addr < maxAddr; addr += 8, keyAddr += blockWidth) {
+      long hash = XXH64.xxHash64(keyAddr, dataWidth, 0);
+      if (!fixedOnly) {
+        final long keyVarAddr = varAddr + PlatformDependent.getInt(keyAddr + dataWidth);
+        hash = XXH64.xxHash64(keyVarAddr + LBlockHashTable.VAR_LENGTH_SIZE, PlatformDependent.getInt(keyVarAddr), hash);
+      }
+      PlatformDependent.putLong(addr, hash);
+    }
+  }
+
+  /**
+   * Find the keys that might be in the filter.
+   * @param pivot definition the keys were pivoted with.
+   * @param fixed fixed part of the keys.
+   * @param variable variable part of the keys.
+   * @param count number of keys.
+   * @param scratchAddr address of a buffer of 8 bytes per key, used to hold their hashes.
+   * @param sv2Addr address where the two byte indices of the matching keys are written.
+   * @return number of matching keys.
+   */
+  public int find(PivotDef pivot, FixedBlockVector fixed, VariableBlockVector variable, int count, long scratchAddr, long sv2Addr) {
+    hashKeys(pivot, fixed, variable, count, scratchAddr);
+    int matches = 0;
+    for (int i = 0; i < count; i++) {
+      if (mightContain(PlatformDependent.getLong(scratchAddr + i * 8))) {
+        PlatformDependent.putShort(sv2Addr + matches * 2, (short) i);
+        matches++;
+      }
+    }
+    return matches;
+  }
+
+  @Override
+  public void close() {
+    bits.release();
+  }
+}
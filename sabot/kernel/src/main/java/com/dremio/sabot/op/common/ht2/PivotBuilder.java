@@ -45,7 +45,7 @@ public class PivotBuilder {
       CompleteType type = CompleteType.fromField(v.getIncoming().getField());
       switch(type.toMinorType()){
       case BIT:
-        defs.add(new VectorPivotDef(FieldType.BIT, bitOffset >>> BITS_TO_4BYTE_WORDS, bitOffset, bitOffset + 1, v));
+        defs.add(new VectorPivotDef(FieldType.BIT, nullByteOffset(bitOffset), bitOffset, bitOffset + 1, v));
         bitOffset+= 2;
         break;
 
@@ -55,7 +55,7 @@ public class PivotBuilder {
       case TIMESTAMP:
       case FLOAT8:
       case INTERVALDAY:
-        defs.add(new VectorPivotDef(FieldType.EIGHT_BYTE, bitOffset >>> BITS_TO_4BYTE_WORDS, bitOffset, fixedOffset, v));
+        defs.add(new VectorPivotDef(FieldType.EIGHT_BYTE, nullByteOffset(bitOffset), bitOffset, fixedOffset, v));
         bitOffset++;
         fixedOffset += 8;
         break;
@@ -65,14 +65,14 @@ public class PivotBuilder {
       case INTERVALYEAR:
       case TIME:
       case INT:
-        defs.add(new VectorPivotDef(FieldType.FOUR_BYTE, bitOffset >>> BITS_TO_4BYTE_WORDS, bitOffset, fixedOffset, v));
+        defs.add(new VectorPivotDef(FieldType.FOUR_BYTE, nullByteOffset(bitOffset), bitOffset, fixedOffset, v));
         bitOffset++;
         fixedOffset += 4;
         break;
 
       // 16 byte
       case DECIMAL:
-        defs.add(new VectorPivotDef(FieldType.SIXTEEN_BYTE, bitOffset >>> BITS_TO_4BYTE_WORDS, bitOffset, fixedOffset, v));
+        defs.add(new VectorPivotDef(FieldType.SIXTEEN_BYTE, nullByteOffset(bitOffset), bitOffset, fixedOffset, v));
         bitOffset++;
         fixedOffset += 16;
         break;
@@ -80,7 +80,7 @@ public class PivotBuilder {
       // variable
       case VARBINARY:
       case VARCHAR:
-        defs.add(new VectorPivotDef(FieldType.VARIABLE, bitOffset >>> BITS_TO_4BYTE_WORDS, bitOffset, variableOffset, v));
+        defs.add(new VectorPivotDef(FieldType.VARIABLE, nullByteOffset(bitOffset), bitOffset, variableOffset, v));
         bitOffset++;
         variableOffset++;
         break;
@@ -121,6 +121,14 @@ public class PivotBuilder {
     return new PivotDef(blockWidth, variableOffset, bitOffset, shiftedDefs);
   }
 
+  /**
+   * Byte offset of the four byte word holding the given bit. Bits are read and written a word at a time, so words must
+   * not overlap.
+   */
+  public static int nullByteOffset(int bitOffset) {
+    return (bitOffset >>> BITS_TO_4BYTE_WORDS) * 4;
+  }
+
   public static enum FieldType {
     BIT(FieldMode.BIT),
     FOUR_BYTE(FieldMode.FIXED),
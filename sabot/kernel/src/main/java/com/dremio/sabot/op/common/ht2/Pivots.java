@@ -27,6 +27,7 @@ public class Pivots {
 
   public static int FOUR_BYTE = 4;
   public static int EIGHT_BYTE = 8;
+  public static int SIXTEEN_BYTE = 16;
   private static final int WORD_BITS = 64;
   private static final int WORD_BYTES = 8;
   private static final long ALL_SET = 0xFFFFFFFFFFFFFFFFL;
@@ -135,8 +136,12 @@ public class Pivots {
       case EIGHT_BYTE:
         pivot8Bytes(def, fixedBlock, count);
         break;
-      case BIT:
       case SIXTEEN_BYTE:
+        pivot16Bytes(def, fixedBlock, count);
+        break;
+      case BIT:
+        pivotBit(def, fixedBlock, count);
+        break;
       case VARIABLE:
       default:
         throw new UnsupportedOperationException("Unknown type: " + Describer.describe(def.getIncomingVector().getField()));
@@ -318,6 +323,78 @@ public class Pivots {
   }
 
 
+  static void pivotBit(
+      VectorPivotDef def,
+      FixedBlockVector fixedBlock,
+      final int count
+      ){
+    final FieldVector field = def.getIncomingVector();
+    final List<ArrowBuf> buffers = field.getFieldBuffers();
+
+    Preconditions.checkArgument(buffers.size() == 2, "A bit vector should have two field buffers. %s has %s buffers.", Describer.describe(field.getField()), buffers.size());
+
+    final int blockLength = fixedBlock.getBlockWidth();
+
+    // the validity and the value bits are adjacent but may fall in different words.
+    final int nullBitOffset = def.getNullBitOffset();
+    final int valueBitOffset = def.getOffset();
+    final long srcBitsAddr = buffers.get(0).memoryAddress();
+    final long srcValuesAddr = buffers.get(1).memoryAddress();
+    long nullTargetAddr = fixedBlock.getMemoryAddress() + def.getNullByteOffset();
+    long valueTargetAddr = fixedBlock.getMemoryAddress() + PivotBuilder.nullByteOffset(valueBitOffset);
+
+    for (int i = 0; i < count; i++, nullTargetAddr += blockLength, valueTargetAddr += blockLength) {
+      final int bitVal = (PlatformDependent.getByte(srcBitsAddr + (i >>> 3)) >>> (i & 7)) & 1;
+      // null values always pivot to false so that all the nulls of a key land in the same group.
+      final int value = (PlatformDependent.getByte(srcValuesAddr + (i >>> 3)) >>> (i & 7)) & bitVal;
+      PlatformDependent.putInt(nullTargetAddr, PlatformDependent.getInt(nullTargetAddr) | (bitVal << nullBitOffset));
+      PlatformDependent.putInt(valueTargetAddr, PlatformDependent.getInt(valueTargetAddr) | (value << valueBitOffset));
+    }
+  }
+
+  static void pivot16Bytes(
+      VectorPivotDef def,
+      FixedBlockVector fixedBlock,
+      final int count
+      ){
+    final FieldVector field = def.getIncomingVector();
+    final List<ArrowBuf> buffers = field.getFieldBuffers();
+
+    Preconditions.checkArgument(buffers.size() == 2, "A sixteen byte vector should have two field buffers. %s has %s buffers.", Describer.describe(field.getField()), buffers.size());
+
+    final int blockLength = fixedBlock.getBlockWidth();
+    final int bitOffset = def.getNullBitOffset();
+
+    long srcBitsAddr = buffers.get(0).memoryAddress();
+    long srcDataAddr = buffers.get(1).memoryAddress();
+    long targetAddr = fixedBlock.getMemoryAddress();
+
+    long bitTargetAddr = targetAddr + def.getNullByteOffset();
+    long valueTargetAddr = targetAddr + def.getOffset();
+
+    // decode word at a time.
+    for (int word = 0; word < count; word += WORD_BITS) {
+      final long bitValues = PlatformDependent.getLong(srcBitsAddr);
+      final int wordCount = Math.min(WORD_BITS, count - word);
+
+      if (bitValues == NONE_SET) {
+        // noop (all nulls).
+        bitTargetAddr += (wordCount * blockLength);
+        valueTargetAddr += (wordCount * blockLength);
+        srcDataAddr += (wordCount * SIXTEEN_BYTE);
+      } else {
+        for (int i = 0; i < wordCount; i++, bitTargetAddr += blockLength, valueTargetAddr += blockLength, srcDataAddr += SIXTEEN_BYTE) {
+          final int bitVal = ((int) (bitValues >>> i)) & 1;
+          PlatformDependent.putInt(bitTargetAddr, PlatformDependent.getInt(bitTargetAddr) | (bitVal << bitOffset));
+          PlatformDependent.putLong(valueTargetAddr, PlatformDependent.getLong(srcDataAddr) * bitVal);
+          PlatformDependent.putLong(valueTargetAddr + 8, PlatformDependent.getLong(srcDataAddr + 8) * bitVal);
+        }
+      }
+      srcBitsAddr += WORD_BYTES;
+    }
+  }
+
+
 
 
   /**
@@ -69,6 +69,17 @@ public class Unpivots {
     }
   }
 
+  public static void unpivotBytes16(final long srcFixedAddr, final int blockWidth, final long target, final int byteOffset, int count) {
+    final long startAddr = srcFixedAddr;
+    long maxAddr = startAddr + (count * blockWidth);
+    long targetAddr = target;
+
+    for(long srcAddr = startAddr; srcAddr < maxAddr; srcAddr += blockWidth, targetAddr+=16){
+      PlatformDependent.putLong(targetAddr, PlatformDependent.getLong(srcAddr + byteOffset));
+      PlatformDependent.putLong(targetAddr + 8, PlatformDependent.getLong(srcAddr + byteOffset + 8));
+    }
+  }
+
 
   public static void unpivotVariable(final long srcFixedAddr, final long srcVarAddr, final int blockWidth, FieldVector[] targets, int count) {
     final int dataWidth = blockWidth - LBlockHashTable.VAR_OFFSET_SIZE;
@@ -148,7 +159,7 @@ public class Unpivots {
 
     // unpivots bit arrays
     for(int i =0; i < bitCount; i++){
-      unpivotBits1(fixedAddr, blockWidth, bitBufs.get(totalBitCount - bitCount + i).memoryAddress(), (i/32), i, count);
+      unpivotBits1(fixedAddr, blockWidth, bitBufs.get(totalBitCount - bitCount + i).memoryAddress(), PivotBuilder.nullByteOffset(i), i, count);
     }
 
     // unpivot fixed values.
@@ -162,6 +173,9 @@ public class Unpivots {
         break;
 
       case SIXTEEN_BYTE:
+        unpivotBytes16(fixedAddr, blockWidth, def.getOutgoingVector().getFieldBuffers().get(1).memoryAddress(), def.getOffset(), count);
+        break;
+
       default:
         throw new IllegalStateException();
       }
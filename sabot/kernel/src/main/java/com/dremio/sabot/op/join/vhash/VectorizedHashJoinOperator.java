@@ -15,47 +15,85 @@
  */
 package com.dremio.sabot.op.join.vhash;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.NullableVarBinaryVector;
 import org.apache.arrow.vector.NullableVarCharVector;
 import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.common.util.Numbers;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.proto.helper.QueryIdHelper;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.ExpandableHyperContainer;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.store.LocalSyncableFileSystem;
+import com.dremio.exec.store.dfs.FileSystemPlugin;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.context.RuntimeFilter;
+import com.dremio.sabot.op.aggregate.vectorized.SpillPartitioner;
+import com.dremio.sabot.op.aggregate.vectorized.SpillPartitioner.SpilledPartition;
 import com.dremio.sabot.op.aggregate.vectorized.VariableLengthValidator;
 import com.dremio.sabot.op.common.hashtable.Comparator;
 import com.dremio.sabot.op.common.hashtable.HashTable;
 import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
+import com.dremio.sabot.op.common.ht2.BloomFilter;
 import com.dremio.sabot.op.common.ht2.FieldVectorPair;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
 import com.dremio.sabot.op.common.ht2.PivotBuilder;
 import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.common.ht2.VectorPivotDef;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.hash.BuildInfo;
+import com.dremio.sabot.op.sort.external.SpillManager;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import io.netty.buffer.ArrowBuf;
 import io.netty.util.internal.PlatformDependent;
 
+/**
+ * Hash join that pivots the join keys of the build (right) side into a {@link JoinTable} and probes it with
+ * vectorized lookups of the probe (left) side.
+ *
+ * When spilling is enabled and the build side outgrows the available memory, the operator switches to a hybrid hash
+ * join: build records are assigned to one of a fixed number of partitions by the hash of their keys and the largest
+ * partitions are evicted to disk, while the others stay resident in the hash table. Probe records that belong to an
+ * evicted partition are written to disk as well instead of being probed. Once the probe side is exhausted, each pair
+ * of spilled build and probe partitions is joined on its own, and a pair that still doesn't fit in memory is split
+ * again, up to a maximum depth.
+ *
+ * When the probe side is read by a scan of the same fragment, the hashes of the build keys are kept while consuming the
+ * build side, and a bloom filter over them is handed to the scan once the build side is complete, so that the scan can
+ * drop the records that can't match before they enter the pipeline.
+ */
 public class VectorizedHashJoinOperator implements DualInputOperator {
 
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedHashJoinOperator.class);
@@ -70,6 +108,11 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
   private static final int INITIAL_VAR_FIELD_AVERAGE_SIZE = 10;
 
+  private static final int ORDINAL_SIZE = 4;
+
+  // Constant to indicate there is no probe batch waiting to be probed.
+  private static final int NO_PROBE_BATCH = -1;
+
   // Constant to indicate index is empty.
   private static final int INDEX_EMPTY = -1;
 
@@ -82,6 +125,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   private final HashJoinPOP config;
 
   private final Stopwatch linkWatch = Stopwatch.createUnstarted();
+  private final Stopwatch spillWatch = Stopwatch.createUnstarted();
 
   // A structure that parallels the
   private final List<ArrowBuf> startIndices = new ArrayList<>();
@@ -111,12 +155,65 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   private int buildBatchIndex = 0;
   private State state = State.NEEDS_SETUP;
   private boolean finishedProbe = false;
+  private boolean finishedBuildNonMatches = false;
+  private int probeRecords = NO_PROBE_BATCH;
+
+  // inputs of the current pass: the upstream operators at first, then the spilled partitions.
+  private VectorAccessible buildSource;
+  private PivotDef buildSourcePivot;
+  private VectorAccessible probeSource;
+  private PivotDef probeSourcePivot;
+
+  // spilling state
+  private final boolean spillEnabled;
+  private final int spillPartitions;
+  private final int maxSpillDepth;
+  private final long[] residentRecords;
+  private SpillManager spillManager;
+  private final Deque<SpilledPartitionPair> spilledPartitions = new ArrayDeque<>();
+  private SpilledPartitionPair currentPartition;
+  private int currentDepth;
+  private int spillerCount;
+  private int spillCount;
+  private long spillBytes;
+  private int maxDepthReached;
+
+  // set once part of the build side of the current pass has been evicted.
+  private boolean[] evicted;
+  private SpillPartitioner buildSpiller;
+  private SpillPartitioner probeSpiller;
+  private SpilledPartition[] buildPartitions;
+
+  // containers holding the resident part of a batch once partitions have been evicted, and the data read back from disk.
+  private VectorContainer buildStage;
+  private VectorContainer buildScratch;
+  private VectorContainer probeStage;
+  private VectorContainer spilledBuild;
+  private VectorContainer spilledProbe;
+  private PivotDef buildStagePivot;
+  private PivotDef buildScratchPivot;
+  private PivotDef probeStagePivot;
+  private PivotDef spilledBuildPivot;
+  private PivotDef spilledProbePivot;
+
+  // runtime filter state, the target is reset if the build side turns out to be too large for a useful filter.
+  private RuntimeFilterTarget runtimeFilterTarget;
+  private final long runtimeFilterMaxRecords;
+  private ArrowBuf runtimeFilterHashes;
+  private int runtimeFilterKeys;
+  private BloomFilter runtimeFilter;
 
   public VectorizedHashJoinOperator(OperatorContext context, HashJoinPOP popConfig) throws OutOfMemoryException {
     this.context = context;
     this.config = popConfig;
     this.joinType = popConfig.getJoinType();
     this.outgoing = new VectorContainer(context.getAllocator());
+    this.spillEnabled = context.getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_HASHJOIN_SPILL);
+    this.spillPartitions = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS);
+    this.maxSpillDepth = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MAX_DEPTH);
+    this.residentRecords = new long[spillPartitions];
+    this.runtimeFilterTarget = context.getOptions().getOption(ExecConstants.ENABLE_RUNTIME_FILTER) ? popConfig.getRuntimeFilter() : null;
+    this.runtimeFilterMaxRecords = context.getOptions().getOption(ExecConstants.RUNTIME_FILTER_MAX_BUILD_RECORDS);
   }
 
   @Override
@@ -215,19 +312,37 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
     hyperContainer = new ExpandableHyperContainer(context.getAllocator(), right.getSchema());
     this.mode = mode;
+    this.table = newTable(buildPivot, probePivot);
+    this.buildSource = right;
+    this.buildSourcePivot = buildPivot;
+    this.probeSource = left;
+    this.probeSourcePivot = probePivot;
+
+    state = State.CAN_CONSUME_R;
+    return outgoing;
+  }
+
+  private JoinTable newTable(PivotDef buildPivot, PivotDef probePivot){
     switch(mode){
     case VECTORIZED_BIGINT:
-      this.table = new EightByteInnerLeftProbeOff(context.getAllocator(), (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), probePivot, buildPivot);
-      break;
+      return new EightByteInnerLeftProbeOff(context.getAllocator(), (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), probePivot, buildPivot);
     case VECTORIZED_GENERIC:
-      this.table = new BlockJoinTable(buildPivot, probePivot, context.getAllocator(), comparator, (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE);
-      break;
+      return new BlockJoinTable(buildPivot, probePivot, context.getAllocator(), comparator, (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE);
     default:
       throw new UnsupportedOperationException();
     }
+  }
 
-    state = State.CAN_CONSUME_R;
-    return outgoing;
+  /**
+   * Pivot definition over the join keys of either side in the given container.
+   */
+  private PivotDef getPivot(VectorAccessible accessible, boolean buildSide){
+    final List<FieldVectorPair> fields = new ArrayList<>();
+    for(JoinCondition c : config.getConditions()){
+      final FieldVector v = getField(accessible, buildSide ? c.getRight() : c.getLeft());
+      fields.add(new FieldVectorPair(v, v));
+    }
+    return PivotBuilder.getBlockDefinition(fields);
   }
 
   private FieldVector getField(VectorAccessible accessible, LogicalExpression expr){
@@ -248,6 +363,112 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
 
+    collectRuntimeFilterKeys(records);
+    consumeBuild(records);
+    updateStats();
+  }
+
+  /**
+   * Keep the hashes of the keys of an upstream build batch, so that the runtime filter can be built once the build
+   * side is complete. Keys are collected before any partition is evicted, so the filter covers spilled keys as well.
+   */
+  private void collectRuntimeFilterKeys(int records) {
+    if(runtimeFilterTarget == null){
+      return;
+    }
+
+    final long keys = runtimeFilterKeys + (long) records;
+    if(keys > runtimeFilterMaxRecords){
+      // too many build records for the filter to be worth it.
+      abandonRuntimeFilter();
+      return;
+    }
+
+    try {
+      if(runtimeFilterHashes == null || runtimeFilterHashes.capacity() < keys * 8){
+        final ArrowBuf hashes = context.getAllocator().buffer(Numbers.nextPowerOfTwo((int) (keys * 8)));
+        if(runtimeFilterHashes != null){
+          PlatformDependent.copyMemory(runtimeFilterHashes.memoryAddress(), hashes.memoryAddress(), runtimeFilterKeys * 8L);
+          runtimeFilterHashes.release();
+        }
+        runtimeFilterHashes = hashes;
+      }
+
+      try(FixedBlockVector fbv = new FixedBlockVector(context.getAllocator(), buildPivot.getBlockWidth());
+          VariableBlockVector var = new VariableBlockVector(context.getAllocator(), buildPivot.getVariableCount())){
+        Pivots.pivot(buildPivot, records, fbv, var);
+        BloomFilter.hashKeys(buildPivot, fbv, var, records, runtimeFilterHashes.memoryAddress() + runtimeFilterKeys * 8L);
+      }
+      runtimeFilterKeys += records;
+    } catch(OutOfMemoryException e){
+      // the filter is only an optimization, leave the memory to the join.
+      logger.debug("Not enough memory for the runtime filter, dropping it.", e);
+      abandonRuntimeFilter();
+    }
+  }
+
+  private void abandonRuntimeFilter() {
+    runtimeFilterTarget = null;
+    if(runtimeFilterHashes != null){
+      runtimeFilterHashes.release();
+      runtimeFilterHashes = null;
+    }
+  }
+
+  /**
+   * Build the bloom filter over the build keys and hand it to the probe side scan.
+   */
+  private void publishRuntimeFilter() {
+    if(runtimeFilterTarget == null){
+      return;
+    }
+
+    final RuntimeFilterTarget target = runtimeFilterTarget;
+    try {
+      runtimeFilter = new BloomFilter(context.getAllocator(), runtimeFilterKeys);
+    } catch(OutOfMemoryException e){
+      logger.debug("Not enough memory for the runtime filter, dropping it.", e);
+      abandonRuntimeFilter();
+      return;
+    }
+
+    if(runtimeFilterHashes != null){
+      final long hashesAddr = runtimeFilterHashes.memoryAddress();
+      final long maxAddr = hashesAddr + runtimeFilterKeys * 8L;
+      for(long addr = hashesAddr; addr < maxAddr; addr += 8){
+        runtimeFilter.put(PlatformDependent.getLong(addr));
+      }
+    }
+    abandonRuntimeFilter();
+
+    final List<CompleteType> types = new ArrayList<>();
+    for(VectorPivotDef def : buildPivot.getVectorPivots()){
+      types.add(CompleteType.fromField(def.getIncomingVector().getField()));
+    }
+    context.getRuntimeFilters().publish(target.getProbeScanOperatorId(), new RuntimeFilter(target.getProbeScanColumns(), types, runtimeFilter));
+    context.getStats().setLongStat(Metric.RUNTIME_FILTER_KEYS, runtimeFilterKeys);
+  }
+
+  /**
+   * Add the current batch of the build source to the hash table, evicting partitions to disk first if memory is
+   * running low.
+   */
+  private void consumeBuild(int records) throws Exception {
+    if(shouldSpill(records)){
+      evict();
+    }
+
+    if(evicted == null){
+      insertBuild(buildSource, records);
+    } else {
+      routeBuild(buildSource, buildSourcePivot, records);
+    }
+  }
+
+  /**
+   * Insert a batch into the hash table. The batch must hold the vectors the build pivot of the table is bound to.
+   */
+  private void insertBuild(VectorAccessible batch, int records) throws Exception {
     final List<ArrowBuf> startIndices = this.startIndices;
     final List<BuildInfo> buildInfoList = this.buildInfoList;
 
@@ -275,7 +496,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
      * to the hyper vector container. Will be used when we want to retrieve
      * records that have matching keys on the probe side.
      */
-    hyperContainer.addBatch(VectorContainer.getTransferClone(right, context.getAllocator()));
+    hyperContainer.addBatch(VectorContainer.getTransferClone(batch, context.getAllocator()));
     // completed processing a batch, increment batch index
 
     buildBatchIndex++;
@@ -286,8 +507,6 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
               Integer.MAX_VALUE)
           .build(logger);
     }
-
-    updateStats();
   }
 
   private void setLinks(long indexAddr, final int buildBatch, final int records){
@@ -369,6 +588,356 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     }
   }
 
+  /**
+   * Estimate whether adding the next build batch could exhaust the memory available to this operator. The batch, its
+   * links and the hash table growth stay resident, and enough is kept aside to re-route the batches held in memory.
+   */
+  private boolean shouldSpill(int records){
+    if(!spillEnabled || buildBatchIndex == 0 || currentDepth >= maxSpillDepth){
+      return false;
+    }
+
+    long batchSize = 0;
+    for(VectorWrapper<?> w : buildSource){
+      batchSize += w.getValueVector().getBufferSize();
+    }
+
+    final int keyWidth = buildSourcePivot.getBlockWidth() + buildSourcePivot.getVariableCount() * INITIAL_VAR_FIELD_AVERAGE_SIZE;
+    long required = batchSize + ((long) records) * HashTable.BUILD_RECORD_LINK_SIZE;
+
+    // new keys, their start indices and the pivoted batch with its ordinals.
+    required += ((long) records) * (2 * keyWidth + HashTable.BUILD_RECORD_LINK_SIZE + ORDINAL_SIZE);
+
+    // rehashing allocates a new control block array while the old one is still in use.
+    if((table.size() + records) * 2L > table.capacity()){
+      required += table.capacity() * 2L * LBlockHashTable.CONTROL_WIDTH;
+    }
+
+    // re-routing a batch needs a copy of it.
+    required += batchSize;
+
+    return context.getAllocator().getHeadroom() < required;
+  }
+
+  /**
+   * Evict the largest half of the partitions that are still resident and rebuild the hash table from the build
+   * batches that remain in memory.
+   */
+  private void evict() throws Exception {
+    if(evicted == null){
+      startSpilling();
+    }
+
+    int remaining = 0;
+    for(boolean e : evicted){
+      if(!e){
+        remaining++;
+      }
+    }
+    final int toEvict = Math.max(1, remaining / 2);
+    for(int i = 0; i < toEvict; i++){
+      int largest = -1;
+      for(int p = 0; p < evicted.length; p++){
+        if(!evicted[p] && (largest == -1 || residentRecords[p] > residentRecords[largest])){
+          largest = p;
+        }
+      }
+      evicted[largest] = true;
+    }
+
+    rebuild();
+    spillCount++;
+    logger.debug("Evicted {} of {} resident hash join partitions at depth {}, {} bytes spilled so far.",
+        toEvict, remaining, currentDepth, spillBytes);
+    updateStats();
+  }
+
+  private void startSpilling(){
+    final BufferAllocator allocator = context.getAllocator();
+    if(buildStage == null){
+      buildStage = VectorContainer.create(allocator, right.getSchema());
+      buildScratch = VectorContainer.create(allocator, right.getSchema());
+      probeStage = VectorContainer.create(allocator, left.getSchema());
+      buildStagePivot = getPivot(buildStage, true);
+      buildScratchPivot = getPivot(buildScratch, true);
+      probeStagePivot = getPivot(probeStage, false);
+    }
+
+    final int depth = currentDepth + 1;
+    evicted = new boolean[spillPartitions];
+    buildSpiller = new SpillPartitioner(allocator, getSpillManager(), right.getSchema(), spillPartitions, depth,
+        String.format("joinbuild%05d", spillerCount));
+    probeSpiller = new SpillPartitioner(allocator, getSpillManager(), left.getSchema(), spillPartitions, depth,
+        String.format("joinprobe%05d", spillerCount));
+    spillerCount++;
+    maxDepthReached = Math.max(maxDepthReached, depth);
+  }
+
+  /**
+   * Release the hash table and re-route the build batches held in memory, so that records of evicted partitions
+   * are written to disk and the others are inserted into a new table.
+   */
+  private void rebuild() throws Exception {
+    final ExpandableHyperContainer batches = hyperContainer;
+    final List<FieldVector[]> batchVectors = VectorContainer.getHyperFieldVectors(batches);
+    final int[] batchCounts = new int[buildInfoList.size()];
+    for(int i = 0; i < batchCounts.length; i++){
+      batchCounts[i] = buildInfoList.get(i).getRecordCount();
+    }
+
+    resetBuild();
+    // the new table pivots the staged resident records.
+    table = newTable(buildStagePivot, probeStagePivot);
+
+    try {
+      final List<FieldVector> scratchVectors = VectorContainer.getFieldVectors(buildScratch);
+      for(int b = 0; b < batchCounts.length; b++){
+        for(int i = 0; i < scratchVectors.size(); i++){
+          batchVectors.get(i)[b].makeTransferPair(scratchVectors.get(i)).transfer();
+        }
+        buildScratch.setAllCount(batchCounts[b]);
+        routeBuild(buildScratch, buildScratchPivot, batchCounts[b]);
+        buildScratch.zeroVectors();
+      }
+    } finally {
+      batches.close();
+    }
+  }
+
+  /**
+   * Release the hash table along with the build batches and links that belong to it.
+   */
+  private void resetBuild() throws Exception {
+    AutoCloseables.close(table);
+    table = null;
+    AutoCloseables.close(buildInfoList);
+    buildInfoList.clear();
+    AutoCloseables.close(startIndices);
+    startIndices.clear();
+    hyperContainer = new ExpandableHyperContainer(context.getAllocator(), right.getSchema());
+    buildBatchIndex = 0;
+    Arrays.fill(residentRecords, 0);
+  }
+
+  /**
+   * Write the records of a build batch that belong to evicted partitions to disk, and insert the others into the
+   * hash table.
+   */
+  private void routeBuild(VectorAccessible source, PivotDef sourcePivot, int records) throws Exception {
+    if(records == 0){
+      return;
+    }
+
+    spill(buildSpiller, source, sourcePivot, records);
+    final int retained = copyResident(source, records, buildSpiller.getPartitionIndices(), buildStage, true);
+    if(retained > 0){
+      insertBuild(buildStage, retained);
+    }
+  }
+
+  /**
+   * Write the records of the current probe batch that belong to evicted partitions to disk.
+   * @return number of records left to probe.
+   */
+  private int routeProbe(int records) throws Exception {
+    if(evicted == null){
+      return records;
+    }
+    if(records == 0){
+      return 0;
+    }
+
+    spill(probeSpiller, probeSource, probeSourcePivot, records);
+    return copyResident(probeSource, records, probeSpiller.getPartitionIndices(), probeStage, false);
+  }
+
+  private void spill(SpillPartitioner spiller, VectorAccessible source, PivotDef sourcePivot, int records) throws Exception {
+    spillWatch.start();
+    try {
+      spillBytes += spiller.spill(source, sourcePivot, records, evicted);
+    } finally {
+      spillWatch.stop();
+    }
+  }
+
+  /**
+   * Copy the records of source that belong to resident partitions into the given stage container.
+   * @return number of records copied.
+   */
+  private int copyResident(VectorAccessible source, int records, int[] partitions, VectorContainer stage, boolean countResident){
+    try(ArrowBuf sv2 = context.getAllocator().buffer(records * 2)){
+      final long sv2Addr = sv2.memoryAddress();
+      int retained = 0;
+      for(int i = 0; i < records; i++){
+        final int partition = partitions[i];
+        if(!evicted[partition]){
+          PlatformDependent.putShort(sv2Addr + retained * 2, (short) i);
+          retained++;
+          if(countResident){
+            residentRecords[partition]++;
+          }
+        }
+      }
+
+      if(retained > 0){
+        for(FieldBufferCopier copier : FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(source), VectorContainer.getFieldVectors(stage))){
+          copier.copy(sv2Addr, retained);
+        }
+      }
+      return stage.setAllCount(retained);
+    }
+  }
+
+  /**
+   * Complete the build partitions written while consuming the build side of the current pass.
+   */
+  private void finishBuild() throws Exception {
+    if(buildSpiller == null){
+      return;
+    }
+
+    buildPartitions = new SpilledPartition[spillPartitions];
+    for(SpilledPartition partition : buildSpiller.finish()){
+      buildPartitions[partition.getIndex()] = partition;
+    }
+  }
+
+  /**
+   * Mark the probe side of the current pass as complete and queue the pairs of evicted partitions that still need to
+   * be joined.
+   */
+  private void finishProbe() throws Exception {
+    finishedProbe = true;
+    if(probeSpiller == null){
+      return;
+    }
+
+    final SpilledPartition[] probePartitions = new SpilledPartition[spillPartitions];
+    for(SpilledPartition partition : probeSpiller.finish()){
+      probePartitions[partition.getIndex()] = partition;
+    }
+
+    final boolean projectUnmatchedBuild = joinType == JoinRelType.RIGHT || joinType == JoinRelType.FULL;
+    final boolean projectUnmatchedProbe = joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL;
+    for(int p = 0; p < spillPartitions; p++){
+      final SpilledPartitionPair pair = new SpilledPartitionPair(buildPartitions[p], probePartitions[p], currentDepth + 1);
+      buildPartitions[p] = null;
+      probePartitions[p] = null;
+      final boolean needed = (pair.build != null && pair.probe != null)
+          || (pair.build != null && projectUnmatchedBuild)
+          || (pair.probe != null && projectUnmatchedProbe);
+      if(needed){
+        spilledPartitions.push(pair);
+      } else {
+        pair.close();
+      }
+    }
+
+    AutoCloseables.close(buildSpiller, probeSpiller);
+    buildSpiller = null;
+    probeSpiller = null;
+    buildPartitions = null;
+  }
+
+  /**
+   * Set up the probe for the hash table of the current pass.
+   */
+  private void startProbe(){
+    this.probe = new VectorizedProbe(
+        context.getAllocator(),
+        hyperContainer,
+        evicted == null ? probeSource : probeStage,
+        probeOutputs,
+        buildOutputs,
+        config.getJoinType(),
+        buildInfoList,
+        startIndices,
+        table,
+        evicted == null ? probeSourcePivot : probeStagePivot,
+        context.getTargetBatchSize(),
+        comparator);
+  }
+
+  /**
+   * Release the state of the previous pass and join the next pair of spilled partitions. The build partition is
+   * loaded in full, evicting sub-partitions if needed, while the probe partition is read back batch by batch.
+   */
+  private void startNextPartition() throws Exception {
+    AutoCloseables.close(probe, currentPartition, hyperContainer);
+    probe = null;
+    currentPartition = null;
+    resetBuild();
+
+    final BufferAllocator allocator = context.getAllocator();
+    if(spilledBuild == null){
+      spilledBuild = VectorContainer.create(allocator, right.getSchema());
+      spilledProbe = VectorContainer.create(allocator, left.getSchema());
+      spilledBuildPivot = getPivot(spilledBuild, true);
+      spilledProbePivot = getPivot(spilledProbe, false);
+    }
+
+    currentPartition = spilledPartitions.pop();
+    currentDepth = currentPartition.depth;
+    evicted = null;
+    finishedProbe = false;
+    finishedBuildNonMatches = false;
+    probeRecords = NO_PROBE_BATCH;
+    buildSource = spilledBuild;
+    buildSourcePivot = spilledBuildPivot;
+    probeSource = spilledProbe;
+    probeSourcePivot = spilledProbePivot;
+    table = newTable(spilledBuildPivot, spilledProbePivot);
+
+    if(currentPartition.build != null){
+      int records;
+      while((records = currentPartition.build.readNext(allocator, spilledBuild)) != -1){
+        consumeBuild(records);
+        spilledBuild.zeroVectors();
+      }
+    }
+    finishBuild();
+
+    if(table.size() == 0 && evicted == null && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)){
+      // nothing can match and nothing needs to be projected.
+      finishedProbe = true;
+      finishedBuildNonMatches = true;
+      return;
+    }
+
+    startProbe();
+  }
+
+  /**
+   * Read the next batch of the probe partition of the current pass.
+   * @return number of records to probe or {@link #NO_PROBE_BATCH} if the partition is exhausted.
+   */
+  private int nextSpilledProbeBatch() throws Exception {
+    if(currentPartition.probe == null){
+      return NO_PROBE_BATCH;
+    }
+
+    final int records = currentPartition.probe.readNext(context.getAllocator(), spilledProbe);
+    if(records == -1){
+      return NO_PROBE_BATCH;
+    }
+    return routeProbe(records);
+  }
+
+  private SpillManager getSpillManager(){
+    if(spillManager == null){
+      final Configuration conf = FileSystemPlugin.getNewFsConf();
+      conf.set(SpillManager.DREMIO_LOCAL_IMPL_STRING, LocalSyncableFileSystem.class.getName());
+      // If the location URI doesn't contain any schema, fall back to local.
+      conf.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
+
+      final FragmentHandle handle = context.getFragmentHandle();
+      final String id = String.format("joinspill-%s.%s.%s.%s", QueryIdHelper.getQueryId(handle.getQueryId()),
+          handle.getMajorFragmentId(), handle.getMinorFragmentId(), config.getOperatorId());
+      spillManager = new SpillManager(context.getConfig(), context.getOptions(), id, conf, "join spilling");
+    }
+    return spillManager;
+  }
+
   private void updateStats(){
     final TimeUnit ns = TimeUnit.NANOSECONDS;
     final OperatorStats stats = context.getStats();
@@ -394,31 +963,26 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       stats.setLongStat(Metric.BUILD_COPY_NANOS, probe.getBuildCopyTime());
       stats.setLongStat(Metric.BUILD_COPY_NOMATCH_NANOS, probe.getBuildNonMatchCopyTime());
     }
+
+    stats.setLongStat(Metric.SPILL_COUNT, spillCount);
+    stats.setLongStat(Metric.SPILL_BYTES, spillBytes);
+    stats.setLongStat(Metric.SPILL_TIME_NANOS, spillWatch.elapsed(ns));
+    stats.setLongStat(Metric.SPILL_MAX_DEPTH, maxDepthReached);
   }
 
   @Override
   public void noMoreToConsumeRight() throws Exception {
     state.is(State.CAN_CONSUME_R);
 
-    if (table.size() == 0 && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)) {
+    finishBuild();
+    publishRuntimeFilter();
+    if (table.size() == 0 && evicted == null && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)) {
       // nothing needs to be read on the left side as right side is empty
       state = State.DONE;
       return;
     }
 
-    this.probe = new VectorizedProbe(
-        context.getAllocator(),
-        hyperContainer,
-        left,
-        probeOutputs,
-        buildOutputs,
-        config.getJoinType(),
-        buildInfoList,
-        startIndices,
-        table,
-        probePivot,
-        context.getTargetBatchSize(),
-        comparator);
+    startProbe();
     state = State.CAN_CONSUME_L;
   }
 
@@ -431,6 +995,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
 
+    probeRecords = routeProbe(records);
     state = State.CAN_PRODUCE;
   }
 
@@ -441,25 +1006,51 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
     updateStats();
 
-    if(!finishedProbe){
-      final int probedRecords = probe.probeBatch(left.getRecordCount());
-      if (probedRecords > -1) {
-        state = State.CAN_CONSUME_L;
-        return outgoing.setAllCount(probedRecords);
-      } else {
-        // we didn't finish everything, will produce again.
-        state = State.CAN_PRODUCE;
-        return outgoing.setAllCount(-probedRecords);
+    while(true){
+      if(!finishedProbe){
+        if(probeRecords == NO_PROBE_BATCH){
+          // only happens when joining spilled partitions, upstream batches are provided through consumeDataLeft.
+          probeRecords = nextSpilledProbeBatch();
+          if(probeRecords == NO_PROBE_BATCH){
+            finishProbe();
+            continue;
+          }
+        }
+
+        final int probedRecords = probe.probeBatch(probeRecords);
+        if (probedRecords > -1) {
+          probeRecords = NO_PROBE_BATCH;
+          if(currentPartition == null){
+            state = State.CAN_CONSUME_L;
+          }
+          return outgoing.setAllCount(probedRecords);
+        } else {
+          // we didn't finish everything, will produce again.
+          state = State.CAN_PRODUCE;
+          return outgoing.setAllCount(-probedRecords);
+        }
       }
-    } else {
-      final int unmatched = probe.projectBuildNonMatches();
-      if (unmatched > -1) {
+
+      if(!finishedBuildNonMatches && (joinType == JoinRelType.FULL || joinType == JoinRelType.RIGHT)){
+        final int unmatched = probe.projectBuildNonMatches();
+        if (unmatched > -1) {
+          finishedBuildNonMatches = true;
+          if(spilledPartitions.isEmpty()){
+            state = State.DONE;
+          }
+          return outgoing.setAllCount(unmatched);
+        } else {
+          // remainder, need to output again.
+          return outgoing.setAllCount(-unmatched);
+        }
+      }
+
+      if(spilledPartitions.isEmpty()){
         state = State.DONE;
-        return outgoing.setAllCount(unmatched);
-      } else {
-        // remainder, need to output again.
-        return outgoing.setAllCount(-unmatched);
+        return outgoing.setAllCount(0);
       }
+
+      startNextPartition();
     }
   }
 
@@ -467,16 +1058,15 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   public void noMoreToConsumeLeft() throws Exception {
     state.is(State.CAN_CONSUME_L);
 
-    finishedProbe = true;
-    if(joinType == JoinRelType.FULL || joinType == JoinRelType.RIGHT){
-      // if we need to project build records that didn't match, make sure we do so.
+    finishProbe();
+    if(joinType == JoinRelType.FULL || joinType == JoinRelType.RIGHT || !spilledPartitions.isEmpty()){
+      // if we need to project build records that didn't match or join spilled partitions, make sure we do so.
       state = State.CAN_PRODUCE;
     } else {
       state = State.DONE;
     }
   }
 
-
   public ArrowBuf newLinksBuffer(int recordCount) {
     // Each link is 6 bytes.
     // First 4 bytes are used to identify the batch and remaining 2 bytes for record within the batch.
@@ -500,6 +1090,10 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   @Override
   public void close() throws Exception {
     updateStats();
+    if(runtimeFilter != null){
+      context.getRuntimeFilters().remove(config.getRuntimeFilter().getProbeScanOperatorId());
+    }
+    abandonRuntimeFilter();
     List<AutoCloseable> autoCloseables = new ArrayList<>();
     autoCloseables.add(hyperContainer);
     autoCloseables.add(table);
@@ -507,7 +1101,42 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     autoCloseables.add(outgoing);
     autoCloseables.addAll(buildInfoList);
     autoCloseables.addAll(startIndices);
+    autoCloseables.add(buildSpiller);
+    autoCloseables.add(probeSpiller);
+    if(buildPartitions != null){
+      autoCloseables.addAll(Arrays.asList(buildPartitions));
+    }
+    autoCloseables.add(currentPartition);
+    autoCloseables.addAll(spilledPartitions);
+    autoCloseables.add(buildStage);
+    autoCloseables.add(buildScratch);
+    autoCloseables.add(probeStage);
+    autoCloseables.add(spilledBuild);
+    autoCloseables.add(spilledProbe);
+    autoCloseables.add(spillManager);
+    autoCloseables.add(runtimeFilter);
     AutoCloseables.close(autoCloseables);
   }
 
+  /**
+   * Build and probe partitions that were evicted together and need to be joined with each other. Either side may be
+   * missing if no record was routed to it.
+   */
+  private static class SpilledPartitionPair implements AutoCloseable {
+    private final SpilledPartition build;
+    private final SpilledPartition probe;
+    private final int depth;
+
+    SpilledPartitionPair(SpilledPartition build, SpilledPartition probe, int depth) {
+      this.build = build;
+      this.probe = probe;
+      this.depth = depth;
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(build, probe);
+    }
+  }
+
 }
@@ -63,9 +63,9 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     this.stats.setLongStat(Metric.NUM_SENDERS, config.getNumSenders());
     this.outgoing = VectorContainer.create(context.getAllocator(), config.getSchema());
 
-    // In normal case, batchLoader does not require an allocator. However, in case of splitAndTransfer of a value vector,
-    // we may need an allocator for the new offset vector. Therefore, here we pass the context's allocator to batchLoader.
-    this.batchLoader = new ArrowRecordBatchLoader(outgoing);
+    // batchLoader needs an allocator to uncompress the batches compressed by the senders. Also, in case of
+    // splitAndTransfer of a value vector, we may need an allocator for the new offset vector.
+    this.batchLoader = new ArrowRecordBatchLoader(context.getAllocator(), outgoing);
   }
 
   @Override
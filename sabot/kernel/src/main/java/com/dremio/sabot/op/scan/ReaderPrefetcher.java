@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.scan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.dremio.sabot.threads.sharedres.SharedResource;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+
+/**
+ * Creates the readers of a scan in the background, ahead of the reader currently read from.
+ *
+ * Reader creation may involve remote reads, such as fetching and filtering parquet footers. It is done by a single
+ * background task at a time, as reader iterators are not thread safe, which keeps up to depth readers ready for the
+ * scan. The tasks run on the executor of the operator context, which is shared by the background work of the node.
+ *
+ * The scan thread never waits for a task. When the next reader isn't created yet, {@link #isReady()} marks the shared
+ * resource of the scan blocked, and the task marks it available once done, so the fragment is rescheduled. Readers are
+ * still set up by the scan thread, as they add their fields to the scan's output.
+ */
+class ReaderPrefetcher implements Iterator<RecordReader>, AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReaderPrefetcher.class);
+
+  private final Iterator<RecordReader> readers;
+  private final ExecutorService executor;
+  private final SharedResource resource;
+  private final OperatorStats stats;
+  private final int depth;
+
+  // guarded by this
+  private final Deque<RecordReader> prefetched = new ArrayDeque<>();
+  private boolean fetching;
+  private boolean exhausted;
+  private boolean closed;
+  private Throwable failure;
+  private boolean blocked;
+  private long blockedSince;
+
+  ReaderPrefetcher(Iterator<RecordReader> readers, ExecutorService executor, SharedResource resource,
+      OperatorStats stats, int depth) {
+    Preconditions.checkArgument(depth > 0, "prefetch depth must be positive");
+    this.readers = readers;
+    this.executor = executor;
+    this.resource = resource;
+    this.stats = stats;
+    this.depth = depth;
+    stats.setLongStat(Metric.READER_PREFETCH_DEPTH, depth);
+  }
+
+  /**
+   * Start creating readers in the background, if there is room for more and no task is already doing so.
+   */
+  synchronized void fetch() {
+    if (fetching || exhausted || closed || failure != null || prefetched.size() >= depth) {
+      return;
+    }
+
+    fetching = true;
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          fill();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      logger.debug("Reader prefetch rejected, creating the next reader in the scan thread", e);
+      fill();
+    }
+  }
+
+  private void fill() {
+    try {
+      while (true) {
+        synchronized (this) {
+          if (closed || prefetched.size() >= depth) {
+            return;
+          }
+        }
+
+        // the underlying iterator is only used by one task at a time, outside of the lock.
+        if (!readers.hasNext()) {
+          synchronized (this) {
+            exhausted = true;
+          }
+          return;
+        }
+        final RecordReader reader = readers.next();
+        final boolean added;
+        synchronized (this) {
+          added = !closed;
+          if (added) {
+            prefetched.add(reader);
+          }
+        }
+        if (!added) {
+          // the scan was closed while the reader was created.
+          AutoCloseables.close(reader);
+          return;
+        }
+        resource.markAvailable();
+      }
+    } catch (Throwable t) {
+      synchronized (this) {
+        failure = t;
+      }
+    } finally {
+      synchronized (this) {
+        fetching = false;
+      }
+      resource.markAvailable();
+    }
+  }
+
+  /**
+   * Whether the next reader, or the end of the readers, can be returned without waiting for a background task. If
+   * not, the shared resource is marked blocked until the task in flight is done.
+   */
+  synchronized boolean isReady() {
+    if (prefetched.isEmpty() && !exhausted && !closed && failure == null) {
+      // creates the next reader in this thread if the executor rejects the task.
+      fetch();
+    }
+    if (prefetched.isEmpty() && fetching) {
+      resource.markBlocked();
+      if (!blocked) {
+        blocked = true;
+        blockedSince = System.nanoTime();
+      }
+      return false;
+    }
+    if (blocked) {
+      blocked = false;
+      stats.addLongStat(Metric.READER_PREFETCH_WAIT_NS, System.nanoTime() - blockedSince);
+    }
+    return true;
+  }
+
+  /**
+   * Only to be called once {@link #isReady()} returned true.
+   */
+  @Override
+  public synchronized boolean hasNext() {
+    Preconditions.checkState(isReady(), "The next reader is still being created");
+    if (prefetched.isEmpty() && failure != null) {
+      throw Throwables.propagate(failure);
+    }
+    return !prefetched.isEmpty();
+  }
+
+  @Override
+  public synchronized RecordReader next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final RecordReader reader = prefetched.poll();
+    fetch();
+    return reader;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Close the prefetched readers. A task in flight isn't waited for, it closes the reader it is creating once done.
+   */
+  @Override
+  public void close() throws Exception {
+    final List<RecordReader> toClose;
+    synchronized (this) {
+      closed = true;
+      toClose = new ArrayList<>(prefetched);
+      prefetched.clear();
+    }
+    resource.markAvailable();
+    AutoCloseables.close(toClose);
+  }
+}
@@ -18,13 +18,18 @@ package com.dremio.sabot.op.scan;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.AllocationHelper;
+import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.SchemaChangeCallBack;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.types.pojo.Field;
@@ -35,7 +40,9 @@ import org.apache.hadoop.security.UserGroupInformation;
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.AutoCloseables.RollbackCloseable;
 import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.physical.base.SubScan;
@@ -53,6 +60,15 @@ import com.dremio.sabot.driver.SchemaChangeListener;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.context.RuntimeFilter;
+import com.dremio.sabot.exec.fragment.FragmentExecutionContext;
+import com.dremio.sabot.op.common.ht2.FieldVectorPair;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.PivotBuilder;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
 import com.dremio.sabot.op.spi.ProducerOperator;
 import com.dremio.sabot.op.values.EmptyValuesCreator.EmptyRecordReader;
 import com.google.common.base.Function;
@@ -84,7 +100,15 @@ public class ScanOperator implements ProducerOperator {
     COPY_MS,
     FILTER_MS,
     PARQUET_EXEC_PATH, // type of readers (vectorized, non-vectorized or combination used) in parquet
-    FILTER_EXISTS // Is there a filter pushed into scan?
+    FILTER_EXISTS, // Is there a filter pushed into scan?
+    FOOTER_CACHE_HITS, // number of parquet footers found in the node's footer cache
+    FOOTER_CACHE_MISSES, // number of parquet footers read from the file system
+    RUNTIME_FILTER_DROPPED, // number of records dropped by the runtime filter of a join
+    PARQUET_PAGES_SKIPPED, // number of parquet data pages skipped without being decoded
+    NUM_ROW_GROUPS_PRUNED, // number of parquet row groups skipped as their statistics or dictionaries rule out the filter
+    READER_PREFETCH_DEPTH, // number of readers created in the background ahead of the current one
+    READER_PREFETCH_WAIT_NS, // time the scan was blocked on the background creation of the next reader
+    NUM_COALESCED_READS // number of requests issued to fetch coalesced parquet column chunks
     ;
 
     @Override
@@ -98,7 +122,9 @@ public class ScanOperator implements ProducerOperator {
   private ProducerOperator.State state = State.NEEDS_SETUP;
   private final OperatorContext context;
   private Iterator<RecordReader> readers;
+  private ReaderPrefetcher prefetcher;
   private RecordReader currentReader;
+  private boolean currentReaderDone;
   private final ScanMutator mutator;
   private SchemaChangeCallBack callBack = new SchemaChangeCallBack();
   private final BatchSchema schema;
@@ -109,12 +135,13 @@ public class ScanOperator implements ProducerOperator {
   private final SubScan config;
   private final GlobalDictionaries globalDictionaries;
   private final Stopwatch readTime = Stopwatch.createUnstarted();
+  private RuntimeFilter runtimeFilter;
 
-  public ScanOperator(SchemaChangeListener schemaUpdater, SubScan config, OperatorContext context, Iterator<RecordReader> readers) {
-    this(schemaUpdater, config, context, readers, null);
+  public ScanOperator(FragmentExecutionContext fec, SubScan config, OperatorContext context, Iterator<RecordReader> readers) {
+    this(fec, config, context, readers, null);
   }
 
-  public ScanOperator(SchemaChangeListener schemaUpdater, SubScan config, OperatorContext context, Iterator<RecordReader> readers, GlobalDictionaries globalDictionaries) {
+  public ScanOperator(FragmentExecutionContext fec, SubScan config, OperatorContext context, Iterator<RecordReader> readers, GlobalDictionaries globalDictionaries) {
     if (!readers.hasNext()) {
       this.readers = ImmutableList.<RecordReader>of(new EmptyRecordReader(context)).iterator();
     } else {
@@ -125,7 +152,7 @@ public class ScanOperator implements ProducerOperator {
     this.schema = config.getSchema();
     this.tableSchemaPath = config.getTableSchemaPath() == null ? null : ImmutableList.copyOf(config.getTableSchemaPath());
     this.selectedColumns = config.getColumns() == null ? null : ImmutableList.copyOf(config.getColumns());
-    this.schemaUpdater = schemaUpdater;
+    this.schemaUpdater = fec.getSchemaUpdater();
 
     final OperatorStats stats = context.getStats();
     try {
@@ -137,6 +164,17 @@ public class ScanOperator implements ProducerOperator {
       stats.stopProcessing();
     }
 
+    // create the next readers in the background while the current one is set up and read. Without an executor or
+    // resources to block the pipeline on, the readers are created by the scan thread when needed.
+    final int prefetchDepth = (int) context.getOptions().getOption(ExecConstants.SCAN_READER_PREFETCH_DEPTH);
+    final ExecutorService executor = getExecutor(context);
+    if (prefetchDepth > 0 && executor != null && fec.getPipelineResources() != null) {
+      this.prefetcher = new ReaderPrefetcher(this.readers, executor,
+          fec.getPipelineResources().createResource("scan-reader-prefetch"), stats, prefetchDepth);
+      this.readers = prefetcher;
+      prefetcher.fetch();
+    }
+
     this.outgoing = new VectorContainer(context.getAllocator());
 
     final String readerUserName = StringUtils.isEmpty(config.getUserName()) ? ImpersonationUtil.getProcessUserName() : config.getUserName();
@@ -168,9 +206,18 @@ public class ScanOperator implements ProducerOperator {
     return outgoing;
   }
 
+  private static ExecutorService getExecutor(OperatorContext context) {
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
   @Override
   public State getState() {
-    return state;
+    // blocked until the prefetcher has created the next reader.
+    return state == State.BLOCKED && prefetcher.isReady() ? State.CAN_PRODUCE : state;
   }
 
   private void setupReader(RecordReader reader) throws Exception {
@@ -196,48 +243,126 @@ public class ScanOperator implements ProducerOperator {
 
   @Override
   public int outputData() throws Exception {
-    state.is(State.CAN_PRODUCE);
+    // use getState here so we can transition out of blocked.
+    getState().is(State.CAN_PRODUCE);
+    state = State.CAN_PRODUCE;
 
     injector.injectChecked(context.getExecutionControls(), "next-allocate", OutOfMemoryException.class);
 
-    currentReader.allocate(fieldVectorMap);
-
     int recordCount;
 
-    // get the next reader.
-    readTime.start();
+    // read batches until one has records left once the runtime filter is applied.
+    do {
+      readTime.start();
+      recordCount = 0;
+      if (!currentReaderDone) {
+        currentReader.allocate(fieldVectorMap);
+        recordCount = currentReader.next();
+      }
 
-    while ((recordCount = currentReader.next()) == 0) {
+      // get the next reader.
+      while (recordCount == 0) {
+        currentReaderDone = true;
+        readTime.stop();
+        readTime.reset();
+        if (prefetcher != null && !prefetcher.isReady()) {
+          // don't hold the thread while the next reader is created, the fragment is rescheduled once it is ready.
+          state = State.BLOCKED;
+          return 0;
+        }
 
-      readTime.stop();
-      readTime.reset();
-      readTime.start();
-      if (!readers.hasNext()) {
-        // We're on the last reader, and it has no (more) rows.
-        // no need to close the reader (will be done when closing the operator)
-        // but we might as well release any memory that we're holding.
-        outgoing.zeroVectors();
-        state = ProducerOperator.State.DONE;
-        outgoing.setRecordCount(0);
-        context.getStats().batchReceived(0, 0, 0);
-        return 0;
+        readTime.start();
+        if (!readers.hasNext()) {
+          // We're on the last reader, and it has no (more) rows.
+          // no need to close the reader (will be done when closing the operator)
+          // but we might as well release any memory that we're holding.
+          outgoing.zeroVectors();
+          state = ProducerOperator.State.DONE;
+          outgoing.setRecordCount(0);
+          context.getStats().batchReceived(0, 0, 0);
+          return 0;
+        }
+
+        // There are more readers, let's close the previous one and get the next one.
+        currentReader.close();
+        currentReader = readers.next();
+        currentReaderDone = false;
+        setupReader(currentReader);
+        currentReader.allocate(fieldVectorMap);
+
+        context.getStats().addLongStat(Metric.NUM_READERS, 1);
+        recordCount = currentReader.next();
       }
 
-      // There are more readers, let's close the previous one and get the next one.
-      currentReader.close();
-      currentReader = readers.next();
-      setupReader(currentReader);
-      currentReader.allocate(fieldVectorMap);
+      readTime.stop();
 
-      context.getStats().addLongStat(Metric.NUM_READERS, 1);
+      context.getStats().batchReceived(0, recordCount, VectorUtil.getSize(outgoing));
+
+      checkAndLearnSchema();
+      outgoing.setAllCount(recordCount);
+      recordCount = applyRuntimeFilter(recordCount);
+    } while (recordCount == 0);
+
+    return outgoing.setAllCount(recordCount);
+  }
+
+  /**
+   * Drop the records of the current batch whose keys are not in the runtime filter of the join this scan is the probe
+   * side of. Nothing is dropped until the join has published its filter.
+   * @param recordCount number of records in the outgoing vectors.
+   * @return number of records left in the outgoing vectors.
+   */
+  private int applyRuntimeFilter(int recordCount) throws Exception {
+    if (runtimeFilter == null) {
+      runtimeFilter = context.getRuntimeFilters().get(config.getOperatorId());
+      if (runtimeFilter == null) {
+        return recordCount;
+      }
     }
 
-    readTime.stop();
+    final List<FieldVectorPair> keys = new ArrayList<>();
+    for (int i = 0; i < runtimeFilter.getColumns().size(); i++) {
+      final ValueVector v = fieldVectorMap.get(runtimeFilter.getColumns().get(i).toLowerCase());
+      // keys read with another type than the build keys don't hash the same.
+      if (!(v instanceof FieldVector) || !CompleteType.fromField(v.getField()).equals(runtimeFilter.getTypes().get(i))) {
+        return recordCount;
+      }
+      keys.add(new FieldVectorPair((FieldVector) v, (FieldVector) v));
+    }
 
-    context.getStats().batchReceived(0, recordCount, VectorUtil.getSize(outgoing));
+    final PivotDef pivot = PivotBuilder.getBlockDefinition(keys);
+    final BufferAllocator allocator = context.getAllocator();
+    final int matches;
+    try (FixedBlockVector fixed = new FixedBlockVector(allocator, pivot.getBlockWidth());
+         VariableBlockVector variable = new VariableBlockVector(allocator, pivot.getVariableCount());
+         ArrowBuf scratch = allocator.buffer(recordCount * 8);
+         ArrowBuf sv2 = allocator.buffer(recordCount * 2)) {
+      Pivots.pivot(pivot, recordCount, fixed, variable);
+      matches = runtimeFilter.getFilter().find(pivot, fixed, variable, recordCount, scratch.memoryAddress(), sv2.memoryAddress());
+      if (matches < recordCount) {
+        compact(sv2.memoryAddress(), matches);
+      }
+    }
 
-    checkAndLearnSchema();
-    return outgoing.setAllCount(recordCount);
+    context.getStats().addLongStat(Metric.RUNTIME_FILTER_DROPPED, recordCount - matches);
+    return matches;
+  }
+
+  /**
+   * Keep the records of the given selection vector only, copying them to new vectors and transferring those back to the
+   * outgoing vectors.
+   */
+  private void compact(long sv2Addr, int count) throws Exception {
+    try (VectorContainer filtered = VectorContainer.create(context.getAllocator(), outgoing.getSchema())) {
+      final List<FieldVector> inputs = VectorContainer.getFieldVectors(outgoing);
+      final List<FieldVector> outputs = VectorContainer.getFieldVectors(filtered);
+      for (FieldBufferCopier copier : FieldBufferCopier.getCopiers(inputs, outputs)) {
+        copier.copy(sv2Addr, count);
+      }
+      for (int i = 0; i < inputs.size(); i++) {
+        outputs.get(i).makeTransferPair(inputs.get(i)).transfer();
+      }
+    }
   }
 
   private void checkAndLearnSchema(){
@@ -350,7 +475,7 @@ public class ScanOperator implements ProducerOperator {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(outgoing, currentReader, globalDictionaries);
+    AutoCloseables.close(prefetcher, outgoing, currentReader, globalDictionaries);
   }
 
 }
@@ -15,8 +15,12 @@
  */
 package com.dremio.sabot.op.sender;
 
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.base.Sender;
 import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Preconditions;
 
@@ -33,4 +37,25 @@ public abstract class BaseSender implements TerminalOperator {
         popConfig.getSchema().toStringVerbose(),
         schema.toStringVerbose()));
   }
+
+  /**
+   * Compress a batch before it is sent, if exchange compression is enabled and all the receiving nodes accept
+   * compressed batches.
+   * @param context context of the sending operator.
+   * @param batch batch to send.
+   * @param tunnels tunnels the batch is sent through.
+   * @return the batch to send in place of the given one.
+   */
+  public static FragmentWritableBatch compress(OperatorContext context, FragmentWritableBatch batch,
+      AccountingExecTunnel... tunnels) {
+    if (!context.getOptions().getOption(ExecConstants.ENABLE_EXCHANGE_COMPRESSION)) {
+      return batch;
+    }
+    for (AccountingExecTunnel tunnel : tunnels) {
+      if (!tunnel.supportsCompression()) {
+        return batch;
+      }
+    }
+    return batch.compress(context.getAllocator(), context.getOptions().getOption(ExecConstants.EXCHANGE_COMPRESSION_MIN_SIZE));
+  }
 }
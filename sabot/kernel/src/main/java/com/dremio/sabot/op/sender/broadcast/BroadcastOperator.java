@@ -44,6 +44,7 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.primitives.Ints;
 
 import io.netty.buffer.ArrowBuf;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Broadcast Sender broadcasts incoming batches to all receivers (one or more).
@@ -172,25 +173,28 @@ public class BroadcastOperator extends BaseSender {
         }
       }).toList();
 
+    // the batch is compressed once, if all the receiving nodes accept it, and all the tunnels send the same buffers.
+    final FragmentWritableBatch batch = compress(context, new FragmentWritableBatch(
+        handle.getQueryId(),
+        handle.getMajorFragmentId(),
+        handle.getMinorFragmentId(),
+        config.getOppositeMajorFragmentId(),
+        new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, false),
+        receivingMinorFragments[0]), tunnels);
+    for (ArrowBuf buf : buffers) {
+      buf.release();
+    }
+
     if (tunnels.length > 1) {
-      for (ArrowBuf buf : buffers) {
+      for (ByteBuf buf : batch.getBuffers()) {
         buf.retain(tunnels.length - 1);
       }
     }
 
     for (int i = 0; i < tunnels.length; ++i) {
-      FragmentWritableBatch batch = new FragmentWritableBatch(
-          handle.getQueryId(),
-          handle.getMajorFragmentId(),
-          handle.getMinorFragmentId(),
-          config.getOppositeMajorFragmentId(),
-          new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, false),
-          receivingMinorFragments[i]);
-      updateStats(batch);
-      tunnels[i].sendRecordBatch(batch);
-      for (ArrowBuf buf : buffers) {
-        buf.release();
-      }
+      final FragmentWritableBatch tunnelBatch = i == 0 ? batch : batch.withReceivingMinorFragmentIds(receivingMinorFragments[i]);
+      updateStats(tunnelBatch);
+      tunnels[i].sendRecordBatch(tunnelBatch);
     }
   }
 
@@ -33,6 +33,7 @@ import com.dremio.exec.record.VectorWrapper;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.op.sender.BaseSender;
 import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
@@ -159,13 +160,13 @@ public class OutgoingBatch extends VectorContainer {
     }
 
     final ExecProtos.FragmentHandle handle = context.getFragmentHandle();
-    FragmentWritableBatch writableBatch = FragmentWritableBatch.create(
+    FragmentWritableBatch writableBatch = BaseSender.compress(context, FragmentWritableBatch.create(
       handle.getQueryId(),
       handle.getMajorFragmentId(),
       handle.getMinorFragmentId(),
       config.getOppositeMajorFragmentId(),
       this,
-      oppositeMinorFragmentId);
+      oppositeMinorFragmentId), tunnel);
 
     updateStats(writableBatch);
 
@@ -58,6 +58,7 @@ public class RoundRobinOperator extends BaseSender {
   private final RoundRobinSender config;
   private final ExecProtos.FragmentHandle handle;
   private final OperatorStats stats;
+  private final OperatorContext context;
   private final BufferAllocator allocator;
 
   private final List<AccountingExecTunnel> tunnels;
@@ -79,6 +80,7 @@ public class RoundRobinOperator extends BaseSender {
   public RoundRobinOperator(TunnelProvider tunnelProvider, OperatorContext context, RoundRobinSender config) throws OutOfMemoryException {
     super(config);
     this.config = config;
+    this.context = context;
     this.allocator = context.getAllocator();
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
@@ -168,14 +170,14 @@ public class RoundRobinOperator extends BaseSender {
         }
       }).toList();
 
-    FragmentWritableBatch batch = new FragmentWritableBatch(
+    FragmentWritableBatch batch = compress(context, new FragmentWritableBatch(
       handle.getQueryId(),
       handle.getMajorFragmentId(),
       handle.getMinorFragmentId(),
       config.getOppositeMajorFragmentId(),
       new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, false),
       minorFragments.get(currentTunnelsIndex).get(currentMinorFragmentsIndex)
-    );
+    ), tunnels.get(currentTunnelsIndex));
     updateStats(batch);
     tunnels.get(currentTunnelsIndex).sendRecordBatch(batch);
 
@@ -70,14 +70,14 @@ public class SingleSenderOperator extends BaseSender {
     @Override
     public void consumeData(int records) {
       Preconditions.checkArgument(records > 0);
-      final FragmentWritableBatch batch = FragmentWritableBatch.create(
+      final FragmentWritableBatch batch = compress(context, FragmentWritableBatch.create(
           handle.getQueryId(),
           handle.getMajorFragmentId(),
           handle.getMinorFragmentId(),
           recMajor,
           incoming,
           oppositeHandle.getMinorFragmentId()
-          );
+          ), tunnel);
       updateStats(batch);
       context.getStats().startWait();
       try {
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+
+/**
+ * Writes spilled data to disk in the background.
+ *
+ * Bytes are collected in one of two heap buffers. When the buffer is full or flushed, it is handed to a background
+ * task writing it to the underlying stream, while the caller keeps serializing and compressing the next batch into the
+ * other buffer. The caller only waits for the disk when both buffers are in use.
+ */
+class AsyncSpillOutputStream extends OutputStream {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AsyncSpillOutputStream.class);
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final Stopwatch waitWatch;
+
+  private byte[] buffer;
+  private byte[] spare;
+  private int count;
+  private Future<?> pending;
+  private boolean closed;
+
+  /**
+   * @param out stream the buffers are written to, by one task at a time.
+   * @param executor executor running the writes.
+   * @param bufferSize size of each of the two buffers.
+   * @param waitWatch accumulates the time spent waiting for background writes.
+   */
+  AsyncSpillOutputStream(OutputStream out, ExecutorService executor, int bufferSize, Stopwatch waitWatch) {
+    Preconditions.checkArgument(bufferSize > 0, "buffer size must be positive");
+    this.out = out;
+    this.executor = executor;
+    this.waitWatch = waitWatch;
+    this.buffer = new byte[bufferSize];
+    this.spare = new byte[bufferSize];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (count == buffer.length) {
+      handOff();
+    }
+    buffer[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (count == buffer.length) {
+        handOff();
+      }
+      final int length = Math.min(len, buffer.length - count);
+      System.arraycopy(b, off, buffer, count, length);
+      count += length;
+      off += length;
+      len -= length;
+    }
+  }
+
+  /**
+   * Hand the buffered bytes to the background writer, without waiting for them to be written.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (count > 0) {
+      handOff();
+    }
+  }
+
+  private void handOff() throws IOException {
+    // the spare buffer is free once the previous write is done.
+    awaitPending();
+    final byte[] full = buffer;
+    final int length = count;
+    buffer = spare;
+    spare = full;
+    count = 0;
+
+    try {
+      pending = executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          out.write(full, 0, length);
+          return null;
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      logger.debug("Background spill write rejected, writing in the calling thread", e);
+      out.write(full, 0, length);
+    }
+  }
+
+  private void awaitPending() throws IOException {
+    if (pending == null) {
+      return;
+    }
+
+    waitWatch.start();
+    try {
+      pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for spill write");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failure while writing spill data", e.getCause());
+    } finally {
+      pending = null;
+      waitWatch.stop();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try {
+      flush();
+    } finally {
+      try {
+        awaitPending();
+      } finally {
+        out.close();
+      }
+    }
+  }
+}
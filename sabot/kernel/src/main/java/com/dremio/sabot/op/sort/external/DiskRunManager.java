@@ -16,12 +16,14 @@
 package com.dremio.sabot.op.sort.external;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.BufferAllocator;
@@ -29,8 +31,6 @@ import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.util.TransferPair;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 
 import com.dremio.common.AutoCloseables;
@@ -70,6 +70,10 @@ import com.google.common.collect.Iterables;
  * Maintains 0..N separate runs of sorted data on disk, each in its own file.
  *
  * Also exposes an ability to live merge and copy the streams back.
+ *
+ * When given an executor, spill files are written through {@link AsyncSpillOutputStream}s and read through
+ * {@link ReadAheadSpillInputStream}s, so that disk reads and writes overlap with the sorting, serialization and
+ * merging done by the fragment thread.
  */
 public class DiskRunManager implements AutoCloseable {
 
@@ -82,6 +86,7 @@ public class DiskRunManager implements AutoCloseable {
 
   private final Stopwatch spillWatch = Stopwatch.createUnstarted();
   private final Stopwatch mergeWatch = Stopwatch.createUnstarted();
+  private final Stopwatch ioWaitWatch = Stopwatch.createUnstarted();
 
   private int run = 0;
   private int merge = 0;
@@ -97,6 +102,8 @@ public class DiskRunManager implements AutoCloseable {
   private boolean compressSpilledBatch;
   private BufferAllocator compressSpilledBatchAllocator;
   private final ExternalSortTracer tracer;
+  private final ExecutorService ioExecutor;
+  private final int ioBufferSize;
 
   private enum MergeState {
     TRY, // Try to reserve memory to copy all runs
@@ -116,7 +123,9 @@ public class DiskRunManager implements AutoCloseable {
       List<Ordering> orderings,
       BatchSchema dataSchema,
       boolean compressSpilledBatch,
-      ExternalSortTracer tracer
+      ExternalSortTracer tracer,
+      ExecutorService ioExecutor,
+      int ioBufferSize
       ) {
     this.targetRecordCount = targetRecordCount;
     this.targetBatchSizeInBytes = targetBatchSizeInBytes;
@@ -126,6 +135,8 @@ public class DiskRunManager implements AutoCloseable {
     this.parentAllocator = parentAllocator;
     this.compressSpilledBatch = compressSpilledBatch;
     this.tracer = tracer;
+    this.ioExecutor = ioExecutor;
+    this.ioBufferSize = ioBufferSize;
     if (compressSpilledBatch) {
       long reserve = VectorAccessibleSerializable.RAW_CHUNK_SIZE_TO_COMPRESS * 2;
       compressSpilledBatchAllocator = this.parentAllocator.newChildAllocator("spill_with_snappy", reserve, Long.MAX_VALUE);
@@ -149,6 +160,13 @@ public class DiskRunManager implements AutoCloseable {
     return mergeWatch.elapsed(TimeUnit.NANOSECONDS);
   }
 
+  /**
+   * @return time the fragment thread spent waiting for background spill writes and reads.
+   */
+  public long ioWaitTimeNanos() {
+    return ioWaitWatch.elapsed(TimeUnit.NANOSECONDS);
+  }
+
   public int spillCount() {
     return run;
   }
@@ -284,7 +302,7 @@ public class DiskRunManager implements AutoCloseable {
 
   private class DiskRunMerger {
     final private PriorityQueueCopier copier;
-    final private FSDataOutputStream out;
+    final private OutputStream out;
     final private VectorContainer container;
     final private SpillFile spillFile;
 
@@ -296,7 +314,7 @@ public class DiskRunManager implements AutoCloseable {
       container = VectorContainer.create(copierAllocator, dataSchema);
       this.copier = createCopier(container, diskRuns);
       this.spillFile = spillManager.getSpillFile(String.format("merge%05d", merge++));
-      out = spillFile.create();
+      out = createSpillStream(spillFile);
     }
 
     public boolean consolidate() throws IOException {
@@ -342,7 +360,7 @@ public class DiskRunManager implements AutoCloseable {
       int remainingRecordCount = 0;
       final SpillFile spillFile = spillManager.getSpillFile(String.format("run%05d", run++));
 
-      try (FSDataOutputStream out = spillFile.create();
+      try (OutputStream out = createSpillStream(spillFile);
            final VectorContainer outgoing = VectorContainer.create(copyTargetAllocator, hyperBatch.getSchema());
            VectorContainer hyperBatchToClose = hyperBatch) {
 
@@ -465,6 +483,20 @@ public class DiskRunManager implements AutoCloseable {
     }
   }
 
+  private OutputStream createSpillStream(SpillFile spillFile) throws IOException {
+    if (ioExecutor == null) {
+      return spillFile.create();
+    }
+    return new AsyncSpillOutputStream(spillFile.create(), ioExecutor, ioBufferSize, ioWaitWatch);
+  }
+
+  private InputStream openSpillStream(SpillFile spillFile) throws IOException {
+    if (ioExecutor == null) {
+      return spillFile.open();
+    }
+    return new ReadAheadSpillInputStream(spillFile.open(), ioExecutor, ioBufferSize, ioWaitWatch);
+  }
+
   public boolean isEmpty() {
     return diskRuns.isEmpty();
   }
@@ -604,7 +636,7 @@ public class DiskRunManager implements AutoCloseable {
 
   public class DiskRunIterator implements AutoCloseable {
     private final BufferAllocator allocator;
-    private FSDataInputStream inputStream;
+    private InputStream inputStream;
 
     private int batchIndex = -1;
     private final int batchIndexMax;
@@ -618,7 +650,7 @@ public class DiskRunManager implements AutoCloseable {
     private DiskRunIterator(int batchCount, SpillFile spillFile, ExpandableHyperContainer hyperContainer, BufferAllocator allocator) throws IOException {
       this.allocator = allocator;
       this.spillFile = spillFile;
-      this.inputStream = spillFile.open();
+      this.inputStream = openSpillStream(spillFile);
       this.batchIndexMax = batchCount;
       loadNextBatch(true);
       hyperContainer.addBatch(this.container);
@@ -16,6 +16,7 @@
 package com.dremio.sabot.op.sort.external;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import com.dremio.exec.ExecConstants;
 import org.apache.arrow.memory.BufferAllocator;
@@ -105,7 +106,8 @@ public class ExternalSortOperator implements SingleInputOperator {
     MAX_BATCH_SIZE,
     AVG_BATCH_SIZE,
     SPILL_TIME_NANOS,       // time spent spilling to diskRuns while sorting
-    MERGE_TIME_NANOS;       // time spent merging disk runs and spilling
+    MERGE_TIME_NANOS,       // time spent merging disk runs and spilling
+    SPILL_IO_WAIT_NANOS;    // time spent waiting for background spill writes and reads
 
     @Override
     public int metricId() {
@@ -151,7 +153,8 @@ public class ExternalSortOperator implements SingleInputOperator {
 
     this.diskRuns = new DiskRunManager(context.getConfig(), context.getOptions(), targetBatchSize, targetBatchSizeInBytes,
         context.getFragmentHandle(), config.getOperatorId(), context.getClassProducer(), allocator,
-        config.getOrderings(), incoming.getSchema(), compressSpilledBatch, tracer);
+        config.getOrderings(), incoming.getSchema(), compressSpilledBatch, tracer, getSpillExecutor(),
+        (int) options.getOption(ExecConstants.EXTERNAL_SORT_SPILL_IO_BUFFER_SIZE));
 
     tracer.setTargetBatchSize(targetBatchSize);
     tracer.setTargetBatchSizeInBytes(targetBatchSizeInBytes);
@@ -270,6 +273,21 @@ public class ExternalSortOperator implements SingleInputOperator {
     stats.setLongStat(Metric.AVG_BATCH_SIZE, diskRuns.getAvgMaxBatchSize());
     stats.setLongStat(Metric.SPILL_TIME_NANOS, diskRuns.spillTimeNanos());
     stats.setLongStat(Metric.MERGE_TIME_NANOS, diskRuns.mergeTimeNanos());
+    stats.setLongStat(Metric.SPILL_IO_WAIT_NANOS, diskRuns.ioWaitTimeNanos());
+  }
+
+  /**
+   * @return executor for background spill writes and reads, or null to do them in the fragment thread.
+   */
+  private ExecutorService getSpillExecutor() {
+    if (!context.getOptions().getOption(ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO)) {
+      return null;
+    }
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
   }
 
   private void rotateRuns() {
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+
+/**
+ * Reads spilled data ahead of the caller.
+ *
+ * While the caller deserializes the bytes of one heap buffer, a background task fills the other one with the next
+ * bytes of the underlying stream, so merging a run rarely has to wait for the disk when loading its next batch.
+ */
+class ReadAheadSpillInputStream extends InputStream {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReadAheadSpillInputStream.class);
+
+  private final InputStream in;
+  private final ExecutorService executor;
+  private final Stopwatch waitWatch;
+
+  private byte[] buffer;
+  private byte[] spare;
+  private int position;
+  private int limit;
+  private Future<Integer> pending;
+  private boolean eof;
+  private boolean closed;
+
+  /**
+   * @param in stream the buffers are filled from, by one task at a time.
+   * @param executor executor running the reads.
+   * @param bufferSize size of each of the two buffers.
+   * @param waitWatch accumulates the time spent waiting for background reads.
+   */
+  ReadAheadSpillInputStream(InputStream in, ExecutorService executor, int bufferSize, Stopwatch waitWatch) {
+    Preconditions.checkArgument(bufferSize > 0, "buffer size must be positive");
+    this.in = in;
+    this.executor = executor;
+    this.waitWatch = waitWatch;
+    this.buffer = new byte[bufferSize];
+    this.spare = new byte[bufferSize];
+    readAhead();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position == limit && !nextBuffer()) {
+      return -1;
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (position == limit && !nextBuffer()) {
+      return -1;
+    }
+    final int length = Math.min(len, limit - position);
+    System.arraycopy(buffer, position, b, off, length);
+    position += length;
+    return length;
+  }
+
+  @Override
+  public int available() {
+    return limit - position;
+  }
+
+  /**
+   * Start filling the spare buffer in the background.
+   */
+  private void readAhead() {
+    final byte[] target = spare;
+    try {
+      pending = executor.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() throws IOException {
+          return fill(target);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the buffer is filled by the calling thread when needed.
+      logger.debug("Background spill read rejected", e);
+      pending = null;
+    }
+  }
+
+  /**
+   * Make the spare buffer current once filled, and start reading the bytes following it.
+   * @return false at the end of the stream.
+   */
+  private boolean nextBuffer() throws IOException {
+    if (eof || closed) {
+      return false;
+    }
+
+    final int length = pending == null ? fill(spare) : awaitPending();
+    final byte[] filled = spare;
+    spare = buffer;
+    buffer = filled;
+    position = 0;
+    limit = length;
+
+    if (length < buffer.length) {
+      // fill stops short of the buffer size only at the end of the stream.
+      eof = true;
+    } else {
+      readAhead();
+    }
+    return length > 0;
+  }
+
+  private int fill(byte[] target) throws IOException {
+    int length = 0;
+    while (length < target.length) {
+      final int read = in.read(target, length, target.length - length);
+      if (read < 0) {
+        break;
+      }
+      length += read;
+    }
+    return length;
+  }
+
+  private int awaitPending() throws IOException {
+    waitWatch.start();
+    try {
+      return pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for spill read");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failure while reading spill data", e.getCause());
+    } finally {
+      pending = null;
+      waitWatch.stop();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try {
+      if (pending != null) {
+        // the stream can't be closed while being read from.
+        awaitPending();
+      }
+    } catch (IOException e) {
+      logger.debug("Failure while reading ahead spill data that is no longer needed", e);
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -39,14 +39,14 @@ import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.google.common.collect.Lists;
 
 /**
- * Distribute spills across given list of directories.
+ * Distribute spills across given list of directories, striping consecutive spill files across them.
  * Monitor disk space left and stop using disks which are running low on free space.
  * Monitoring is disabled for spill directories on non local filesystems.
  */
 public class SpillManager implements AutoCloseable {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SpillManager.class);
 
-  static final String DREMIO_LOCAL_IMPL_STRING = "fs.dremio-local.impl";
+  public static final String DREMIO_LOCAL_IMPL_STRING = "fs.dremio-local.impl";
   private static final String DREMIO_LOCAL_SCHEME = "dremio-local";
   private static final String LOCAL_SCHEMA = "file";
   private static final FsPermission PERMISSIONS = new FsPermission(FsAction.ALL, FsAction.NONE, FsAction.NONE);
@@ -60,6 +60,7 @@ public class SpillManager implements AutoCloseable {
   private final long healthCheckSpills;
   private final String caller;
   private final Configuration hadoopConf;
+  private int nextDirectory;
 
   public SpillManager(SabotConfig sabotConfig, OptionManager optionManager, String id, Configuration hadoopConf,
       String caller)  {
@@ -102,16 +103,19 @@ public class SpillManager implements AutoCloseable {
         ).build(logger);
       }
     }
+    // start at a random directory so that concurrent spillers don't all begin with the same disk.
+    this.nextDirectory = ThreadLocalRandom.current().nextInt(healthySpillDirectories.size());
   }
 
   public SpillFile getSpillFile(String fileName) throws RuntimeException {
     while (!healthySpillDirectories.isEmpty()) {
-      // pick a random spill directory
-      final int index = ThreadLocalRandom.current().nextInt(healthySpillDirectories.size());
+      // pick the spill directories in turn, so that the runs of a spiller are read and written from all disks.
+      final int index = nextDirectory % healthySpillDirectories.size();
       final SpillDirectory spillDirectory = healthySpillDirectories.get(index);
 
       if (spillDirectory.isHealthy()) {
         spillDirectory.assign();
+        nextDirectory = index + 1;
         return new SpillFile(spillDirectory.getFileSystem(), new Path(spillDirectory.getSpillDirPath(), fileName));
       } else {
         healthySpillDirectories.remove(index);
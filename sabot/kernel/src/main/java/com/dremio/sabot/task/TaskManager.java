@@ -66,6 +66,12 @@ public interface TaskManager<T extends Task> {
      * @return task selected to run next
      */
     TaskHandle<T> getTask(long time);
+
+    /**
+     * Drop the task returned by the last call to {@link #getTask(long)}, as it failed. The task is not scheduled
+     * again, whatever its state.
+     */
+    void taskFailed();
   }
 
   /**
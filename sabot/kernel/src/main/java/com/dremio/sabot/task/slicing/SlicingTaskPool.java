@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.proto.UserBitShared.WorkloadClass;
+import com.dremio.exec.server.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+
+/**
+ * A task pool that runs all tasks on a fixed number of threads. Tasks are run cooperatively in time slices: a thread
+ * keeps running a task until it blocks or its quantum expires, then switches to the task that is the most behind its
+ * fair share. Each workload class is a separate scheduling group, so its share of the threads doesn't depend on how
+ * many fragments it runs.
+ *
+ * Fragments blocking in synchronous calls hold one of the threads, so this pool isn't the default: it is enabled by
+ * setting dremio.task.pool.factory.class to {@link SlicingTaskPool.Factory}.
+ */
+public class SlicingTaskPool implements TaskPool {
+
+  /**
+   * Factory for {@code SlicingTaskPool}
+   */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      return new SlicingTaskPool(
+          (int) options.getOption(ExecConstants.SLICING_THREADS),
+          options.getOption(ExecConstants.SLICING_QUANTUM_MS),
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static final long TASK_WEIGHT = 100;
+
+  private final WeightedTaskManager<AsyncTaskWrapper> manager;
+  private final Map<WorkloadClass, SchedulingGroup<AsyncTaskWrapper>> groups = new EnumMap<>(WorkloadClass.class);
+  private final List<SlicingThread> threads = new ArrayList<>();
+
+  public SlicingTaskPool(int numThreads, long quantum, TimeUnit unit) {
+    this.manager = new WeightedTaskManager<>(numThreads);
+    for (WorkloadClass workloadClass : WorkloadClass.values()) {
+      groups.put(workloadClass, manager.newGroup(getWeight(workloadClass)));
+    }
+
+    for (int i = 0; i < numThreads; i++) {
+      final SlicingThread thread = new SlicingThread(i, quantum, unit, manager);
+      threads.add(thread);
+      thread.start();
+    }
+  }
+
+  private static long getWeight(WorkloadClass workloadClass) {
+    switch (workloadClass) {
+    case REALTIME:
+      return TaskManager.MAX_WEIGHT;
+    case NRT:
+      return 400;
+    case BACKGROUND:
+      return 25;
+    case GENERAL:
+    default:
+      return 100;
+    }
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final WorkloadClass workloadClass = task.getPriority().hasWorkloadClass()
+        ? task.getPriority().getWorkloadClass() : WorkloadClass.GENERAL;
+    final TaskHandle<AsyncTaskWrapper> handle = groups.get(workloadClass).addTask(task, TASK_WEIGHT);
+    task.setTaskHandle(handle);
+  }
+
+  /**
+   * @return number of tasks that haven't completed yet.
+   */
+  public int getTaskCount() {
+    return manager.getTaskCount();
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (SlicingThread thread : threads) {
+      thread.interrupt();
+    }
+    for (SlicingThread thread : threads) {
+      thread.join();
+    }
+  }
+}
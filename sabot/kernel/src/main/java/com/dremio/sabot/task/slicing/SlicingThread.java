@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskManager.TaskProvider;
+
+/**
+ * Executing thread of a {@link SlicingTaskPool}. Repeatedly asks its task provider for the next task and runs it until
+ * it blocks, finishes or its quantum expires.
+ */
+class SlicingThread extends Thread implements TaskManager.WakeUpListener {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  private final long quantumNanos;
+  private final TaskProvider<AsyncTaskWrapper> provider;
+  private final AtomicBoolean wakeUp = new AtomicBoolean(false);
+
+  SlicingThread(int index, long quantum, TimeUnit unit, TaskManager<AsyncTaskWrapper> manager) {
+    super(String.format("slicing-thread-%d", index));
+    setDaemon(true);
+    this.quantumNanos = unit.toNanos(quantum);
+    this.provider = manager.getTaskProvider(index, this);
+  }
+
+  @Override
+  public void run() {
+    long elapsed = 0;
+    while (!isInterrupted()) {
+      final TaskHandle<AsyncTaskWrapper> handle = provider.getTask(elapsed);
+      elapsed = 0;
+
+      if (handle == null) {
+        waitForWork();
+        continue;
+      }
+
+      final long start = System.nanoTime();
+      runQuantum(handle, start + quantumNanos);
+      elapsed = System.nanoTime() - start;
+    }
+    logger.info("Thread interrupted, exiting.");
+  }
+
+  private void runQuantum(TaskHandle<AsyncTaskWrapper> handle, long deadline) {
+    final AsyncTaskWrapper task = handle.getTask();
+    boolean cleaned = false;
+
+    // put try inside the run loop so we don't lose threads with uncaught exceptions.
+    try {
+      do {
+        task.run();
+      } while (task.getState() == Task.State.RUNNABLE && System.nanoTime() < deadline);
+
+      switch (task.getState()) {
+      case BLOCKED:
+        task.setAvailabilityCallback(new BlockRun(handle));
+        break;
+      case DONE:
+        cleaned = true;
+        task.getCleaner().close();
+        break;
+      case RUNNABLE:
+      default:
+        // quantum expired, the task goes back to the run queue.
+        break;
+      }
+    } catch (Throwable t) {
+      logger.error("Unhandled Exception in Fragment Thread.", t);
+      // the task can't run anymore, drop it so it is neither rescheduled nor left blocked forever.
+      provider.taskFailed();
+      if (!cleaned) {
+        try {
+          task.getCleaner().close();
+        } catch (Exception e) {
+          logger.warn("Failure while cleaning up failed task.", e);
+        }
+      }
+    }
+  }
+
+  private void waitForWork() {
+    while (!wakeUp.compareAndSet(true, false)) {
+      LockSupport.park(this);
+      if (isInterrupted()) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void wakeUpIfIdle() {
+    wakeUp.set(true);
+    LockSupport.unpark(this);
+  }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.dremio.sabot.task.Observer;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskManager;
+import com.google.common.base.Preconditions;
+
+/**
+ * {@link TaskManager} that shares the executing threads between tasks proportionally to their weight.<br>
+ * <br>
+ * Every task accumulates a virtual runtime: the time it ran, divided by its share of the node. The share of a task is
+ * its weight relative to the other tasks of its group, times the share of the group itself, so a group gets the same
+ * share of the threads whether it holds one task or hundreds. Each thread runs the task with the smallest virtual
+ * runtime in its queue, and idle threads steal runnable tasks from the busiest queue.<br>
+ * <br>
+ * Blocked tasks are not part of any queue. They are added back when {@link TaskHandle#reEnqueue()} is called.<br>
+ * <br>
+ * Virtual runtimes of small shares grow quickly. Once a task goes past {@link #RENORMALIZE_THRESHOLD}, the virtual
+ * runtimes of its thread are rebased on the thread's minimum, so they never overflow.
+ */
+public class WeightedTaskManager<T extends Task> implements TaskManager<T> {
+
+  static final long RENORMALIZE_THRESHOLD = Long.MAX_VALUE / 4;
+
+  private final Object lock = new Object();
+  private final Set<Handle> handles = new HashSet<>();
+  private final List<RunQueue> queues;
+  private final Observer<T> observer;
+  private final Group root = new Group(null, MAX_WEIGHT);
+  private long sequence;
+  private int nextThread;
+
+  public WeightedTaskManager(int numThreads) {
+    this(numThreads, new Observer<T>() {
+      @Override
+      public void addTask(TaskHandle<T> task, int thread) {
+      }
+
+      @Override
+      public void rebalance(TaskHandle<T> task, int srcThread, int dstThread) {
+      }
+
+      @Override
+      public void workRequestRejected(int thread) {
+      }
+    });
+  }
+
+  public WeightedTaskManager(int numThreads, Observer<T> observer) {
+    Preconditions.checkArgument(numThreads > 0, "At least one thread is required.");
+    this.observer = Preconditions.checkNotNull(observer);
+    this.queues = new ArrayList<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      queues.add(new RunQueue(i));
+    }
+  }
+
+  @Override
+  public TaskHandle<T> addTask(T task, long weight) {
+    return root.addTask(task, weight);
+  }
+
+  @Override
+  public SchedulingGroup<T> newGroup(long weight) {
+    return root.addGroup(weight);
+  }
+
+  @Override
+  public TaskProvider<T> getTaskProvider(int thread, WakeUpListener listener) {
+    final RunQueue queue = queues.get(thread);
+    synchronized (lock) {
+      Preconditions.checkState(queue.listener == null, "Thread %s already has a task provider.", thread);
+      queue.listener = Preconditions.checkNotNull(listener);
+    }
+    return queue;
+  }
+
+  /**
+   * @return number of tasks that are either queued, running or blocked.
+   */
+  public int getTaskCount() {
+    synchronized (lock) {
+      return root.taskCount;
+    }
+  }
+
+  private static void checkWeight(long weight) {
+    Preconditions.checkArgument(weight > 0 && weight <= MAX_WEIGHT, "Weight must be in (0, %s], was %s.", MAX_WEIGHT, weight);
+  }
+
+  /**
+   * A group of tasks and sub-groups. Shares of the children are relative to the sum of their weights.
+   */
+  private final class Group implements SchedulingGroup<T> {
+    private final Group parent;
+    private final long weight;
+    private long childWeights;
+    private int taskCount;
+
+    private Group(Group parent, long weight) {
+      this.parent = parent;
+      this.weight = weight;
+    }
+
+    @Override
+    public SchedulingGroup<T> addGroup(long weight) {
+      checkWeight(weight);
+      synchronized (lock) {
+        childWeights += weight;
+        return new Group(this, weight);
+      }
+    }
+
+    @Override
+    public TaskHandle<T> addTask(T task, long weight) {
+      checkWeight(weight);
+      synchronized (lock) {
+        childWeights += weight;
+        for (Group g = this; g != null; g = g.parent) {
+          g.taskCount++;
+        }
+
+        final RunQueue queue = leastLoaded();
+        final Handle handle = new Handle(task, this, weight, queue.thread, sequence++);
+        handle.vruntime = queue.minVruntime;
+        handles.add(handle);
+        queue.enqueue(handle);
+        observer.addTask(handle, queue.thread);
+        return handle;
+      }
+    }
+
+    private void removeTask(Handle handle) {
+      handles.remove(handle);
+      childWeights -= handle.weight;
+      for (Group g = this; g != null; g = g.parent) {
+        g.taskCount--;
+      }
+    }
+
+    /**
+     * @return fraction of the threads this group is entitled to.
+     */
+    private double share() {
+      return parent == null ? 1.0d : parent.share() * weight / parent.childWeights;
+    }
+  }
+
+  /**
+   * Per task scheduling state. All fields are guarded by the manager lock.
+   */
+  private final class Handle implements TaskHandle<T>, Comparable<Handle> {
+    private final T task;
+    private final Group group;
+    private final long weight;
+    private final long seq;
+    private int thread;
+    private long vruntime;
+    private boolean running;
+    private boolean parked;
+    private boolean wakeupPending;
+    private boolean failed;
+
+    private Handle(T task, Group group, long weight, int thread, long seq) {
+      this.task = task;
+      this.group = group;
+      this.weight = weight;
+      this.thread = thread;
+      this.seq = seq;
+    }
+
+    @Override
+    public T getTask() {
+      return task;
+    }
+
+    @Override
+    public void reEnqueue() {
+      synchronized (lock) {
+        if (failed) {
+          return;
+        }
+        if (parked) {
+          parked = false;
+          queues.get(thread).enqueue(this);
+        } else if (running) {
+          // the thread running the task hasn't released it yet, it will be requeued then.
+          wakeupPending = true;
+        }
+      }
+    }
+
+    @Override
+    public int getThread() {
+      synchronized (lock) {
+        return thread;
+      }
+    }
+
+    private void charge(long time) {
+      // a single charge is capped so it can't overflow a virtual runtime below the threshold.
+      vruntime += Math.min(RENORMALIZE_THRESHOLD, (long) (time / (group.share() * weight / group.childWeights)));
+    }
+
+    @Override
+    public int compareTo(Handle o) {
+      final int cmp = Long.compare(vruntime, o.vruntime);
+      return cmp != 0 ? cmp : Long.compare(seq, o.seq);
+    }
+
+    @Override
+    public String toString() {
+      synchronized (lock) {
+        return String.format("thread: %d, weight: %d, vruntime: %d, state: %s", thread, weight, vruntime, task.getState());
+      }
+    }
+  }
+
+  private RunQueue leastLoaded() {
+    RunQueue best = null;
+    for (int i = 0; i < queues.size(); i++) {
+      final RunQueue queue = queues.get((nextThread + i) % queues.size());
+      if (best == null || queue.load() < best.load()) {
+        best = queue;
+      }
+    }
+    nextThread = (best.thread + 1) % queues.size();
+    return best;
+  }
+
+  /**
+   * Runnable tasks assigned to a single thread, ordered by virtual runtime.
+   */
+  private final class RunQueue implements TaskProvider<T> {
+    private final int thread;
+    private final PriorityQueue<Handle> runnable = new PriorityQueue<>();
+    private WakeUpListener listener;
+    private Handle current;
+    private boolean idle;
+    private long minVruntime;
+
+    private RunQueue(int thread) {
+      this.thread = thread;
+    }
+
+    private int load() {
+      return runnable.size() + (current != null ? 1 : 0);
+    }
+
+    /**
+     * Queue a runnable task, waking up this thread, or any idle thread that can steal it if this one is busy.
+     */
+    private void enqueue(Handle handle) {
+      // don't let a task that was blocked for a long time monopolize the thread to catch up.
+      handle.vruntime = Math.max(handle.vruntime, minVruntime);
+      runnable.add(handle);
+
+      if (current == null) {
+        wakeUp();
+        return;
+      }
+
+      for (RunQueue queue : queues) {
+        if (queue.idle) {
+          queue.wakeUp();
+          return;
+        }
+      }
+    }
+
+    private void wakeUp() {
+      if (listener != null) {
+        listener.wakeUpIfIdle();
+      }
+    }
+
+    @Override
+    public TaskHandle<T> getTask(long time) {
+      synchronized (lock) {
+        final Handle previous = current;
+        if (previous != null) {
+          current = null;
+          previous.running = false;
+          previous.charge(time);
+          if (previous.vruntime > RENORMALIZE_THRESHOLD) {
+            renormalize();
+          }
+
+          switch (previous.failed ? Task.State.DONE : previous.task.getState()) {
+          case DONE:
+            previous.group.removeTask(previous);
+            break;
+          case BLOCKED:
+            if (!previous.wakeupPending) {
+              previous.parked = true;
+              break;
+            }
+            // woken up before it was released, requeue it right away.
+          case RUNNABLE:
+          default:
+            enqueue(previous);
+            break;
+          }
+          previous.wakeupPending = false;
+        }
+
+        Handle next = runnable.poll();
+        if (next == null) {
+          next = steal();
+        }
+
+        if (next == null) {
+          idle = true;
+          observer.workRequestRejected(thread);
+          return null;
+        }
+
+        idle = false;
+        next.running = true;
+        current = next;
+        minVruntime = Math.max(minVruntime, next.vruntime);
+        return next;
+      }
+    }
+
+    @Override
+    public void taskFailed() {
+      synchronized (lock) {
+        if (current != null) {
+          current.failed = true;
+        }
+      }
+    }
+
+    /**
+     * Rebase the virtual runtimes of the tasks of this thread, whether queued, running or blocked, on the minimum
+     * virtual runtime of the thread. Rebased runtimes are kept in [0, RENORMALIZE_THRESHOLD].
+     */
+    private void renormalize() {
+      final long offset = minVruntime;
+      for (Handle handle : handles) {
+        if (handle.thread == thread) {
+          handle.vruntime = Math.min(RENORMALIZE_THRESHOLD, Math.max(0, handle.vruntime - offset));
+        }
+      }
+      minVruntime = 0;
+
+      // clamping may create ties, so the queue is ordered again.
+      final List<Handle> queued = new ArrayList<>(runnable);
+      runnable.clear();
+      runnable.addAll(queued);
+    }
+
+    /**
+     * Take the next runnable task of the busiest other queue, if any.
+     */
+    private Handle steal() {
+      RunQueue busiest = null;
+      for (RunQueue queue : queues) {
+        if (queue != this && !queue.runnable.isEmpty() && (busiest == null || queue.runnable.size() > busiest.runnable.size())) {
+          busiest = queue;
+        }
+      }
+
+      if (busiest == null) {
+        return null;
+      }
+
+      final Handle handle = busiest.runnable.poll();
+      // keep the task's position relative to the other tasks of its new queue.
+      handle.vruntime = handle.vruntime - busiest.minVruntime + minVruntime;
+      handle.thread = thread;
+      observer.rebalance(handle, busiest.thread, thread);
+      return handle;
+    }
+  }
+}
@@ -45,6 +45,8 @@ import org.apache.parquet.hadoop.CodecFactory.BytesDecompressor;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.util.CompatibilityUtil;
 
+import com.dremio.exec.store.dfs.CoalescedFileReader;
+
 import io.netty.buffer.ByteBuf;
 
 public class ColumnChunkIncReadStore implements PageReadStore {
@@ -58,15 +60,26 @@ public class ColumnChunkIncReadStore implements PageReadStore {
   private long rowCount;
   private List<FSDataInputStream> streams = new ArrayList<>();
   private boolean useSingleStream;
+  private CoalescedFileReader coalescedReader;
 
   public ColumnChunkIncReadStore(long rowCount, CodecFactory codecFactory, BufferAllocator allocator,
       FileSystem fs, Path path, boolean useSingleStream) {
+    this(rowCount, codecFactory, allocator, fs, path, useSingleStream, null);
+  }
+
+  /**
+   * @param coalescedReader reader holding the fetched column chunks, or null to read the chunks from the file. The
+   *                        store takes ownership of the reader.
+   */
+  public ColumnChunkIncReadStore(long rowCount, CodecFactory codecFactory, BufferAllocator allocator,
+      FileSystem fs, Path path, boolean useSingleStream, CoalescedFileReader coalescedReader) {
     this.codecFactory = codecFactory;
     this.allocator = allocator;
     this.fs = fs;
     this.path = path;
     this.rowCount = rowCount;
     this.useSingleStream = useSingleStream;
+    this.coalescedReader = coalescedReader;
   }
 
   public class SingleStreamColumnChunkIncPageReader extends ColumnChunkIncPageReader {
@@ -304,7 +317,11 @@ public class ColumnChunkIncReadStore implements PageReadStore {
 
   public void addColumn(ColumnDescriptor descriptor, ColumnChunkMetaData metaData) throws IOException {
     final FSDataInputStream in;
-    if (useSingleStream) {
+    if (coalescedReader != null) {
+      // streams over the fetched chunks are cheap, use one per column.
+      in = coalescedReader.open(metaData.getStartingPos());
+      columns.put(descriptor, new ColumnChunkIncPageReader(metaData, descriptor, in));
+    } else if (useSingleStream) {
       if (streams.isEmpty()) {
         in = fs.open(path);
         streams.add(in);
@@ -329,6 +346,17 @@ public class ColumnChunkIncReadStore implements PageReadStore {
     for (ColumnChunkIncPageReader reader : columns.values()) {
       reader.close();
     }
+    if (coalescedReader != null) {
+      try {
+        coalescedReader.close();
+      } catch (IOException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e);
+      } finally {
+        coalescedReader = null;
+      }
+    }
   }
 
   @Override
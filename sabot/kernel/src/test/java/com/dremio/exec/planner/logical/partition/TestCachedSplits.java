@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.store.TableMetadata;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.google.common.collect.ImmutableList;
+
+public class TestCachedSplits {
+
+  private static final List<DatasetSplit> SPLITS = ImmutableList.of(
+      split("x"),
+      split("y"),
+      split("z"));
+
+  private static DatasetSplit split(String value) {
+    return new DatasetSplit().setPartitionValuesList(ImmutableList.of(
+        new PartitionValue().setColumn("a").setStringValue(value)));
+  }
+
+  private static TableMetadata metadata() {
+    final TableMetadata metadata = mock(TableMetadata.class);
+    when(metadata.getSplits()).thenReturn(SPLITS.iterator());
+    return metadata;
+  }
+
+  @Test
+  public void loadedOnFirstUse() {
+    final TableMetadata metadata = metadata();
+    final CachedSplits splits = new CachedSplits(metadata);
+    verify(metadata, never()).getSplits();
+
+    assertEquals(SPLITS, splits.getSplits());
+    assertEquals(SPLITS, splits.getSplits());
+    verify(metadata, times(1)).getSplits();
+  }
+
+  @Test
+  public void columnsDecodedOnce() {
+    final CachedSplits splits = new CachedSplits(metadata());
+    final PartitionPredicate.PartitionColumn column = splits.getColumn("a", MinorType.VARCHAR);
+    assertSame(column, splits.getColumn("a", MinorType.VARCHAR));
+  }
+}
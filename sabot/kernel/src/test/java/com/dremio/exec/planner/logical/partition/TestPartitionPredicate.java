@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.junit.Test;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.planner.logical.partition.PartitionPredicate.PartitionColumn;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.google.common.collect.ImmutableList;
+
+public class TestPartitionPredicate {
+
+  private final RelDataTypeFactory factory = new JavaTypeFactoryImpl();
+  private final RexBuilder builder = new RexBuilder(factory);
+
+  // splits partitioned by an int column "a" and a varchar column "b"; the last split has no partition values.
+  private final List<DatasetSplit> splits = ImmutableList.of(
+      split(1, "x"),
+      split(2, "y"),
+      split(3, null),
+      new DatasetSplit());
+
+  private final PartitionPredicate.ColumnProvider columns = new PartitionPredicate.ColumnProvider() {
+    @Override
+    public PartitionColumn getColumn(int index) {
+      return index == 0 ? PartitionColumn.load("a", MinorType.INT, splits)
+          : PartitionColumn.load("b", MinorType.VARCHAR, splits);
+    }
+  };
+
+  private static DatasetSplit split(int a, String b) {
+    final PartitionValue bValue = new PartitionValue().setColumn("b");
+    if (b != null) {
+      bValue.setStringValue(b);
+    }
+    return new DatasetSplit().setPartitionValuesList(ImmutableList.of(
+        new PartitionValue().setColumn("a").setIntValue(a), bValue));
+  }
+
+  private RexNode a() {
+    return builder.makeInputRef(factory.createTypeWithNullability(factory.createSqlType(SqlTypeName.INTEGER), true), 0);
+  }
+
+  private RexNode b() {
+    return builder.makeInputRef(factory.createTypeWithNullability(factory.createSqlType(SqlTypeName.VARCHAR), true), 1);
+  }
+
+  private String matches(RexNode condition) {
+    final PartitionPredicate predicate = PartitionPredicate.compile(condition, columns);
+    final StringBuilder result = new StringBuilder();
+    for (int i = 0; i < splits.size(); i++) {
+      result.append(predicate.matches(i) ? '1' : '0');
+    }
+    return result.toString();
+  }
+
+  @Test
+  public void comparisons() {
+    assertEquals("0110", matches(builder.makeCall(SqlStdOperatorTable.GREATER_THAN_OR_EQUAL,
+        a(), builder.makeExactLiteral(BigDecimal.valueOf(2)))));
+    // literal on the left side: 2 > a
+    assertEquals("1000", matches(builder.makeCall(SqlStdOperatorTable.GREATER_THAN,
+        builder.makeExactLiteral(BigDecimal.valueOf(2)), a())));
+    assertEquals("0110", matches(builder.makeCall(SqlStdOperatorTable.GREATER_THAN,
+        a(), builder.makeExactLiteral(new BigDecimal("1.5")))));
+    assertEquals("0100", matches(builder.makeCall(SqlStdOperatorTable.EQUALS, b(), builder.makeLiteral("y"))));
+    assertEquals("1000", matches(builder.makeCall(SqlStdOperatorTable.NOT_EQUALS, b(), builder.makeLiteral("y"))));
+  }
+
+  @Test
+  public void nulls() {
+    assertEquals("0011", matches(builder.makeCall(SqlStdOperatorTable.IS_NULL, b())));
+    // not (b = 'x') is unknown for null values of b.
+    assertEquals("0100", matches(builder.makeCall(SqlStdOperatorTable.NOT,
+        builder.makeCall(SqlStdOperatorTable.EQUALS, b(), builder.makeLiteral("x")))));
+    assertEquals("1010", matches(builder.makeCall(SqlStdOperatorTable.OR,
+        builder.makeCall(SqlStdOperatorTable.EQUALS, b(), builder.makeLiteral("x")),
+        builder.makeCall(SqlStdOperatorTable.EQUALS, a(), builder.makeExactLiteral(BigDecimal.valueOf(3))))));
+    assertEquals("0100", matches(builder.makeCall(SqlStdOperatorTable.AND,
+        builder.makeCall(SqlStdOperatorTable.IS_NOT_NULL, b()),
+        builder.makeCall(SqlStdOperatorTable.GREATER_THAN, a(), builder.makeExactLiteral(BigDecimal.ONE)))));
+  }
+
+  @Test
+  public void unsupported() {
+    // comparison between two columns
+    assertNull(PartitionPredicate.compile(builder.makeCall(SqlStdOperatorTable.EQUALS, a(), b()), columns));
+    // function calls
+    assertNull(PartitionPredicate.compile(builder.makeCall(SqlStdOperatorTable.EQUALS,
+        builder.makeCall(SqlStdOperatorTable.PLUS, a(), builder.makeExactLiteral(BigDecimal.ONE)),
+        builder.makeExactLiteral(BigDecimal.ONE)), columns));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.planner.sql.MaterializationDescriptor;
+import com.dremio.exec.server.MaterializationDescriptorProvider;
+import com.dremio.exec.server.options.OptionValue;
+import com.dremio.exec.server.options.OptionValue.OptionType;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.NamespaceNotFoundException;
+import com.dremio.service.namespace.NamespaceService;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class TestPlanCache {
+  private static final NamespaceKey DATASET = new NamespaceKey(ImmutableList.of("space", "ds"));
+
+  private NamespaceService namespace;
+  private MaterializationDescriptorProvider materializations;
+  private QueryContext context;
+
+  @Before
+  public void setup() {
+    namespace = mock(NamespaceService.class);
+    materializations = mock(MaterializationDescriptorProvider.class);
+    when(materializations.get(false)).thenReturn(Collections.<MaterializationDescriptor>emptyList());
+    context = mock(QueryContext.class);
+    when(context.getNamespaceService()).thenReturn(namespace);
+    when(context.getMaterializationProvider()).thenReturn(materializations);
+  }
+
+  private void setVersion(long version) throws Exception {
+    final DatasetConfig config = new DatasetConfig();
+    config.setVersion(version);
+    when(namespace.getDataset(DATASET)).thenReturn(config);
+  }
+
+  private static PreparedPlan plan() {
+    return new PreparedPlan(null, "user", "select * from space.ds", null, null);
+  }
+
+  @Test
+  public void keys() {
+    final List<OptionValue> options = ImmutableList.of(
+        OptionValue.createBoolean(OptionType.SYSTEM, "a", false),
+        OptionValue.createBoolean(OptionType.SESSION, "a", true));
+    final String key = PlanCache.getKey("SELECT 1", "user", "space", options);
+    assertEquals(key, PlanCache.getKey("SELECT 1", "user", "space",
+        ImmutableList.of(OptionValue.createBoolean(OptionType.SESSION, "a", true))));
+    assertNotEquals(key, PlanCache.getKey("SELECT 1", "user", "space",
+        ImmutableList.of(OptionValue.createBoolean(OptionType.SESSION, "a", false))));
+    assertNotEquals(key, PlanCache.getKey("SELECT 1", "other", "space", options));
+    assertNotEquals(key, PlanCache.getKey("SELECT 1", "user", "other", options));
+    assertNotEquals(key, PlanCache.getKey("SELECT 2", "user", "space", options));
+  }
+
+  @Test
+  public void invalidateOnDatasetChange() throws Exception {
+    final PlanCache cache = new PlanCache(10, 60);
+    setVersion(1);
+    when(context.getResolvedDatasetVersions()).thenReturn(ImmutableMap.of(DATASET, 1L));
+    cache.put("key", context, plan(), 100);
+
+    final PlanCache.CachedPlan cached = cache.get("key", context);
+    assertNotNull(cached);
+    assertEquals(100, cached.getPlanningMillis());
+
+    setVersion(2);
+    assertNull(cache.get("key", context));
+    assertEquals(0, cache.size());
+    assertEquals(1d / 3, cache.getHitRatio(), 0);
+  }
+
+  @Test
+  public void invalidateOnDatasetRemoval() throws Exception {
+    final PlanCache cache = new PlanCache(10, 60);
+    when(context.getResolvedDatasetVersions()).thenReturn(ImmutableMap.of(DATASET, 1L));
+    cache.put("key", context, plan(), 100);
+
+    when(namespace.getDataset(DATASET)).thenThrow(new NamespaceNotFoundException(DATASET, "not found"));
+    assertNull(cache.get("key", context));
+  }
+
+  @Test
+  public void invalidateOnReflectionChange() throws Exception {
+    final PlanCache cache = new PlanCache(10, 60);
+    setVersion(1);
+    when(context.getResolvedDatasetVersions()).thenReturn(ImmutableMap.of(DATASET, 1L));
+    cache.put("key", context, plan(), 100);
+
+    final MaterializationDescriptor descriptor = mock(MaterializationDescriptor.class);
+    when(descriptor.getMaterializationId()).thenReturn("m1");
+    when(materializations.get(false)).thenReturn(ImmutableList.of(descriptor));
+    assertNull(cache.get("key", context));
+  }
+
+  @Test
+  public void skipUnversionedDatasets() {
+    final PlanCache cache = new PlanCache(10, 60);
+    when(context.getResolvedDatasetVersions()).thenReturn(null);
+    cache.put("key", context, plan(), 100);
+    assertEquals(0, cache.size());
+
+    when(context.getResolvedDatasetVersions()).thenReturn(Collections.<NamespaceKey, Long>emptyMap());
+    cache.put("key", context, plan(), 100);
+    assertNotNull(cache.get("key", context));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.planner.sql.handlers.commands.AsyncCommand.QueueType;
+import com.dremio.exec.server.options.OptionManager;
+import com.google.common.collect.ImmutableList;
+
+public class TestQueueRules {
+  private static final List<List<String>> NO_TABLES = Collections.emptyList();
+
+  private OptionManager options;
+
+  @Before
+  public void setup() {
+    options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.QUEUE_THRESHOLD_SIZE)).thenReturn(1000L);
+    when(options.getOption(ExecConstants.LARGE_QUEUE_USERS)).thenReturn("etl, reporting");
+    when(options.getOption(ExecConstants.LARGE_QUEUE_SOURCES)).thenReturn("Warehouse");
+  }
+
+  @Test
+  public void largeQueries() {
+    assertFalse(QueueRules.isLargeQuery(10, "alice", NO_TABLES, options));
+    assertTrue(QueueRules.isLargeQuery(1001, "alice", NO_TABLES, options));
+    assertTrue(QueueRules.isLargeQuery(10, "reporting", NO_TABLES, options));
+
+    final List<List<String>> tables = ImmutableList.<List<String>>of(
+        ImmutableList.of("local", "t1"), ImmutableList.of("warehouse", "sales", "t2"));
+    assertTrue(QueueRules.isLargeQuery(10, "alice", tables, options));
+    assertFalse(QueueRules.isLargeQuery(10, "alice", tables.subList(0, 1), options));
+  }
+
+  @Test
+  public void memoryLimit() {
+    when(options.getOption(ExecConstants.SMALL_QUEUE_MEMORY_LIMIT)).thenReturn(100L);
+    when(options.getOption(ExecConstants.LARGE_QUEUE_MEMORY_LIMIT)).thenReturn(1000L);
+    assertEquals(0, QueueRules.getQueryMemoryLimit(QueueType.SMALL, options));
+
+    when(options.getOption(ExecConstants.ENABLE_QUEUE_MEMORY_LIMIT)).thenReturn(true);
+    assertEquals(100, QueueRules.getQueryMemoryLimit(QueueType.SMALL, options));
+    assertEquals(1000, QueueRules.getQueryMemoryLimit(QueueType.LARGE, options));
+    assertEquals(1000, QueueRules.getQueryMemoryLimit(QueueType.REFLECTION_SMALL, options));
+  }
+
+  @Test
+  public void memoryPermits() {
+    assertEquals(1, QueueRules.getMemoryPermits(1, 1000));
+    assertEquals(5, QueueRules.getMemoryPermits(250, 1000));
+    assertEquals(6, QueueRules.getMemoryPermits(251, 1000));
+    assertEquals(QueueRules.MEMORY_PERMITS, QueueRules.getMemoryPermits(5000, 1000));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.arrow.vector.NullableIntVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.junit.Test;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.sabot.BaseTestWithAllocator;
+import com.dremio.sabot.op.receiver.RawFragmentBatch;
+import com.google.common.base.Charsets;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.buffer.ByteBuf;
+
+public class TestFragmentWritableBatch extends BaseTestWithAllocator {
+
+  private static final int COUNT = 4000;
+
+  @Test
+  public void compressionRoundtrip() throws Exception {
+    try (VectorContainer container = newContainer()) {
+      final FragmentWritableBatch batch = FragmentWritableBatch.create(QueryId.getDefaultInstance(), 0, 0, 0, container, 0);
+      final long uncompressedSize = batch.getByteCount();
+      final FragmentWritableBatch compressed = batch.compress(allocator, 0);
+      assertEquals(compressed.getBuffers().length, compressed.getHeader().getCompressedBufferLengthCount());
+      assertTrue(compressed.getByteCount() < uncompressedSize);
+
+      // the receiving fragment loads the compressed body as is.
+      try (ArrowBuf body = toBody(compressed.getBuffers());
+           VectorContainer received = VectorContainer.create(allocator, container.getSchema());
+           ArrowRecordBatchLoader loader = new ArrowRecordBatchLoader(allocator, received);
+           RawFragmentBatch rawBatch = new RawFragmentBatch(compressed.getHeader(), body, null)) {
+        assertEquals(uncompressedSize, loader.load(rawBatch));
+
+        final NullableIntVector ints = received.getValueAccessorById(NullableIntVector.class, 0).getValueVector();
+        final NullableVarCharVector strings = received.getValueAccessorById(NullableVarCharVector.class, 1).getValueVector();
+        assertEquals(COUNT, loader.getRecordCount());
+        for (int i = 0; i < COUNT; i++) {
+          assertEquals(i, ints.getObject(i).intValue());
+          assertEquals("value " + (i % 10), strings.getObject(i).toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void smallBatchNotCompressed() throws Exception {
+    try (VectorContainer container = newContainer()) {
+      final FragmentWritableBatch batch = FragmentWritableBatch.create(QueryId.getDefaultInstance(), 0, 0, 0, container, 0);
+      assertSame(batch, batch.compress(allocator, batch.getByteCount() + 1));
+      assertEquals(0, batch.getHeader().getCompressedBufferLengthCount());
+      for (ByteBuf buf : batch.getBuffers()) {
+        buf.release();
+      }
+    }
+  }
+
+  private VectorContainer newContainer() {
+    final VectorContainer container = new VectorContainer(allocator);
+    final NullableIntVector ints = container.addOrGet(CompleteType.INT.toField("ints"));
+    final NullableVarCharVector strings = container.addOrGet(CompleteType.VARCHAR.toField("strings"));
+    ints.allocateNew(COUNT);
+    strings.allocateNew(COUNT * 8, COUNT);
+    for (int i = 0; i < COUNT; i++) {
+      ints.setSafe(i, i);
+      final byte[] bytes = ("value " + (i % 10)).getBytes(Charsets.UTF_8);
+      strings.setSafe(i, bytes, 0, bytes.length);
+    }
+    container.setAllCount(COUNT);
+    container.buildSchema();
+    return container;
+  }
+
+  private ArrowBuf toBody(ByteBuf[] buffers) {
+    int length = 0;
+    for (ByteBuf buf : buffers) {
+      length += buf.readableBytes();
+    }
+    final ArrowBuf body = allocator.buffer(length);
+    for (ByteBuf buf : buffers) {
+      body.writeBytes(buf);
+      buf.release();
+    }
+    return body;
+  }
+}
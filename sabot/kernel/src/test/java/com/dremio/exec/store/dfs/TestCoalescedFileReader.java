@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.dremio.exec.store.dfs.CoalescedFileReader.Range;
+
+public class TestCoalescedFileReader {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static void assertRange(Range range, long offset, long length) {
+    assertEquals(offset, range.getOffset());
+    assertEquals(length, range.getLength());
+  }
+
+  @Test
+  public void plan() {
+    final List<Range> requests = CoalescedFileReader.plan(Arrays.asList(
+        new Range(300, 50),
+        new Range(0, 100),
+        new Range(110, 40),
+        new Range(1000, 10),
+        new Range(2000, 500)), 20, 400);
+
+    assertEquals(4, requests.size());
+    // the first two ranges are merged, the gap of 150 bytes to the third one is too large.
+    assertRange(requests.get(0), 0, 150);
+    assertRange(requests.get(1), 300, 50);
+    assertRange(requests.get(2), 1000, 10);
+    // ranges larger than the maximum request size are not split.
+    assertRange(requests.get(3), 2000, 500);
+  }
+
+  @Test
+  public void readRanges() throws Exception {
+    final byte[] data = new byte[4096];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    final File file = folder.newFile("data");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(data);
+    }
+
+    final FileSystem fs = FileSystem.getLocal(new Configuration());
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         CoalescedFileReader reader = new CoalescedFileReader(fs, new Path(file.toURI()), allocator, 16, 1024)) {
+      reader.addRange(100, 100);
+      reader.addRange(210, 50);
+      reader.addRange(2000, 500);
+      assertEquals(2, reader.fetch(executor));
+
+      final FSDataInputStream in = reader.open(150);
+      final byte[] bytes = new byte[100];
+      in.readFully(bytes);
+      assertArrayEquals(Arrays.copyOfRange(data, 150, 250), bytes);
+      assertEquals(250, in.getPos());
+
+      // positions outside of the fetched ranges are read from the file.
+      in.seek(3000);
+      in.readFully(bytes);
+      assertArrayEquals(Arrays.copyOfRange(data, 3000, 3100), bytes);
+      in.close();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void readRangeEndingAtEndOfFile() throws Exception {
+    // a length that isn't a power of two, so the buffers are larger than the requests.
+    final byte[] data = new byte[3000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    final File file = folder.newFile("data");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(data);
+    }
+
+    final FileSystem fs = FileSystem.getLocal(new Configuration());
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         CoalescedFileReader reader = new CoalescedFileReader(fs, new Path(file.toURI()), allocator, 16, 1024)) {
+      reader.addRange(100, 100);
+      reader.addRange(2400, 600);
+      assertEquals(2, reader.fetch(null));
+
+      final FSDataInputStream in = reader.open(100);
+      // only the requested bytes are served from the fetched range.
+      assertEquals(100, in.available());
+
+      final byte[] bytes = new byte[600];
+      in.readFully(2400, bytes);
+      assertArrayEquals(Arrays.copyOfRange(data, 2400, 3000), bytes);
+
+      in.seek(2990);
+      assertEquals(10, in.available());
+      assertEquals(10, in.read(bytes, 0, 100));
+      assertEquals(-1, in.read());
+      in.close();
+    }
+  }
+
+  @Test
+  public void waitForRunningRequestsOnFailure() throws Exception {
+    final CountDownLatch slowStarted = new CountDownLatch(1);
+    final AtomicBoolean slowFinished = new AtomicBoolean();
+    final FSDataInputStream in = mock(FSDataInputStream.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        final long offset = (Long) invocation.getArguments()[0];
+        if (offset == 0) {
+          slowStarted.await();
+          throw new IOException("request failed");
+        }
+        slowStarted.countDown();
+        Thread.sleep(200);
+        slowFinished.set(true);
+        return null;
+      }
+    }).when(in).readFully(anyLong(), any(byte[].class), anyInt(), anyInt());
+    final FileSystem fs = mock(FileSystem.class);
+    when(fs.open(any(Path.class))).thenReturn(in);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         CoalescedFileReader reader = new CoalescedFileReader(fs, new Path("/tmp/data"), allocator, 16, 1024)) {
+      reader.addRange(0, 100);
+      reader.addRange(2000, 100);
+      try {
+        reader.fetch(executor);
+        fail("fetch should have failed");
+      } catch (IOException e) {
+        assertEquals("request failed", e.getMessage());
+      }
+      // the buffers are released when the reader is closed, so the running request must have completed.
+      assertTrue(slowFinished.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.junit.Test;
+
+import com.dremio.common.util.FileUtils;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.server.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+
+public class TestParquetFooterCache {
+
+  private static OptionManager options(long cacheSize) {
+    final OptionManager options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_ENABLED)).thenReturn(true);
+    when(options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_SIZE)).thenReturn(cacheSize);
+    return options;
+  }
+
+  private static Path testFile() throws Exception {
+    return new Path(FileUtils.getResourceAsFile("/parquet/all_nulls.parquet").toURI().toString());
+  }
+
+  @Test
+  public void cachedByPathAndModificationTime() throws Exception {
+    final OperatorStats stats = mock(OperatorStats.class);
+    final FileSystem fs = FileSystem.getLocal(new Configuration());
+    final Path file = testFile();
+    final long modificationTime = fs.getFileStatus(file).getModificationTime();
+
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetMetadata footer = cache.getFooter(fs, file, modificationTime, stats);
+    assertNotNull(footer);
+    assertSame(footer, cache.getFooter(fs, file, modificationTime, stats));
+    verify(stats, times(1)).addLongStat(Metric.FOOTER_CACHE_MISSES, 1);
+    verify(stats, times(1)).addLongStat(Metric.FOOTER_CACHE_HITS, 1);
+
+    // a modified file must be read again.
+    assertNotSame(footer, cache.getFooter(fs, file, modificationTime + 1, stats));
+    verify(stats, times(2)).addLongStat(Metric.FOOTER_CACHE_MISSES, 1);
+  }
+
+  @Test
+  public void keyedByModificationTimeRead() throws Exception {
+    final OperatorStats stats = mock(OperatorStats.class);
+    final FileSystem fs = FileSystem.getLocal(new Configuration());
+    final Path file = testFile();
+    final long modificationTime = fs.getFileStatus(file).getModificationTime();
+
+    // the caller listed the file before it was rewritten, the footer read is the one of the current file
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetMetadata footer = cache.getFooter(fs, file, modificationTime - 1, stats);
+    assertSame(footer, cache.getFooter(fs, file, modificationTime, stats));
+    verify(stats, times(1)).addLongStat(Metric.FOOTER_CACHE_HITS, 1);
+
+    // and isn't returned for the previous version of the file
+    assertNotSame(footer, cache.getFooter(fs, file, modificationTime - 1, stats));
+  }
+
+  @Test
+  public void weighedByHeapSize() throws Exception {
+    final OperatorStats stats = mock(OperatorStats.class);
+    final FileSystem fs = FileSystem.getLocal(new Configuration());
+    final Path file = testFile();
+    final long modificationTime = fs.getFileStatus(file).getModificationTime();
+    final ParquetMetadata footer = SingletonParquetFooterCache.readFooter(fs, file,
+        ParquetMetadataConverter.NO_FILTER);
+    final int heapSize = ParquetFooterCache.estimateHeapSize(footer);
+    assertTrue(heapSize > SingletonParquetFooterCache.readFooterBytes(fs, fs.getFileStatus(file)).length);
+
+    // footers larger than the cache are not kept
+    final ParquetFooterCache cache = new ParquetFooterCache(heapSize - 1);
+    cache.getFooter(fs, file, modificationTime, stats);
+    cache.getFooter(fs, file, modificationTime, stats);
+    verify(stats, times(2)).addLongStat(Metric.FOOTER_CACHE_MISSES, 1);
+  }
+
+  @Test
+  public void resizeKeepsFooters() throws Exception {
+    final OperatorStats stats = mock(OperatorStats.class);
+    final FileSystem fs = FileSystem.getLocal(new Configuration());
+    final Path file = testFile();
+    final long modificationTime = fs.getFileStatus(file).getModificationTime();
+
+    // use sizes no other test uses, so this test gets its own caches.
+    final OptionManager options = options(1024L * 1024 + 17);
+    final ParquetFooterCache cache = ParquetFooterCache.getInstance(options);
+    assertSame(cache, ParquetFooterCache.getInstance(options));
+    final ParquetMetadata footer = cache.getFooter(fs, file, modificationTime, stats);
+
+    final ParquetFooterCache resized = ParquetFooterCache.getInstance(options(1024L * 1024 + 19));
+    assertNotSame(cache, resized);
+    assertSame(footer, resized.getFooter(fs, file, modificationTime, stats));
+  }
+
+  @Test
+  public void disabled() {
+    final OptionManager options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_ENABLED)).thenReturn(false);
+    assertNull(ParquetFooterCache.getInstance(options));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.statistics.IntStatistics;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type.Repetition;
+import org.junit.Test;
+
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class TestParquetRowGroupFilter {
+
+  private static ParquetMetadata footer(int... minMax) {
+    final MessageType schema = new MessageType("root",
+        new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.INT32, "a"));
+    final ImmutableList.Builder<BlockMetaData> blocks = ImmutableList.builder();
+    for (int i = 0; i < minMax.length; i += 2) {
+      final IntStatistics stats = new IntStatistics();
+      stats.updateStats(minMax[i]);
+      stats.updateStats(minMax[i + 1]);
+      final BlockMetaData block = new BlockMetaData();
+      block.setRowCount(2);
+      block.addColumn(ColumnChunkMetaData.get(ColumnPath.get("a"), PrimitiveTypeName.INT32,
+          CompressionCodecName.UNCOMPRESSED, ImmutableSet.of(Encoding.PLAIN, Encoding.RLE), stats, 4, 0, 2, 10, 10));
+      blocks.add(block);
+    }
+    return new ParquetMetadata(new FileMetaData(schema, Collections.<String, String>emptyMap(), "test"), blocks.build());
+  }
+
+  private static FilterCondition condition(String function, int value) {
+    final LogicalExpression expr = new FunctionCall(function,
+        ImmutableList.<LogicalExpression>of(SchemaPath.getSimplePath("a"), ValueExpressions.getInt(value)));
+    return new FilterCondition(SchemaPath.getSimplePath("a"), null, expr, 0);
+  }
+
+  @Test
+  public void skipRowGroupsOutOfRange() {
+    final OperatorContext context = mock(OperatorContext.class);
+    final OperatorStats stats = mock(OperatorStats.class);
+    when(context.getStats()).thenReturn(stats);
+
+    final ParquetMetadata footer = footer(0, 9, 10, 19, 20, 29);
+    final ParquetRowGroupFilter filter = new ParquetRowGroupFilter(context, null, null,
+        ImmutableList.of(condition("greater_than_or_equal_to", 15)));
+    assertFalse(filter.canMatch("/tmp/file.parquet", footer, 0));
+    assertTrue(filter.canMatch("/tmp/file.parquet", footer, 1));
+    assertTrue(filter.canMatch("/tmp/file.parquet", footer, 2));
+    verify(stats, times(1)).addLongStat(Metric.NUM_ROW_GROUPS_PRUNED, 1);
+
+    final ParquetRowGroupFilter equal = new ParquetRowGroupFilter(context, null, null,
+        ImmutableList.of(condition("equal", 25)));
+    assertFalse(equal.canMatch("/tmp/file.parquet", footer, 0));
+    assertFalse(equal.canMatch("/tmp/file.parquet", footer, 1));
+    assertTrue(equal.canMatch("/tmp/file.parquet", footer, 2));
+  }
+
+  @Test
+  public void noConditions() {
+    final ParquetRowGroupFilter filter = new ParquetRowGroupFilter(mock(OperatorContext.class), null, null,
+        Collections.<FilterCondition>emptyList());
+    assertTrue(filter.canMatch("/tmp/file.parquet", footer(0, 9), 0));
+  }
+}
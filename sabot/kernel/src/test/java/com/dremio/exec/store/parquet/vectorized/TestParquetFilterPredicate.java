@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.statistics.IntStatistics;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type.Repetition;
+import org.junit.Test;
+
+import com.dremio.common.expression.BooleanOperator;
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+
+public class TestParquetFilterPredicate {
+
+  private static final PrimitiveType INT_COLUMN = new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.INT32, "a");
+  private static final PrimitiveType VARCHAR_COLUMN =
+      new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.BINARY, "a", OriginalType.UTF8);
+
+  private static LogicalExpression call(String name, LogicalExpression left, LogicalExpression right) {
+    return new FunctionCall(name, ImmutableList.of(left, right));
+  }
+
+  private static LogicalExpression column() {
+    return SchemaPath.getSimplePath("a");
+  }
+
+  @Test
+  public void comparisons() {
+    final ParquetFilterPredicate lessThan =
+        ParquetFilterPredicate.compile(call("less_than", column(), ValueExpressions.getInt(5)), INT_COLUMN);
+    assertTrue(lessThan.test(4));
+    assertFalse(lessThan.test(5));
+
+    // literal on the left side: 5 < a
+    final ParquetFilterPredicate flipped =
+        ParquetFilterPredicate.compile(call("less_than", ValueExpressions.getInt(5), column()), INT_COLUMN);
+    assertFalse(flipped.test(5));
+    assertTrue(flipped.test(6));
+
+    final ParquetFilterPredicate notEqual =
+        ParquetFilterPredicate.compile(call("not_equal", column(), ValueExpressions.getFloat8(1.5)), INT_COLUMN);
+    assertTrue(notEqual.test(1));
+    assertTrue(notEqual.test(Double.NaN));
+    assertFalse(notEqual.test(1.5));
+  }
+
+  @Test
+  public void range() {
+    final LogicalExpression expr = new BooleanOperator("booleanAnd", ImmutableList.of(
+        call("greater_than_or_equal_to", column(), ValueExpressions.getBigInt(10)),
+        call("less_than", column(), ValueExpressions.getBigInt(20))));
+    final ParquetFilterPredicate predicate = ParquetFilterPredicate.compile(expr, INT_COLUMN);
+    assertNotNull(predicate);
+    assertFalse(predicate.test(9));
+    assertTrue(predicate.test(10));
+    assertTrue(predicate.test(19));
+    assertFalse(predicate.test(20));
+
+    final IntStatistics below = new IntStatistics();
+    below.updateStats(1);
+    below.updateStats(9);
+    assertFalse(predicate.canMatch(below, 2));
+
+    final IntStatistics overlapping = new IntStatistics();
+    overlapping.updateStats(15);
+    overlapping.updateStats(30);
+    assertTrue(predicate.canMatch(overlapping, 2));
+
+    final IntStatistics nulls = new IntStatistics();
+    nulls.incrementNumNulls(2);
+    assertFalse(predicate.canMatch(nulls, 2));
+    assertTrue(predicate.canMatch(null, 2));
+  }
+
+  @Test
+  public void dictionary() {
+    final ParquetFilterPredicate predicate = ParquetFilterPredicate.compile(
+        call("equal", column(), ValueExpressions.getChar("b")), VARCHAR_COLUMN);
+    assertTrue(predicate.test(ByteBuffer.wrap("b".getBytes(Charsets.UTF_8))));
+    assertFalse(predicate.test(ByteBuffer.wrap("bb".getBytes(Charsets.UTF_8))));
+
+    final String[] values = {"a", "b", "c"};
+    final Dictionary dictionary = new Dictionary(Encoding.PLAIN_DICTIONARY) {
+      @Override
+      public int getMaxId() {
+        return values.length - 1;
+      }
+
+      @Override
+      public Binary decodeToBinary(int id) {
+        return Binary.fromString(values[id]);
+      }
+    };
+    assertArrayEquals(new boolean[] {false, true, false}, predicate.matches(dictionary));
+  }
+
+  @Test
+  public void unsupported() {
+    // string literal compared to an int column
+    assertNull(ParquetFilterPredicate.compile(call("equal", column(), ValueExpressions.getChar("b")), INT_COLUMN));
+    // comparison between two columns
+    assertNull(ParquetFilterPredicate.compile(call("equal", column(), SchemaPath.getSimplePath("b")), INT_COLUMN));
+    // disjunctions
+    assertNull(ParquetFilterPredicate.compile(new BooleanOperator("booleanOr", ImmutableList.of(
+        call("equal", column(), ValueExpressions.getInt(1)),
+        call("equal", column(), ValueExpressions.getInt(2)))), INT_COLUMN));
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.vectorized;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.vector.util.Text;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ParquetProperties.WriterVersion;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.common.expression.BooleanOperator;
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.ExecTest;
+import com.dremio.exec.proto.UserBitShared.MetricValue;
+import com.dremio.exec.server.options.OptionManager;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.exec.store.SampleMutator;
+import com.dremio.exec.store.parquet.FilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.UnifiedParquetReader;
+import com.dremio.parquet.reader.ParquetDirectByteBufferAllocator;
+import com.dremio.sabot.exec.context.OpProfileDef;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.dremio.service.namespace.file.proto.ParquetDatasetSplitXAttr;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reads a parquet file written with small pages through {@link VectorizedParquetReader}, on its own and as part of
+ * a {@link UnifiedParquetReader} next to the row wise reader.
+ */
+public class TestVectorizedParquetReader extends ExecTest {
+
+  private static final int ROWS = 20000;
+  private static final int DICTIONARY_ROWS = 10000;
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * a: dictionary encoded pages, then plain pages once the dictionary is full, with nulls.
+   * b, c: vectorized columns with nulls.
+   * e: dictionary encoded only, values 0, 2, ..., 18.
+   * p: unique values, so the writer falls back to plain encoding.
+   * f: read by the row wise reader.
+   */
+  private static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+      "message test { "
+      + "optional int32 a; "
+      + "optional binary b (UTF8); "
+      + "optional int64 c; "
+      + "required int32 e; "
+      + "required int64 p; "
+      + "optional fixed_len_byte_array(4) f; "
+      + "}");
+
+  @ClassRule
+  public static final TemporaryFolder folder = new TemporaryFolder();
+
+  private static final Configuration conf = new Configuration();
+  private static Path file;
+  private static ParquetMetadata footer;
+
+  private OperatorContext context;
+  private OperatorStats stats;
+  private FileSystem fs;
+  private CodecFactory codecFactory;
+
+  private static Integer a(int i) {
+    if (i % 13 == 0) {
+      return null;
+    }
+    return i < DICTIONARY_ROWS ? i % 10 : i;
+  }
+
+  private static String b(int i) {
+    return i % 5 == 0 ? null : "v" + (i % 100);
+  }
+
+  private static Long c(int i) {
+    return i % 7 == 0 ? null : i * 3L;
+  }
+
+  private static int e(int i) {
+    return (i % 10) * 2;
+  }
+
+  private static String f(int i) {
+    return String.format("%04d", i % 10000);
+  }
+
+  @BeforeClass
+  public static void writeFile() throws IOException {
+    file = new Path(folder.getRoot().getAbsolutePath(), "test.parquet");
+    GroupWriteSupport.setSchema(SCHEMA, conf);
+    final SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+    // 1KB pages and a 4KB dictionary page, so each column chunk has many pages and the dictionary of a fills up.
+    try (ParquetWriter<Group> writer = new ParquetWriter<Group>(file, new GroupWriteSupport(),
+        CompressionCodecName.UNCOMPRESSED, 64 * 1024 * 1024, 1024, 4096, true, false, WriterVersion.PARQUET_1_0, conf)) {
+      for (int i = 0; i < ROWS; i++) {
+        final Group group = groups.newGroup();
+        if (a(i) != null) {
+          group.append("a", a(i));
+        }
+        if (b(i) != null) {
+          group.append("b", b(i));
+        }
+        if (c(i) != null) {
+          group.append("c", c(i));
+        }
+        group.append("e", e(i));
+        group.append("p", (long) i);
+        group.append("f", Binary.fromString(f(i)));
+        writer.write(group);
+      }
+    }
+    footer = ParquetFileReader.readFooter(conf, file);
+  }
+
+  @Before
+  public void setupContext() throws IOException {
+    final OptionManager options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.PARQUET_SINGLE_STREAM_COLUMN_THRESHOLD)).thenReturn(40L);
+    when(options.getOption(ExecConstants.PARQUET_VECTORIZED_READER_ENABLED)).thenReturn(true);
+    stats = new OperatorStats(new OpProfileDef(0, 0, 0), allocator);
+    context = mock(OperatorContext.class);
+    when(context.getAllocator()).thenReturn(allocator);
+    when(context.getOptions()).thenReturn(options);
+    when(context.getStats()).thenReturn(stats);
+    when(context.getTargetBatchSize()).thenReturn(BATCH_SIZE);
+    fs = FileSystem.getLocal(conf);
+    codecFactory = CodecFactory.createDirectCodecFactory(conf, new ParquetDirectByteBufferAllocator(allocator), 0);
+  }
+
+  @After
+  public void releaseCodecs() {
+    codecFactory.release();
+  }
+
+  private static LogicalExpression call(String name, String column, LogicalExpression value) {
+    return new FunctionCall(name, ImmutableList.of(SchemaPath.getSimplePath(column), value));
+  }
+
+  private static FilterCondition condition(String column, LogicalExpression expr) {
+    return new FilterCondition(SchemaPath.getSimplePath(column), null, expr, 0);
+  }
+
+  private static List<SchemaPath> columns(String... names) {
+    final List<SchemaPath> columns = new ArrayList<>();
+    for (String name : names) {
+      columns.add(SchemaPath.getSimplePath(name));
+    }
+    return columns;
+  }
+
+  private VectorizedParquetReader newReader(FilterCondition condition, String... columns) {
+    return new VectorizedParquetReader(context, columns(columns), fs, file.toString(), codecFactory, condition, footer,
+        0, null, false);
+  }
+
+  private UnifiedParquetReader newUnifiedReader(FilterCondition condition, String... columns) {
+    final ParquetDatasetSplitXAttr split = new ParquetDatasetSplitXAttr()
+        .setPath(file.toString())
+        .setRowGroupIndex(0);
+    final ParquetReaderFactory readerFactory = UnifiedParquetReader.getReaderFactory(DEFAULT_SABOT_CONFIG,
+        context.getOptions());
+    return new UnifiedParquetReader(context, readerFactory, columns(columns), columns(columns),
+        null, condition == null ? null : Collections.singletonList(condition), split, fs, footer, null, codecFactory,
+        false, false, true, false);
+  }
+
+  /**
+   * Read all the batches of the reader, returning the values of the given columns row by row.
+   */
+  private List<List<Object>> read(RecordReader reader, String... columns) throws Exception {
+    final List<List<Object>> rows = new ArrayList<>();
+    try (SampleMutator mutator = new SampleMutator(allocator)) {
+      try {
+        reader.setup(mutator);
+        while (true) {
+          reader.allocate(mutator.getFieldVectorMap());
+          final int count = reader.next();
+          if (count == 0) {
+            break;
+          }
+          for (int i = 0; i < count; i++) {
+            final List<Object> row = new ArrayList<>();
+            for (String column : columns) {
+              final Object value = mutator.getVector(column).getObject(i);
+              if (value instanceof Text) {
+                row.add(value.toString());
+              } else if (value instanceof byte[]) {
+                row.add(new String((byte[]) value, Charsets.UTF_8));
+              } else {
+                row.add(value);
+              }
+            }
+            rows.add(row);
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return rows;
+  }
+
+  private long pagesSkipped() {
+    for (MetricValue metric : stats.getProfile().getMetricList()) {
+      if (metric.getMetricId() == Metric.PARQUET_PAGES_SKIPPED.metricId()) {
+        return metric.getLongValue();
+      }
+    }
+    return 0;
+  }
+
+  @Test
+  public void readerFactoryEnabledByOption() throws Exception {
+    assertTrue(UnifiedParquetReader.getReaderFactory(DEFAULT_SABOT_CONFIG, context.getOptions())
+        instanceof VectorizedParquetReaderFactory);
+
+    final OptionManager disabled = mock(OptionManager.class);
+    when(disabled.getOption(ExecConstants.PARQUET_VECTORIZED_READER_ENABLED)).thenReturn(false);
+    assertSame(ParquetReaderFactory.NONE, UnifiedParquetReader.getReaderFactory(DEFAULT_SABOT_CONFIG, disabled));
+  }
+
+  @Test
+  public void readDictionaryAndPlainPages() throws Exception {
+    assertEquals(1, footer.getBlocks().size());
+    final ColumnChunkMetaData chunk = footer.getBlocks().get(0).getColumns().get(0);
+    assertTrue(chunk.getEncodings().contains(Encoding.PLAIN_DICTIONARY));
+    assertTrue(chunk.getEncodings().contains(Encoding.PLAIN));
+
+    final List<List<Object>> expected = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      expected.add(Arrays.<Object>asList(a(i), b(i), c(i), e(i), (long) i));
+    }
+    assertEquals(expected, read(newReader(null, "a", "b", "c", "e", "p"), "a", "b", "c", "e", "p"));
+  }
+
+  @Test
+  public void filterDictionaryAndPlainPages() throws Exception {
+    // matches the 9s of the dictionary encoded pages and the first plain pages
+    final FilterCondition condition = condition("a", new BooleanOperator("booleanAnd", ImmutableList.of(
+        call("greater_than_or_equal_to", "a", ValueExpressions.getInt(9)),
+        call("less_than_or_equal_to", "a", ValueExpressions.getInt(DICTIONARY_ROWS + 100)))));
+
+    final List<List<Object>> expected = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      if (a(i) != null && a(i) >= 9 && a(i) <= DICTIONARY_ROWS + 100) {
+        expected.add(Arrays.<Object>asList(a(i), b(i), c(i), (long) i));
+      }
+    }
+    assertEquals(expected, read(newReader(condition, "a", "b", "c", "p"), "a", "b", "c", "p"));
+    // the plain pages past the range are skipped
+    assertTrue(pagesSkipped() > 0);
+  }
+
+  @Test
+  public void skipPagesRejectedByDictionary() throws Exception {
+    // the statistics of every page of e cover 5, only its dictionary rules it out.
+    assertEquals(0, read(newReader(condition("e", call("equal", "e", ValueExpressions.getInt(5))), "e"), "e").size());
+    assertTrue(pagesSkipped() > 0);
+  }
+
+  @Test
+  public void readPagesMatchingDictionary() throws Exception {
+    final List<List<Object>> rows =
+        read(newReader(condition("e", call("equal", "e", ValueExpressions.getInt(6))), "e"), "e");
+    assertEquals(Collections.nCopies(ROWS / 10, Arrays.<Object>asList(6)), rows);
+    assertEquals(0, pagesSkipped());
+  }
+
+  @Test
+  public void skipPagesRejectedByStatistics() throws Exception {
+    final List<List<Object>> expected = new ArrayList<>();
+    for (int i = ROWS - 500; i < ROWS; i++) {
+      expected.add(Arrays.<Object>asList((long) i));
+    }
+    // every value of p is unique, so its dictionary can't rule out any page.
+    final FilterCondition condition =
+        condition("p", call("greater_than_or_equal_to", "p", ValueExpressions.getBigInt(ROWS - 500)));
+    assertEquals(expected, read(newReader(condition, "p"), "p"));
+    assertTrue(pagesSkipped() > 0);
+  }
+
+  @Test
+  public void filterWithRowwiseColumns() throws Exception {
+    // f is read by the row wise reader, which skips the filtered out rows using the deltas.
+    final FilterCondition condition = condition("a", new BooleanOperator("booleanAnd", ImmutableList.of(
+        call("greater_than_or_equal_to", "a", ValueExpressions.getInt(9)),
+        call("less_than_or_equal_to", "a", ValueExpressions.getInt(DICTIONARY_ROWS + 100)))));
+
+    final List<List<Object>> expected = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      if (a(i) != null && a(i) >= 9 && a(i) <= DICTIONARY_ROWS + 100) {
+        expected.add(Arrays.<Object>asList(c(i), f(i)));
+      }
+    }
+    assertEquals(expected, read(newUnifiedReader(condition, "c", "f"), "c", "f"));
+  }
+
+  @Test
+  public void readRowwiseColumnsWithoutFilter() throws Exception {
+    final List<List<Object>> expected = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      expected.add(Arrays.<Object>asList(b(i), f(i)));
+    }
+    assertEquals(expected, read(newUnifiedReader(null, "b", "f"), "b", "f"));
+  }
+
+  @Test
+  public void filterColumnMissingFromFile() throws Exception {
+    // comparisons with the nulls of a missing column never match
+    final FilterCondition condition = condition("missing", call("equal", "missing", ValueExpressions.getInt(1)));
+    assertEquals(0, read(newUnifiedReader(condition, "c", "f"), "c", "f").size());
+    assertEquals(0, read(newReader(condition, "c"), "c").size());
+  }
+}
@@ -32,6 +32,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import com.dremio.BaseTestQuery;
+import com.dremio.TestBuilder;
 import com.dremio.common.exceptions.UserRemoteException;
 import com.dremio.common.util.FileUtils;
 import com.dremio.exec.proto.UserBitShared;
@@ -264,4 +265,38 @@ public class TestNewTextReader extends BaseTestQuery {
       .expectsEmptyResultSet()
       .go();
   }
+
+  @Test
+  public void testProjectWideFile() throws Exception {
+    // wide file with long values, only a few columns are projected
+    File testFolder = tempDir.newFolder("testProjectWideFileFolder");
+    File testFile = new File(testFolder, "wide.csv");
+    PrintStream p = new PrintStream(testFile);
+    for (int c = 0; c < 200; c++) {
+      p.print(c == 0 ? "c" + c : ",c" + c);
+    }
+    p.print("\n");
+    final int rows = 5000;
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < 200; c++) {
+        if (c > 0) {
+          p.print(",");
+        }
+        p.print(c == 150 ? "\"quoted, " + r + "\"" : "value_" + r + "_" + c);
+      }
+      p.print("\n");
+    }
+    p.close();
+
+    final TestBuilder builder = testBuilder()
+      .sqlQuery(String.format("select c3, c150, c198 from table(dfs.`%s` (type => 'text', " +
+          "fieldDelimiter => ',', lineDelimiter => '\n', extractHeader => true))",
+        testFile.getAbsolutePath()))
+      .unOrdered()
+      .baselineColumns("c3", "c150", "c198");
+    for (int r = 0; r < rows; r++) {
+      builder.baselineValues("value_" + r + "_3", "quoted, " + r, "value_" + r + "_198");
+    }
+    builder.go();
+  }
 }
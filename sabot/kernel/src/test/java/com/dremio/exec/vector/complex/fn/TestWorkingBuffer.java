@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.vector.complex.fn;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.common.AutoCloseables;
+import com.google.common.base.Charsets;
+
+/**
+ * Unit tests for {@link WorkingBuffer}
+ */
+public class TestWorkingBuffer {
+  private BufferAllocator allocator;
+
+  @Before
+  public void setup() {
+    this.allocator = new RootAllocator(Long.MAX_VALUE);
+  }
+
+  @After
+  public void close() throws Exception {
+    AutoCloseables.close(allocator);
+  }
+
+  // encode the characters of the string surrounded by padding, and compare with String.getBytes()
+  private void checkEncoding(String value) throws Exception {
+    final char[] chars = ("xx" + value + "yy").toCharArray();
+    final WorkingBuffer buffer = new WorkingBuffer(allocator.buffer(4));
+    try {
+      final int length = buffer.prepareVarCharHolder(chars, 2, value.length());
+      final byte[] actual = new byte[length];
+      buffer.getBuf().getBytes(0, actual);
+      assertArrayEquals(value, value.getBytes(Charsets.UTF_8), actual);
+    } finally {
+      buffer.getBuf().release();
+    }
+  }
+
+  @Test
+  public void encodeCharacters() throws Exception {
+    checkEncoding("");
+    checkEncoding("ascii only");
+    checkEncoding("caf\u00e9 \u00fcber");
+    checkEncoding("\u65e5\u672c\u8a9e");
+    checkEncoding("emoji \ud83d\ude00 and \ud834\udd1e");
+    checkEncoding("unpaired \ud83d end");
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.work.foreman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.planner.observer.AttemptObserver;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.sql.handlers.commands.AsyncCommand.QueueType;
+import com.dremio.exec.proto.CoordExecRPC.QueryContextInformation;
+import com.dremio.exec.proto.UserBitShared.DremioPBError.ErrorType;
+import com.dremio.exec.server.SabotContext;
+import com.dremio.exec.server.options.OptionManager;
+import com.dremio.exec.server.options.SystemOptionManager;
+import com.dremio.exec.store.sys.accel.AccelerationManager;
+import com.dremio.exec.work.AttemptId;
+import com.dremio.exec.work.protector.UserRequest;
+import com.dremio.service.coordinator.DistributedSemaphore.DistributedLease;
+import com.dremio.service.coordinator.local.LocalClusterCoordinator;
+
+/**
+ * Tests the admission of queries in the queues by {@link AttemptManager}
+ */
+public class TestAttemptManagerQueueing {
+
+  private LocalClusterCoordinator clusterCoordinator;
+  private SabotContext sabotContext;
+  private OptionManager options;
+
+  @Before
+  public void setup() throws Exception {
+    clusterCoordinator = LocalClusterCoordinator.newRunningCoordinator();
+
+    final SystemOptionManager systemOptions = mock(SystemOptionManager.class);
+    when(systemOptions.getOption(PlannerSettings.VERBOSE_PROFILE)).thenReturn(false);
+    sabotContext = mock(SabotContext.class);
+    when(sabotContext.getClusterCoordinator()).thenReturn(clusterCoordinator);
+    when(sabotContext.getOptionManager()).thenReturn(systemOptions);
+
+    // two query slots, and a memory budget for only one of the queries
+    options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.ENABLE_QUEUE)).thenReturn(true);
+    when(options.getOption(ExecConstants.REFLECTION_ENABLE_QUEUE)).thenReturn(true);
+    when(options.getOption(ExecConstants.QUEUE_TIMEOUT)).thenReturn(100L);
+    when(options.getOption(ExecConstants.SMALL_QUEUE_SIZE)).thenReturn(2L);
+    when(options.getOption(ExecConstants.ENABLE_QUEUE_MEMORY_LIMIT)).thenReturn(true);
+    when(options.getOption(ExecConstants.SMALL_QUEUE_MEMORY_LIMIT)).thenReturn(600L);
+    when(options.getOption(ExecConstants.SMALL_QUEUE_MEMORY_BUDGET)).thenReturn(1000L);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    clusterCoordinator.close();
+  }
+
+  private AttemptManager newAttemptManager() {
+    final QueryContext queryContext = mock(QueryContext.class);
+    when(queryContext.getOptions()).thenReturn(options);
+    when(queryContext.getAccelerationManager()).thenReturn(mock(AccelerationManager.class));
+    when(queryContext.getQueryContextInfo()).thenReturn(QueryContextInformation.newBuilder()
+        .setQueryMaxAllocation(Long.MAX_VALUE)
+        .build());
+
+    return new AttemptManager(sabotContext, new AttemptId(), mock(UserRequest.class), mock(AttemptObserver.class),
+        null, null, null, null, queryContext, null);
+  }
+
+  private static void assertNotAdmitted(AttemptManager attemptManager) throws Exception {
+    try {
+      attemptManager.acquireQuerySemaphoreIfNecessary(QueueType.SMALL);
+      fail("Query shouldn't be admitted");
+    } catch (UserException e) {
+      assertEquals(ErrorType.RESOURCE, e.getErrorType());
+    }
+  }
+
+  @Test
+  public void queriesWaitForMemoryBudget() throws Exception {
+    final AttemptManager first = newAttemptManager();
+    first.acquireQuerySemaphoreIfNecessary(QueueType.SMALL);
+
+    // a query slot is free, but the memory budget isn't
+    final AttemptManager second = newAttemptManager();
+    assertNotAdmitted(second);
+
+    first.releaseLease();
+    second.acquireQuerySemaphoreIfNecessary(QueueType.SMALL);
+    second.releaseLease();
+  }
+
+  @Test
+  public void queriesWithoutMemoryLimitIgnoreBudget() throws Exception {
+    when(options.getOption(ExecConstants.ENABLE_QUEUE_MEMORY_LIMIT)).thenReturn(false);
+
+    final AttemptManager first = newAttemptManager();
+    first.acquireQuerySemaphoreIfNecessary(QueueType.SMALL);
+    final AttemptManager second = newAttemptManager();
+    second.acquireQuerySemaphoreIfNecessary(QueueType.SMALL);
+
+    // but they still wait for a query slot
+    assertNotAdmitted(newAttemptManager());
+
+    first.releaseLease();
+    second.releaseLease();
+  }
+
+  @Test
+  public void querySlotReleasedWhenBudgetIsFull() throws Exception {
+    final AttemptManager first = newAttemptManager();
+    first.acquireQuerySemaphoreIfNecessary(QueueType.SMALL);
+    assertNotAdmitted(newAttemptManager());
+
+    // the query which wasn't admitted gave its slot back
+    final DistributedLease slot = clusterCoordinator.getSemaphore("query.small", 2).acquire(0, TimeUnit.MILLISECONDS);
+    assertNotNull(slot);
+    slot.close();
+
+    first.releaseLease();
+  }
+}
@@ -17,7 +17,9 @@ package com.dremio.sabot;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -70,9 +72,11 @@ import com.dremio.exec.physical.config.MergeJoinPOP;
 import com.dremio.exec.physical.config.NestedLoopJoinPOP;
 import com.dremio.exec.physical.config.Screen;
 import com.dremio.exec.physical.config.UnionAll;
+import com.dremio.exec.physical.config.Values;
 import com.dremio.exec.proto.CoordExecRPC.QueryContextInformation;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.proto.UserBitShared.MetricValue;
 import com.dremio.exec.proto.UserBitShared.UserCredentials;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
@@ -94,10 +98,12 @@ import com.dremio.sabot.driver.OperatorCreatorRegistry;
 import com.dremio.sabot.driver.SchemaChangeListener;
 import com.dremio.sabot.exec.context.ContextInformation;
 import com.dremio.sabot.exec.context.ContextInformationImpl;
+import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OpProfileDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorContextImpl;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.context.RuntimeFilters;
 import com.dremio.sabot.exec.fragment.FragmentExecutionContext;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.receiver.RawFragmentBatchProvider;
@@ -112,6 +118,7 @@ import com.dremio.sabot.op.spi.SingleInputOperator.State;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.NamespaceServiceImpl;
 import com.dremio.test.DremioTest;
+import com.google.common.base.Preconditions;
 
 import io.airlift.tpch.GenerationDefinition.TpchTable;
 import io.airlift.tpch.TpchGenerator;
@@ -126,6 +133,10 @@ public class BaseTestOperator extends ExecTest {
 
   protected static OperatorTestContext testContext;
   private final List<AutoCloseable> testCloseables = new ArrayList<>();
+  // operators of a test share their runtime filters, as the operators of a fragment do.
+  private final RuntimeFilters runtimeFilters = new RuntimeFilters();
+  // contexts of the operators created by the test, by configuration, to read their metrics.
+  private final Map<PhysicalOperator, OperatorContextImpl> operatorContexts = new IdentityHashMap<>();
   private BufferAllocator testAllocator;
 
   @BeforeClass
@@ -232,8 +243,9 @@ public class BaseTestOperator extends ExecTest {
         pop.getMaxAllocation() == 0 ? Long.MAX_VALUE : pop.getMaxAllocation());
 
     // we don't close child allocator as the operator context will manage this.
-    final OperatorContextImpl context = testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize);
+    final OperatorContextImpl context = testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize, runtimeFilters);
     testCloseables.add(context);
+    operatorContexts.put(pop, context);
 
     // mock FEC
     FragmentExecutionContext fec = Mockito.mock(FragmentExecutionContext.class);
@@ -251,6 +263,21 @@ public class BaseTestOperator extends ExecTest {
     }
   }
 
+  /**
+   * Get a metric of the last operator created by the test for the given configuration.
+   * @return the value of the metric, or 0 if the operator didn't set it.
+   */
+  protected long getLongStat(PhysicalOperator pop, MetricDef metric) {
+    final OperatorContextImpl context = operatorContexts.get(pop);
+    Preconditions.checkArgument(context != null, "No operator was created for %s.", pop);
+    for (MetricValue value : context.getStats().getProfile().getMetricList()) {
+      if (value.getMetricId() == metric.metricId()) {
+        return value.getLongValue();
+      }
+    }
+    return 0;
+  }
+
   protected static class OperatorTestContext implements AutoCloseable{
 
     SabotConfig config = DEFAULT_SABOT_CONFIG;
@@ -308,6 +335,10 @@ public class BaseTestOperator extends ExecTest {
     }
 
     protected OperatorContextImpl getNewOperatorContext(BufferAllocator child, PhysicalOperator pop, int targetBatchSize) throws Exception {
+      return getNewOperatorContext(child, pop, targetBatchSize, new RuntimeFilters());
+    }
+
+    protected OperatorContextImpl getNewOperatorContext(BufferAllocator child, PhysicalOperator pop, int targetBatchSize, RuntimeFilters runtimeFilters) throws Exception {
       OperatorStats stats = new OperatorStats(new OpProfileDef(1, 1, 1), child);
       final NamespaceService namespaceService = new NamespaceServiceImpl(testContext.storeProvider);
       final FragmentHandle handle = FragmentHandle.newBuilder()
@@ -329,7 +360,8 @@ public class BaseTestOperator extends ExecTest {
           options,
           namespaceService,
           NodeDebugContextProvider.NOOP,
-          targetBatchSize);
+          targetBatchSize,
+          runtimeFilters);
     }
 
     public ClassProducer newClassProducer(BufferManager bufferManager) {
@@ -437,6 +469,11 @@ public class BaseTestOperator extends ExecTest {
       return testContext.getOperatorCreatorRegistry().getProducerOperator(fec, context, config);
     }
 
+    @Override
+    public Operator visitValues(Values config, OperatorContext context) throws ExecutionSetupException {
+      return testContext.getOperatorCreatorRegistry().getProducerOperator(fec, context, config);
+    }
+
     @Override
     public Operator visitScreen(Screen config, OperatorContext context) throws ExecutionSetupException {
       return testContext.getOperatorCreatorRegistry().getTerminalOperator(tunnelProvider, context, config);
@@ -572,7 +609,40 @@ public class BaseTestOperator extends ExecTest {
       int batchSize,
       Table result,
       boolean isProduceRequired) throws Exception {
+    validateDual(pop, clazz, left, right, batchSize, result, isProduceRequired, null);
+  }
+
+  /**
+   * Check whether a dual input operator with the provided generators produces the expected number of records.
+   * @param pop The configuration for the operator
+   * @param clazz The clazz that implements the operator.
+   * @param left The generator to provide the left input.
+   * @param right The generator to provide the right input.
+   * @param batchSize The target record batch size.
+   * @param expectedCount The expected number of records.
+   * @throws Exception
+   */
+  protected <T extends DualInputOperator> void assertDual(
+      PhysicalOperator pop,
+      Class<T> clazz,
+      Generator left,
+      Generator right,
+      int batchSize,
+      long expectedCount) throws Exception {
+    validateDual(pop, clazz, left, right, batchSize, null, true, expectedCount);
+  }
+
+  private <T extends DualInputOperator> void validateDual(
+      PhysicalOperator pop,
+      Class<T> clazz,
+      Generator left,
+      Generator right,
+      int batchSize,
+      Table result,
+      boolean isProduceRequired,
+      Long expected) throws Exception {
 
+    long recordCount = 0;
     final List<RecordBatchData> data = new ArrayList<>();
     try(
         Generator leftGen = left;
@@ -604,8 +674,9 @@ public class BaseTestOperator extends ExecTest {
           break;
         case CAN_PRODUCE:
           int outputCount = op.outputData();
-          if(outputCount > 0
-            || (outputCount == 0 && result.isExpectZero())) {
+          recordCount += outputCount;
+          if(result != null && (outputCount > 0
+            || (outputCount == 0 && result.isExpectZero()))) {
             data.add(new RecordBatchData(output, getTestAllocator()));
           }
           break;
@@ -617,11 +688,17 @@ public class BaseTestOperator extends ExecTest {
       }
 
       assertState(op, State.DONE);
-      if (!isProduceRequired && data.isEmpty() && result.isExpectZero()) {
-        ((VectorContainer)output).setAllCount(0);
-        data.add(new RecordBatchData(output, getTestAllocator()));
+      if(result != null){
+        if (!isProduceRequired && data.isEmpty() && result.isExpectZero()) {
+          ((VectorContainer)output).setAllCount(0);
+          data.add(new RecordBatchData(output, getTestAllocator()));
+        }
+        result.checkValid(data);
+      }
+
+      if(expected != null){
+        Assert.assertEquals((long) expected, recordCount);
       }
-      result.checkValid(data);
 
     } finally {
       AutoCloseables.close(data);
@@ -19,25 +19,44 @@ import static com.dremio.sabot.Fixtures.t;
 import static com.dremio.sabot.Fixtures.th;
 import static com.dremio.sabot.Fixtures.tr;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.ValueVector;
 import org.junit.Test;
 
 import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.common.types.Types;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.HashAggregate;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures;
 import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.Generator;
 import com.dremio.sabot.op.aggregate.hash.HashAggOperator;
 import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
+import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
+import com.dremio.sabot.op.spi.SingleInputOperator.State;
 
 import io.airlift.tpch.GenerationDefinition.TpchTable;
 import io.airlift.tpch.TpchGenerator;
 
 public class TestHashAgg extends BaseTestOperator {
 
+  private static final int GROUPS = 150_000;
+
   @Test
   public void oneKeySumCnt() throws Exception {
     HashAggregate conf = new HashAggregate(null,
@@ -207,6 +226,63 @@ public class TestHashAgg extends BaseTestOperator {
     validateSingle(conf, VectorizedHashAggOperator.class, DATA, expected);
   }
 
+  @Test
+  public void bitwiseWork() throws Exception {
+
+    HashAggregate conf = new HashAggregate(null,
+        Arrays.asList(n("gb")),
+        Arrays.asList(
+            n("bit_and(myint)", "intand"),
+            n("bit_or(myint)", "intor"),
+            n("bit_and(mybigint)", "bigintand"),
+            n("bit_or(mybigint)", "bigintor")
+            ),
+        true,
+        1f);
+
+    final Table expected = t(
+        th("gb",    "intand", "intor", "bigintand", "bigintor"),
+        tr("group1",     5 & -10, 5 | -10, 5L & -10L, 5L | -10L),
+        tr("group2",     10 & -13, 10 | -13, 10L & -13L, 10L | -13L),
+        tr("group3",     Fixtures.NULL_INT, Fixtures.NULL_INT, Fixtures.NULL_BIGINT, Fixtures.NULL_BIGINT)
+        );
+
+    validateSingle(conf, VectorizedHashAggOperator.class, DATA, expected);
+  }
+
+  @Test
+  public void booleanKey() throws Exception {
+
+    HashAggregate conf = new HashAggregate(null,
+        Arrays.asList(n("mybool")),
+        Arrays.asList(
+            n("count(1)", "cnt"),
+            n("sum(myint)", "sum")
+            ),
+        true,
+        1f);
+
+    final Table expected = t(
+        th("mybool", "cnt", "sum"),
+        tr(true, 2L, 3L),
+        tr(false, 3L, 12L),
+        tr(Fixtures.NULL_BOOLEAN, 2L, 100L)
+        );
+
+    final Table data = t(
+        th("mybool", "myint"),
+        tr(true, 1),
+        tr(false, 2),
+        tr(Fixtures.NULL_BOOLEAN, 40),
+        tr(true, 2),
+        tr(false, 4),
+        tr(false, 6),
+        tr(Fixtures.NULL_BOOLEAN, 60)
+        );
+
+    validateSingle(conf, VectorizedHashAggOperator.class, data, expected);
+  }
+
   private static final Table DATA = t(
       th("gb", "myint", "mybigint", "myfloat", "mydouble"),
       tr("group1", 5, 5L, 5f, 5d),
@@ -248,4 +324,165 @@ public class TestHashAgg extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void spillVectorized() throws Exception {
+    final HashAggregate conf = new HashAggregate(null,
+        Arrays.asList(n("grp")),
+        Arrays.asList(
+            n("sum(val)", "sum"),
+            n("count(1)", "cnt")
+            ),
+        true,
+        1f);
+    // too small to hold all 150k groups in memory.
+    conf.setMaxAllocation(3_000_000);
+
+    try(AutoCloseable options = with(ExecConstants.VECTORIZED_HASHAGG_SPILL_PARTITIONS, 4)){
+      validateRepeatedGroups(conf);
+    }
+    assertTrue(getLongStat(conf, Metric.SPILL_COUNT) > 0);
+  }
+
+  @Test
+  public void parallelVectorized() throws Exception {
+    final List<NamedExpression> dim = Arrays.asList(n("c_mktsegment"));
+    final List<NamedExpression> measure = Arrays.asList(
+        n("sum(c_acctbal)", "sum"),
+        n("count(1)", "cnt")
+        );
+
+    final Table expected = t(
+        th("c_mktsegment", "sum", "cnt"),
+        tr("BUILDING", 13588862194l, 30142l),
+        tr("AUTOMOBILE", 13386684709l, 29752l),
+        tr("MACHINERY", 13443886167l, 29949l),
+        tr("HOUSEHOLD", 13587334117l, 30189l),
+        tr("FURNITURE", 13425917787l, 29968l)
+        );
+
+    final HashAggregate conf = new HashAggregate(null, dim, measure, true, 1f);
+    try(AutoCloseable parallelism = with(ExecConstants.VECTORIZED_HASHAGG_PARALLELISM, 4);
+        AutoCloseable options = with(ExecConstants.MIN_HASH_TABLE_SIZE, 1)){
+      validateSingle(conf, VectorizedHashAggOperator.class, TpchGenerator.singleGenerator(TpchTable.CUSTOMER, 1, allocator), expected, 1000);
+    }
+  }
+
+  @Test
+  public void spillParallelVectorized() throws Exception {
+    final HashAggregate conf = new HashAggregate(null,
+        Arrays.asList(n("grp")),
+        Arrays.asList(
+            n("sum(val)", "sum"),
+            n("count(1)", "cnt")
+            ),
+        true,
+        1f);
+    // too small to hold all 150k groups in memory.
+    conf.setMaxAllocation(3_000_000);
+
+    try(AutoCloseable parallelism = with(ExecConstants.VECTORIZED_HASHAGG_PARALLELISM, 4);
+        AutoCloseable options = with(ExecConstants.VECTORIZED_HASHAGG_SPILL_PARTITIONS, 4)){
+      validateRepeatedGroups(conf);
+    }
+    assertEquals(4, getLongStat(conf, Metric.PARALLEL_PARTITIONS));
+    assertTrue(getLongStat(conf, Metric.SPILL_COUNT) > 0);
+  }
+
+  /**
+   * Aggregate the values of 150k groups, each read twice in batches far apart, and check the sum and count of every
+   * group.
+   */
+  private void validateRepeatedGroups(HashAggregate conf) throws Exception {
+    final long[] sums = new long[GROUPS];
+    final long[] counts = new long[GROUPS];
+    try(Generator generator = new RepeatedGroupGenerator(getTestAllocator(), GROUPS, 2)){
+      // the operator is closed when the test finishes.
+      final VectorizedHashAggOperator op = newOperator(VectorizedHashAggOperator.class, conf, 1000);
+      final VectorAccessible output = op.setup(generator.getOutput());
+      int count;
+      while((count = generator.next(1000)) != 0){
+        assertEquals(State.CAN_CONSUME, op.getState());
+        op.consumeData(count);
+        while(op.getState() == State.CAN_PRODUCE){
+          collect(output, op.outputData(), sums, counts);
+        }
+      }
+
+      if(op.getState() == State.CAN_CONSUME){
+        op.noMoreToConsume();
+      }
+      while(op.getState() == State.CAN_PRODUCE){
+        collect(output, op.outputData(), sums, counts);
+      }
+      assertEquals(State.DONE, op.getState());
+    }
+
+    // group g is made of values g and g + GROUPS.
+    for(int g = 0; g < GROUPS; g++){
+      assertEquals("count of group " + g, 2L, counts[g]);
+      assertEquals("sum of group " + g, 2L * g + GROUPS, sums[g]);
+    }
+  }
+
+  private static void collect(VectorAccessible output, int records, long[] sums, long[] counts) {
+    final Map<String, ValueVector> vectors = new HashMap<>();
+    for(VectorWrapper<?> wrapper : output){
+      vectors.put(wrapper.getField().getName(), wrapper.getValueVector());
+    }
+    for(int i = 0; i < records; i++){
+      final int group = ((Long) vectors.get("grp").getObject(i)).intValue();
+      sums[group] += (Long) vectors.get("sum").getObject(i);
+      counts[group] += (Long) vectors.get("cnt").getObject(i);
+    }
+  }
+
+  /**
+   * Generates a bigint group and a bigint value for each record: record r is in group r % groups and has value r.
+   */
+  private static final class RepeatedGroupGenerator implements Generator {
+    private final int groups;
+    private final int records;
+    private final VectorContainer result;
+    private final NullableBigIntVector group;
+    private final NullableBigIntVector value;
+
+    private int offset;
+
+    public RepeatedGroupGenerator(BufferAllocator allocator, int groups, int repeats) {
+      this.groups = groups;
+      this.records = groups * repeats;
+      result = new VectorContainer(allocator);
+      group = result.addOrGet("grp", Types.optional(MinorType.BIGINT), NullableBigIntVector.class);
+      value = result.addOrGet("val", Types.optional(MinorType.BIGINT), NullableBigIntVector.class);
+      result.buildSchema(SelectionVectorMode.NONE);
+    }
+
+    @Override
+    public int next(int count) {
+      count = Math.min(records - offset, count);
+      if (count == 0) {
+        return 0;
+      }
+
+      result.allocateNew();
+      for(int i = 0; i < count; i++) {
+        group.setSafe(i, (offset + i) % groups);
+        value.setSafe(i, offset + i);
+      }
+
+      offset += count;
+      result.setAllCount(count);
+      return count;
+    }
+
+    @Override
+    public VectorAccessible getOutput() {
+      return result;
+    }
+
+    @Override
+    public void close() throws Exception {
+      result.close();
+    }
+  }
 }
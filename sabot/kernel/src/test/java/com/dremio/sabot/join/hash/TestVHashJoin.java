@@ -15,15 +15,51 @@
  */
 package com.dremio.sabot.join.hash;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.NullableIntVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.arrow.vector.ValueVector;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.junit.Test;
 
+import com.dremio.common.JSONOptions;
+import com.dremio.common.expression.CompleteType;
 import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.common.types.Types;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
+import com.dremio.exec.physical.config.Values;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.Generator;
 import com.dremio.sabot.join.BaseTestJoin;
+import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
 import com.dremio.sabot.op.join.vhash.VectorizedHashJoinOperator;
+import com.dremio.sabot.op.spi.ProducerOperator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import io.airlift.tpch.GenerationDefinition.TpchTable;
+import io.airlift.tpch.TpchGenerator;
 
 public class TestVHashJoin extends BaseTestJoin {
 
@@ -36,4 +72,265 @@ public class TestVHashJoin extends BaseTestJoin {
   public void manyColumns() throws Exception {
     baseManyColumns();
   }
+
+  @Test
+  public void spill() throws Exception {
+    final HashJoinPOP join = new HashJoinPOP(null, null,
+        Arrays.asList(new JoinCondition("EQUALS", f("n_nationKey"), f("c_nationkey"))), JoinRelType.INNER, true);
+    // too small to hold all 150k customers in memory.
+    join.setMaxAllocation(3_000_000);
+
+    try(AutoCloseable options = with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS, 4)){
+      assertDual(join, VectorizedHashJoinOperator.class,
+          TpchGenerator.singleGenerator(TpchTable.NATION, 1, getTestAllocator(), "n_nationKey", "n_name"),
+          TpchGenerator.singleGenerator(TpchTable.CUSTOMER, 1, getTestAllocator(), "c_custkey", "c_nationkey", "c_name"),
+          DEFAULT_BATCH, 150000L);
+    }
+    assertTrue(getLongStat(join, Metric.SPILL_COUNT) > 0);
+  }
+
+  @Test
+  public void spillInnerWithUnmatched() throws Exception {
+    spillWithUnmatched(JoinRelType.INNER);
+  }
+
+  @Test
+  public void spillLeft() throws Exception {
+    spillWithUnmatched(JoinRelType.LEFT);
+  }
+
+  @Test
+  public void spillRight() throws Exception {
+    spillWithUnmatched(JoinRelType.RIGHT);
+  }
+
+  @Test
+  public void spillFull() throws Exception {
+    spillWithUnmatched(JoinRelType.FULL);
+  }
+
+  @Test
+  public void runtimeFilterPrunesProbeScan() throws Exception {
+    // the 25 nations match, about 2% of the other 975 keys get through the filter.
+    final long records = runtimeFilterProbeScan();
+    assertTrue(records >= 25 && records < 100);
+  }
+
+  @Test
+  public void runtimeFilterDisabled() throws Exception {
+    try(AutoCloseable options = with(ExecConstants.ENABLE_RUNTIME_FILTER, false)){
+      assertEquals(1000L, runtimeFilterProbeScan());
+    }
+  }
+
+  /**
+   * Complete the build side of a join on the 25 nations, then count the records of its probe scan over keys 0 to 999
+   * once the join has published its runtime filter to the scan.
+   */
+  private long runtimeFilterProbeScan() throws Exception {
+    final ArrayNode rows = JsonNodeFactory.instance.arrayNode();
+    for(int i = 0; i < 1000; i++){
+      rows.addObject().put("c_nationkey", (long) i);
+    }
+    final Values scan = new Values(new JSONOptions(rows, JsonLocation.NA),
+        BatchSchema.newBuilder().addField(CompleteType.BIGINT.toField("c_nationkey")).build());
+    scan.setOperatorId(1);
+
+    final HashJoinPOP join = new HashJoinPOP(null, null,
+        Arrays.asList(new JoinCondition("EQUALS", f("c_nationkey"), f("n_nationKey"))), JoinRelType.INNER, true,
+        new RuntimeFilterTarget(scan.getOperatorId(), Arrays.asList("c_nationkey")));
+
+    try(Generator build = TpchGenerator.singleGenerator(TpchTable.NATION, 1, getTestAllocator(), "n_nationKey")){
+      // both operators are closed when the test finishes.
+      final ProducerOperator probe = newOperator(ProducerOperator.class, scan, DEFAULT_BATCH);
+      final VectorizedHashJoinOperator op = newOperator(VectorizedHashJoinOperator.class, join, DEFAULT_BATCH);
+      op.setup(probe.setup(), build.getOutput());
+
+      int count;
+      while((count = build.next(DEFAULT_BATCH)) > 0){
+        op.consumeDataRight(count);
+      }
+      op.noMoreToConsumeRight();
+
+      long records = 0;
+      final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+      while(probe.getState() != ProducerOperator.State.DONE){
+        assertTrue("probe scan didn't finish", System.currentTimeMillis() < deadline);
+        if(probe.getState() == ProducerOperator.State.CAN_PRODUCE){
+          records += probe.outputData();
+        }else{
+          // the scan is blocked while its next reader is prefetched.
+          Thread.sleep(10);
+        }
+      }
+      return records;
+    }
+  }
+
+  /**
+   * Join probe keys 60k to 150k with build keys 0 to 100k, spilling the build side. Keys 60k to 100k match, probe keys
+   * 100k to 150k are output null extended for left and full joins, build keys 0 to 60k for right and full joins.
+   */
+  private void spillWithUnmatched(JoinRelType type) throws Exception {
+    final HashJoinPOP join = new HashJoinPOP(null, null,
+        Arrays.asList(new JoinCondition("EQUALS", f("probe_key"), f("build_key"))), type, true);
+    // too small to hold all 100k build records in memory.
+    join.setMaxAllocation(2_000_000);
+
+    final BitSet matched = new BitSet();
+    final BitSet probeOnly = new BitSet();
+    final BitSet buildOnly = new BitSet();
+    try(AutoCloseable options = with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS, 4);
+        Generator probe = new RangeGenerator(getTestAllocator(), "probe", 60_000, 150_000);
+        Generator build = new RangeGenerator(getTestAllocator(), "build", 0, 100_000)){
+      // the operator is closed when the test finishes.
+      final VectorizedHashJoinOperator op = newOperator(VectorizedHashJoinOperator.class, join, DEFAULT_BATCH);
+      final VectorAccessible output = op.setup(probe.getOutput(), build.getOutput());
+
+      outside: while(true){
+        switch(op.getState()){
+        case CAN_CONSUME_L:
+          final int probeCount = probe.next(DEFAULT_BATCH);
+          if(probeCount > 0){
+            op.consumeDataLeft(probeCount);
+          }else{
+            op.noMoreToConsumeLeft();
+          }
+          break;
+        case CAN_CONSUME_R:
+          final int buildCount = build.next(DEFAULT_BATCH);
+          if(buildCount > 0){
+            op.consumeDataRight(buildCount);
+          }else{
+            op.noMoreToConsumeRight();
+          }
+          break;
+        case CAN_PRODUCE:
+          checkJoined(output, op.outputData(), matched, probeOnly, buildOnly);
+          break;
+        case DONE:
+          break outside;
+        default:
+          throw new UnsupportedOperationException();
+        }
+      }
+    }
+
+    assertKeys(matched, 60_000, 100_000);
+    if(type == JoinRelType.LEFT || type == JoinRelType.FULL){
+      assertKeys(probeOnly, 100_000, 150_000);
+    }else{
+      assertTrue(probeOnly.isEmpty());
+    }
+    if(type == JoinRelType.RIGHT || type == JoinRelType.FULL){
+      assertKeys(buildOnly, 0, 60_000);
+    }else{
+      assertTrue(buildOnly.isEmpty());
+    }
+    assertTrue(getLongStat(join, Metric.SPILL_COUNT) > 0);
+  }
+
+  /**
+   * Check the joined records of an output batch, adding their keys to the matched keys, or to the keys output with
+   * the other side null extended.
+   */
+  private static void checkJoined(VectorAccessible output, int records, BitSet matched, BitSet probeOnly,
+      BitSet buildOnly) {
+    final Map<String, ValueVector> vectors = new HashMap<>();
+    for(VectorWrapper<?> wrapper : output){
+      vectors.put(wrapper.getField().getName(), wrapper.getValueVector());
+    }
+    for(int i = 0; i < records; i++){
+      final Integer probeKey = checkValue(vectors.get("probe_key"), vectors.get("probe_value"), i);
+      final Integer buildKey = checkValue(vectors.get("build_key"), vectors.get("build_value"), i);
+      final BitSet keys;
+      final int key;
+      if(probeKey != null && buildKey != null){
+        assertEquals(probeKey, buildKey);
+        keys = matched;
+        key = probeKey;
+      }else if(probeKey != null){
+        keys = probeOnly;
+        key = probeKey;
+      }else{
+        assertNotNull("record with both sides null", buildKey);
+        keys = buildOnly;
+        key = buildKey;
+      }
+      assertFalse("key " + key + " output twice", keys.get(key));
+      keys.set(key);
+    }
+  }
+
+  /**
+   * Check that the value of a record is the one generated for its key, or null if the key is null.
+   * @return the key of the record.
+   */
+  private static Integer checkValue(ValueVector keyVector, ValueVector valueVector, int index) {
+    final Integer key = (Integer) keyVector.getObject(index);
+    final Object value = valueVector.getObject(index);
+    if(key == null){
+      assertNull(value);
+    }else{
+      assertEquals(String.format("value_%09d", key), String.valueOf(value));
+    }
+    return key;
+  }
+
+  private static void assertKeys(BitSet keys, int start, int end) {
+    assertEquals(end - start, keys.cardinality());
+    assertEquals(start, keys.nextSetBit(0));
+    assertEquals(end, keys.length());
+  }
+
+  /**
+   * Generates a record for each key of a range, with an int key and a varchar value.
+   */
+  private static final class RangeGenerator implements Generator {
+    private final int end;
+    private final VectorContainer result;
+    private final NullableIntVector key;
+    private final NullableVarCharVector value;
+
+    private int offset;
+
+    public RangeGenerator(BufferAllocator allocator, String prefix, int start, int end) {
+      this.offset = start;
+      this.end = end;
+      result = new VectorContainer(allocator);
+      key = result.addOrGet(prefix + "_key", Types.optional(MinorType.INT), NullableIntVector.class);
+      value = result.addOrGet(prefix + "_value", Types.optional(MinorType.VARCHAR), NullableVarCharVector.class);
+      result.buildSchema(SelectionVectorMode.NONE);
+    }
+
+    @Override
+    public int next(int records) {
+      int count = Math.min(end - offset, records);
+      if (count == 0) {
+        return 0;
+      }
+
+      result.allocateNew();
+      for(int i = 0; i<count; i++) {
+        key.setSafe(i, offset + i);
+        byte[] valueBytes = String.format("value_%09d", offset + i).getBytes();
+        value.setSafe(i, valueBytes, 0, valueBytes.length);
+      }
+
+      offset += count;
+      result.setAllCount(count);
+
+      return count;
+    }
+
+    @Override
+    public VectorAccessible getOutput() {
+      return result;
+    }
+
+    @Override
+    public void close() throws Exception {
+      result.close();
+    }
+  }
 }
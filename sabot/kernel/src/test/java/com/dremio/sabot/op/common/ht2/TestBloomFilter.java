@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.NullableVarCharVector;
+import org.junit.Test;
+
+import com.dremio.sabot.BaseTestWithAllocator;
+import com.google.common.base.Charsets;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+public class TestBloomFilter extends BaseTestWithAllocator {
+
+  @Test
+  public void buildAndProbe() throws Exception {
+    final int buildCount = 1000;
+    final int probeCount = 4000;
+
+    try(BloomFilter filter = new BloomFilter(allocator, buildCount)){
+
+      // build keys are the even numbers below 2000, probe keys all the numbers below 4000.
+      try(NullableBigIntVector longs = new NullableBigIntVector("longs", allocator);
+          NullableVarCharVector strings = new NullableVarCharVector("strings", allocator);
+          ArrowBuf hashes = allocator.buffer(buildCount * 8)){
+        fill(longs, strings, buildCount, 2);
+        final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(longs, longs), new FieldVectorPair(strings, strings));
+        try(FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+            VariableBlockVector vbv = new VariableBlockVector(allocator, pivot.getVariableCount())){
+          Pivots.pivot(pivot, buildCount, fbv, vbv);
+          BloomFilter.hashKeys(pivot, fbv, vbv, buildCount, hashes.memoryAddress());
+        }
+        for(int i = 0; i < buildCount; i++){
+          filter.put(PlatformDependent.getLong(hashes.memoryAddress() + i * 8));
+        }
+      }
+
+      try(NullableBigIntVector longs = new NullableBigIntVector("longs", allocator);
+          NullableVarCharVector strings = new NullableVarCharVector("strings", allocator);
+          ArrowBuf scratch = allocator.buffer(probeCount * 8);
+          ArrowBuf sv2 = allocator.buffer(probeCount * 2)){
+        fill(longs, strings, probeCount, 1);
+        final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(longs, longs), new FieldVectorPair(strings, strings));
+        final int matches;
+        try(FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+            VariableBlockVector vbv = new VariableBlockVector(allocator, pivot.getVariableCount())){
+          Pivots.pivot(pivot, probeCount, fbv, vbv);
+          matches = filter.find(pivot, fbv, vbv, probeCount, scratch.memoryAddress(), sv2.memoryAddress());
+        }
+
+        // all the build keys must be found, few of the others.
+        int found = 0;
+        int falsePositives = 0;
+        for(int i = 0; i < matches; i++){
+          final int index = PlatformDependent.getShort(sv2.memoryAddress() + i * 2);
+          if(index % 2 == 0 && index < buildCount * 2){
+            found++;
+          } else {
+            falsePositives++;
+          }
+        }
+        assertEquals(buildCount, found);
+        assertTrue("Too many false positives: " + falsePositives, falsePositives < (probeCount - buildCount) / 10);
+      }
+    }
+  }
+
+  private static void fill(NullableBigIntVector longs, NullableVarCharVector strings, int count, int step){
+    longs.allocateNew(count);
+    strings.allocateNew(count * 8, count);
+    for(int i = 0; i < count; i++){
+      final long value = i * step;
+      longs.setSafe(i, value);
+      // leave the string null for some of the keys.
+      if(value % 3 != 0){
+        final byte[] bytes = ("key" + value).getBytes(Charsets.UTF_8);
+        strings.setSafe(i, bytes, 0, bytes.length);
+      }
+    }
+    longs.setValueCount(count);
+    strings.setValueCount(count);
+  }
+}
@@ -17,12 +17,16 @@ package com.dremio.sabot.op.common.ht2;
 
 import static org.junit.Assert.*;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.arrow.vector.NullableBigIntVector;
+import org.apache.arrow.vector.NullableBitVector;
+import org.apache.arrow.vector.NullableDecimalVector;
 import org.apache.arrow.vector.NullableIntVector;
 import org.apache.arrow.vector.NullableVarCharVector;
+import org.apache.arrow.vector.util.DecimalUtility;
 import org.junit.Test;
 
 import com.dremio.common.AutoCloseables;
@@ -30,6 +34,8 @@ import com.dremio.sabot.BaseTestWithAllocator;
 import com.google.common.base.Charsets;
 import com.google.common.collect.FluentIterable;
 
+import io.netty.buffer.ArrowBuf;
+
 public class TestPivotRoundtrip extends BaseTestWithAllocator {
 
 
@@ -188,4 +194,120 @@ public class TestPivotRoundtrip extends BaseTestWithAllocator {
       }
     }
   }
+
+  @Test
+  public void bitRoundtrip(){
+    final int count = 1024;
+    try(
+        NullableBitVector in = new NullableBitVector("in", allocator);
+        NullableBitVector out = new NullableBitVector("out", allocator);
+        ){
+
+      in.allocateNew(count);
+
+      for(int i = 0; i < count; i++){
+        if(i % 5 != 0){
+          in.setSafe(i, i % 3 == 0 ? 1 : 0);
+        }
+      }
+      in.setValueCount(count);
+
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(in, out));
+      try(
+          final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+          final VariableBlockVector vbv = new VariableBlockVector(allocator, pivot.getVariableCount());
+          ){
+        fbv.ensureAvailableBlocks(count);
+        Pivots.pivot(pivot, count, fbv, vbv);
+        Unpivots.unpivot(pivot, fbv, vbv, count);
+
+        for(int i =0; i < count; i++){
+          assertEquals(in.getObject(i), out.getObject(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void decimalRoundtrip(){
+    final int count = 1024;
+    try(
+        NullableDecimalVector in = new NullableDecimalVector("in", allocator, 38, 2);
+        NullableDecimalVector out = new NullableDecimalVector("out", allocator, 38, 2);
+        ArrowBuf tempBuf = allocator.buffer(16);
+        ){
+
+      in.allocateNew(count);
+
+      for(int i = 0; i < count; i++){
+        if(i % 5 == 0){
+          DecimalUtility.writeBigDecimalToArrowBuf(BigDecimal.valueOf(Long.MAX_VALUE - i, 2).multiply(BigDecimal.TEN), tempBuf, 0);
+          in.setSafe(i, tempBuf);
+        }
+      }
+      in.setValueCount(count);
+
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(in, out));
+      try(
+          final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+          final VariableBlockVector vbv = new VariableBlockVector(allocator, pivot.getVariableCount());
+          ){
+        fbv.ensureAvailableBlocks(count);
+        Pivots.pivot(pivot, count, fbv, vbv);
+        Unpivots.unpivot(pivot, fbv, vbv, count);
+
+        for(int i =0; i < count; i++){
+          assertEquals(in.getObject(i), out.getObject(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void manyBitsRoundtrip() throws Exception{
+    // enough fields for the null and value bits to span several words, each field with its own null pattern.
+    final int count = 1024;
+    final int mult = 40;
+    NullableBitVector[] in = new NullableBitVector[mult];
+    NullableBitVector[] out = new NullableBitVector[mult];
+    List<FieldVectorPair> pairs = new ArrayList<>();
+    try {
+
+      for(int x =0; x < mult; x++){
+        NullableBitVector inv = new NullableBitVector("in", allocator);
+        in[x] = inv;
+        inv.allocateNew(count);
+        NullableBitVector outv = new NullableBitVector("out", allocator);
+        out[x] = outv;
+        for(int i = 0; i < count; i++){
+          if((i + x) % 3 != 0){
+            inv.setSafe(i, (i + x) % 2);
+          }
+        }
+        inv.setValueCount(count);
+        pairs.add(new FieldVectorPair(inv, outv));
+      }
+
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(pairs);
+      try(
+          final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+          final VariableBlockVector vbv = new VariableBlockVector(allocator, pivot.getVariableCount());
+          ){
+        fbv.ensureAvailableBlocks(count);
+        Pivots.pivot(pivot, count, fbv, vbv);
+        Unpivots.unpivot(pivot, fbv, vbv, count);
+
+        for(int x = 0; x < mult; x++){
+          NullableBitVector inv = in[x];
+          NullableBitVector outv = out[x];
+          for(int i =0; i < count; i++){
+            assertEquals("Field: " + x, inv.getObject(i), outv.getObject(i));
+          }
+        }
+      }
+    } finally {
+      AutoCloseables.close(FluentIterable.of(in));
+      AutoCloseables.close(FluentIterable.of(out));
+    }
+  }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.scan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.dremio.exec.store.RecordReader;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.threads.sharedres.SharedResource;
+import com.dremio.sabot.threads.sharedres.SharedResourceManager;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class TestReaderPrefetcher {
+
+  /**
+   * Runs the submitted tasks when asked to.
+   */
+  private static class ManualExecutor extends AbstractExecutorService {
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final boolean reject;
+
+    ManualExecutor(boolean reject) {
+      this.reject = reject;
+    }
+
+    void runAll() {
+      final List<Runnable> toRun = new ArrayList<>(tasks);
+      tasks.clear();
+      for (Runnable task : toRun) {
+        task.run();
+      }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      if (reject) {
+        throw new RejectedExecutionException();
+      }
+      tasks.add(command);
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+
+  private final SharedResource resource =
+      SharedResourceManager.newBuilder().addGroup("pipeline").build().getGroup("pipeline").createResource("scan");
+
+  private static List<RecordReader> readers(int count) {
+    final List<RecordReader> readers = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      readers.add(mock(RecordReader.class));
+    }
+    return readers;
+  }
+
+  @Test
+  public void readersInOrder() throws Exception {
+    final List<RecordReader> readers = readers(5);
+    try (ReaderPrefetcher prefetcher = new ReaderPrefetcher(readers.iterator(), MoreExecutors.sameThreadExecutor(),
+        resource, mock(OperatorStats.class), 2)) {
+      prefetcher.fetch();
+      for (RecordReader reader : readers) {
+        assertTrue(prefetcher.isReady());
+        assertTrue(prefetcher.hasNext());
+        assertSame(reader, prefetcher.next());
+      }
+      assertTrue(prefetcher.isReady());
+      assertFalse(prefetcher.hasNext());
+    }
+  }
+
+  @Test
+  public void blockedUntilCreated() throws Exception {
+    final List<RecordReader> readers = readers(2);
+    final ManualExecutor executor = new ManualExecutor(false);
+    try (ReaderPrefetcher prefetcher =
+             new ReaderPrefetcher(readers.iterator(), executor, resource, mock(OperatorStats.class), 1)) {
+      prefetcher.fetch();
+      assertFalse(prefetcher.isReady());
+      assertFalse(resource.isAvailable());
+
+      executor.runAll();
+      assertTrue(resource.isAvailable());
+      assertTrue(prefetcher.isReady());
+      assertSame(readers.get(0), prefetcher.next());
+
+      // taking the reader starts the creation of the next one.
+      assertFalse(prefetcher.isReady());
+      executor.runAll();
+      assertTrue(prefetcher.isReady());
+      assertSame(readers.get(1), prefetcher.next());
+
+      assertFalse(prefetcher.isReady());
+      executor.runAll();
+      assertTrue(prefetcher.isReady());
+      assertFalse(prefetcher.hasNext());
+    }
+  }
+
+  @Test
+  public void rejectedTasksRunInScanThread() throws Exception {
+    final List<RecordReader> readers = readers(2);
+    try (ReaderPrefetcher prefetcher = new ReaderPrefetcher(readers.iterator(), new ManualExecutor(true), resource,
+        mock(OperatorStats.class), 1)) {
+      assertTrue(prefetcher.isReady());
+      assertSame(readers.get(0), prefetcher.next());
+      assertTrue(prefetcher.isReady());
+      assertSame(readers.get(1), prefetcher.next());
+      assertTrue(prefetcher.isReady());
+      assertFalse(prefetcher.hasNext());
+      assertTrue(resource.isAvailable());
+    }
+  }
+
+  @Test
+  public void closeReleasesPrefetchedReaders() throws Exception {
+    final List<RecordReader> readers = readers(3);
+    final ReaderPrefetcher prefetcher = new ReaderPrefetcher(readers.iterator(), MoreExecutors.sameThreadExecutor(),
+        resource, mock(OperatorStats.class), 2);
+    prefetcher.fetch();
+    assertSame(readers.get(0), prefetcher.next());
+    assertTrue(prefetcher.hasNext());
+    prefetcher.close();
+
+    // the reader handed out is closed by the scan, the prefetched ones by the prefetcher.
+    verify(readers.get(0), never()).close();
+    verify(readers.get(1)).close();
+    verify(readers.get(2)).close();
+  }
+
+  @Test
+  public void closeDuringCreation() throws Exception {
+    final RecordReader reader = mock(RecordReader.class);
+    final ReaderPrefetcher[] prefetcher = new ReaderPrefetcher[1];
+    final Iterator<RecordReader> readers = new AbstractIterator<RecordReader>() {
+      @Override
+      protected RecordReader computeNext() {
+        // the scan is closed while the task creates the reader, without waiting for it.
+        try {
+          prefetcher[0].close();
+        } catch (Exception e) {
+          throw Throwables.propagate(e);
+        }
+        return reader;
+      }
+    };
+
+    final ManualExecutor executor = new ManualExecutor(false);
+    prefetcher[0] = new ReaderPrefetcher(readers, executor, resource, mock(OperatorStats.class), 1);
+    prefetcher[0].fetch();
+    assertFalse(prefetcher[0].isReady());
+    assertFalse(resource.isAvailable());
+
+    executor.runAll();
+    assertTrue(resource.isAvailable());
+    // the task closes the reader it created.
+    verify(reader).close();
+  }
+
+  @Test
+  public void creationFailure() throws Exception {
+    final RecordReader first = mock(RecordReader.class);
+    final Iterator<RecordReader> readers = new AbstractIterator<RecordReader>() {
+      private int count;
+
+      @Override
+      protected RecordReader computeNext() {
+        if (count++ == 0) {
+          return first;
+        }
+        throw new IllegalStateException("footer read failed");
+      }
+    };
+
+    try (ReaderPrefetcher prefetcher = new ReaderPrefetcher(readers, MoreExecutors.sameThreadExecutor(), resource,
+        mock(OperatorStats.class), 1)) {
+      assertSame(first, prefetcher.next());
+      assertTrue(prefetcher.isReady());
+      try {
+        prefetcher.next();
+        fail();
+      } catch (IllegalStateException e) {
+        assertEquals("footer read failed", e.getMessage());
+      }
+    }
+  }
+}
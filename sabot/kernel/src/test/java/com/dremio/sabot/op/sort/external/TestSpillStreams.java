@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.ByteStreams;
+
+public class TestSpillStreams {
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static byte[] data(int length) {
+    final byte[] data = new byte[length];
+    new Random(length).nextBytes(data);
+    return data;
+  }
+
+  @Test
+  public void roundTrip() throws IOException {
+    final byte[] data = data(10_000);
+    final ByteArrayOutputStream file = new ByteArrayOutputStream();
+    try (OutputStream out = new AsyncSpillOutputStream(file, executor, 64, Stopwatch.createUnstarted())) {
+      // mix of single bytes, flushes and writes larger than the buffers.
+      out.write(data, 0, 10);
+      out.flush();
+      out.write(data[10]);
+      out.write(data, 11, 500);
+      out.flush();
+      out.write(data, 511, data.length - 511);
+    }
+    assertArrayEquals(data, file.toByteArray());
+
+    // buffer size dividing the length of the stream
+    try (InputStream in = new ReadAheadSpillInputStream(
+        new ByteArrayInputStream(data), executor, 100, Stopwatch.createUnstarted())) {
+      assertEquals(data[0] & 0xFF, in.read());
+      final byte[] read = new byte[data.length];
+      read[0] = data[0];
+      ByteStreams.readFully(in, read, 1, data.length - 1);
+      assertArrayEquals(data, read);
+      assertEquals(-1, in.read());
+    }
+
+    try (InputStream in = new ReadAheadSpillInputStream(
+        new ByteArrayInputStream(data), executor, 3, Stopwatch.createUnstarted())) {
+      assertArrayEquals(data, ByteStreams.toByteArray(in));
+    }
+  }
+
+  @Test
+  public void rejectedTasks() throws IOException {
+    executor.shutdown();
+    final byte[] data = data(1_000);
+    final ByteArrayOutputStream file = new ByteArrayOutputStream();
+    try (OutputStream out = new AsyncSpillOutputStream(file, executor, 64, Stopwatch.createUnstarted())) {
+      out.write(data);
+    }
+    assertArrayEquals(data, file.toByteArray());
+
+    try (InputStream in = new ReadAheadSpillInputStream(
+        new ByteArrayInputStream(data), executor, 64, Stopwatch.createUnstarted())) {
+      assertArrayEquals(data, ByteStreams.toByteArray(in));
+    }
+  }
+
+  @Test
+  public void writeFailure() throws IOException {
+    final OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+
+    final OutputStream out = new AsyncSpillOutputStream(failing, executor, 16, Stopwatch.createUnstarted());
+    try {
+      out.write(data(100));
+      out.close();
+      fail("background write failure should be reported");
+    } catch (IOException e) {
+      assertEquals("disk full", e.getMessage());
+    }
+  }
+}
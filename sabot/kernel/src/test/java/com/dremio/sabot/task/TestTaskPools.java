@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.dremio.common.config.SabotConfig;
+import com.dremio.sabot.task.single.DedicatedTaskPool;
+import com.dremio.sabot.task.slicing.SlicingTaskPool;
+import com.typesafe.config.ConfigValueFactory;
+
+public class TestTaskPools {
+
+  @Test
+  public void dedicatedByDefault() {
+    assertTrue(TaskPools.newFactory(SabotConfig.create()) instanceof DedicatedTaskPool.Factory);
+  }
+
+  @Test
+  public void slicingWhenConfigured() {
+    final SabotConfig config = SabotConfig.create().withValue(TaskPools.DREMIO_TASK_POOL_FACTORY_CLASS,
+        ConfigValueFactory.fromAnyRef(SlicingTaskPool.Factory.class.getName()));
+    assertTrue(TaskPools.newFactory(config) instanceof SlicingTaskPool.Factory);
+  }
+}
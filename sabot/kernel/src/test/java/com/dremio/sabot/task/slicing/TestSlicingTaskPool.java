@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.dremio.exec.proto.CoordExecRPC.FragmentPriority;
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.threads.AvailabilityCallback;
+
+public class TestSlicingTaskPool {
+
+  /**
+   * Task that runs a given number of times, then either completes or throws.
+   */
+  private static class TestTask implements AsyncTask {
+    private final int runs;
+    private final boolean fail;
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile Task.State state = Task.State.RUNNABLE;
+
+    TestTask(int runs, boolean fail) {
+      this.runs = runs;
+      this.fail = fail;
+    }
+
+    @Override
+    public void run() {
+      if (count.incrementAndGet() < runs) {
+        return;
+      }
+      if (fail) {
+        throw new IllegalStateException("task failed");
+      }
+      state = Task.State.DONE;
+    }
+
+    @Override
+    public void refreshState() {
+    }
+
+    @Override
+    public Task.State getState() {
+      return state;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedDuration(long duration) {
+    }
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {
+    }
+  }
+
+  private static AsyncTaskWrapper wrap(AsyncTask task, final CountDownLatch cleaned) {
+    return new AsyncTaskWrapper(FragmentPriority.getDefaultInstance(), task, new AutoCloseable() {
+      @Override
+      public void close() throws Exception {
+        cleaned.countDown();
+      }
+    });
+  }
+
+  @Test
+  public void failedTasksAreRemoved() throws Exception {
+    final SlicingTaskPool pool = new SlicingTaskPool(1, 10, TimeUnit.MILLISECONDS);
+    try {
+      final CountDownLatch cleaned = new CountDownLatch(2);
+      final TestTask failing = new TestTask(3, true);
+      final TestTask other = new TestTask(100, false);
+      pool.execute(wrap(failing, cleaned));
+      pool.execute(wrap(other, cleaned));
+
+      // the failed task is cleaned up and never run again, while the other task completes.
+      assertTrue(cleaned.await(10, TimeUnit.SECONDS));
+      final long deadline = System.currentTimeMillis() + 10000;
+      while (pool.getTaskCount() > 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(0, pool.getTaskCount());
+      assertEquals(3, failing.count.get());
+      assertEquals(100, other.count.get());
+    } finally {
+      pool.close();
+    }
+  }
+}
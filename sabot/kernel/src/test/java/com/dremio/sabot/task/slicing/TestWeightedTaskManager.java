@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskManager.TaskProvider;
+import com.dremio.sabot.task.TaskManager.WakeUpListener;
+
+public class TestWeightedTaskManager {
+
+  private static final WakeUpListener NO_OP = new WakeUpListener() {
+    @Override
+    public void wakeUpIfIdle() {
+    }
+  };
+
+  private static class TestTask implements Task {
+    private State state = State.RUNNABLE;
+
+    @Override
+    public State getState() {
+      return state;
+    }
+  }
+
+  @Test
+  public void sharesFollowGroupWeights() {
+    final WeightedTaskManager<TestTask> manager = new WeightedTaskManager<>(1);
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP);
+
+    final SchedulingGroup<TestTask> heavy = manager.newGroup(300);
+    final SchedulingGroup<TestTask> light = manager.newGroup(100);
+    final TestTask heavyTask = new TestTask();
+    heavy.addTask(heavyTask, 100);
+    // a group's share doesn't depend on the number of tasks it holds.
+    for (int i = 0; i < 4; i++) {
+      light.addTask(new TestTask(), 100);
+    }
+
+    int heavyRuns = 0;
+    TaskHandle<TestTask> handle = provider.getTask(0);
+    for (int i = 0; i < 4000; i++) {
+      if (handle.getTask() == heavyTask) {
+        heavyRuns++;
+      }
+      handle = provider.getTask(1000);
+    }
+
+    assertEquals(3000, heavyRuns, 10);
+  }
+
+  @Test
+  public void blockedTasksAreParked() {
+    final WeightedTaskManager<TestTask> manager = new WeightedTaskManager<>(1);
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP);
+
+    final TestTask task = new TestTask();
+    final TaskHandle<TestTask> added = manager.addTask(task, 100);
+
+    final TaskHandle<TestTask> handle = provider.getTask(0);
+    assertSame(added, handle);
+    task.state = Task.State.BLOCKED;
+    assertNull(provider.getTask(1000));
+
+    task.state = Task.State.RUNNABLE;
+    handle.reEnqueue();
+    assertSame(added, provider.getTask(0));
+
+    task.state = Task.State.DONE;
+    assertNull(provider.getTask(1000));
+    assertEquals(0, manager.getTaskCount());
+  }
+
+  @Test
+  public void idleThreadsSteal() {
+    final WeightedTaskManager<TestTask> manager = new WeightedTaskManager<>(2);
+    final TaskProvider<TestTask> first = manager.getTaskProvider(0, NO_OP);
+    final TaskProvider<TestTask> second = manager.getTaskProvider(1, NO_OP);
+
+    manager.addTask(new TestTask(), 100);
+    manager.addTask(new TestTask(), 100);
+    manager.addTask(new TestTask(), 100);
+
+    assertTrue(first.getTask(0) != null);
+    final TaskHandle<TestTask> done = second.getTask(0);
+    done.getTask().state = Task.State.DONE;
+    // the second thread has nothing left in its own queue, it takes the task queued for the first one.
+    final TaskHandle<TestTask> stolen = second.getTask(1000);
+    assertTrue(stolen != null);
+    assertEquals(1, stolen.getThread());
+  }
+
+  @Test
+  public void failedTasksAreRemoved() {
+    final WeightedTaskManager<TestTask> manager = new WeightedTaskManager<>(1);
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP);
+
+    final TaskHandle<TestTask> failed = manager.addTask(new TestTask(), 100);
+    final TaskHandle<TestTask> other = manager.addTask(new TestTask(), 100);
+
+    assertSame(failed, provider.getTask(0));
+    // a runnable task that failed is not put back in the run queue.
+    provider.taskFailed();
+    assertSame(other, provider.getTask(1000));
+    assertSame(other, provider.getTask(1000));
+    assertEquals(1, manager.getTaskCount());
+
+    // nor is a blocked one once it is woken up.
+    other.getTask().state = Task.State.BLOCKED;
+    provider.taskFailed();
+    other.reEnqueue();
+    assertNull(provider.getTask(1000));
+    assertEquals(0, manager.getTaskCount());
+  }
+
+  @Test
+  public void virtualRuntimesDontOverflow() {
+    final WeightedTaskManager<TestTask> manager = new WeightedTaskManager<>(1);
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP);
+
+    final SchedulingGroup<TestTask> group = manager.newGroup(1);
+    manager.newGroup(TaskManager.MAX_WEIGHT);
+    final TestTask first = new TestTask();
+    final TestTask second = new TestTask();
+    group.addTask(first, 100);
+    group.addTask(second, 100);
+
+    // each quantum is charged way past the renormalization threshold, the two tasks keep taking turns.
+    TaskHandle<TestTask> handle = provider.getTask(0);
+    for (int i = 0; i < 20; i++) {
+      final TestTask previous = handle.getTask();
+      handle = provider.getTask(WeightedTaskManager.RENORMALIZE_THRESHOLD);
+      assertTrue(handle.getTask() != previous);
+    }
+  }
+}
@@ -31,6 +31,17 @@ public interface DistributedSemaphore {
    */
   public DistributedLease acquire(long time, TimeUnit unit) throws Exception;
 
+  /**
+   * Try to acquire several permits of the semaphore at once
+   *
+   * @param permits the number of permits to acquire
+   * @param time the duration to wait for the permits
+   * @param unit the duration unit
+   * @return the lease holding all the permits, or null if they couldn't be acquired in time
+   * @throws Exception
+   */
+  public DistributedLease acquire(int permits, long time, TimeUnit unit) throws Exception;
+
   /**
    * The semaphore lease
    */
@@ -170,7 +170,7 @@ public class LocalClusterCoordinator extends ClusterCoordinator {
 
   private class LocalSemaphore implements DistributedSemaphore {
     private final Semaphore semaphore;
-    private final LocalLease localLease = new LocalLease();
+    private final LocalLease localLease = new LocalLease(1);
 
     public LocalSemaphore(final int size) {
       semaphore = new Semaphore(size);
@@ -185,10 +185,25 @@ public class LocalClusterCoordinator extends ClusterCoordinator {
       }
     }
 
+    @Override
+    public DistributedLease acquire(final int permits, final long timeout, final TimeUnit timeUnit) throws Exception {
+      if (!semaphore.tryAcquire(permits, timeout, timeUnit)) {
+        return null;
+      } else {
+        return new LocalLease(permits);
+      }
+    }
+
     private class LocalLease implements DistributedLease {
+      private final int permits;
+
+      LocalLease(int permits) {
+        this.permits = permits;
+      }
+
       @Override
       public void close() throws Exception {
-        semaphore.release();
+        semaphore.release(permits);
       }
     }
   }
@@ -15,9 +15,11 @@
  */
 package com.dremio.service.coordinator.zk;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreV2;
 import org.apache.curator.framework.recipes.locks.Lease;
 
@@ -27,9 +29,12 @@ class ZkDistributedSemaphore implements DistributedSemaphore{
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ZkDistributedSemaphore.class);
 
   private final InterProcessSemaphoreV2 semaphore;
+  // held while acquiring several leases, so that two acquisitions never hold part of the leases each other waits for
+  private final InterProcessMutex multiLeaseLock;
 
   public ZkDistributedSemaphore(CuratorFramework client, String path, int numberOfLeases) {
     this.semaphore = new InterProcessSemaphoreV2(client, path, numberOfLeases);
+    this.multiLeaseLock = new InterProcessMutex(client, path + "-multi-lock");
   }
 
   @Override
@@ -42,6 +47,48 @@ class ZkDistributedSemaphore implements DistributedSemaphore{
     }
   }
 
+  @Override
+  public DistributedLease acquire(int permits, long time, TimeUnit unit) throws Exception {
+    if (permits == 1) {
+      return acquire(time, unit);
+    }
+
+    // the semaphore takes the leases one at a time, and only returns them once the timeout expires
+    final long start = System.nanoTime();
+    if (!multiLeaseLock.acquire(time, unit)) {
+      return null;
+    }
+
+    final Collection<Lease> leases;
+    try {
+      final long remaining = Math.max(0, unit.toNanos(time) - (System.nanoTime() - start));
+      leases = semaphore.acquire(permits, remaining, TimeUnit.NANOSECONDS);
+    } finally {
+      multiLeaseLock.release();
+    }
+
+    if(leases != null){
+      return new LeasesHolder(leases);
+    }else{
+      return null;
+    }
+  }
+
+  private class LeasesHolder implements DistributedLease{
+    private final Collection<Lease> leases;
+
+    public LeasesHolder(Collection<Lease> leases) {
+      super();
+      this.leases = leases;
+    }
+
+    @Override
+    public void close() throws Exception {
+      semaphore.returnAll(leases);
+    }
+
+  }
+
   private class LeaseHolder implements DistributedLease{
     private Lease lease;
 
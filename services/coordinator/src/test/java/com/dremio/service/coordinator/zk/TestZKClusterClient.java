@@ -22,7 +22,11 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -35,6 +39,8 @@ import org.junit.Test;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.service.coordinator.ClusterCoordinator;
+import com.dremio.service.coordinator.DistributedSemaphore;
+import com.dremio.service.coordinator.DistributedSemaphore.DistributedLease;
 import com.dremio.service.coordinator.ElectionListener;
 import com.dremio.service.coordinator.ServiceSet.RegistrationHandle;
 import com.dremio.test.DremioTest;
@@ -226,6 +232,51 @@ public class TestZKClusterClient extends DremioTest {
     }
   }
 
+  @Test
+  public void testSemaphoreMultiplePermits() throws Exception {
+    try(ZKClusterClient client = new ZKClusterClient(DEFAULT_SABOT_CONFIG,
+        String.format("%s/dremio/test/test-cluster-id", zooKeeperServer.getConnectString()))
+    ) {
+      client.start();
+      final DistributedSemaphore semaphore = client.getSemaphore("test-semaphore", 10);
+
+      final DistributedLease first = semaphore.acquire(6, 5, TimeUnit.SECONDS);
+      assertNotNull(first);
+      // not enough permits left, and the failed acquisition doesn't keep the ones it took
+      assertNull(semaphore.acquire(6, 100, TimeUnit.MILLISECONDS));
+      final DistributedLease second = semaphore.acquire(4, 5, TimeUnit.SECONDS);
+      assertNotNull(second);
+      second.close();
+      first.close();
+
+      // concurrent acquisitions of most of the permits never wait on each other's partial leases
+      final CountDownLatch start = new CountDownLatch(1);
+      final Callable<Boolean> acquisition = new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          start.await();
+          final DistributedLease lease = semaphore.acquire(6, 10, TimeUnit.SECONDS);
+          if (lease == null) {
+            return false;
+          }
+          lease.close();
+          return true;
+        }
+      };
+
+      final ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+        final Future<Boolean> acquisition1 = executor.submit(acquisition);
+        final Future<Boolean> acquisition2 = executor.submit(acquisition);
+        start.countDown();
+        assertTrue("First acquisition timed out", acquisition1.get());
+        assertTrue("Second acquisition timed out", acquisition2.get());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+  }
+
   @Test
   public void testElectionSuspended() throws Exception {
     final CountDownLatch elected = new CountDownLatch(1);
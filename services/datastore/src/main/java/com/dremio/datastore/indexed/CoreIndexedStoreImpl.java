@@ -50,6 +50,9 @@ import com.dremio.datastore.SearchTypes.SortOrder;
  */
 public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
 
+  // number of documents written to the index at once when reindexing
+  private static final int REINDEX_BATCH_SIZE = 1000;
+
   private final CoreKVStore<K, V> base;
   private final DocumentConverter<K, V> converter;
   private final LuceneSearchIndex index;
@@ -73,10 +76,21 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
     int elementCount = 0;
 
     index.delete();
+    final List<Document> documents = new ArrayList<>(REINDEX_BATCH_SIZE);
     for (Entry<KVStoreTuple<K>, KVStoreTuple<V>> entry:iter) {
-      index(entry.getKey(), entry.getValue());
+      final Document document = toDoc(entry.getKey(), entry.getValue());
+      if (document != null) {
+        documents.add(document);
+        if (documents.size() == REINDEX_BATCH_SIZE) {
+          index.addDocuments(documents);
+          documents.clear();
+        }
+      }
       elementCount++;
     }
+    if (!documents.isEmpty()) {
+      index.addDocuments(documents);
+    }
     return elementCount;
   }
 
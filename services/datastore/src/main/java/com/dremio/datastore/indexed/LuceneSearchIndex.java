@@ -19,17 +19,28 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TrackingIndexWriter;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
@@ -55,6 +66,12 @@ public class LuceneSearchIndex implements AutoCloseable {
   //delay between end of a commit and next commit
   private static final long COMMIT_FREQUENCY = Integer.getInteger("dremio.lucene.commit_frequency", 60_000);
 
+  // maximum delay between a write and the searcher reopen making it visible, when no search is waiting for it
+  private static final long REFRESH_MAX_STALE = Integer.getInteger("dremio.lucene.refresh_max_stale", 1_000);
+
+  // minimum delay between two searcher reopens when a search is waiting for a write. By default a waiting search
+  // makes the reopen thread refresh right away.
+  private static final long REFRESH_MIN_STALE = Integer.getInteger("dremio.lucene.refresh_min_stale", 0);
 
   /**
    * Starts a thread that will commit the writer every 60s (by default), if any exception is thrown during commit it will
@@ -95,6 +112,13 @@ public class LuceneSearchIndex implements AutoCloseable {
 
         try (WarningTimer watch = new WarningTimer("LuceneSearchIndex commit", 5000)) {
           try {
+            // don't commit half of a bulk update
+            refreshLock.writeLock().lock();
+            try {
+              writer.prepareCommit();
+            } finally {
+              refreshLock.writeLock().unlock();
+            }
             writer.commit();
           } catch (Throwable e) {
             commitException = e;
@@ -124,9 +148,18 @@ public class LuceneSearchIndex implements AutoCloseable {
   private final CommitterThread committerThread;
 
   private final IndexWriter writer;
+  private final TrackingIndexWriter trackingWriter;
   private final BaseDirectory directory;
-  private final DirectoryReader reader;
   private final SearcherManager searcherManager;
+  private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+  // generation of the latest write, searches wait for the searcher to include it
+  private final AtomicLong writeGeneration = new AtomicLong(-1);
+  // held by bulk updates, which delete and then add documents, so that the searcher is never reopened and the index
+  // never committed in between
+  private final ReadWriteLock refreshLock = new ReentrantReadWriteLock();
+  // single document updates waiting to be written by the next bulk update
+  private final Queue<PendingUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock pendingUpdatesLock = new ReentrantLock();
   private final String name;
 
   public LuceneSearchIndex(final String localStorageDir, final String name, boolean inMemory) {
@@ -162,8 +195,27 @@ public class LuceneSearchIndex implements AutoCloseable {
 
       writer = new IndexWriter(directory, writerConfig);
       writer.commit();
+      trackingWriter = new TrackingIndexWriter(writer);
       searcherManager = new SearcherManager(writer, true, null);
-      reader = DirectoryReader.open(writer, true);
+      searcherManager.addListener(new ReferenceManager.RefreshListener() {
+        @Override
+        public void beforeRefresh() {
+          refreshLock.writeLock().lock();
+        }
+
+        @Override
+        public void afterRefresh(boolean didRefresh) {
+          refreshLock.writeLock().unlock();
+        }
+      });
+
+      // reopen the searcher in the background, so that writes never refresh it themselves and concurrent searches
+      // share a single refresh.
+      reopenThread = new ControlledRealTimeReopenThread<>(trackingWriter, searcherManager,
+          REFRESH_MAX_STALE / 1000.0d, REFRESH_MIN_STALE / 1000.0d);
+      reopenThread.setName("LuceneSearchIndex:reopen:" + name);
+      reopenThread.setDaemon(true);
+      reopenThread.start();
 
       committerThread = new CommitterThread();
     } catch(IOException ex){
@@ -171,43 +223,127 @@ public class LuceneSearchIndex implements AutoCloseable {
     }
   }
 
+  /**
+   * Wait until the searcher includes all the writes that completed so far. The searcher is reopened by the reopen
+   * thread, which wakes up early when a search is waiting.
+   */
   private void checkIfChanged() {
-    try{
-      if (!reader.isCurrent()) {
-        searcherManager.maybeRefreshBlocking();
-      }
-    }catch(IOException ex){
+    final long generation = writeGeneration.get();
+    if (generation < 0) {
+      return;
+    }
+
+    try {
+      reopenThread.waitForGeneration(generation);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
       throw Throwables.propagate(ex);
     }
   }
 
+  private void written(long generation) {
+    long current = writeGeneration.get();
+    while (current < generation && !writeGeneration.compareAndSet(current, generation)) {
+      current = writeGeneration.get();
+    }
+  }
+
   public void add(Document document) {
     committerThread.throwExceptionIfAny();
     Preconditions.checkNotNull(document.getField(IndexedStore.ID_FIELD_NAME));
     try{
-      writer.addDocument(document);
+      written(trackingWriter.addDocument(document));
     } catch(IOException ex) {
       throw Throwables.propagate(ex);
     }
   }
 
   public void addMany(Document... documents) {
+    addDocuments(ImmutableList.copyOf(documents));
+  }
+
+  /**
+   * Add several documents at once. Cheaper than adding them one at a time, as the index writer is only entered once.
+   * @param documents documents to add.
+   */
+  public void addDocuments(Iterable<Document> documents) {
     committerThread.throwExceptionIfAny();
+    for (Document d : documents) {
+      Preconditions.checkNotNull(d.getField(IndexedStore.ID_FIELD_NAME));
+    }
     try{
-      for(Document d : documents){
-        writer.addDocument(d);
-      }
+      written(trackingWriter.addDocuments(documents));
     } catch(IOException ex) {
       throw Throwables.propagate(ex);
     }
   }
 
+  /**
+   * Replace the documents matching a term. Concurrent updates are written together: the update is queued, and the
+   * first writer to get the queue writes all the queued updates as one bulk update.
+   */
   public void update(Term term, Document document) {
     committerThread.throwExceptionIfAny();
+    final PendingUpdate update = new PendingUpdate(term, document);
+    pendingUpdates.add(update);
+
+    pendingUpdatesLock.lock();
+    try {
+      if (!update.done) {
+        writePendingUpdates();
+      }
+    } finally {
+      pendingUpdatesLock.unlock();
+    }
+
+    if (update.failure != null) {
+      throw Throwables.propagate(update.failure);
+    }
+  }
+
+  private void writePendingUpdates() {
+    final List<PendingUpdate> updates = new ArrayList<>();
+    // later updates of a term replace the earlier ones
+    final Map<Term, Document> documents = new LinkedHashMap<>();
+    PendingUpdate update;
+    while ((update = pendingUpdates.poll()) != null) {
+      updates.add(update);
+      documents.remove(update.term);
+      documents.put(update.term, update.document);
+    }
+
+    Throwable failure = null;
+    try {
+      updateDocuments(documents);
+    } catch (Throwable t) {
+      failure = t;
+    }
+
+    for (PendingUpdate written : updates) {
+      written.failure = failure;
+      written.done = true;
+    }
+  }
+
+  /**
+   * Update several documents, each one replacing the documents matching its term. The documents are written with a
+   * single delete and a single add, and searches see either none or all of them.
+   * @param documents documents to write, by the term identifying the documents they replace.
+   */
+  public void updateDocuments(Map<Term, Document> documents) {
+    committerThread.throwExceptionIfAny();
+    if (documents.isEmpty()) {
+      return;
+    }
+
+    refreshLock.readLock().lock();
     try {
-      writer.updateDocument(term, document);
+      trackingWriter.deleteDocuments(documents.keySet().toArray(new Term[documents.size()]));
+      written(trackingWriter.addDocuments(documents.values()));
     } catch(IOException ex) {
       throw Throwables.propagate(ex);
+    } finally {
+      refreshLock.readLock().unlock();
     }
   }
 
@@ -319,6 +455,7 @@ public class LuceneSearchIndex implements AutoCloseable {
 
   @Override
   public void close() throws IOException {
+    reopenThread.close();
     committerThread.close();
 
     // commit will fail if writer is closed
@@ -329,21 +466,26 @@ public class LuceneSearchIndex implements AutoCloseable {
       writer.close();
     }
     searcherManager.close();
-    reader.close();
   }
 
   public int getLiveRecords() {
-    return reader.numDocs();
+    checkIfChanged();
+    try (Searcher searcher = acquireSearcher()) {
+      return searcher.getIndexReader().numDocs();
+    }
   }
 
   public int getDeletedRecords() {
-    return reader.numDeletedDocs();
+    checkIfChanged();
+    try (Searcher searcher = acquireSearcher()) {
+      return searcher.getIndexReader().numDeletedDocs();
+    }
   }
 
   public void deleteDocuments(Term key) {
     committerThread.throwExceptionIfAny();
     try {
-      writer.deleteDocuments(key);
+      written(trackingWriter.deleteDocuments(key));
     } catch (IOException ex) {
       throw Throwables.propagate(ex);
     }
@@ -352,13 +494,29 @@ public class LuceneSearchIndex implements AutoCloseable {
   public void delete() {
     committerThread.throwExceptionIfAny();
     try {
-      writer.deleteAll();
+      written(trackingWriter.deleteAll());
       writer.commit();
     } catch(Exception ex){
       throw Throwables.propagate(ex);
     }
   }
 
+  /**
+   * A single document update, waiting to be written with the other concurrent updates.
+   */
+  private static final class PendingUpdate {
+    private final Term term;
+    private final Document document;
+    // set under the pending updates lock, and read once the updating thread got it
+    private boolean done;
+    private Throwable failure;
+
+    private PendingUpdate(Term term, Document document) {
+      this.term = term;
+      this.document = document;
+    }
+  }
+
   /**
    * Class that describes the relevant information to map index items to the KVStore.
    */
@@ -425,6 +583,10 @@ public class LuceneSearchIndex implements AutoCloseable {
       }
     }
 
+    public IndexReader getIndexReader() {
+      return searcher.getIndexReader();
+    }
+
     public int count(Query q) {
       try {
         return searcher.count(q);
@@ -446,7 +608,7 @@ public class LuceneSearchIndex implements AutoCloseable {
   @VisibleForTesting
   public void deleteEverything() throws IOException{
     committerThread.throwExceptionIfAny();
-    writer.deleteAll();
+    written(trackingWriter.deleteAll());
     writer.commit();
   }
 }
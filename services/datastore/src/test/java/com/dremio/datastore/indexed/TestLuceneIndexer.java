@@ -18,9 +18,13 @@ package com.dremio.datastore.indexed;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -43,6 +47,7 @@ import org.junit.rules.TemporaryFolder;
 
 import com.dremio.datastore.IndexedStore;
 import com.dremio.datastore.SearchQueryUtils;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 /**
@@ -239,6 +244,72 @@ public class TestLuceneIndexer {
     }
   }
 
+  private static Document userDoc(String id, String user) {
+    final Document doc = new Document();
+    doc.add(new StringField(IndexedStore.ID_FIELD_NAME, new BytesRef(id.getBytes()), Store.YES));
+    doc.add(new StringField("user", user, Field.Store.YES));
+    return doc;
+  }
+
+  @Test
+  public void testBulkWrites() throws Exception {
+    try (LuceneSearchIndex index = new LuceneSearchIndex("", "bulk", true)) {
+      final List<Document> documents = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        documents.add(userDoc(Integer.toString(i), "u" + (i % 2)));
+      }
+      index.addDocuments(documents);
+
+      // writes are visible to the next search, even if the searcher was not reopened yet
+      assertEquals(50, index.count(new TermQuery(new Term("user", "u0"))));
+      assertEquals(50, index.count(new TermQuery(new Term("user", "u1"))));
+      assertEquals(100, index.getLiveRecords());
+
+      index.updateDocuments(ImmutableMap.of(
+          new Term(IndexedStore.ID_FIELD_NAME, new BytesRef("0".getBytes())), userDoc("0", "u2"),
+          new Term(IndexedStore.ID_FIELD_NAME, new BytesRef("1".getBytes())), userDoc("1", "u2")));
+      assertEquals(49, index.count(new TermQuery(new Term("user", "u0"))));
+      assertEquals(49, index.count(new TermQuery(new Term("user", "u1"))));
+      assertEquals(2, index.count(new TermQuery(new Term("user", "u2"))));
+      assertEquals(100, index.getLiveRecords());
+
+      index.delete();
+      assertEquals(0, index.count(new TermQuery(new Term("user", "u2"))));
+      assertEquals(0, index.getLiveRecords());
+    }
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    try (LuceneSearchIndex index = new LuceneSearchIndex("", "concurrent", true)) {
+      final ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+          final String id = Integer.toString(i);
+          futures.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+              final Term term = new Term(IndexedStore.ID_FIELD_NAME, new BytesRef(id.getBytes()));
+              for (int j = 0; j < 10; j++) {
+                index.update(term, userDoc(id, "u" + j));
+              }
+            }
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+
+      // updates written in the same batch replace each other
+      assertEquals(100, index.count(new TermQuery(new Term("user", "u9"))));
+      assertEquals(100, index.getLiveRecords());
+    }
+  }
+
   @Test
   public void testIndexClose() throws Exception {
     try (LuceneSearchIndex index = new LuceneSearchIndex(folder.getRoot(), "close", false)) {
@@ -121,6 +121,7 @@ class FabricClient extends BasicClient<RpcType, FabricConnection, FabricHandshak
   @Override
   protected void finalizeConnection(FabricHandshake handshake, FabricConnection connection) {
     connection.setIdentity(handshake.getIdentity());
+    connection.setSupportsExchangeCompression(handshake.getSupportsExchangeCompression());
   }
 
   @Override
@@ -41,6 +41,7 @@ class FabricConnection extends RemoteConnection implements PhysicalConnection {
   private final RpcBus<RpcType, FabricConnection> bus;
   private final BufferAllocator allocator;
   private volatile FabricIdentity identity;
+  private volatile boolean supportsExchangeCompression;
   private final UUID id;
 
   private volatile ProxyCloseHandler proxyCloseHandler;
@@ -65,6 +66,17 @@ class FabricConnection extends RemoteConnection implements PhysicalConnection {
     return identity;
   }
 
+  void setSupportsExchangeCompression(boolean supportsExchangeCompression) {
+    this.supportsExchangeCompression = supportsExchangeCompression;
+  }
+
+  /**
+   * Whether the remote node advertised, in its handshake, that it accepts compressed record batches.
+   */
+  public boolean supportsExchangeCompression() {
+    return supportsExchangeCompression;
+  }
+
   @Override
   public <SEND extends MessageLite, RECEIVE extends MessageLite> void send(
       RpcOutcomeListener<RECEIVE> outcomeListener,
@@ -50,6 +50,7 @@ final class FabricConnectionManager extends ReconnectingConnection<FabricConnect
         FabricHandshake.newBuilder()
           .setRpcVersion(FabricRpcConfig.RPC_VERSION)
           .setIdentity(localIdentity)
+          .setSupportsExchangeCompression(true)
           .build(),
         remoteIdentity.getAddress(),
         remoteIdentity.getPort());
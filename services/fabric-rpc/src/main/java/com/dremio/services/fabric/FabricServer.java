@@ -110,6 +110,7 @@ class FabricServer extends BasicServer<RpcType, FabricConnection>{
           throw new RpcException(String.format("RPC didn't provide valid counter identity.  Received %s.", inbound.getIdentity()));
         }
         connection.setIdentity(inbound.getIdentity());
+        connection.setSupportsExchangeCompression(inbound.getSupportsExchangeCompression());
 
         final boolean isLoopback = inbound.getIdentity().getAddress().equals(address) && inbound.getIdentity().getPort() == port;
 
@@ -123,7 +124,10 @@ class FabricServer extends BasicServer<RpcType, FabricConnection>{
           manager.addExternalConnection(connection);
         }
 
-        return FabricHandshake.newBuilder().setRpcVersion(FabricRpcConfig.RPC_VERSION).build();
+        return FabricHandshake.newBuilder()
+            .setRpcVersion(FabricRpcConfig.RPC_VERSION)
+            .setSupportsExchangeCompression(true)
+            .build();
       }
 
     };
@@ -54,6 +54,13 @@ public class ProxyConnection extends RemoteConnection {
     return connection.getAllocator();
   }
 
+  /**
+   * Whether the remote node accepts record batches with compressed buffers.
+   */
+  public boolean supportsExchangeCompression() {
+    return connection.supportsExchangeCompression();
+  }
+
   public <SEND extends MessageLite, RECEIVE extends MessageLite> void send(
       RpcOutcomeListener<RECEIVE> outcomeListener,
       EnumLite rpcType,
@@ -57,6 +57,7 @@ import com.dremio.exec.store.easy.arrow.ArrowFileFormat;
 import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
 import com.dremio.exec.store.easy.arrow.ArrowRecordBatchSummary;
 import com.dremio.sabot.op.sort.external.RecordBatchData;
+import com.dremio.service.job.proto.JobId;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -71,14 +72,26 @@ class ArrowFileReader implements AutoCloseable {
   private final Path basePath;
   private final ArrowFileMetadata metadata;
   private final BufferAllocator allocator;
+  private final JobId jobId;
+  private final JobResultsBatchCache cache;
 
   private FSDataInputStream inputStream;
 
   ArrowFileReader(final FileSystem dfs, Path basePath, final ArrowFileMetadata metadata, final BufferAllocator allocator) {
+    this(dfs, basePath, metadata, allocator, null, null);
+  }
+
+  /**
+   * Create a reader that looks up batches in the given cache first, and only opens the file if some are missing.
+   */
+  ArrowFileReader(final FileSystem dfs, Path basePath, final ArrowFileMetadata metadata, final BufferAllocator allocator,
+      final JobId jobId, final JobResultsBatchCache cache) {
     this.dfs = dfs;
     this.basePath = basePath;
     this.metadata = metadata;
     this.allocator = allocator;
+    this.jobId = jobId;
+    this.cache = cache;
   }
 
   private void openFile() throws IOException {
@@ -137,8 +150,6 @@ class ArrowFileReader implements AutoCloseable {
         "Invalid start index (%s) and limit (%s) combination. Record count in file (%s)",
         start, limit, metadata.getRecordCount());
 
-    openFile();
-
     final VectorAccessibleSerializable vectorAccessibleSerializable = new VectorAccessibleSerializable(allocator);
     final List<RecordBatchHolder> batches = Lists.newArrayList();
     final ArrowFileFooter footer = metadata.getFooter();
@@ -163,10 +174,7 @@ class ArrowFileReader implements AutoCloseable {
 
       final long currentBatchCount = batchSummary.getRecordCount();
 
-      // Seek to the place where the batch starts and read
-      inputStream.seek(batchSummary.getOffset());
-      vectorAccessibleSerializable.readFromStream(inputStream);
-      final VectorContainer vectorContainer = vectorAccessibleSerializable.get();
+      final VectorContainer vectorContainer = readBatch(batchIndex, batchSummary, vectorAccessibleSerializable);
 
       // Find the start and end indices within the batch.
       final int batchStart = Math.max(0, (int) (start - (runningCount - currentBatchCount)));
@@ -201,6 +209,29 @@ class ArrowFileReader implements AutoCloseable {
     return batches;
   }
 
+  private VectorContainer readBatch(int batchIndex, ArrowRecordBatchSummary batchSummary,
+      VectorAccessibleSerializable vectorAccessibleSerializable) throws IOException {
+    final String path = metadata.getPath();
+    if (cache != null) {
+      final VectorContainer cached = cache.get(jobId, path, batchIndex, allocator);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    if (inputStream == null) {
+      openFile();
+    }
+
+    // Seek to the place where the batch starts and read
+    inputStream.seek(batchSummary.getOffset());
+    if (cache != null) {
+      return cache.load(jobId, path, batchIndex, inputStream, allocator);
+    }
+    vectorAccessibleSerializable.readFromStream(inputStream);
+    return vectorAccessibleSerializable.get();
+  }
+
   @Override
   public void close() throws IOException {
     if (inputStream != null) {
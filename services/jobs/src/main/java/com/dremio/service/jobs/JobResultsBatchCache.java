@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2017 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.SerializedFieldHelper;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.proto.UserBitShared.RecordBatchDef;
+import com.dremio.exec.proto.UserBitShared.SerializedField;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.metrics.Metrics;
+import com.dremio.service.job.proto.JobId;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+import io.netty.buffer.ArrowBuf;
+
+/**
+ * Off-heap cache of the batches read from job results files, keyed by job, file and batch index. Batches are kept
+ * decoded in buffers of the cache allocator, and handed out as vectors sharing those buffers, so that paging through
+ * the results of a job doesn't read and decode the same batches again. The cache is bounded by the size of the batches
+ * it holds and evicts the least recently used ones first.
+ */
+class JobResultsBatchCache implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JobResultsBatchCache.class);
+
+  private static final MetricRegistry metrics = Metrics.getInstance();
+  private static final Counter HITS = metrics.counter(MetricRegistry.name(JobResultsBatchCache.class, "hits"));
+  private static final Counter MISSES = metrics.counter(MetricRegistry.name(JobResultsBatchCache.class, "misses"));
+
+  private static final int READ_BUFFER_SIZE = 32 * 1024;
+
+  private final BufferAllocator allocator;
+  private final Cache<BatchKey, CachedBatch> cache;
+
+  JobResultsBatchCache(BufferAllocator parent, long maxSize) {
+    // the cache bounds the memory of the batches it holds, but batches evicted while still in use stay charged to
+    // the cache allocator until released.
+    this.allocator = parent.newChildAllocator("job-results-cache", 0, Long.MAX_VALUE);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSize)
+        .weigher(new Weigher<BatchKey, CachedBatch>() {
+          @Override
+          public int weigh(BatchKey key, CachedBatch value) {
+            return (int) Math.min(Integer.MAX_VALUE, value.size);
+          }
+        })
+        .removalListener(new RemovalListener<BatchKey, CachedBatch>() {
+          @Override
+          public void onRemoval(RemovalNotification<BatchKey, CachedBatch> notification) {
+            notification.getValue().release();
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Get a cached batch.
+   * @param jobId job of the results file.
+   * @param path path of the results file.
+   * @param batchIndex index of the batch in the file.
+   * @param target allocator of the returned container.
+   * @return a container sharing the buffers of the cached batch, or null if the batch isn't cached.
+   */
+  VectorContainer get(JobId jobId, String path, int batchIndex, BufferAllocator target) {
+    final CachedBatch batch = cache.getIfPresent(new BatchKey(jobId, path, batchIndex));
+    final VectorContainer container = batch != null ? batch.newContainer(target) : null;
+    if (container != null) {
+      HITS.inc();
+    } else {
+      MISSES.inc();
+    }
+    return container;
+  }
+
+  /**
+   * Read a batch from a results file and cache it.
+   * @param jobId job of the results file.
+   * @param path path of the results file.
+   * @param batchIndex index of the batch in the file.
+   * @param input stream positioned at the start of the batch.
+   * @param target allocator of the returned container.
+   * @return a container sharing the buffers of the cached batch.
+   * @throws IOException if the batch could not be read.
+   */
+  VectorContainer load(JobId jobId, String path, int batchIndex, InputStream input, BufferAllocator target)
+      throws IOException {
+    final CachedBatch batch = read(input);
+    try {
+      final VectorContainer container = batch.newContainer(target);
+      cache.put(new BatchKey(jobId, path, batchIndex), batch);
+      return container;
+    } catch (RuntimeException e) {
+      batch.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Drop the cached batches of a job, once its results are deleted.
+   * @param jobId the job.
+   */
+  void invalidate(JobId jobId) {
+    final Iterator<BatchKey> keys = cache.asMap().keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().jobId.equals(jobId)) {
+        keys.remove();
+      }
+    }
+  }
+
+  private CachedBatch read(InputStream input) throws IOException {
+    final RecordBatchDef batchDef = RecordBatchDef.parseDelimitedFrom(input);
+    Preconditions.checkState(!batchDef.getCarriesTwoByteSelectionVector(),
+        "Job results batches with a selection vector can't be cached.");
+
+    final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    final List<ArrowBuf> buffers = new ArrayList<>(batchDef.getFieldCount());
+    long size = 0;
+    try {
+      for (SerializedField field : batchDef.getFieldList()) {
+        final ArrowBuf buf = allocator.buffer(field.getBufferLength());
+        buffers.add(buf);
+        VectorAccessibleSerializable.readIntoArrowBuf(input, buf, field.getBufferLength(), readBuffer);
+        size += buf.capacity();
+      }
+    } catch (IOException | RuntimeException e) {
+      for (ArrowBuf buf : buffers) {
+        buf.release();
+      }
+      throw e;
+    }
+    return new CachedBatch(batchDef.getRecordCount(), batchDef.getFieldList(), buffers, size);
+  }
+
+  @Override
+  public void close() throws Exception {
+    cache.invalidateAll();
+    cache.cleanUp();
+    if (allocator.getAllocatedMemory() > 0) {
+      logger.warn("Closing job results cache while {} bytes of cached batches are still in use.",
+          allocator.getAllocatedMemory());
+    }
+    allocator.close();
+  }
+
+  private static final class BatchKey {
+    private final JobId jobId;
+    private final String path;
+    private final int batchIndex;
+
+    private BatchKey(JobId jobId, String path, int batchIndex) {
+      this.jobId = jobId;
+      this.path = path;
+      this.batchIndex = batchIndex;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(jobId, path, batchIndex);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof BatchKey)) {
+        return false;
+      }
+      final BatchKey other = (BatchKey) obj;
+      return batchIndex == other.batchIndex && jobId.equals(other.jobId) && path.equals(other.path);
+    }
+  }
+
+  /**
+   * A decoded batch, one buffer per top level field. Containers handed out load slices of the buffers, which keep
+   * them alive until both the containers are cleared and the batch is evicted.
+   */
+  private static final class CachedBatch {
+    private final int recordCount;
+    private final List<SerializedField> fields;
+    private final List<ArrowBuf> buffers;
+    private final long size;
+    private boolean released;
+
+    private CachedBatch(int recordCount, List<SerializedField> fields, List<ArrowBuf> buffers, long size) {
+      this.recordCount = recordCount;
+      this.fields = fields;
+      this.buffers = buffers;
+      this.size = size;
+    }
+
+    private synchronized VectorContainer newContainer(BufferAllocator target) {
+      if (released) {
+        // evicted between lookup and use.
+        return null;
+      }
+
+      final List<ValueVector> vectors = new ArrayList<>(fields.size());
+      try {
+        for (int i = 0; i < fields.size(); i++) {
+          final SerializedField field = fields.get(i);
+          final ValueVector vector = TypeHelper.getNewVector(SerializedFieldHelper.create(field), target);
+          vectors.add(vector);
+          TypeHelper.load(vector, field, buffers.get(i));
+        }
+      } catch (RuntimeException e) {
+        for (ValueVector vector : vectors) {
+          vector.clear();
+        }
+        throw e;
+      }
+
+      final VectorContainer container = new VectorContainer();
+      container.addCollection(vectors);
+      container.buildSchema();
+      container.setRecordCount(recordCount);
+      return container;
+    }
+
+    private synchronized void release() {
+      if (released) {
+        return;
+      }
+      released = true;
+      for (ArrowBuf buf : buffers) {
+        buf.release();
+      }
+    }
+  }
+}
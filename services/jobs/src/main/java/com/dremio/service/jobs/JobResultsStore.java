@@ -28,6 +28,7 @@ import org.apache.arrow.memory.BufferAllocator;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.perf.Timer.TimedBlock;
 import com.dremio.common.utils.PathUtils;
@@ -68,15 +69,20 @@ public class JobResultsStore implements Service {
   private final Set<FinalizableReference> jobResultReferences = Sets.newConcurrentHashSet();
   private final LoadingCache<JobId, JobData> jobResults;
   private final IndexedStore<JobId, JobResult> store;
+  private final JobResultsBatchCache batchCache;
 
+  /**
+   * @param cacheSize maximum size in bytes of the batches read from job results kept in memory, 0 to disable caching.
+   */
   public JobResultsStore(final FileSystemPlugin plugin, final IndexedStore<JobId, JobResult> store,
-      final BufferAllocator allocator) throws IOException {
+      final BufferAllocator allocator, long cacheSize) throws IOException {
     this.storageName = plugin.getName();
     this.dfs = plugin.getFS(ImpersonationUtil.getProcessUserName());
     this.jobStoreLocation = new Path(plugin.getId().<FileSystemConfig>getConfig().getPath());
     this.dfs.mkdirs(jobStoreLocation);
     this.store = store;
     this.allocator = allocator;
+    this.batchCache = cacheSize > 0 ? new JobResultsBatchCache(allocator, cacheSize) : null;
 
     this.jobResults = CacheBuilder.newBuilder()
         .maximumSize(100)
@@ -97,6 +103,9 @@ public class JobResultsStore implements Service {
   }
 
   public boolean cleanup(JobId jobId) {
+    if (batchCache != null) {
+      batchCache.invalidate(jobId);
+    }
     final Path jobOutputDir = getJobOutputDir(jobId);
     try {
       if (dfs.exists(jobOutputDir)) {
@@ -198,7 +207,8 @@ public class JobResultsStore implements Service {
       if (resultFilesToRead.isEmpty()) {
         // when the query returns no results at all or the requested range is invalid, return an empty record batch
         // for metadata purposes.
-        try (ArrowFileReader fileReader = new ArrowFileReader(dfs, jobOutputDir, resultMetadata.get(0), allocator)) {
+        try (ArrowFileReader fileReader = new ArrowFileReader(dfs, jobOutputDir, resultMetadata.get(0), allocator,
+            jobId, batchCache)) {
           batchHolders.addAll(fileReader.read(0, 0));
         }
       } else {
@@ -213,7 +223,8 @@ public class JobResultsStore implements Service {
           // Min of remaining records in file or remaining records in total to read.
           final long fileLimit = Math.min(file.getRecordCount() - fileOffset, remaining);
 
-          try (ArrowFileReader fileReader = new ArrowFileReader(dfs, jobOutputDir, file, allocator)) {
+          try (ArrowFileReader fileReader = new ArrowFileReader(dfs, jobOutputDir, file, allocator,
+              jobId, batchCache)) {
             batchHolders.addAll(fileReader.read(fileOffset, fileLimit));
             remaining -= fileLimit;
           }
@@ -285,5 +296,7 @@ public class JobResultsStore implements Service {
 
       ref.finalizeReferent();
     }
+
+    AutoCloseables.close(batchCache);
   }
 }
@@ -253,7 +253,8 @@ public class LocalJobsService implements JobsService {
 
     final FileSystemPlugin fileSystemPlugin = fileSystemPluginProvider.get();
     this.storageName = fileSystemPlugin.getName();
-    this.jobResultsStore = new JobResultsStore(fileSystemPlugin, store, allocator);
+    this.jobResultsStore = new JobResultsStore(fileSystemPlugin, store, allocator,
+        contextProvider.get().getOptionManager().getOption(ExecConstants.RESULTS_CACHE_SIZE));
 
     if (isMaster) { // if Dremio process died, clean up
       final Set<Entry<JobId, JobResult>> apparentlyAbandoned =
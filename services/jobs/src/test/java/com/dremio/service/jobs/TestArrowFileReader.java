@@ -18,6 +18,7 @@ package com.dremio.service.jobs;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -65,6 +66,7 @@ import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
 import com.dremio.exec.store.easy.arrow.ArrowFormatPluginConfig;
 import com.dremio.exec.store.easy.arrow.ArrowRecordWriter;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.service.job.proto.JobId;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 
@@ -364,6 +366,40 @@ public class TestArrowFileReader {
     }
   }
 
+  @Test
+  public void readingCachedBatches() throws Exception {
+    try (final VectorContainer batchData = createBatch(5, testBitVector(), testVarCharVector());
+         final JobResultsBatchCache cache = new JobResultsBatchCache(ALLOCATOR, 1024 * 1024)) {
+      final Path basePath = new Path(dateGenFolder.getRoot().getPath());
+      final ArrowFileMetadata metadata = writeArrowFile(batchData);
+      final JobId jobId = new JobId("cached");
+
+      try (final ArrowFileReader reader =
+               new ArrowFileReader(FileSystem.get(FS_CONF), basePath, metadata, ALLOCATOR, jobId, cache)) {
+        final List<RecordBatchHolder> batchHolders = reader.read(0, 5);
+        verifyBatchHolder(batchHolders.get(0), 0, 5);
+        releaseBatches(batchHolders);
+      }
+
+      // once cached, the batch is read without opening the file.
+      FileSystem.get(FS_CONF).delete(new Path(basePath, metadata.getPath()), false);
+      try (final ArrowFileReader reader =
+               new ArrowFileReader(FileSystem.get(FS_CONF), basePath, metadata, ALLOCATOR, jobId, cache)) {
+        final List<RecordBatchHolder> batchHolders = reader.read(1, 3);
+        assertEquals(1, batchHolders.size());
+        verifyBatchHolder(batchHolders.get(0), 1, 4);
+
+        final VectorContainer batchContainer = batchHolders.get(0).getData().getContainer();
+        assertEquals(TEST_BIT_VALUES.subList(1, 4), getBitValues(batchContainer, 1, 4));
+        assertEquals(TEST_VARCHAR_VALUES.subList(1, 4), getVarCharValues(batchContainer, 1, 4));
+        releaseBatches(batchHolders);
+      }
+
+      cache.invalidate(jobId);
+      assertNull(cache.get(jobId, metadata.getPath(), 0, ALLOCATOR));
+    }
+  }
+
   /** Helper method which creates a test bit vector */
   private static NullableBitVector testBitVector() {
     NullableBitVector colBitV = new NullableBitVector("colBit", ALLOCATOR);